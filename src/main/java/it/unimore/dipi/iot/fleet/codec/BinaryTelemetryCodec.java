@@ -0,0 +1,431 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact fixed layout binary telemetry format (big endian), without any additional dependency.
+ *
+ * Well known message types and location providers are written as a single dictionary code,
+ * other strings are written inline (code 0, unsigned short length, UTF-8 bytes).
+ *
+ * Layout:
+ * - header (byte 0xB1) | kind (byte: 1 single message, 2 batch, 3 sequenced single message, 4 sequenced batch)
+ * - single message: entry
+ * - batch: batch timestamp (long) | batch type (string) | entry count (int) | entries
+ * - entry: timestamp (long) | sequence number (unsigned varint, sequenced kinds only) | type (string) | value tag (byte) | value
+ * - value: none (null) | double (Double values) | latitude, longitude, elevation (double) and provider (string) for GpsLocationDescriptor
+ *
+ * A GPS sample takes 37 bytes and a battery sample 20 bytes, plus 1-3 bytes for the sequence number. Payloads
+ * without sequence numbers keep the unsequenced kinds, so they are unchanged.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:54
+ */
+public class BinaryTelemetryCodec implements TelemetryCodec {
+
+    public static final byte FORMAT_HEADER = (byte) 0xB1;
+
+    private static final byte SINGLE_MESSAGE_KIND = 1;
+
+    private static final byte BATCH_MESSAGE_KIND = 2;
+
+    private static final byte SEQUENCED_SINGLE_MESSAGE_KIND = 3;
+
+    private static final byte SEQUENCED_BATCH_MESSAGE_KIND = 4;
+
+    private static final byte NULL_VALUE_TAG = 0;
+
+    private static final byte DOUBLE_VALUE_TAG = 1;
+
+    private static final byte GPS_LOCATION_VALUE_TAG = 2;
+
+    private static final int INLINE_STRING_CODE = 0;
+
+    private static final int NULL_STRING_CODE = 0xFF;
+
+    //Dictionary codes are the index in the array + 1 and must never be reordered
+    private static final String[] STRING_DICTIONARY = {
+            GpsGpxSensorResource.RESOURCE_TYPE,
+            BatterySensorResource.RESOURCE_TYPE,
+            TelemetryBatchMessage.BATCH_MESSAGE_TYPE,
+            GpsLocationDescriptor.FILE_LOCATION_PROVIDER,
+            GpsLocationDescriptor.GPS_LOCATION_PROVIDER,
+            GpsLocationDescriptor.NETWORK_LOCATION_PROVIDER
+    };
+
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final int PAYLOAD_CACHE_SIZE = 4;
+
+    private final ThreadLocal<EncoderState> encoderState;
+
+    public BinaryTelemetryCodec() {
+        this.encoderState = ThreadLocal.withInitial(EncoderState::new);
+    }
+
+    @Override
+    public TelemetryFormat getFormat() {
+        return TelemetryFormat.BINARY;
+    }
+
+    @Override
+    public byte[] encode(String type, long sequenceNumber, Object dataValue, boolean reusablePayload) throws IOException {
+
+        EncoderState state = this.encoderState.get();
+        boolean isSequenced = (sequenceNumber != TelemetryMessage.NO_SEQUENCE_NUMBER);
+
+        state.reset();
+        state.writeByte(FORMAT_HEADER);
+        state.writeByte(isSequenced ? SEQUENCED_SINGLE_MESSAGE_KIND : SINGLE_MESSAGE_KIND);
+        writeEntry(state, System.currentTimeMillis(), isSequenced, sequenceNumber, type, dataValue);
+
+        return (reusablePayload ? state.copyToCachedPayload() : state.toByteArray());
+    }
+
+    @Override
+    public byte[] encodeBatch(TelemetryBatchMessage<?> batchMessage) throws IOException {
+
+        EncoderState state = this.encoderState.get();
+        List<? extends TelemetryMessage<?>> messageList = (batchMessage.getMessageList() != null ? batchMessage.getMessageList() : Collections.emptyList());
+
+        boolean isSequenced = false;
+        for(TelemetryMessage<?> telemetryMessage : messageList)
+            if(telemetryMessage.getSequenceNumber() != TelemetryMessage.NO_SEQUENCE_NUMBER)
+                isSequenced = true;
+
+        state.reset();
+        state.writeByte(FORMAT_HEADER);
+        state.writeByte(isSequenced ? SEQUENCED_BATCH_MESSAGE_KIND : BATCH_MESSAGE_KIND);
+        state.writeLong(batchMessage.getTimestamp());
+        writeString(state, batchMessage.getType());
+        state.writeInt(messageList.size());
+
+        for(TelemetryMessage<?> telemetryMessage : messageList)
+            writeEntry(state, telemetryMessage.getTimestamp(), isSequenced, telemetryMessage.getSequenceNumber(),
+                    telemetryMessage.getType(), telemetryMessage.getDataValue());
+
+        return state.toByteArray();
+    }
+
+    @Override
+    public <T> List<TelemetryMessage<T>> decode(byte[] payload, Class<T> dataValueClass) throws IOException {
+
+        if(TelemetryFormat.detect(payload) != TelemetryFormat.BINARY)
+            throw new IOException("Missing binary telemetry header !");
+
+        try{
+
+            ByteBuffer buffer = ByteBuffer.wrap(payload, 1, payload.length - 1);
+            byte kind = buffer.get();
+            boolean isSequenced = (kind == SEQUENCED_SINGLE_MESSAGE_KIND || kind == SEQUENCED_BATCH_MESSAGE_KIND);
+
+            if(kind == SINGLE_MESSAGE_KIND || kind == SEQUENCED_SINGLE_MESSAGE_KIND)
+                return Collections.singletonList(readEntry(buffer, isSequenced, dataValueClass));
+
+            if(kind == BATCH_MESSAGE_KIND || kind == SEQUENCED_BATCH_MESSAGE_KIND){
+
+                //Batch timestamp and type are not part of the decoded samples
+                buffer.getLong();
+                readString(buffer);
+                int count = buffer.getInt();
+
+                if(count < 0 || count > buffer.remaining())
+                    throw new IOException(String.format("Invalid batch size: %d", count));
+
+                List<TelemetryMessage<T>> messageList = new ArrayList<>(count);
+                for(int i = 0; i < count; i++)
+                    messageList.add(readEntry(buffer, isSequenced, dataValueClass));
+
+                return messageList;
+            }
+
+            throw new IOException(String.format("Unknown binary telemetry message kind: %d", kind));
+
+        }catch (BufferUnderflowException e){
+            throw new IOException("Truncated binary telemetry payload !", e);
+        }
+    }
+
+    /**
+     * Decode the samples of a binary payload directly into a reusable holder (no message or value object)
+     *
+     * @return the number of decoded samples
+     */
+    public int decode(byte[] payload, TelemetrySample telemetrySample, TelemetrySampleListener telemetrySampleListener) throws IOException {
+
+        if(TelemetryFormat.detect(payload) != TelemetryFormat.BINARY)
+            throw new IOException("Missing binary telemetry header !");
+
+        try{
+
+            ByteBuffer buffer = ByteBuffer.wrap(payload, 1, payload.length - 1);
+            byte kind = buffer.get();
+            boolean isSequenced = (kind == SEQUENCED_SINGLE_MESSAGE_KIND || kind == SEQUENCED_BATCH_MESSAGE_KIND);
+            int count = 1;
+
+            if(kind == BATCH_MESSAGE_KIND || kind == SEQUENCED_BATCH_MESSAGE_KIND){
+
+                buffer.getLong();
+                readString(buffer);
+                count = buffer.getInt();
+
+                if(count < 0 || count > buffer.remaining())
+                    throw new IOException(String.format("Invalid batch size: %d", count));
+            }
+            else if(kind != SINGLE_MESSAGE_KIND && kind != SEQUENCED_SINGLE_MESSAGE_KIND)
+                throw new IOException(String.format("Unknown binary telemetry message kind: %d", kind));
+
+            for(int i = 0; i < count; i++){
+
+                readEntry(buffer, isSequenced, telemetrySample);
+
+                try{
+                    telemetrySampleListener.onSample(telemetrySample);
+                }catch (IOException e){
+                    throw e;
+                }catch (Exception e){
+                    throw new IOException("Error processing telemetry sample !", e);
+                }
+            }
+
+            return count;
+
+        }catch (BufferUnderflowException e){
+            throw new IOException("Truncated binary telemetry payload !", e);
+        }
+    }
+
+    private static void writeEntry(EncoderState state, long timestamp, boolean isSequenced, long sequenceNumber, String type, Object dataValue) throws IOException {
+
+        state.writeLong(timestamp);
+        if(isSequenced)
+            state.writeVarLong(sequenceNumber);
+        writeString(state, type);
+
+        if(dataValue == null)
+            state.writeByte(NULL_VALUE_TAG);
+        else if(dataValue instanceof Number){
+            state.writeByte(DOUBLE_VALUE_TAG);
+            state.writeDouble(((Number) dataValue).doubleValue());
+        }
+        else if(dataValue instanceof GpsLocationDescriptor){
+            GpsLocationDescriptor gpsLocationDescriptor = (GpsLocationDescriptor) dataValue;
+            state.writeByte(GPS_LOCATION_VALUE_TAG);
+            state.writeDouble(gpsLocationDescriptor.getLatitude());
+            state.writeDouble(gpsLocationDescriptor.getLongitude());
+            state.writeDouble(gpsLocationDescriptor.getElevation());
+            writeString(state, gpsLocationDescriptor.getProvider());
+        }
+        else
+            throw new IOException(String.format("Data value %s not supported by the binary telemetry format !", dataValue.getClass().getName()));
+    }
+
+    private static <T> TelemetryMessage<T> readEntry(ByteBuffer buffer, boolean isSequenced, Class<T> dataValueClass) throws IOException {
+
+        long timestamp = buffer.getLong();
+        long sequenceNumber = (isSequenced ? readVarLong(buffer) : TelemetryMessage.NO_SEQUENCE_NUMBER);
+        String type = readString(buffer);
+        byte valueTag = buffer.get();
+
+        Object dataValue;
+
+        if(valueTag == NULL_VALUE_TAG)
+            dataValue = null;
+        else if(valueTag == DOUBLE_VALUE_TAG)
+            dataValue = buffer.getDouble();
+        else if(valueTag == GPS_LOCATION_VALUE_TAG)
+            dataValue = new GpsLocationDescriptor(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), readString(buffer));
+        else
+            throw new IOException(String.format("Unknown binary telemetry value tag: %d", valueTag));
+
+        if(dataValue != null && !dataValueClass.isInstance(dataValue))
+            throw new IOException(String.format("Unexpected data value %s (expected: %s)", dataValue.getClass().getName(), dataValueClass.getName()));
+
+        TelemetryMessage<T> telemetryMessage = new TelemetryMessage<>(timestamp, type, dataValueClass.cast(dataValue));
+        telemetryMessage.setSequenceNumber(sequenceNumber);
+
+        return telemetryMessage;
+    }
+
+    private static void readEntry(ByteBuffer buffer, boolean isSequenced, TelemetrySample telemetrySample) throws IOException {
+
+        telemetrySample.reset();
+        telemetrySample.setTimestamp(buffer.getLong());
+        if(isSequenced)
+            telemetrySample.setSequenceNumber(readVarLong(buffer));
+        telemetrySample.setType(readString(buffer));
+
+        byte valueTag = buffer.get();
+
+        if(valueTag == DOUBLE_VALUE_TAG)
+            telemetrySample.setNumberValue(buffer.getDouble());
+        else if(valueTag == GPS_LOCATION_VALUE_TAG)
+            telemetrySample.setLocationValue(buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), readString(buffer));
+        else if(valueTag != NULL_VALUE_TAG)
+            throw new IOException(String.format("Unknown binary telemetry value tag: %d", valueTag));
+    }
+
+    /**
+     * Unsigned LEB128 decoding (7 bits for each byte, most significant bit set if more bytes follow)
+     */
+    private static long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for(int shift = 0; shift < 64; shift += 7){
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint in binary telemetry payload !");
+    }
+
+    private static void writeString(EncoderState state, String value){
+
+        if(value == null){
+            state.writeByte((byte) NULL_STRING_CODE);
+            return;
+        }
+
+        for(int i = 0; i < STRING_DICTIONARY.length; i++)
+            if(STRING_DICTIONARY[i].equals(value)){
+                state.writeByte((byte) (i + 1));
+                return;
+            }
+
+        byte[] stringBytes = value.getBytes(StandardCharsets.UTF_8);
+
+        if(stringBytes.length > 0xFFFF)
+            throw new IllegalArgumentException("String too long for the binary telemetry format !");
+
+        state.writeByte((byte) INLINE_STRING_CODE);
+        state.writeShort(stringBytes.length);
+        state.writeBytes(stringBytes);
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+
+        int code = buffer.get() & 0xFF;
+
+        if(code == NULL_STRING_CODE)
+            return null;
+
+        if(code == INLINE_STRING_CODE){
+            byte[] stringBytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(stringBytes);
+            return new String(stringBytes, StandardCharsets.UTF_8);
+        }
+
+        if(code > STRING_DICTIONARY.length)
+            throw new IOException(String.format("Unknown binary telemetry string code: %d", code));
+
+        return STRING_DICTIONARY[code - 1];
+    }
+
+    private static class EncoderState {
+
+        private byte[] buffer;
+
+        private int count;
+
+        private final byte[][] payloadCache;
+
+        private int nextCacheSlot;
+
+        private EncoderState() {
+            this.buffer = new byte[INITIAL_BUFFER_SIZE];
+            this.count = 0;
+            this.payloadCache = new byte[PAYLOAD_CACHE_SIZE][];
+            this.nextCacheSlot = 0;
+        }
+
+        private void reset(){
+            this.count = 0;
+        }
+
+        private void ensureCapacity(int length){
+            if(this.count + length > this.buffer.length)
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.count + length));
+        }
+
+        private void writeByte(byte value){
+            ensureCapacity(1);
+            this.buffer[this.count++] = value;
+        }
+
+        private void writeShort(int value){
+            ensureCapacity(2);
+            this.buffer[this.count++] = (byte) (value >>> 8);
+            this.buffer[this.count++] = (byte) value;
+        }
+
+        private void writeInt(int value){
+            ensureCapacity(4);
+            for(int shift = 24; shift >= 0; shift -= 8)
+                this.buffer[this.count++] = (byte) (value >>> shift);
+        }
+
+        private void writeLong(long value){
+            ensureCapacity(8);
+            for(int shift = 56; shift >= 0; shift -= 8)
+                this.buffer[this.count++] = (byte) (value >>> shift);
+        }
+
+        private void writeVarLong(long value){
+            ensureCapacity(10);
+            while((value & ~0x7FL) != 0){
+                this.buffer[this.count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.count++] = (byte) value;
+        }
+
+        private void writeDouble(double value){
+            writeLong(Double.doubleToRawLongBits(value));
+        }
+
+        private void writeBytes(byte[] value){
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, this.buffer, this.count, value.length);
+            this.count += value.length;
+        }
+
+        private byte[] toByteArray(){
+            return Arrays.copyOf(this.buffer, this.count);
+        }
+
+        private byte[] copyToCachedPayload(){
+
+            byte[] payload = null;
+
+            for(byte[] cachedPayload : this.payloadCache)
+                if(cachedPayload != null && cachedPayload.length == this.count){
+                    payload = cachedPayload;
+                    break;
+                }
+
+            if(payload == null){
+                payload = new byte[this.count];
+                this.payloadCache[this.nextCacheSlot] = payload;
+                this.nextCacheSlot = (this.nextCacheSlot + 1) % PAYLOAD_CACHE_SIZE;
+            }
+
+            System.arraycopy(this.buffer, 0, payload, 0, this.count);
+
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stateful delta encoding of a stream of GPS samples (one instance for each vehicle GPS topic,
+ * on both the vehicle and the consumer side).
+ *
+ * Latitude and longitude are quantized to microdegrees and elevation to centimeters. A keyframe
+ * with the full (quantized) location is sent every keyframeInterval samples, the other samples only carry
+ * zig-zag varint deltas from the previous one. Each frame has a sequence number: a delta frame that does
+ * not follow the last decoded frame (e.g. a QoS 0 message has been lost or the consumer joined late) is
+ * discarded until the next keyframe, while a late sequenced delta frame (older than the last decoded one, e.g. from the
+ * previous topic of a geo-partitioned vehicle) is discarded without resetting the stream.
+ *
+ * When the samples carry the sequence number of the vehicle resource (TelemetryMessage) it is used as frame sequence
+ * and the kind has the SEQUENCED_FLAG, so the decoded samples report it. A sample that does not follow the previous
+ * encoded one is sent as a keyframe.
+ *
+ * Layout:
+ * - header (byte 0xB2) | kind (byte: 1 keyframe, 2 delta, 3 batch, | 0x10 if sequenced)
+ * - keyframe: sequence (varint) | timestamp (long) | latitude, longitude, elevation (zig-zag varint) | provider
+ * - provider: varint code (0 null, 1 file, 2 gps, 3 network, 4 inline followed by varint length and UTF-8 bytes)
+ * - delta: sequence (varint) | timestamp, latitude, longitude, elevation deltas (zig-zag varint)
+ * - batch: count (varint) | keyframe | (count - 1) deltas. Batches are self contained and do not use the stream state.
+ *   Each frame of a sequenced batch starts with its sequence number (varint for the first, then zig-zag varint delta)
+ *
+ * Single samples are written into a frame buffer owned by the codec. Reusable payloads are exact size arrays recycled
+ * from a small cache of the codec (as in TelemetryEncoder), otherwise a new copy is returned.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:56
+ */
+public class GpsDeltaTelemetryCodec implements TelemetryCodec {
+
+    public static final byte FORMAT_HEADER = (byte) 0xB2;
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 20;
+
+    private static final byte KEYFRAME_KIND = 1;
+
+    private static final byte DELTA_KIND = 2;
+
+    private static final byte BATCH_KIND = 3;
+
+    private static final byte SEQUENCED_FLAG = 0x10;
+
+    private static final byte KIND_MASK = 0x0F;
+
+    private static final double LOCATION_SCALE = 1e6;
+
+    private static final double ELEVATION_SCALE = 1e2;
+
+    private static final int MAX_FRAME_SIZE = 128;
+
+    private static final int INLINE_PROVIDER_CODE = 4;
+
+    //Number of exact size payload arrays recycled by the codec
+    private static final int PAYLOAD_CACHE_SIZE = 4;
+
+    //Provider codes are the index in the array (0 = null) and must never be reordered
+    private static final String[] PROVIDER_DICTIONARY = {
+            null,
+            GpsLocationDescriptor.FILE_LOCATION_PROVIDER,
+            GpsLocationDescriptor.GPS_LOCATION_PROVIDER,
+            GpsLocationDescriptor.NETWORK_LOCATION_PROVIDER
+    };
+
+    private final int keyframeInterval;
+
+    //Encoding state
+    private final FrameState encoderState;
+
+    private final FrameWriter frameWriter;
+
+    private final byte[][] payloadCache;
+
+    private int nextCacheSlot;
+
+    //Decoding state
+    private final FrameState decoderState;
+
+    private long discardedFrameCount;
+
+    public GpsDeltaTelemetryCodec() {
+        this(DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * @param keyframeInterval number of samples between two keyframes (1 = keyframes only)
+     */
+    public GpsDeltaTelemetryCodec(int keyframeInterval) {
+
+        if(keyframeInterval <= 0)
+            throw new IllegalArgumentException("Keyframe interval must be > 0 !");
+
+        this.keyframeInterval = keyframeInterval;
+        this.encoderState = new FrameState();
+        this.frameWriter = new FrameWriter(MAX_FRAME_SIZE);
+        this.payloadCache = new byte[PAYLOAD_CACHE_SIZE][];
+        this.nextCacheSlot = 0;
+        this.decoderState = new FrameState();
+        this.discardedFrameCount = 0;
+    }
+
+    @Override
+    public TelemetryFormat getFormat() {
+        return TelemetryFormat.GPS_DELTA;
+    }
+
+    @Override
+    public synchronized byte[] encode(String type, long sequenceNumber, Object dataValue, boolean reusablePayload) throws IOException {
+
+        GpsLocationDescriptor gpsLocationDescriptor = toGpsLocationDescriptor(dataValue);
+        FrameWriter frameWriter = this.frameWriter;
+
+        frameWriter.reset();
+        frameWriter.writeByte(FORMAT_HEADER);
+
+        boolean isSequenced = (sequenceNumber != TelemetryMessage.NO_SEQUENCE_NUMBER);
+        long sequence = (isSequenced ? sequenceNumber : (this.encoderState.isValid ? this.encoderState.sequence + 1 : 0));
+
+        boolean isKeyframe = !this.encoderState.isValid ||
+                sequence != this.encoderState.sequence + 1 ||
+                this.encoderState.keyframeDistance >= this.keyframeInterval - 1 ||
+                !sameProvider(this.encoderState.provider, gpsLocationDescriptor.getProvider());
+
+        frameWriter.writeByte((byte) ((isKeyframe ? KEYFRAME_KIND : DELTA_KIND) | (isSequenced ? SEQUENCED_FLAG : 0)));
+        frameWriter.writeVarLong(sequence);
+        writeFrame(frameWriter, this.encoderState, isKeyframe, System.currentTimeMillis(), gpsLocationDescriptor);
+        this.encoderState.sequence = sequence;
+        this.encoderState.keyframeDistance = (isKeyframe ? 0 : this.encoderState.keyframeDistance + 1);
+
+        return (reusablePayload ? copyToCachedPayload(frameWriter) : frameWriter.toByteArray());
+    }
+
+    @Override
+    public byte[] encodeBatch(TelemetryBatchMessage<?> batchMessage) throws IOException {
+
+        List<? extends TelemetryMessage<?>> messageList = (batchMessage.getMessageList() != null ? batchMessage.getMessageList() : Collections.emptyList());
+        FrameWriter frameWriter = new FrameWriter(MAX_FRAME_SIZE * Math.max(1, messageList.size()));
+        FrameState batchState = new FrameState();
+
+        boolean isSequenced = false;
+        for(TelemetryMessage<?> telemetryMessage : messageList)
+            if(telemetryMessage.getSequenceNumber() != TelemetryMessage.NO_SEQUENCE_NUMBER)
+                isSequenced = true;
+
+        frameWriter.writeByte(FORMAT_HEADER);
+        frameWriter.writeByte((byte) (BATCH_KIND | (isSequenced ? SEQUENCED_FLAG : 0)));
+        frameWriter.writeVarLong(messageList.size());
+
+        for(TelemetryMessage<?> telemetryMessage : messageList){
+
+            GpsLocationDescriptor gpsLocationDescriptor = toGpsLocationDescriptor(telemetryMessage.getDataValue());
+
+            if(isSequenced){
+                frameWriter.writeVarLong(batchState.isValid ? zigZag(telemetryMessage.getSequenceNumber() - batchState.sequence) : telemetryMessage.getSequenceNumber());
+                batchState.sequence = telemetryMessage.getSequenceNumber();
+            }
+
+            writeFrame(frameWriter, batchState, !batchState.isValid, telemetryMessage.getTimestamp(), gpsLocationDescriptor);
+        }
+
+        return frameWriter.toByteArray();
+    }
+
+    /**
+     * Decode a payload of the stream associated to this codec instance
+     * @return the decoded sample or an empty list if the delta frame can not be applied (missing previous frames)
+     */
+    @Override
+    public synchronized <T> List<TelemetryMessage<T>> decode(byte[] payload, Class<T> dataValueClass) throws IOException {
+
+        if(TelemetryFormat.detect(payload) != TelemetryFormat.GPS_DELTA)
+            throw new IOException("Missing GPS delta telemetry header !");
+
+        if(!dataValueClass.isAssignableFrom(GpsLocationDescriptor.class))
+            throw new IOException(String.format("Unexpected data value class %s (expected: %s)", dataValueClass.getName(), GpsLocationDescriptor.class.getName()));
+
+        FrameReader frameReader = new FrameReader(payload, 1);
+        byte kindByte = frameReader.readByte();
+        byte kind = (byte) (kindByte & KIND_MASK);
+        boolean isSequenced = (kindByte & SEQUENCED_FLAG) != 0;
+
+        if(kind == BATCH_KIND){
+
+            long count = frameReader.readVarLong();
+
+            if(count < 0 || count > payload.length)
+                throw new IOException(String.format("Invalid batch size: %d", count));
+
+            FrameState batchState = new FrameState();
+            List<TelemetryMessage<T>> messageList = new ArrayList<>((int) count);
+
+            for(int i = 0; i < count; i++){
+
+                long sequenceNumber = TelemetryMessage.NO_SEQUENCE_NUMBER;
+
+                if(isSequenced){
+                    sequenceNumber = (i == 0 ? frameReader.readVarLong() : batchState.sequence + unZigZag(frameReader.readVarLong()));
+                    batchState.sequence = sequenceNumber;
+                }
+
+                TelemetryMessage<T> telemetryMessage = readFrame(frameReader, batchState, i == 0, dataValueClass);
+                telemetryMessage.setSequenceNumber(sequenceNumber);
+                messageList.add(telemetryMessage);
+            }
+
+            return messageList;
+        }
+
+        if(kind != KEYFRAME_KIND && kind != DELTA_KIND)
+            throw new IOException(String.format("Unknown GPS delta frame kind: %d", kind));
+
+        long sequence = frameReader.readVarLong();
+
+        if(kind == DELTA_KIND && isSequenced && this.decoderState.isValid && sequence <= this.decoderState.sequence){
+            //Late frame: the stream is still valid
+            this.discardedFrameCount++;
+            return Collections.emptyList();
+        }
+
+        if(kind == DELTA_KIND && (!this.decoderState.isValid || sequence != this.decoderState.sequence + 1)){
+            //Lost frames: wait for the next keyframe
+            this.decoderState.isValid = false;
+            this.discardedFrameCount++;
+            return Collections.emptyList();
+        }
+
+        TelemetryMessage<T> telemetryMessage = readFrame(frameReader, this.decoderState, kind == KEYFRAME_KIND, dataValueClass);
+        this.decoderState.sequence = sequence;
+
+        if(isSequenced)
+            telemetryMessage.setSequenceNumber(sequence);
+
+        return Collections.singletonList(telemetryMessage);
+    }
+
+    /**
+     * @return the number of delta frames discarded by the decoder because of missing previous frames
+     */
+    public synchronized long getDiscardedFrameCount() {
+        return discardedFrameCount;
+    }
+
+    private byte[] copyToCachedPayload(FrameWriter frameWriter){
+
+        byte[] payload = null;
+
+        for(byte[] cachedPayload : this.payloadCache)
+            if(cachedPayload != null && cachedPayload.length == frameWriter.count){
+                payload = cachedPayload;
+                break;
+            }
+
+        if(payload == null){
+            payload = new byte[frameWriter.count];
+            this.payloadCache[this.nextCacheSlot] = payload;
+            this.nextCacheSlot = (this.nextCacheSlot + 1) % PAYLOAD_CACHE_SIZE;
+        }
+
+        System.arraycopy(frameWriter.buffer, 0, payload, 0, frameWriter.count);
+
+        return payload;
+    }
+
+    private static GpsLocationDescriptor toGpsLocationDescriptor(Object dataValue) throws IOException {
+
+        if(dataValue instanceof GpsLocationDescriptor)
+            return (GpsLocationDescriptor) dataValue;
+
+        throw new IOException(String.format("Data value %s not supported by the GPS delta telemetry format !",
+                (dataValue != null ? dataValue.getClass().getName() : null)));
+    }
+
+    private static boolean sameProvider(String provider, String otherProvider){
+        return (provider == null ? otherProvider == null : provider.equals(otherProvider));
+    }
+
+    private static void writeFrame(FrameWriter frameWriter, FrameState state, boolean isKeyframe, long timestamp, GpsLocationDescriptor gpsLocationDescriptor){
+
+        int latitude = (int) Math.round(gpsLocationDescriptor.getLatitude() * LOCATION_SCALE);
+        int longitude = (int) Math.round(gpsLocationDescriptor.getLongitude() * LOCATION_SCALE);
+        int elevation = (int) Math.round(gpsLocationDescriptor.getElevation() * ELEVATION_SCALE);
+
+        if(isKeyframe){
+            frameWriter.writeLong(timestamp);
+            frameWriter.writeVarLong(zigZag(latitude));
+            frameWriter.writeVarLong(zigZag(longitude));
+            frameWriter.writeVarLong(zigZag(elevation));
+            frameWriter.writeProvider(gpsLocationDescriptor.getProvider());
+        }
+        else {
+            frameWriter.writeVarLong(zigZag(timestamp - state.timestamp));
+            frameWriter.writeVarLong(zigZag((long) latitude - state.latitude));
+            frameWriter.writeVarLong(zigZag((long) longitude - state.longitude));
+            frameWriter.writeVarLong(zigZag((long) elevation - state.elevation));
+        }
+
+        state.update(timestamp, latitude, longitude, elevation, gpsLocationDescriptor.getProvider());
+    }
+
+    private static <T> TelemetryMessage<T> readFrame(FrameReader frameReader, FrameState state, boolean isKeyframe, Class<T> dataValueClass) throws IOException {
+
+        if(isKeyframe)
+            state.update(frameReader.readLong(),
+                    (int) unZigZag(frameReader.readVarLong()),
+                    (int) unZigZag(frameReader.readVarLong()),
+                    (int) unZigZag(frameReader.readVarLong()),
+                    frameReader.readProvider());
+        else
+            state.update(state.timestamp + unZigZag(frameReader.readVarLong()),
+                    (int) (state.latitude + unZigZag(frameReader.readVarLong())),
+                    (int) (state.longitude + unZigZag(frameReader.readVarLong())),
+                    (int) (state.elevation + unZigZag(frameReader.readVarLong())),
+                    state.provider);
+
+        GpsLocationDescriptor gpsLocationDescriptor = new GpsLocationDescriptor(
+                state.latitude / LOCATION_SCALE,
+                state.longitude / LOCATION_SCALE,
+                state.elevation / ELEVATION_SCALE,
+                state.provider);
+
+        return new TelemetryMessage<>(state.timestamp, GpsGpxSensorResource.RESOURCE_TYPE, dataValueClass.cast(gpsLocationDescriptor));
+    }
+
+    private static long zigZag(long value){
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value){
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Last (quantized) sample of a stream
+     */
+    private static class FrameState {
+
+        private boolean isValid = false;
+
+        private long sequence;
+
+        //Frames encoded since the last keyframe
+        private int keyframeDistance;
+
+        private long timestamp;
+
+        private int latitude;
+
+        private int longitude;
+
+        private int elevation;
+
+        private String provider;
+
+        private void update(long timestamp, int latitude, int longitude, int elevation, String provider){
+            this.timestamp = timestamp;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.elevation = elevation;
+            this.provider = provider;
+            this.isValid = true;
+        }
+    }
+
+    private static class FrameWriter {
+
+        private byte[] buffer;
+
+        private int count;
+
+        private FrameWriter(int size) {
+            this.buffer = new byte[size];
+            this.count = 0;
+        }
+
+        private void reset(){
+            this.count = 0;
+        }
+
+        private void ensureCapacity(int length){
+            if(this.count + length > this.buffer.length)
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.count + length));
+        }
+
+        private void writeByte(byte value){
+            ensureCapacity(1);
+            this.buffer[this.count++] = value;
+        }
+
+        private void writeLong(long value){
+            ensureCapacity(8);
+            for(int shift = 56; shift >= 0; shift -= 8)
+                this.buffer[this.count++] = (byte) (value >>> shift);
+        }
+
+        /**
+         * Unsigned LEB128 encoding (7 bits for each byte, most significant bit set if more bytes follow)
+         */
+        private void writeVarLong(long value){
+            ensureCapacity(10);
+            while((value & ~0x7FL) != 0){
+                this.buffer[this.count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.count++] = (byte) value;
+        }
+
+        private void writeProvider(String value){
+
+            for(int code = 0; code < PROVIDER_DICTIONARY.length; code++)
+                if(sameProvider(PROVIDER_DICTIONARY[code], value)){
+                    writeVarLong(code);
+                    return;
+                }
+
+            byte[] stringBytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(INLINE_PROVIDER_CODE);
+            writeVarLong(stringBytes.length);
+            ensureCapacity(stringBytes.length);
+            System.arraycopy(stringBytes, 0, this.buffer, this.count, stringBytes.length);
+            this.count += stringBytes.length;
+        }
+
+        private byte[] toByteArray(){
+            return Arrays.copyOf(this.buffer, this.count);
+        }
+    }
+
+    private static class FrameReader {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        private FrameReader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private void checkAvailable(int length) throws IOException {
+            if(length < 0 || this.position + length > this.buffer.length)
+                throw new IOException("Truncated GPS delta telemetry payload !");
+        }
+
+        private byte readByte() throws IOException {
+            checkAvailable(1);
+            return this.buffer[this.position++];
+        }
+
+        private long readLong() throws IOException {
+            checkAvailable(8);
+            long value = 0;
+            for(int i = 0; i < 8; i++)
+                value = (value << 8) | (this.buffer[this.position++] & 0xFF);
+            return value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for(int shift = 0; shift < 64; shift += 7){
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if((b & 0x80) == 0)
+                    return value;
+            }
+            throw new IOException("Malformed varint in GPS delta telemetry payload !");
+        }
+
+        private String readProvider() throws IOException {
+
+            long code = readVarLong();
+
+            if(code >= 0 && code < PROVIDER_DICTIONARY.length)
+                return PROVIDER_DICTIONARY[(int) code];
+
+            if(code != INLINE_PROVIDER_CODE)
+                throw new IOException(String.format("Unknown provider code in GPS delta telemetry payload: %d", code));
+
+            long length = readVarLong();
+            if(length > Integer.MAX_VALUE)
+                throw new IOException("Invalid string length in GPS delta telemetry payload !");
+            checkAvailable((int) length);
+            String value = new String(this.buffer, this.position, (int) length, StandardCharsets.UTF_8);
+            this.position += (int) length;
+            return value;
+        }
+    }
+}
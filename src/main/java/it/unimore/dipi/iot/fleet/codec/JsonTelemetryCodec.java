@@ -0,0 +1,61 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Default JSON telemetry format
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:54
+ */
+public class JsonTelemetryCodec implements TelemetryCodec {
+
+    private final ObjectMapper mapper;
+
+    private final TelemetryEncoder telemetryEncoder;
+
+    public JsonTelemetryCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.telemetryEncoder = new TelemetryEncoder(mapper);
+    }
+
+    @Override
+    public TelemetryFormat getFormat() {
+        return TelemetryFormat.JSON;
+    }
+
+    @Override
+    public byte[] encode(String type, long sequenceNumber, Object dataValue, boolean reusablePayload) throws IOException {
+        return this.telemetryEncoder.encode(type, sequenceNumber, dataValue, reusablePayload);
+    }
+
+    @Override
+    public byte[] encodeBatch(TelemetryBatchMessage<?> batchMessage) throws IOException {
+        return this.mapper.writeValueAsBytes(batchMessage);
+    }
+
+    @Override
+    public <T> List<TelemetryMessage<T>> decode(byte[] payload, Class<T> dataValueClass) throws IOException {
+
+        JsonNode rootNode = this.mapper.readTree(payload);
+
+        if(rootNode.has(TelemetryBatchMessage.MESSAGES_FIELD)){
+            JavaType batchMessageType = this.mapper.getTypeFactory().constructParametricType(TelemetryBatchMessage.class, dataValueClass);
+            TelemetryBatchMessage<T> batchMessage = this.mapper.convertValue(rootNode, batchMessageType);
+            return (batchMessage.getMessageList() != null ? batchMessage.getMessageList() : Collections.emptyList());
+        }
+
+        JavaType messageType = this.mapper.getTypeFactory().constructParametricType(TelemetryMessage.class, dataValueClass);
+        TelemetryMessage<T> telemetryMessage = this.mapper.convertValue(rootNode, messageType);
+        return Collections.singletonList(telemetryMessage);
+    }
+}
@@ -0,0 +1,208 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+
+import java.io.IOException;
+
+/**
+ * Decode JSON telemetry payloads (single TelemetryMessage or TelemetryBatchMessage) directly from the payload bytes
+ * through a Jackson streaming JsonParser into a reusable TelemetrySample, without building a tree or any message object.
+ * Field names are canonicalized by Jackson and well known string values are matched on the parser buffer, so a
+ * sample of a known type only allocates the parser.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:23
+ */
+public class StreamingJsonTelemetryDecoder {
+
+    private static final String TIMESTAMP_FIELD = "timestamp";
+
+    private static final String SEQUENCE_FIELD = "seq";
+
+    private static final String TYPE_FIELD = "type";
+
+    private static final String DATA_FIELD = "data";
+
+    private static final String LATITUDE_FIELD = "latitude";
+
+    private static final String LONGITUDE_FIELD = "longitude";
+
+    private static final String ELEVATION_FIELD = "elevation";
+
+    private static final String PROVIDER_FIELD = "provider";
+
+    private static final String[] KNOWN_TYPES = {
+            GpsGpxSensorResource.RESOURCE_TYPE,
+            BatterySensorResource.RESOURCE_TYPE,
+            TelemetryBatchMessage.BATCH_MESSAGE_TYPE
+    };
+
+    private static final String[] KNOWN_PROVIDERS = {
+            GpsLocationDescriptor.FILE_LOCATION_PROVIDER,
+            GpsLocationDescriptor.GPS_LOCATION_PROVIDER,
+            GpsLocationDescriptor.NETWORK_LOCATION_PROVIDER
+    };
+
+    private final JsonFactory jsonFactory;
+
+    public StreamingJsonTelemetryDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * @param payload JSON payload
+     * @param telemetrySample reusable holder filled with each sample
+     * @param telemetrySampleListener invoked for each sample
+     * @return the number of decoded samples
+     * @throws IOException if the payload is not a valid telemetry message or batch
+     */
+    public int decode(byte[] payload, TelemetrySample telemetrySample, TelemetrySampleListener telemetrySampleListener) throws IOException {
+
+        try(JsonParser parser = this.jsonFactory.createParser(payload)){
+
+            if(parser.nextToken() != JsonToken.START_OBJECT)
+                throw new IOException("Telemetry payload is not a JSON object !");
+
+            telemetrySample.reset();
+            int sampleCount = 0;
+            boolean isBatch = false;
+
+            while(parser.nextToken() == JsonToken.FIELD_NAME){
+
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if(TelemetryBatchMessage.MESSAGES_FIELD.equals(fieldName)){
+
+                    isBatch = true;
+
+                    if(token == JsonToken.START_ARRAY){
+                        while(parser.nextToken() == JsonToken.START_OBJECT){
+                            telemetrySample.reset();
+                            readMessageFields(parser, telemetrySample);
+                            notifySample(telemetrySampleListener, telemetrySample);
+                            sampleCount++;
+                        }
+                    }
+                    else if(token != JsonToken.VALUE_NULL)
+                        throw new IOException("Invalid telemetry batch messages field !");
+
+                    //The batch envelope fields are not part of the samples
+                    telemetrySample.reset();
+                }
+                else if(!isBatch)
+                    readMessageField(parser, fieldName, token, telemetrySample);
+                else
+                    parser.skipChildren();
+            }
+
+            if(!isBatch){
+                notifySample(telemetrySampleListener, telemetrySample);
+                sampleCount++;
+            }
+
+            return sampleCount;
+        }
+    }
+
+    private static void notifySample(TelemetrySampleListener telemetrySampleListener, TelemetrySample telemetrySample) throws IOException {
+        try{
+            telemetrySampleListener.onSample(telemetrySample);
+        }catch (IOException e){
+            throw e;
+        }catch (Exception e){
+            throw new IOException("Error processing telemetry sample !", e);
+        }
+    }
+
+    /**
+     * Read the fields of a message object (the parser is on its START_OBJECT)
+     */
+    private static void readMessageFields(JsonParser parser, TelemetrySample telemetrySample) throws IOException {
+        while(parser.nextToken() == JsonToken.FIELD_NAME){
+            String fieldName = parser.getCurrentName();
+            readMessageField(parser, fieldName, parser.nextToken(), telemetrySample);
+        }
+    }
+
+    private static void readMessageField(JsonParser parser, String fieldName, JsonToken token, TelemetrySample telemetrySample) throws IOException {
+
+        if(TIMESTAMP_FIELD.equals(fieldName))
+            telemetrySample.setTimestamp(token == JsonToken.VALUE_NULL ? 0 : parser.getLongValue());
+        else if(SEQUENCE_FIELD.equals(fieldName))
+            telemetrySample.setSequenceNumber(token == JsonToken.VALUE_NULL ? TelemetryMessage.NO_SEQUENCE_NUMBER : parser.getLongValue());
+        else if(TYPE_FIELD.equals(fieldName))
+            telemetrySample.setType(token == JsonToken.VALUE_NULL ? null : getText(parser, KNOWN_TYPES));
+        else if(DATA_FIELD.equals(fieldName))
+            readDataValue(parser, token, telemetrySample);
+        else
+            parser.skipChildren();
+    }
+
+    private static void readDataValue(JsonParser parser, JsonToken token, TelemetrySample telemetrySample) throws IOException {
+
+        if(token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT)
+            telemetrySample.setNumberValue(parser.getDoubleValue());
+        else if(token == JsonToken.START_OBJECT){
+
+            double latitude = Double.NaN;
+            double longitude = Double.NaN;
+            double elevation = Double.NaN;
+            String provider = null;
+
+            while(parser.nextToken() == JsonToken.FIELD_NAME){
+
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+
+                if(LATITUDE_FIELD.equals(fieldName))
+                    latitude = parser.getDoubleValue();
+                else if(LONGITUDE_FIELD.equals(fieldName))
+                    longitude = parser.getDoubleValue();
+                else if(ELEVATION_FIELD.equals(fieldName))
+                    elevation = parser.getDoubleValue();
+                else if(PROVIDER_FIELD.equals(fieldName))
+                    provider = (valueToken == JsonToken.VALUE_NULL ? null : getText(parser, KNOWN_PROVIDERS));
+                else
+                    parser.skipChildren();
+            }
+
+            telemetrySample.setLocationValue(latitude, longitude, elevation, provider);
+        }
+        else
+            parser.skipChildren();
+    }
+
+    /**
+     * @return the matching constant of the current string value, compared on the parser buffer (a new String if unknown)
+     */
+    private static String getText(JsonParser parser, String[] knownValues) throws IOException {
+
+        char[] characters = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        for(String knownValue : knownValues){
+
+            if(knownValue.length() != length)
+                continue;
+
+            boolean isMatching = true;
+            for(int i = 0; i < length && isMatching; i++)
+                isMatching = (knownValue.charAt(i) == characters[offset + i]);
+
+            if(isMatching)
+                return knownValue;
+        }
+
+        return new String(characters, offset, length);
+    }
+}
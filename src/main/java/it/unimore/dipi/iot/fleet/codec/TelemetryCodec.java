@@ -0,0 +1,57 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Wire format of telemetry payloads (single messages and batches).
+ * Consumers do not need to know the format in advance: see TelemetryFormat.detect()
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:54
+ */
+public interface TelemetryCodec {
+
+    public TelemetryFormat getFormat();
+
+    /**
+     * Encode a telemetry sample stamped with the current time, without a sequence number
+     * @param type telemetry message type
+     * @param dataValue sample value
+     * @param reusablePayload if true the returned array may be recycled by the following calls of the same thread
+     *                        and must not be retained by the caller
+     * @return the encoded payload
+     * @throws IOException
+     */
+    default byte[] encode(String type, Object dataValue, boolean reusablePayload) throws IOException {
+        return encode(type, TelemetryMessage.NO_SEQUENCE_NUMBER, dataValue, reusablePayload);
+    }
+
+    /**
+     * Encode a telemetry sample stamped with the current time
+     * @param type telemetry message type
+     * @param sequenceNumber sequence number of the sample in the stream of the vehicle resource
+     *                       (TelemetryMessage.NO_SEQUENCE_NUMBER if not available)
+     * @param dataValue sample value
+     * @param reusablePayload if true the returned array may be recycled by the following calls of the same thread
+     *                        and must not be retained by the caller
+     * @return the encoded payload
+     * @throws IOException
+     */
+    public byte[] encode(String type, long sequenceNumber, Object dataValue, boolean reusablePayload) throws IOException;
+
+    public byte[] encodeBatch(TelemetryBatchMessage<?> batchMessage) throws IOException;
+
+    /**
+     * @param payload the received payload
+     * @param dataValueClass expected class of the data values
+     * @return the list of telemetry messages carried by the payload (one for single messages)
+     * @throws IOException if the payload is not a valid telemetry message or batch
+     */
+    public <T> List<TelemetryMessage<T>> decode(byte[] payload, Class<T> dataValueClass) throws IOException;
+
+}
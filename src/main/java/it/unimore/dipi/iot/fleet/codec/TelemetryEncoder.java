@@ -0,0 +1,152 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Hot path JSON encoder for telemetry messages.
+ *
+ * A prebuilt ObjectWriter serializes the message through a JsonGenerator that is created once and
+ * kept open over a reusable byte buffer. Encoding state (buffer, generator and a reusable TelemetryMessage)
+ * is kept per thread, so the memory footprint depends on the number of publishing threads and not
+ * on the number of vehicles, and the same instance can be shared by the whole fleet.
+ *
+ * Paho requires a payload array of the exact message size. When the caller can guarantee that the
+ * payload is not retained after the publish (e.g. blocking MqttClientChannel) the exact size arrays
+ * are recycled from a small per-thread cache, otherwise a new copy is returned.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:51
+ */
+public class TelemetryEncoder {
+
+    private static final int INITIAL_BUFFER_SIZE = 512;
+
+    //Number of exact size payload arrays recycled by each thread
+    private static final int PAYLOAD_CACHE_SIZE = 4;
+
+    private final ObjectMapper mapper;
+
+    private final ObjectWriter objectWriter;
+
+    private final ThreadLocal<EncoderState> encoderState;
+
+    public TelemetryEncoder(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.objectWriter = mapper.writerFor(TelemetryMessage.class);
+        this.encoderState = ThreadLocal.withInitial(this::createEncoderState);
+    }
+
+    /**
+     * Encode a telemetry sample
+     * @param type telemetry message type
+     * @param dataValue sample value
+     * @param reusablePayload if true the returned array is recycled by the following calls of the same thread
+     *                        and must not be retained by the caller
+     * @return the JSON payload of the message
+     * @throws IOException
+     */
+    public byte[] encode(String type, Object dataValue, boolean reusablePayload) throws IOException {
+        return encode(type, TelemetryMessage.NO_SEQUENCE_NUMBER, dataValue, reusablePayload);
+    }
+
+    /**
+     * Encode a telemetry sample with its sequence number (omitted if TelemetryMessage.NO_SEQUENCE_NUMBER)
+     */
+    public byte[] encode(String type, long sequenceNumber, Object dataValue, boolean reusablePayload) throws IOException {
+
+        EncoderState state = this.encoderState.get();
+
+        state.telemetryMessage.setTimestamp(System.currentTimeMillis());
+        state.telemetryMessage.setSequenceNumber(sequenceNumber);
+        state.telemetryMessage.setType(type);
+        state.telemetryMessage.setDataValue(dataValue);
+
+        state.outputStream.reset();
+
+        try{
+            this.objectWriter.writeValue(state.jsonGenerator, state.telemetryMessage);
+            state.jsonGenerator.flush();
+        }finally {
+            state.telemetryMessage.setDataValue(null);
+        }
+
+        return (reusablePayload ? state.copyToCachedPayload() : state.outputStream.toByteArray());
+    }
+
+    private EncoderState createEncoderState(){
+        try {
+            return new EncoderState(this.mapper);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error creating Telemetry Encoder state !", e);
+        }
+    }
+
+    private static class EncoderState {
+
+        private final ReusableOutputStream outputStream;
+
+        private final JsonGenerator jsonGenerator;
+
+        private final TelemetryMessage<Object> telemetryMessage;
+
+        private final byte[][] payloadCache;
+
+        private int nextCacheSlot;
+
+        private EncoderState(ObjectMapper mapper) throws IOException {
+            this.outputStream = new ReusableOutputStream(INITIAL_BUFFER_SIZE);
+            this.jsonGenerator = mapper.getFactory().createGenerator(this.outputStream);
+            //Consecutive root level values are written without any separator
+            this.jsonGenerator.setRootValueSeparator(null);
+            this.telemetryMessage = new TelemetryMessage<>();
+            this.payloadCache = new byte[PAYLOAD_CACHE_SIZE][];
+            this.nextCacheSlot = 0;
+        }
+
+        private byte[] copyToCachedPayload(){
+
+            int length = this.outputStream.size();
+            byte[] payload = null;
+
+            for(byte[] cachedPayload : this.payloadCache)
+                if(cachedPayload != null && cachedPayload.length == length){
+                    payload = cachedPayload;
+                    break;
+                }
+
+            if(payload == null){
+                payload = new byte[length];
+                this.payloadCache[this.nextCacheSlot] = payload;
+                this.nextCacheSlot = (this.nextCacheSlot + 1) % PAYLOAD_CACHE_SIZE;
+            }
+
+            this.outputStream.copyTo(payload);
+
+            return payload;
+        }
+    }
+
+    private static class ReusableOutputStream extends ByteArrayOutputStream {
+
+        private ReusableOutputStream(int size) {
+            super(size);
+        }
+
+        private void copyTo(byte[] target){
+            System.arraycopy(this.buf, 0, target, 0, this.count);
+        }
+
+        @Override
+        public synchronized byte[] toByteArray() {
+            return Arrays.copyOf(this.buf, this.count);
+        }
+    }
+}
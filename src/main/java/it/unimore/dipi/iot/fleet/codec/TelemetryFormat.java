@@ -0,0 +1,38 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+/**
+ * Available telemetry wire formats.
+ *
+ * JSON payloads are unchanged (and always start with '{'), binary payloads start with a
+ * format header byte which is not a valid first byte of a JSON document, so the format of
+ * any payload can be detected from its first byte.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:54
+ */
+public enum TelemetryFormat {
+
+    JSON,
+    BINARY,
+    //Stateful delta encoding of GPS samples (see GpsDeltaTelemetryCodec)
+    GPS_DELTA;
+
+    /**
+     * @param payload
+     * @return the format of the payload (JSON if it has no binary format header)
+     */
+    public static TelemetryFormat detect(byte[] payload){
+
+        if(payload != null && payload.length > 0){
+
+            if(payload[0] == BinaryTelemetryCodec.FORMAT_HEADER)
+                return BINARY;
+
+            if(payload[0] == GpsDeltaTelemetryCodec.FORMAT_HEADER)
+                return GPS_DELTA;
+        }
+
+        return JSON;
+    }
+}
@@ -0,0 +1,171 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+
+/**
+ * Mutable holder of a decoded telemetry sample, reused across samples by the streaming decoding path so that
+ * no TelemetryMessage, boxed value or GpsLocationDescriptor is created for each message. Well known types and
+ * location providers are the shared constant strings. The content is only valid inside the listener invocation.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:23
+ */
+public class TelemetrySample {
+
+    public static final int NO_VALUE = 0;
+
+    //Numeric data value (e.g. battery level)
+    public static final int NUMBER_VALUE = 1;
+
+    //GpsLocationDescriptor data value
+    public static final int LOCATION_VALUE = 2;
+
+    private long timestamp;
+
+    //TelemetryMessage.NO_SEQUENCE_NUMBER if not available
+    private long sequenceNumber;
+
+    private String type;
+
+    private int valueKind;
+
+    private double value;
+
+    private double latitude;
+
+    private double longitude;
+
+    private double elevation;
+
+    private String provider;
+
+    public TelemetrySample() {
+        reset();
+    }
+
+    public void reset(){
+        this.timestamp = 0;
+        this.sequenceNumber = TelemetryMessage.NO_SEQUENCE_NUMBER;
+        this.type = null;
+        this.valueKind = NO_VALUE;
+        this.value = Double.NaN;
+        this.latitude = Double.NaN;
+        this.longitude = Double.NaN;
+        this.elevation = Double.NaN;
+        this.provider = null;
+    }
+
+    public void setNumberValue(double value){
+        this.valueKind = NUMBER_VALUE;
+        this.value = value;
+    }
+
+    public void setLocationValue(double latitude, double longitude, double elevation, String provider){
+        this.valueKind = LOCATION_VALUE;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.elevation = elevation;
+        this.provider = provider;
+    }
+
+    /**
+     * Copy a data value decoded as an object (Number or GpsLocationDescriptor)
+     */
+    public void setDataValue(Object dataValue){
+
+        if(dataValue instanceof Number)
+            setNumberValue(((Number) dataValue).doubleValue());
+        else if(dataValue instanceof GpsLocationDescriptor){
+            GpsLocationDescriptor gpsLocationDescriptor = (GpsLocationDescriptor) dataValue;
+            setLocationValue(gpsLocationDescriptor.getLatitude(), gpsLocationDescriptor.getLongitude(),
+                    gpsLocationDescriptor.getElevation(), gpsLocationDescriptor.getProvider());
+        }
+        else
+            this.valueKind = NO_VALUE;
+    }
+
+    /**
+     * @return a new GpsLocationDescriptor with the location value (null if the sample has no location)
+     */
+    public GpsLocationDescriptor toGpsLocationDescriptor(){
+        return (this.valueKind == LOCATION_VALUE ? new GpsLocationDescriptor(this.latitude, this.longitude, this.elevation, this.provider) : null);
+    }
+
+    public boolean isType(String type){
+        return type.equals(this.type);
+    }
+
+    public boolean hasNumberValue(){
+        return this.valueKind == NUMBER_VALUE;
+    }
+
+    public boolean hasLocationValue(){
+        return this.valueKind == LOCATION_VALUE;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public void setSequenceNumber(long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public int getValueKind() {
+        return valueKind;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getElevation() {
+        return elevation;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("TelemetrySample{");
+        sb.append("timestamp=").append(timestamp);
+        sb.append(", sequenceNumber=").append(sequenceNumber);
+        sb.append(", type='").append(type).append('\'');
+        sb.append(", valueKind=").append(valueKind);
+        sb.append(", value=").append(value);
+        sb.append(", latitude=").append(latitude);
+        sb.append(", longitude=").append(longitude);
+        sb.append(", elevation=").append(elevation);
+        sb.append(", provider='").append(provider).append('\'');
+        sb.append('}');
+        return sb.toString();
+    }
+}
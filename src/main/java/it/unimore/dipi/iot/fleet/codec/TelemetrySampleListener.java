@@ -0,0 +1,17 @@
+package it.unimore.dipi.iot.fleet.codec;
+
+/**
+ * Receives the samples of a payload decoded through the streaming path (one invocation for each sample of a batch)
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:23
+ */
+public interface TelemetrySampleListener {
+
+    /**
+     * @param telemetrySample the decoded sample, reused for the following samples (copy the fields to keep them)
+     */
+    public void onSample(TelemetrySample telemetrySample) throws Exception;
+
+}
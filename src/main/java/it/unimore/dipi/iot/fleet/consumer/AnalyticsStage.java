@@ -0,0 +1,56 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+
+import java.util.List;
+
+/**
+ * Analytics registered on a ConsumerRuntime. The runtime routes each received message to the stages with a
+ * matching topic filter: payloads are decoded once and each sample is delivered to every interested stage.
+ *
+ * Stage callbacks are invoked by the runtime worker lanes: messages of the same vehicle are delivered in order
+ * by a single thread, while different vehicles are processed concurrently.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public interface AnalyticsStage {
+
+    public String getName();
+
+    /**
+     * @return the MQTT topic filters of the messages handled by the stage
+     */
+    public List<String> getTopicFilters();
+
+    /**
+     * @return true if the stage receives decoded telemetry samples (onSample), false for the raw payloads (onMessage)
+     */
+    default boolean isDecodingRequired(){
+        return true;
+    }
+
+    /**
+     * Invoked once before receiving any message
+     * @param consumerRuntime the runtime of the stage (shared control publisher and mapper)
+     */
+    default void start(ConsumerRuntime consumerRuntime) throws Exception {
+    }
+
+    /**
+     * Raw payload of a matching message (only if decoding is not required)
+     */
+    default void onMessage(String topic, byte[] payload) throws Exception {
+    }
+
+    /**
+     * Each telemetry sample of a matching message. The sample is a reusable holder valid only during the call
+     */
+    default void onSample(String topic, TelemetrySample telemetrySample) throws Exception {
+    }
+
+    default void stop() {
+    }
+
+}
@@ -0,0 +1,105 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.message.ControlMessage;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.state.VehicleStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Battery Level Monitoring analytics: a control message with the closest charging station is sent to the vehicles
+ * whose battery level drops below the alarm threshold
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public class BatteryMonitoringStage implements AnalyticsStage {
+
+    private final static Logger logger = LoggerFactory.getLogger(BatteryMonitoringStage.class);
+
+    private static final String STAGE_NAME = "battery-monitoring";
+
+    private static final double ALARM_BATTERY_LEVEL = 2.0;
+
+    private static final String CONTROL_TOPIC = "control";
+
+    //E.g. fleet/vehicle/e0c7433d-8457-4a6b-8084-595d500076cc/telemetry/battery
+    private static final String TARGET_TOPIC = "fleet/vehicle/+/telemetry/battery";
+
+    //E.g. fleet/geo/u0p2/vehicle/e0c7433d-8457-4a6b-8084-595d500076cc/telemetry/battery
+    private static final String GEO_TARGET_TOPIC = GeoPartitionTopics.getTelemetryTopicFilter("+", "battery");
+
+    private static final String VEHICLE_TOPIC = "fleet/vehicle";
+
+    private static final String ALARM_MESSAGE_CONTROL_TYPE = "battery_alarm_message";
+
+    private static final int BATTERY_ALARM = 0;
+
+    //Battery alarms are notified once until the vehicle is recharged
+    private static final long BATTERY_ALARM_COOLDOWN_MS = 0;
+
+    //Per-vehicle saved battery level and alarm state
+    private VehicleStateStore vehicleStateStore;
+
+    //Shared outbound publisher of the alarm controls
+    private ControlMessagePublisher controlMessagePublisher;
+
+    @Override
+    public String getName() {
+        return STAGE_NAME;
+    }
+
+    @Override
+    public List<String> getTopicFilters() {
+        return Arrays.asList(TARGET_TOPIC, GEO_TARGET_TOPIC);
+    }
+
+    @Override
+    public void start(ConsumerRuntime consumerRuntime) {
+        this.vehicleStateStore = new VehicleStateStore(1);
+        this.controlMessagePublisher = consumerRuntime.getControlMessagePublisher();
+    }
+
+    @Override
+    public void onSample(String topic, TelemetrySample telemetrySample) {
+
+        if(!telemetrySample.hasNumberValue() || !telemetrySample.isType(BatterySensorResource.RESOURCE_TYPE))
+            return;
+
+        double newBatteryLevel = telemetrySample.getValue();
+
+        if(logger.isDebugEnabled())
+            logger.debug("New Battery Telemetry Data Received ! Battery Level: {}", newBatteryLevel);
+
+        //A level higher than the saved one (or the first one) is saved and clears the alarm
+        String vehicleId = ConsumerRuntime.getVehicleId(topic);
+        int vehicleIndex = this.vehicleStateStore.getVehicleIndex(vehicleId);
+
+        if(this.vehicleStateStore.updateLevel(vehicleIndex, newBatteryLevel, ALARM_BATTERY_LEVEL, BATTERY_ALARM,
+                System.currentTimeMillis(), BATTERY_ALARM_COOLDOWN_MS)){
+
+            logger.info("BATTERY LEVEL ALARM DETECTED ! Sending Control Notification ...");
+
+            //Control Topic = fleet/vehicle/fa18f676-8198-4e9f-90e0-c50a5e419b94/control (also for geo-partitioned telemetry)
+            String controlTopic = String.format("%s/%s/%s", VEHICLE_TOPIC, vehicleId, CONTROL_TOPIC);
+            this.controlMessagePublisher.publish(controlTopic, new ControlMessage(ALARM_MESSAGE_CONTROL_TYPE, new HashMap<>(){
+                {
+                    put("charging_station_id", "cs00001");
+                    put("charging_station_lat", 44.79503800000001);
+                    put("charging_station_lng", 10.32686911666667);
+                }
+            }));
+        }
+    }
+
+    public VehicleStateStore getVehicleStateStore() {
+        return vehicleStateStore;
+    }
+}
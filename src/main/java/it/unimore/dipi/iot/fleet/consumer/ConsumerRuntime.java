@@ -0,0 +1,588 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySampleListener;
+import it.unimore.dipi.iot.fleet.device.BackpressurePolicy;
+import it.unimore.dipi.iot.fleet.dispatch.ConsumerGroup;
+import it.unimore.dipi.iot.fleet.dispatch.ConsumerGroupMode;
+import it.unimore.dipi.iot.fleet.dispatch.OrderedLaneDispatcher;
+import it.unimore.dipi.iot.fleet.dispatch.TopicTrie;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.metrics.JmxMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.LatencyHistogram;
+import it.unimore.dipi.iot.fleet.metrics.LogMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
+import it.unimore.dipi.iot.fleet.metrics.MetricsReporter;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single consumer runtime hosting a set of AnalyticsStage on one MQTT connection.
+ *
+ * The runtime subscribes once to the union of the stage topic filters (filters covered by other filters are not
+ * subscribed, so the broker delivers each message once) and dispatches the messages to the OrderedLaneDispatcher
+ * lanes. Each message is routed through a TopicTrie of the stage filters, its payload is decoded once through the
+ * TelemetryPayloadDecoder into a reusable TelemetrySample and every sample is delivered to all the matching stages,
+ * instead of a connection, a copy of the stream and a decoding for each analytics.
+ *
+ * The runtime counters and the latency histograms of each step (<name>.queue, <name>.decode, <name>.analytics and
+ * <name>.stage.<stage>, <name>.process for the whole message, <name>.e2e from the TelemetryMessage timestamp of each
+ * sample) are registered in the default MetricsRegistry, exposed through JMX and periodically reported by run().
+ *
+ * The sequence numbers of the decoded samples are accounted by a TelemetrySequenceTracker (losses, duplicates and
+ * reordering of each vehicle resource, <name>.sequence.* counters), which can also drop the stale samples before the
+ * stages (see setDropStaleSamples).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public class ConsumerRuntime {
+
+    private final static Logger logger = LoggerFactory.getLogger(ConsumerRuntime.class);
+
+    //Worker lanes processing the received messages
+    private static final int DISPATCH_LANE_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private static final int SUBSCRIPTION_QOS = 1;
+
+    private static final long REPORT_PERIOD_MS = 10000;
+
+    //Maximum wait for the dispatch lanes to process their queued messages at shutdown
+    private static final long DISPATCH_SHUTDOWN_TIMEOUT_MS = 10000;
+
+    private final String name;
+
+    private final ConsumerGroup consumerGroup;
+
+    private final ObjectMapper mapper;
+
+    private final List<StageEntry> stageList;
+
+    private final TopicTrie<StageEntry> stageTrie;
+
+    private final TelemetryPayloadDecoder<Object> telemetryPayloadDecoder;
+
+    //Reusable routing state of each processing thread
+    private final ThreadLocal<SampleFanOut> sampleFanOut;
+
+    private final LongAdder receivedMessageCounter;
+
+    private final LongAdder unroutedMessageCounter;
+
+    private final LongAdder decodedMessageCounter;
+
+    private final LongAdder decodingErrorCounter;
+
+    private final MetricsRegistry metricsRegistry;
+
+    //Latency histograms (ns) of the receive, decode and analytics steps
+    private final LatencyHistogram queueDelayHistogram;
+
+    private final LatencyHistogram decodeHistogram;
+
+    private final LatencyHistogram analyticsHistogram;
+
+    private final LatencyHistogram processHistogram;
+
+    //Delay from the sample timestamp of the vehicle (wall clock, ms resolution)
+    private final LatencyHistogram endToEndHistogram;
+
+    //Reporters invoked by run()
+    private final List<MetricsReporter> metricsReporterList;
+
+    private final TelemetrySequenceTracker sequenceTracker;
+
+    private ControlMessagePublisher controlMessagePublisher;
+
+    private OrderedLaneDispatcher orderedLaneDispatcher;
+
+    private boolean isStarted;
+
+    private final AtomicBoolean isShutdown;
+
+    public ConsumerRuntime(String name) {
+        this(name, new ConsumerGroup(ConsumerGroupMode.NONE, name, 0, 1));
+    }
+
+    /**
+     * @param name name of the runtime (prefix of the lane thread names)
+     * @param consumerGroup membership of the runtime in a group of consumer instances
+     */
+    public ConsumerRuntime(String name, ConsumerGroup consumerGroup) {
+        this.name = name;
+        this.consumerGroup = consumerGroup;
+        this.mapper = new ObjectMapper();
+        this.stageList = new ArrayList<>();
+        this.stageTrie = new TopicTrie<>();
+        this.telemetryPayloadDecoder = new TelemetryPayloadDecoder<>(this.mapper, Object.class);
+        this.metricsRegistry = MetricsRegistry.getDefault();
+        this.receivedMessageCounter = this.metricsRegistry.register(getMetricName("received"), new LongAdder());
+        this.unroutedMessageCounter = this.metricsRegistry.register(getMetricName("unrouted"), new LongAdder());
+        this.decodedMessageCounter = this.metricsRegistry.register(getMetricName("decoded"), new LongAdder());
+        this.decodingErrorCounter = this.metricsRegistry.register(getMetricName("decodingErrors"), new LongAdder());
+        this.queueDelayHistogram = this.metricsRegistry.register(getMetricName("queue"), new LatencyHistogram());
+        this.decodeHistogram = this.metricsRegistry.register(getMetricName("decode"), new LatencyHistogram());
+        this.analyticsHistogram = this.metricsRegistry.register(getMetricName("analytics"), new LatencyHistogram());
+        this.processHistogram = this.metricsRegistry.register(getMetricName("process"), new LatencyHistogram());
+        this.endToEndHistogram = this.metricsRegistry.register(getMetricName("e2e"), new LatencyHistogram());
+        this.sequenceTracker = new TelemetrySequenceTracker(getMetricName("sequence"));
+        this.sampleFanOut = ThreadLocal.withInitial(() -> new SampleFanOut(this.endToEndHistogram, this.sequenceTracker));
+        this.metricsReporterList = new ArrayList<>();
+        this.metricsReporterList.add(new LogMetricsReporter(this.metricsRegistry));
+        this.isStarted = false;
+        this.isShutdown = new AtomicBoolean(false);
+    }
+
+    /**
+     * Register a stage (before start)
+     */
+    public ConsumerRuntime addStage(AnalyticsStage analyticsStage){
+
+        if(this.isStarted)
+            throw new IllegalStateException("Stages must be added before starting the runtime !");
+
+        String stageMetricName = getMetricName("stage." + analyticsStage.getName());
+
+        StageEntry stageEntry = new StageEntry(analyticsStage,
+                this.metricsRegistry.register(stageMetricName + ".processed", new LongAdder()),
+                this.metricsRegistry.register(stageMetricName + ".errors", new LongAdder()),
+                this.metricsRegistry.register(stageMetricName, new LatencyHistogram()));
+        this.stageList.add(stageEntry);
+
+        for(String topicFilter : analyticsStage.getTopicFilters())
+            this.stageTrie.add(topicFilter, stageEntry);
+
+        return this;
+    }
+
+    /**
+     * Connect to a broker through a new MQTT client
+     */
+    public static IMqttClient connect(String brokerAddress, int brokerPort) throws MqttException {
+
+        //Generate a random MQTT client ID using the UUID class
+        String clientId = UUID.randomUUID().toString();
+
+        //Represents a persistent data store, used to store outbound and inbound messages while they
+        //are in flight, enabling delivery to the QoS specified. In that case use a memory persistence.
+        //When the application stops all the temporary data will be deleted.
+        MqttClientPersistence persistence = new MemoryPersistence();
+
+        //The the persistence is not passed to the constructor the default file persistence is used.
+        //In case of a file-based storage the same MQTT client UUID should be used
+        IMqttClient client = new MqttClient(
+                String.format("tcp://%s:%d", brokerAddress, brokerPort), //Create the URL from IP and PORT
+                clientId,
+                persistence);
+
+        //Define MQTT Connection Options such as reconnection, persistent/clean session and connection timeout
+        //Authentication option can be added -> See AuthProducer example
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setAutomaticReconnect(true);
+        options.setCleanSession(true);
+        options.setConnectionTimeout(10);
+
+        //Connect to the target broker
+        client.connect(options);
+
+        logger.info("Connected ! Client Id: {}", clientId);
+
+        return client;
+    }
+
+    /**
+     * Start the stages and subscribe the client to the stage topic filters
+     */
+    public void start(IMqttClient mqttClient) throws Exception {
+
+        start(new ControlMessagePublisher(mqttClient, this.mapper));
+
+        //Messages are processed by the dispatcher lanes (in order for each vehicle) instead of the client callback thread
+        this.orderedLaneDispatcher = new OrderedLaneDispatcher(this.name,
+                DISPATCH_LANE_COUNT,
+                OrderedLaneDispatcher.DEFAULT_LANE_CAPACITY,
+                BackpressurePolicy.BLOCK,
+                (topic, msg) -> process(topic, msg.getPayload()),
+                this.queueDelayHistogram);
+
+        JmxMetricsReporter.register(this.metricsRegistry);
+
+        String[] topicFilters = getSubscriptionTopicFilters();
+
+        logger.info("Consumer Group: {} Subscribing to topics: {}", this.consumerGroup, String.join(", ", topicFilters));
+
+        this.consumerGroup.subscribe(mqttClient, topicFilters, SUBSCRIPTION_QOS, this.orderedLaneDispatcher);
+
+        //Stages with state (e.g. the telemetry store) are stopped also when the process is terminated
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, String.format("%s-shutdown", this.name)));
+    }
+
+    /**
+     * Start the stages without any subscription, messages are submitted through process (e.g. replay and benchmarks)
+     * @param controlMessagePublisher outbound publisher of the stage controls
+     */
+    public void start(ControlMessagePublisher controlMessagePublisher) throws Exception {
+
+        if(this.isStarted)
+            throw new IllegalStateException("Runtime already started !");
+
+        this.controlMessagePublisher = controlMessagePublisher;
+        this.isStarted = true;
+
+        for(StageEntry stageEntry : this.stageList){
+            stageEntry.analyticsStage.start(this);
+            logger.info("Stage {} Started ! Topics: {}", stageEntry.analyticsStage.getName(), stageEntry.analyticsStage.getTopicFilters());
+        }
+    }
+
+    /**
+     * Route a message to the matching stages, decoding its payload at most once
+     */
+    public void process(String topic, byte[] payload){
+
+        long startTime = System.nanoTime();
+
+        this.receivedMessageCounter.increment();
+
+        SampleFanOut sampleFanOut = this.sampleFanOut.get();
+        List<StageEntry> matchingStageList = sampleFanOut.stageList;
+        matchingStageList.clear();
+
+        if(this.stageTrie.match(topic, matchingStageList) == 0){
+            this.unroutedMessageCounter.increment();
+            return;
+        }
+
+        boolean isDecodingRequired = false;
+        long analyticsNanos = 0;
+
+        for(int i = 0; i < matchingStageList.size(); i++){
+
+            StageEntry stageEntry = matchingStageList.get(i);
+
+            if(stageEntry.analyticsStage.isDecodingRequired())
+                isDecodingRequired = true;
+            else{
+                long stageStartTime = System.nanoTime();
+                try{
+                    stageEntry.analyticsStage.onMessage(topic, payload);
+                    stageEntry.processedCounter.increment();
+                }catch (Exception e){
+                    stageEntry.errorCounter.increment();
+                    logger.error("Error processing message of topic: {} in stage: {} ! Msg: {}", topic, stageEntry.analyticsStage.getName(), e.getLocalizedMessage());
+                }
+                long stageNanos = System.nanoTime() - stageStartTime;
+                stageEntry.latencyHistogram.record(stageNanos);
+                analyticsNanos += stageNanos;
+            }
+        }
+
+        if(isDecodingRequired){
+
+            long decodeStartTime = System.nanoTime();
+
+            try{
+
+                //The topic selects the per-vehicle decoder state of stateful formats
+                sampleFanOut.topic = topic;
+                sampleFanOut.stageNanos = 0;
+                this.telemetryPayloadDecoder.decode(topic, payload, sampleFanOut);
+                this.decodedMessageCounter.increment();
+
+            }catch (Exception e){
+                this.decodingErrorCounter.increment();
+                logger.error("Error decoding telemetry on topic: {} ! Msg: {}", topic, e.getLocalizedMessage());
+            }finally {
+                sampleFanOut.topic = null;
+                sampleFanOut.vehicleState = null;
+            }
+
+            //Samples are delivered to the stages while decoding
+            this.decodeHistogram.record(System.nanoTime() - decodeStartTime - sampleFanOut.stageNanos);
+            analyticsNanos += sampleFanOut.stageNanos;
+        }
+
+        this.analyticsHistogram.record(analyticsNanos);
+        this.processHistogram.record(System.nanoTime() - startTime);
+    }
+
+    /**
+     * Periodically log the runtime, dispatcher, stage and outbound control statistics until the thread is interrupted,
+     * then shutdown the runtime
+     */
+    public void run(){
+
+        while(!Thread.currentThread().isInterrupted()){
+
+            try {
+                Thread.sleep(REPORT_PERIOD_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            if(this.orderedLaneDispatcher != null)
+                logger.info("[DISPATCH STATS] Skipped (other partitions): {} Queued: {} Processed: {} Dropped: {} Lanes: {}",
+                        this.consumerGroup.getSkippedMessageCount(),
+                        this.orderedLaneDispatcher.getQueueDepth(),
+                        this.orderedLaneDispatcher.getProcessedMessageCount(),
+                        this.orderedLaneDispatcher.getDroppedMessageCount(),
+                        this.orderedLaneDispatcher.getLaneStats());
+
+            logger.info("[STAGE STATS] {}", getStats());
+
+            logger.info("[SEQUENCE STATS] {}", this.sequenceTracker.getStats());
+
+            logger.info("[CONTROL STATS] {}", this.controlMessagePublisher.getStats());
+
+            for(MetricsReporter metricsReporter : this.metricsReporterList)
+                metricsReporter.report();
+        }
+
+        shutdown();
+    }
+
+    public void shutdown(){
+
+        if(!this.isShutdown.compareAndSet(false, true))
+            return;
+
+        //The stages are stopped only once the lanes are no longer delivering samples to them
+        if(this.orderedLaneDispatcher != null){
+
+            this.orderedLaneDispatcher.shutdown();
+
+            try{
+                if(!this.orderedLaneDispatcher.awaitTermination(DISPATCH_SHUTDOWN_TIMEOUT_MS))
+                    logger.warn("Dispatch lanes still running after {} ms, stopping the stages !", DISPATCH_SHUTDOWN_TIMEOUT_MS);
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for(StageEntry stageEntry : this.stageList)
+            stageEntry.analyticsStage.stop();
+
+        if(this.controlMessagePublisher != null)
+            this.controlMessagePublisher.shutdown();
+
+        for(MetricsReporter metricsReporter : this.metricsReporterList)
+            if(metricsReporter instanceof Closeable)
+                try{
+                    ((Closeable) metricsReporter).close();
+                }catch (Exception e){
+                    logger.error("Error closing the metrics reporter ! Msg: {}", e.getLocalizedMessage());
+                }
+    }
+
+    /**
+     * Drop the late and duplicate samples (by sequence number) instead of delivering them to the stages (default false,
+     * they are only counted)
+     */
+    public ConsumerRuntime setDropStaleSamples(boolean dropStaleSamples){
+        this.sequenceTracker.setDropStaleSamples(dropStaleSamples);
+        return this;
+    }
+
+    /**
+     * Add a reporter of the metrics (e.g. a CsvMetricsReporter), invoked by run() with the default log reporter
+     */
+    public ConsumerRuntime addMetricsReporter(MetricsReporter metricsReporter){
+        this.metricsReporterList.add(metricsReporter);
+        return this;
+    }
+
+    /**
+     * @return the name of a metric of the runtime (e.g. fleet-monitoring.e2e)
+     */
+    public String getMetricName(String metric){
+        return String.format("%s.%s", this.name, metric);
+    }
+
+    /**
+     * @return the topic filters subscribed by the runtime: the distinct stage filters not covered by other filters
+     */
+    public String[] getSubscriptionTopicFilters(){
+
+        List<String> topicFilterList = new ArrayList<>();
+
+        for(StageEntry stageEntry : this.stageList)
+            for(String topicFilter : stageEntry.analyticsStage.getTopicFilters())
+                if(!topicFilterList.contains(topicFilter))
+                    topicFilterList.add(topicFilter);
+
+        List<String> subscriptionList = new ArrayList<>();
+
+        for(String topicFilter : topicFilterList){
+
+            boolean isCovered = false;
+
+            for(String otherTopicFilter : topicFilterList)
+                if(!otherTopicFilter.equals(topicFilter) && TopicTrie.covers(otherTopicFilter, topicFilter))
+                    isCovered = true;
+
+            if(!isCovered)
+                subscriptionList.add(topicFilter);
+        }
+
+        return subscriptionList.toArray(new String[0]);
+    }
+
+    /**
+     * @param topic e.g. fleet/vehicle/fa18f676-8198-4e9f-90e0-c50a5e419b94/telemetry/gps or the geo-partitioned
+     *              fleet/geo/u0p2/vehicle/fa18f676-8198-4e9f-90e0-c50a5e419b94/telemetry/gps
+     * @return the vehicle id
+     */
+    public static String getVehicleId(String topic){
+
+        int start = -1;
+
+        for(int level = GeoPartitionTopics.getVehicleIdTopicLevel(topic); level > 0; level--){
+            start = topic.indexOf('/', start + 1);
+            if(start < 0)
+                return topic;
+        }
+
+        int end = topic.indexOf('/', start + 1);
+        return (end > start + 1 ? topic.substring(start + 1, end) : topic);
+    }
+
+    public String getStats(){
+        final StringBuffer sb = new StringBuffer();
+        sb.append("received=").append(this.receivedMessageCounter.sum());
+        sb.append(", unrouted=").append(this.unroutedMessageCounter.sum());
+        sb.append(", decoded=").append(this.decodedMessageCounter.sum());
+        sb.append(", decodingErrors=").append(this.decodingErrorCounter.sum());
+        for(StageEntry stageEntry : this.stageList)
+            sb.append(", ").append(stageEntry.analyticsStage.getName())
+                    .append("={processed=").append(stageEntry.processedCounter.sum())
+                    .append(", errors=").append(stageEntry.errorCounter.sum()).append('}');
+        return sb.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ConsumerGroup getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public ObjectMapper getMapper() {
+        return mapper;
+    }
+
+    public ControlMessagePublisher getControlMessagePublisher() {
+        return controlMessagePublisher;
+    }
+
+    public long getReceivedMessageCount() {
+        return this.receivedMessageCounter.sum();
+    }
+
+    public long getDecodedMessageCount() {
+        return this.decodedMessageCounter.sum();
+    }
+
+    public TelemetrySequenceTracker getSequenceTracker() {
+        return sequenceTracker;
+    }
+
+    private static class StageEntry {
+
+        private final AnalyticsStage analyticsStage;
+
+        //Processed samples (or raw messages)
+        private final LongAdder processedCounter;
+
+        private final LongAdder errorCounter;
+
+        //Processing time of each sample (or raw message)
+        private final LatencyHistogram latencyHistogram;
+
+        private StageEntry(AnalyticsStage analyticsStage, LongAdder processedCounter, LongAdder errorCounter, LatencyHistogram latencyHistogram) {
+            this.analyticsStage = analyticsStage;
+            this.processedCounter = processedCounter;
+            this.errorCounter = errorCounter;
+            this.latencyHistogram = latencyHistogram;
+        }
+    }
+
+    /**
+     * Deliver each decoded sample to the stages matching the current topic
+     */
+    private static class SampleFanOut implements TelemetrySampleListener {
+
+        private final List<StageEntry> stageList = new ArrayList<>();
+
+        private final LatencyHistogram endToEndHistogram;
+
+        private final TelemetrySequenceTracker sequenceTracker;
+
+        private String topic;
+
+        //Sequence state of the vehicle of the current topic (resolved at the first sequenced sample)
+        private TelemetrySequenceTracker.VehicleSequenceState vehicleState;
+
+        //Time spent by the stages on the samples of the current message
+        private long stageNanos;
+
+        private SampleFanOut(LatencyHistogram endToEndHistogram, TelemetrySequenceTracker sequenceTracker) {
+            this.endToEndHistogram = endToEndHistogram;
+            this.sequenceTracker = sequenceTracker;
+        }
+
+        @Override
+        public void onSample(TelemetrySample telemetrySample) {
+
+            if(telemetrySample.getTimestamp() > 0)
+                this.endToEndHistogram.record((System.currentTimeMillis() - telemetrySample.getTimestamp()) * 1000000L);
+
+            if(this.vehicleState == null && telemetrySample.getSequenceNumber() != TelemetryMessage.NO_SEQUENCE_NUMBER)
+                this.vehicleState = this.sequenceTracker.getVehicleState(getVehicleId(this.topic));
+
+            //Stale samples are dropped before the stages (if enabled)
+            if(!this.sequenceTracker.track(this.vehicleState, telemetrySample))
+                return;
+
+            for(int i = 0; i < this.stageList.size(); i++){
+
+                StageEntry stageEntry = this.stageList.get(i);
+
+                if(!stageEntry.analyticsStage.isDecodingRequired())
+                    continue;
+
+                long startTime = System.nanoTime();
+
+                //A failing stage does not prevent the delivery to the others
+                try{
+                    stageEntry.analyticsStage.onSample(this.topic, telemetrySample);
+                    stageEntry.processedCounter.increment();
+                }catch (Exception e){
+                    stageEntry.errorCounter.increment();
+                    logger.error("Error processing sample of topic: {} in stage: {} ! Msg: {}", this.topic, stageEntry.analyticsStage.getName(), e.getLocalizedMessage());
+                }
+
+                long stageNanos = System.nanoTime() - startTime;
+                stageEntry.latencyHistogram.record(stageNanos);
+                this.stageNanos += stageNanos;
+            }
+        }
+    }
+}
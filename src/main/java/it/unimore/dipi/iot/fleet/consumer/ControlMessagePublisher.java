@@ -0,0 +1,377 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.message.ControlMessage;
+import it.unimore.dipi.iot.fleet.metrics.LatencyHistogram;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared outbound publisher of the control messages sent by a consumer to the vehicles, replacing a new thread for each message.
+ *
+ * Controls are published by a fixed pool of threads. A control submitted while an identical one (same topic and type) is
+ * still pending replaces it (coalescing, the latest content wins), the controls of the same topic (vehicle) are published
+ * at most once every minIntervalMs (the following ones are delayed, not discarded, and the publish slot of a topic is
+ * released once expired) and the number of pending controls is
+ * bounded (new controls are dropped when the limit is reached). Submitted, coalesced, dropped, published and failed
+ * controls are counted together with the publish latency (from submission to publish). Controls can be retained by the
+ * broker (publishRetained), e.g. the alerts of an area topic delivered also to the vehicles subscribing later, and
+ * removed from the broker with a zero-length retained payload (clearRetained).
+ * The delay from submission to publish (control.delay) and the serialization and publish time (control.publish) are
+ * also recorded in the latency histograms of the default MetricsRegistry.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:19
+ */
+public class ControlMessagePublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ControlMessagePublisher.class);
+
+    public static final int DEFAULT_WORKER_THREADS = 2;
+
+    public static final int DEFAULT_MAX_PENDING_CONTROLS = 10000;
+
+    public static final long DEFAULT_MIN_INTERVAL_MS = 1000;
+
+    private static final int CONTROL_QOS = 0;
+
+    /**
+     * Target of the serialized control messages
+     */
+    public interface PayloadPublisher {
+
+        public void publish(String topic, byte[] payload) throws Exception;
+
+        /**
+         * Publish a message kept by the broker and delivered to the future subscribers of the topic
+         * (targets without retained messages publish it as a regular message)
+         */
+        public default void publishRetained(String topic, byte[] payload) throws Exception {
+            publish(topic, payload);
+        }
+
+    }
+
+    private final PayloadPublisher payloadPublisher;
+
+    private final ObjectMapper mapper;
+
+    private final int maxPendingControls;
+
+    private final long minIntervalMs;
+
+    private final ScheduledThreadPoolExecutor executor;
+
+    //Pending controls by topic and type
+    private final Map<String, PendingControl> pendingControlMap;
+
+    //Earliest timestamp (ms) of the next control of the recently published topics
+    private final Map<String, Long> nextPublishMap;
+
+    private final AtomicInteger pendingControlCount;
+
+    private final LongAdder submittedCounter;
+
+    private final LongAdder coalescedCounter;
+
+    private final LongAdder droppedCounter;
+
+    private final LongAdder publishedCounter;
+
+    private final LongAdder failedCounter;
+
+    private final LongAdder totalLatencyNanos;
+
+    private final LongAccumulator maxLatencyNanos;
+
+    //Shared by the publishers of the process
+    private final LatencyHistogram delayHistogram;
+
+    private final LatencyHistogram publishHistogram;
+
+    public ControlMessagePublisher(IMqttClient mqttClient, ObjectMapper mapper) {
+        this(mqttClient, mapper, DEFAULT_WORKER_THREADS, DEFAULT_MAX_PENDING_CONTROLS, DEFAULT_MIN_INTERVAL_MS);
+    }
+
+    public ControlMessagePublisher(IMqttClient mqttClient, ObjectMapper mapper, int workerThreads, int maxPendingControls, long minIntervalMs) {
+        this(new PayloadPublisher() {
+            @Override
+            public void publish(String topic, byte[] payload) throws Exception {
+                publishMessage(mqttClient, topic, payload, false);
+            }
+
+            @Override
+            public void publishRetained(String topic, byte[] payload) throws Exception {
+                publishMessage(mqttClient, topic, payload, true);
+            }
+        }, mapper, workerThreads, maxPendingControls, minIntervalMs);
+    }
+
+    private static void publishMessage(IMqttClient mqttClient, String topic, byte[] payload, boolean isRetained) throws Exception {
+
+        if(!mqttClient.isConnected())
+            throw new IllegalStateException("MQTT Client is not Connected");
+
+        MqttMessage mqttMessage = new MqttMessage(payload);
+        mqttMessage.setQos(CONTROL_QOS);
+        mqttMessage.setRetained(isRetained);
+        mqttClient.publish(topic, mqttMessage);
+    }
+
+    /**
+     * @param payloadPublisher target of the serialized messages
+     * @param mapper
+     * @param workerThreads number of publishing threads
+     * @param maxPendingControls maximum number of pending controls
+     * @param minIntervalMs minimum time between two controls on the same topic (0 = no rate limit)
+     */
+    public ControlMessagePublisher(PayloadPublisher payloadPublisher, ObjectMapper mapper, int workerThreads, int maxPendingControls, long minIntervalMs) {
+
+        if(workerThreads <= 0 || maxPendingControls <= 0 || minIntervalMs < 0)
+            throw new IllegalArgumentException("Invalid control publisher configuration !");
+
+        this.payloadPublisher = payloadPublisher;
+        this.mapper = mapper;
+        this.maxPendingControls = maxPendingControls;
+        this.minIntervalMs = minIntervalMs;
+        this.pendingControlMap = new ConcurrentHashMap<>();
+        this.nextPublishMap = new ConcurrentHashMap<>();
+        this.pendingControlCount = new AtomicInteger(0);
+        this.submittedCounter = new LongAdder();
+        this.coalescedCounter = new LongAdder();
+        this.droppedCounter = new LongAdder();
+        this.publishedCounter = new LongAdder();
+        this.failedCounter = new LongAdder();
+        this.totalLatencyNanos = new LongAdder();
+        this.maxLatencyNanos = new LongAccumulator(Long::max, 0);
+        this.delayHistogram = MetricsRegistry.getDefault().histogram("control.delay");
+        this.publishHistogram = MetricsRegistry.getDefault().histogram("control.publish");
+
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        this.executor = new ScheduledThreadPoolExecutor(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, String.format("control-publisher-%d", threadCounter.getAndIncrement()));
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submit a control message without blocking the caller
+     *
+     * @return false if the control has been dropped (too many pending controls)
+     */
+    public boolean publish(String topic, ControlMessage controlMessage){
+        return publish(topic, controlMessage, false);
+    }
+
+    /**
+     * Submit a control message retained by the broker (e.g. the alert of an area, delivered also to the vehicles
+     * entering the area later) without blocking the caller
+     *
+     * @return false if the control has been dropped (too many pending controls)
+     */
+    public boolean publishRetained(String topic, ControlMessage controlMessage){
+        return publish(topic, controlMessage, true);
+    }
+
+    /**
+     * Submit the removal of the retained control of a topic (a zero-length retained payload), replacing the pending
+     * control of the same type if any, without blocking the caller
+     *
+     * @return false if the control has been dropped (too many pending controls)
+     */
+    public boolean clearRetained(String topic, String type){
+        return publish(topic, type, null, true);
+    }
+
+    private boolean publish(String topic, ControlMessage controlMessage, boolean isRetained){
+        return publish(topic, controlMessage.getType(), controlMessage, isRetained);
+    }
+
+    /**
+     * @param controlMessage the control to publish (null = clear the retained control of the topic)
+     */
+    private boolean publish(String topic, String type, ControlMessage controlMessage, boolean isRetained){
+
+        this.submittedCounter.increment();
+
+        String key = String.format("%s|%s", topic, type);
+        boolean[] isAccepted = {true};
+
+        this.pendingControlMap.compute(key, (k, pendingControl) -> {
+
+            //Still waiting for publication, only the content is replaced
+            if(pendingControl != null){
+                pendingControl.controlMessage = controlMessage;
+                pendingControl.isRetained = isRetained;
+                this.coalescedCounter.increment();
+                return pendingControl;
+            }
+
+            if(this.pendingControlCount.incrementAndGet() > this.maxPendingControls){
+                this.pendingControlCount.decrementAndGet();
+                this.droppedCounter.increment();
+                isAccepted[0] = false;
+                return null;
+            }
+
+            PendingControl newPendingControl = new PendingControl(topic, controlMessage, isRetained);
+            this.executor.schedule(() -> publishPendingControl(k, newPendingControl), reservePublishDelayMs(topic), TimeUnit.MILLISECONDS);
+
+            return newPendingControl;
+        });
+
+        return isAccepted[0];
+    }
+
+    public void shutdown(){
+        this.executor.shutdown();
+    }
+
+    private void publishPendingControl(String key, PendingControl pendingControl){
+
+        //From now on new controls with the same key are scheduled again
+        this.pendingControlMap.remove(key, pendingControl);
+        this.pendingControlCount.decrementAndGet();
+
+        ControlMessage controlMessage = pendingControl.controlMessage;
+
+        try{
+
+            long startTime = System.nanoTime();
+
+            byte[] payload = (controlMessage != null ? this.mapper.writeValueAsBytes(controlMessage) : new byte[0]);
+
+            if(pendingControl.isRetained)
+                this.payloadPublisher.publishRetained(pendingControl.topic, payload);
+            else
+                this.payloadPublisher.publish(pendingControl.topic, payload);
+
+            long publishedTime = System.nanoTime();
+            this.publishHistogram.record(publishedTime - startTime);
+
+            long latency = publishedTime - pendingControl.submissionTime;
+            this.delayHistogram.record(latency);
+            this.totalLatencyNanos.add(latency);
+            this.maxLatencyNanos.accumulate(latency);
+            this.publishedCounter.increment();
+
+            if(logger.isDebugEnabled())
+                logger.debug("Control Published to topic: {} -> Data: {}", pendingControl.topic, controlMessage);
+
+        }catch (Exception e){
+            this.failedCounter.increment();
+            logger.error("Error publishing control to topic: {} ! Msg: {}", pendingControl.topic, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Reserve the next publish slot of the topic
+     * @return the delay before the slot
+     */
+    private long reservePublishDelayMs(String topic){
+
+        if(this.minIntervalMs == 0)
+            return 0;
+
+        long timestamp = System.currentTimeMillis();
+        long[] slot = {timestamp};
+
+        Long reservedTimestamp = this.nextPublishMap.compute(topic, (key, nextPublishTimestamp) -> {
+            slot[0] = (nextPublishTimestamp == null ? timestamp : Math.max(timestamp, nextPublishTimestamp));
+            return slot[0] + this.minIntervalMs;
+        });
+
+        //Release the slot once expired, unless a newer control of the topic has reserved the following one
+        this.executor.schedule(() -> this.nextPublishMap.remove(topic, reservedTimestamp), reservedTimestamp - timestamp, TimeUnit.MILLISECONDS);
+
+        return slot[0] - timestamp;
+    }
+
+    /**
+     * @return the number of topics with a reserved publish slot
+     */
+    public int getReservedSlotCount() {
+        return this.nextPublishMap.size();
+    }
+
+    public int getPendingControlCount() {
+        return this.pendingControlCount.get();
+    }
+
+    public long getSubmittedControlCount() {
+        return this.submittedCounter.sum();
+    }
+
+    public long getCoalescedControlCount() {
+        return this.coalescedCounter.sum();
+    }
+
+    public long getDroppedControlCount() {
+        return this.droppedCounter.sum();
+    }
+
+    public long getPublishedControlCount() {
+        return this.publishedCounter.sum();
+    }
+
+    public long getFailedControlCount() {
+        return this.failedCounter.sum();
+    }
+
+    /**
+     * @return the average time (ms) from submission to publish
+     */
+    public double getAverageLatencyMs() {
+        long publishedCount = this.publishedCounter.sum();
+        return (publishedCount == 0 ? 0.0 : this.totalLatencyNanos.sum() / 1e6 / publishedCount);
+    }
+
+    public double getMaxLatencyMs() {
+        return this.maxLatencyNanos.get() / 1e6;
+    }
+
+    public String getStats(){
+        return String.format("pending=%d slots=%d submitted=%d coalesced=%d dropped=%d published=%d failed=%d latency(avg/max)=%.2f/%.2f ms",
+                getPendingControlCount(),
+                getReservedSlotCount(),
+                getSubmittedControlCount(),
+                getCoalescedControlCount(),
+                getDroppedControlCount(),
+                getPublishedControlCount(),
+                getFailedControlCount(),
+                getAverageLatencyMs(),
+                getMaxLatencyMs());
+    }
+
+    private static class PendingControl {
+
+        private final String topic;
+
+        private final long submissionTime;
+
+        //Replaced by coalesced submissions (null = clear the retained control)
+        private volatile ControlMessage controlMessage;
+
+        private volatile boolean isRetained;
+
+        private PendingControl(String topic, ControlMessage controlMessage, boolean isRetained) {
+            this.topic = topic;
+            this.controlMessage = controlMessage;
+            this.isRetained = isRetained;
+            this.submissionTime = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import it.unimore.dipi.iot.fleet.dispatch.ConsumerGroup;
+import it.unimore.dipi.iot.fleet.metrics.CsvMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Battery and Traffic Monitoring for active fleet vehicles on a single MQTT connection: each telemetry message is
+ * received and decoded once by the ConsumerRuntime and delivered to both the analytics stages and to the telemetry
+ * history store
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public class FleetMonitoringConsumer {
+
+    private final static Logger logger = LoggerFactory.getLogger(FleetMonitoringConsumer.class);
+
+    //IP Address of the target MQTT Broker
+    private static String BROKER_ADDRESS = "127.0.0.1";
+
+    //PORT of the target MQTT Broker
+    private static int BROKER_PORT = 1883;
+
+    //History of the fleet telemetry
+    private static final String TELEMETRY_STORE_DIRECTORY = "telemetry-store";
+
+    //Runtime metrics appended at each report (with the log and JMX ones)
+    private static final String METRICS_CSV_FILE = "fleet-monitoring-metrics.csv";
+
+    public static void main(String [ ] args) {
+
+    	logger.info("MQTT Consumer Tester Started ...");
+
+        try{
+
+            //Instances of the same group handle disjoint slices of the fleet
+            ConsumerGroup consumerGroup = ConsumerGroup.fromArgs(args, "fleet-monitoring");
+
+            ConsumerRuntime consumerRuntime = new ConsumerRuntime("fleet-monitoring", consumerGroup);
+            consumerRuntime.addStage(new BatteryMonitoringStage());
+            consumerRuntime.addStage(new TrafficMonitoringStage(TrafficMonitoringStage.DEFAULT_AREA_CONTROL_PRECISION));
+            consumerRuntime.addStage(new TelemetryStoreStage(new File(TELEMETRY_STORE_DIRECTORY)));
+            consumerRuntime.addMetricsReporter(new CsvMetricsReporter(MetricsRegistry.getDefault(), new File(METRICS_CSV_FILE)));
+
+            consumerRuntime.start(ConsumerRuntime.connect(BROKER_ADDRESS, BROKER_PORT));
+
+            consumerRuntime.run();
+
+        }catch (Exception e){
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetryFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Log every received message (raw payload, without decoding)
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public class MessageLoggingStage implements AnalyticsStage {
+
+    private final static Logger logger = LoggerFactory.getLogger(MessageLoggingStage.class);
+
+    private static final String STAGE_NAME = "message-logging";
+
+    private final String topicFilter;
+
+    public MessageLoggingStage() {
+        this("#");
+    }
+
+    public MessageLoggingStage(String topicFilter) {
+        this.topicFilter = topicFilter;
+    }
+
+    @Override
+    public String getName() {
+        return STAGE_NAME;
+    }
+
+    @Override
+    public List<String> getTopicFilters() {
+        return Collections.singletonList(this.topicFilter);
+    }
+
+    @Override
+    public boolean isDecodingRequired() {
+        return false;
+    }
+
+    @Override
+    public void onMessage(String topic, byte[] payload) {
+        if(TelemetryFormat.detect(payload) == TelemetryFormat.BINARY)
+            logger.info("Message Received -> Topic: {} - Binary Telemetry Payload: {} bytes", topic, payload.length);
+        else
+            logger.info("Message Received -> Topic: {} - Payload: {}", topic, new String(payload));
+    }
+}
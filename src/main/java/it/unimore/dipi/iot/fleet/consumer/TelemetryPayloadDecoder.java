@@ -0,0 +1,140 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.BinaryTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.GpsDeltaTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.StreamingJsonTelemetryDecoder;
+import it.unimore.dipi.iot.fleet.codec.TelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetryFormat;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySampleListener;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decode an MQTT telemetry payload transparently handling both single TelemetryMessage
+ * and TelemetryBatchMessage envelopes, in any of the available TelemetryFormat
+ * (detected from the first byte of the payload).
+ *
+ * Stateful formats (GPS_DELTA) are decoded through a table of decoder states, one for each
+ * vehicle resource. Geo-partitioned topics share the state of the vehicle across the cells it drives through
+ * (the vehicle starts the stream of a new cell with a keyframe), so the table does not grow with the visited cells
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:42
+ */
+public class TelemetryPayloadDecoder<T> {
+
+    private final Class<T> dataValueClass;
+
+    private final TelemetryCodec jsonTelemetryCodec;
+
+    private final BinaryTelemetryCodec binaryTelemetryCodec;
+
+    private final StreamingJsonTelemetryDecoder streamingJsonTelemetryDecoder;
+
+    private final Map<String, GpsDeltaTelemetryCodec> gpsDeltaDecoderMap;
+
+    //Reusable sample holder of each decoding thread
+    private final ThreadLocal<TelemetrySample> telemetrySample;
+
+    public TelemetryPayloadDecoder(ObjectMapper mapper, Class<T> dataValueClass) {
+        this.dataValueClass = dataValueClass;
+        this.jsonTelemetryCodec = new JsonTelemetryCodec(mapper);
+        this.binaryTelemetryCodec = new BinaryTelemetryCodec();
+        this.streamingJsonTelemetryDecoder = new StreamingJsonTelemetryDecoder(mapper.getFactory());
+        this.gpsDeltaDecoderMap = new ConcurrentHashMap<>();
+        this.telemetrySample = ThreadLocal.withInitial(TelemetrySample::new);
+    }
+
+    /**
+     * Decode a payload of a stateless format
+     * @param payload the received MQTT payload
+     * @return the list of telemetry messages carried by the payload
+     * @throws IOException if the payload is not a valid telemetry message or batch
+     */
+    public List<TelemetryMessage<T>> decode(byte[] payload) throws IOException {
+        return decode(null, payload);
+    }
+
+    /**
+     * @param topic the topic of the received message (used to select the decoder state of stateful formats)
+     * @param payload the received MQTT payload
+     * @return the list of telemetry messages carried by the payload (empty if a delta frame can not be applied yet)
+     * @throws IOException if the payload is not a valid telemetry message or batch
+     */
+    public List<TelemetryMessage<T>> decode(String topic, byte[] payload) throws IOException {
+
+        switch (TelemetryFormat.detect(payload)){
+            case BINARY:
+                return this.binaryTelemetryCodec.decode(payload, this.dataValueClass);
+            case GPS_DELTA:
+                if(topic == null)
+                    throw new IOException("GPS delta payloads require the source topic !");
+                return this.gpsDeltaDecoderMap.computeIfAbsent(GeoPartitionTopics.getVehicleTopic(topic), key -> new GpsDeltaTelemetryCodec()).decode(payload, this.dataValueClass);
+            default:
+                return this.jsonTelemetryCodec.decode(payload, this.dataValueClass);
+        }
+    }
+
+    /**
+     * Streaming decoding path: the samples are decoded into a reusable per-thread TelemetrySample (JSON through a
+     * streaming parser and binary payloads without any intermediate object)
+     *
+     * @param topic the topic of the received message (used to select the decoder state of stateful formats)
+     * @param payload the received MQTT payload
+     * @param telemetrySampleListener invoked for each sample of the payload
+     * @return the number of decoded samples
+     * @throws IOException if the payload is not a valid telemetry message or batch
+     */
+    public int decode(String topic, byte[] payload, TelemetrySampleListener telemetrySampleListener) throws IOException {
+
+        TelemetrySample telemetrySample = this.telemetrySample.get();
+
+        switch (TelemetryFormat.detect(payload)){
+            case BINARY:
+                return this.binaryTelemetryCodec.decode(payload, telemetrySample, telemetrySampleListener);
+            case GPS_DELTA:
+                List<TelemetryMessage<T>> messageList = decode(topic, payload);
+                for(TelemetryMessage<T> telemetryMessage : messageList){
+                    telemetrySample.reset();
+                    telemetrySample.setTimestamp(telemetryMessage.getTimestamp());
+                    telemetrySample.setSequenceNumber(telemetryMessage.getSequenceNumber());
+                    telemetrySample.setType(telemetryMessage.getType());
+                    telemetrySample.setDataValue(telemetryMessage.getDataValue());
+                    try{
+                        telemetrySampleListener.onSample(telemetrySample);
+                    }catch (IOException e){
+                        throw e;
+                    }catch (Exception e){
+                        throw new IOException("Error processing telemetry sample !", e);
+                    }
+                }
+                return messageList.size();
+            default:
+                return this.streamingJsonTelemetryDecoder.decode(payload, telemetrySample, telemetrySampleListener);
+        }
+    }
+
+    /**
+     * Remove the decoder state of a vehicle resource (e.g. vehicle no longer active)
+     * @param topic any telemetry topic of the vehicle resource (standard or geo-partitioned)
+     */
+    public void removeDecoderState(String topic){
+        this.gpsDeltaDecoderMap.remove(GeoPartitionTopics.getVehicleTopic(topic));
+    }
+
+    /**
+     * @return the number of delta frames discarded because of missing previous frames (lost messages or late join)
+     */
+    public long getDiscardedFrameCount(){
+        return this.gpsDeltaDecoderMap.values().stream().mapToLong(GpsDeltaTelemetryCodec::getDiscardedFrameCount).sum();
+    }
+}
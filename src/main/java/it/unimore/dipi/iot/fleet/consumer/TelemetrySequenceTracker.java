@@ -0,0 +1,359 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Loss, duplicate and reordering accounting of the telemetry sequence numbers (TelemetryMessage.getSequenceNumber(),
+ * one stream for each vehicle resource, starting from 1).
+ *
+ * Each stream keeps a sliding bitmap of the last windowSize sequence numbers below the highest received one. A sample
+ * above the highest advances the window, a sample inside the window is a duplicate if its bit is already set, otherwise
+ * a late (reordered) sample filling a gap. A sequence number is counted as lost only when it leaves the window without
+ * being received, so reordering within the window is never reported as a loss. Samples older than the window are counted
+ * as reordered (they were already counted as lost). A lower sequence number with a newer timestamp than the highest one
+ * is a restart of the vehicle and resets the stream.
+ *
+ * With dropStaleSamples the late and duplicate samples are not delivered to the analytics, so stages keeping the last
+ * state of a vehicle never go back in time. Samples without a sequence number are always delivered.
+ *
+ * Counters (<prefix>.tracked, unsequenced, lost, duplicates, reordered, restarts, dropped) are registered in the default
+ * MetricsRegistry.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 03:02
+ */
+public class TelemetrySequenceTracker {
+
+    public static final int DEFAULT_WINDOW_SIZE = 256;
+
+    private static final int IN_ORDER = 0;
+
+    private static final int LATE = 1;
+
+    private static final int DUPLICATE = 2;
+
+    private static final int RESTART = 3;
+
+    private final int windowSize;
+
+    private final Map<String, VehicleSequenceState> vehicleStateMap;
+
+    private volatile boolean dropStaleSamples;
+
+    private final LongAdder trackedCounter;
+
+    private final LongAdder unsequencedCounter;
+
+    private final LongAdder lostCounter;
+
+    private final LongAdder duplicateCounter;
+
+    private final LongAdder reorderedCounter;
+
+    private final LongAdder restartCounter;
+
+    private final LongAdder droppedCounter;
+
+    public TelemetrySequenceTracker(String metricPrefix) {
+        this(metricPrefix, DEFAULT_WINDOW_SIZE, false);
+    }
+
+    /**
+     * @param metricPrefix prefix of the counter names (e.g. fleet-monitoring.sequence)
+     * @param windowSize number of sequence numbers tracked below the highest one (power of two, at least 64)
+     * @param dropStaleSamples if true late and duplicate samples are not delivered to the analytics
+     */
+    public TelemetrySequenceTracker(String metricPrefix, int windowSize, boolean dropStaleSamples) {
+
+        if(windowSize < Long.SIZE || Integer.bitCount(windowSize) != 1)
+            throw new IllegalArgumentException("Window size must be a power of two >= 64 !");
+
+        this.windowSize = windowSize;
+        this.vehicleStateMap = new ConcurrentHashMap<>();
+        this.dropStaleSamples = dropStaleSamples;
+
+        MetricsRegistry metricsRegistry = MetricsRegistry.getDefault();
+        this.trackedCounter = metricsRegistry.register(metricPrefix + ".tracked", new LongAdder());
+        this.unsequencedCounter = metricsRegistry.register(metricPrefix + ".unsequenced", new LongAdder());
+        this.lostCounter = metricsRegistry.register(metricPrefix + ".lost", new LongAdder());
+        this.duplicateCounter = metricsRegistry.register(metricPrefix + ".duplicates", new LongAdder());
+        this.reorderedCounter = metricsRegistry.register(metricPrefix + ".reordered", new LongAdder());
+        this.restartCounter = metricsRegistry.register(metricPrefix + ".restarts", new LongAdder());
+        this.droppedCounter = metricsRegistry.register(metricPrefix + ".dropped", new LongAdder());
+    }
+
+    /**
+     * @return the sequence state of a vehicle (created at the first sample)
+     */
+    public VehicleSequenceState getVehicleState(String vehicleId){
+        return this.vehicleStateMap.computeIfAbsent(vehicleId, key -> new VehicleSequenceState(this.windowSize));
+    }
+
+    /**
+     * Account the sequence number of a sample of the vehicle
+     * @return false if the sample is stale and has to be dropped
+     */
+    public boolean track(VehicleSequenceState vehicleState, TelemetrySample telemetrySample){
+
+        if(telemetrySample.getSequenceNumber() <= TelemetryMessage.NO_SEQUENCE_NUMBER){
+            this.unsequencedCounter.increment();
+            return true;
+        }
+
+        this.trackedCounter.increment();
+
+        int result = vehicleState.track(telemetrySample.getType(), telemetrySample.getSequenceNumber(), telemetrySample.getTimestamp(), this.lostCounter);
+
+        switch (result){
+            case LATE:
+                this.reorderedCounter.increment();
+                break;
+            case DUPLICATE:
+                this.duplicateCounter.increment();
+                break;
+            case RESTART:
+                this.restartCounter.increment();
+                break;
+            default:
+                return true;
+        }
+
+        if(this.dropStaleSamples && result != RESTART){
+            this.droppedCounter.increment();
+            return false;
+        }
+
+        return true;
+    }
+
+    public void setDropStaleSamples(boolean dropStaleSamples) {
+        this.dropStaleSamples = dropStaleSamples;
+    }
+
+    public boolean isDropStaleSamples() {
+        return dropStaleSamples;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getVehicleCount() {
+        return this.vehicleStateMap.size();
+    }
+
+    public long getTrackedCount() {
+        return this.trackedCounter.sum();
+    }
+
+    public long getLostCount() {
+        return this.lostCounter.sum();
+    }
+
+    public long getDuplicateCount() {
+        return this.duplicateCounter.sum();
+    }
+
+    public long getReorderedCount() {
+        return this.reorderedCounter.sum();
+    }
+
+    public long getRestartCount() {
+        return this.restartCounter.sum();
+    }
+
+    public long getDroppedCount() {
+        return this.droppedCounter.sum();
+    }
+
+    /**
+     * @return the lost sequence numbers over the expected ones (received once or lost)
+     */
+    public double getLossRatio(){
+        long lostCount = this.lostCounter.sum();
+        long expectedCount = this.trackedCounter.sum() - this.duplicateCounter.sum() + lostCount;
+        return (expectedCount > 0 ? (double) lostCount / expectedCount : 0.0);
+    }
+
+    public String getStats(){
+        final StringBuffer sb = new StringBuffer();
+        sb.append("vehicles=").append(getVehicleCount());
+        sb.append(", tracked=").append(this.trackedCounter.sum());
+        sb.append(", unsequenced=").append(this.unsequencedCounter.sum());
+        sb.append(", lost=").append(this.lostCounter.sum());
+        sb.append(" (").append(String.format("%.3f", getLossRatio() * 100)).append("%)");
+        sb.append(", duplicates=").append(this.duplicateCounter.sum());
+        sb.append(", reordered=").append(this.reorderedCounter.sum());
+        sb.append(", restarts=").append(this.restartCounter.sum());
+        sb.append(", dropped=").append(this.droppedCounter.sum());
+        return sb.toString();
+    }
+
+    /**
+     * Sequence windows of the resources of a vehicle (usually updated by a single dispatcher lane)
+     */
+    public static class VehicleSequenceState {
+
+        private final int windowSize;
+
+        private String[] types;
+
+        private SequenceWindow[] windows;
+
+        private VehicleSequenceState(int windowSize) {
+            this.windowSize = windowSize;
+            this.types = new String[0];
+            this.windows = new SequenceWindow[0];
+        }
+
+        private synchronized int track(String type, long sequenceNumber, long timestamp, LongAdder lostCounter){
+
+            SequenceWindow sequenceWindow = null;
+
+            for(int i = 0; i < this.types.length && sequenceWindow == null; i++)
+                if(this.types[i] == null ? type == null : this.types[i].equals(type))
+                    sequenceWindow = this.windows[i];
+
+            if(sequenceWindow == null){
+                sequenceWindow = new SequenceWindow(this.windowSize);
+                this.types = Arrays.copyOf(this.types, this.types.length + 1);
+                this.windows = Arrays.copyOf(this.windows, this.windows.length + 1);
+                this.types[this.types.length - 1] = type;
+                this.windows[this.windows.length - 1] = sequenceWindow;
+            }
+
+            return sequenceWindow.track(sequenceNumber, timestamp, lostCounter);
+        }
+    }
+
+    /**
+     * Sliding bitmap of the received sequence numbers in (highest - windowSize, highest], the bit of a sequence number
+     * is (sequence number mod windowSize)
+     */
+    private static class SequenceWindow {
+
+        private final long[] bitmap;
+
+        private final int indexMask;
+
+        private boolean isInitialized;
+
+        private long highestSequenceNumber;
+
+        private long highestTimestamp;
+
+        //Lowest received sequence number (previous ones are never counted as lost)
+        private long baseSequenceNumber;
+
+        private SequenceWindow(int windowSize) {
+            this.bitmap = new long[windowSize / Long.SIZE];
+            this.indexMask = windowSize - 1;
+            this.isInitialized = false;
+        }
+
+        private int track(long sequenceNumber, long timestamp, LongAdder lostCounter){
+
+            if(!this.isInitialized || (sequenceNumber <= this.highestSequenceNumber && timestamp > this.highestTimestamp)){
+
+                boolean isRestart = this.isInitialized;
+
+                //The gaps of the previous stream are lost
+                if(isRestart)
+                    lostCounter.add(slide(this.highestSequenceNumber + this.bitmap.length * Long.SIZE));
+
+                this.isInitialized = true;
+                this.baseSequenceNumber = sequenceNumber;
+                advance(sequenceNumber, timestamp);
+                return (isRestart ? RESTART : IN_ORDER);
+            }
+
+            if(sequenceNumber > this.highestSequenceNumber){
+                lostCounter.add(slide(sequenceNumber));
+                advance(sequenceNumber, timestamp);
+                return IN_ORDER;
+            }
+
+            if(sequenceNumber <= this.highestSequenceNumber - this.bitmap.length * Long.SIZE)
+                return LATE;
+
+            if(isReceived(sequenceNumber))
+                return DUPLICATE;
+
+            setReceived(sequenceNumber);
+            this.baseSequenceNumber = Math.min(this.baseSequenceNumber, sequenceNumber);
+
+            return LATE;
+        }
+
+        private void advance(long sequenceNumber, long timestamp){
+            setReceived(sequenceNumber);
+            this.highestSequenceNumber = sequenceNumber;
+            this.highestTimestamp = timestamp;
+        }
+
+        /**
+         * Slide the window up to a new highest sequence number, clearing the bits of the sequence numbers leaving it
+         * @return the number of sequence numbers leaving the window without being received
+         */
+        private long slide(long sequenceNumber){
+
+            long windowSize = this.bitmap.length * Long.SIZE;
+            long distance = sequenceNumber - this.highestSequenceNumber;
+
+            if(distance >= windowSize){
+
+                //The whole window leaves: missing ones in the window and the skipped ones above it
+                long windowStart = Math.max(this.baseSequenceNumber, this.highestSequenceNumber - windowSize + 1);
+                long receivedCount = 0;
+
+                for(int i = 0; i < this.bitmap.length; i++){
+                    receivedCount += Long.bitCount(this.bitmap[i]);
+                    this.bitmap[i] = 0L;
+                }
+
+                return (this.highestSequenceNumber - windowStart + 1 - receivedCount) + (distance - windowSize);
+            }
+
+            long lostCount = 0;
+
+            //Each new sequence number takes the bit of the one leaving the window
+            for(long nextSequenceNumber = this.highestSequenceNumber + 1; nextSequenceNumber <= sequenceNumber; nextSequenceNumber++)
+                lostCount += clear(nextSequenceNumber, windowSize);
+
+            return lostCount;
+        }
+
+        /**
+         * Clear the bit of a new sequence number
+         * @return 1 if the sequence number leaving the window (and sharing the bit) was never received
+         */
+        private int clear(long sequenceNumber, long windowSize){
+
+            int index = (int) (sequenceNumber & this.indexMask);
+            long mask = 1L << index;
+            boolean isLost = (sequenceNumber - windowSize >= this.baseSequenceNumber) && (this.bitmap[index >>> 6] & mask) == 0;
+
+            this.bitmap[index >>> 6] &= ~mask;
+
+            return (isLost ? 1 : 0);
+        }
+
+        private boolean isReceived(long sequenceNumber){
+            int index = (int) (sequenceNumber & this.indexMask);
+            return (this.bitmap[index >>> 6] & (1L << index)) != 0;
+        }
+
+        private void setReceived(long sequenceNumber){
+            int index = (int) (sequenceNumber & this.indexMask);
+            this.bitmap[index >>> 6] |= (1L << index);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import it.unimore.dipi.iot.fleet.store.TelemetryStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep the history of the fleet telemetry (locations and battery levels) in a TelemetryStore.
+ * Open blocks older than maxBlockAgeMs are periodically sealed, so a crash loses at most the samples of the last
+ * maxBlockAgeMs (plus the seal period) instead of a whole block of each vehicle series.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:32
+ */
+public class TelemetryStoreStage implements AnalyticsStage {
+
+    private final static Logger logger = LoggerFactory.getLogger(TelemetryStoreStage.class);
+
+    private static final String STAGE_NAME = "telemetry-store";
+
+    //E.g. fleet/vehicle/e0c7433d-8457-4a6b-8084-595d500076cc/telemetry/gps
+    private static final String GPS_TOPIC = "fleet/vehicle/+/telemetry/gps";
+
+    //E.g. fleet/vehicle/e0c7433d-8457-4a6b-8084-595d500076cc/telemetry/battery
+    private static final String BATTERY_TOPIC = "fleet/vehicle/+/telemetry/battery";
+
+    //E.g. fleet/geo/u0p2/vehicle/e0c7433d-8457-4a6b-8084-595d500076cc/telemetry/gps
+    private static final String GEO_GPS_TOPIC = GeoPartitionTopics.getTelemetryTopicFilter("+", "gps");
+
+    private static final String GEO_BATTERY_TOPIC = GeoPartitionTopics.getTelemetryTopicFilter("+", "battery");
+
+    public static final long DEFAULT_MAX_BLOCK_AGE_MS = 30000;
+
+    private final File storeDirectory;
+
+    private final long maxBlockAgeMs;
+
+    private TelemetryStore telemetryStore;
+
+    private ScheduledExecutorService sealExecutor;
+
+    /**
+     * @param storeDirectory directory of the store segments (an existing store is reopened)
+     */
+    public TelemetryStoreStage(File storeDirectory) {
+        this(storeDirectory, DEFAULT_MAX_BLOCK_AGE_MS);
+    }
+
+    /**
+     * @param storeDirectory directory of the store segments (an existing store is reopened)
+     * @param maxBlockAgeMs maximum age of an open block before it is sealed (also the period of the seal task)
+     */
+    public TelemetryStoreStage(File storeDirectory, long maxBlockAgeMs) {
+
+        if(maxBlockAgeMs <= 0)
+            throw new IllegalArgumentException("Maximum block age must be > 0 !");
+
+        this.storeDirectory = storeDirectory;
+        this.maxBlockAgeMs = maxBlockAgeMs;
+    }
+
+    @Override
+    public String getName() {
+        return STAGE_NAME;
+    }
+
+    @Override
+    public List<String> getTopicFilters() {
+        return Arrays.asList(GPS_TOPIC, BATTERY_TOPIC, GEO_GPS_TOPIC, GEO_BATTERY_TOPIC);
+    }
+
+    @Override
+    public void start(ConsumerRuntime consumerRuntime) throws Exception {
+        this.telemetryStore = new TelemetryStore(this.storeDirectory);
+
+        this.sealExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-store-seal");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sealExecutor.scheduleWithFixedDelay(this::sealAgedBlocks, this.maxBlockAgeMs, this.maxBlockAgeMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void sealAgedBlocks(){
+        try{
+            int sealedBlockCount = this.telemetryStore.sealAgedBlocks(this.maxBlockAgeMs);
+            if(logger.isDebugEnabled())
+                logger.debug("Sealed {} aged blocks ! {}", sealedBlockCount, this.telemetryStore.getStats());
+        }catch (Exception e){
+            logger.error("Error sealing the aged blocks of the telemetry store ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public void onSample(String topic, TelemetrySample telemetrySample) throws Exception {
+
+        if(telemetrySample.hasLocationValue() && telemetrySample.isType(GpsGpxSensorResource.RESOURCE_TYPE))
+            this.telemetryStore.appendLocation(ConsumerRuntime.getVehicleId(topic),
+                    telemetrySample.getTimestamp(),
+                    telemetrySample.getLatitude(),
+                    telemetrySample.getLongitude(),
+                    telemetrySample.getElevation());
+        else if(telemetrySample.hasNumberValue() && telemetrySample.isType(BatterySensorResource.RESOURCE_TYPE))
+            this.telemetryStore.appendBatteryLevel(ConsumerRuntime.getVehicleId(topic),
+                    telemetrySample.getTimestamp(),
+                    telemetrySample.getValue());
+    }
+
+    @Override
+    public void stop() {
+
+        if(this.sealExecutor != null)
+            this.sealExecutor.shutdown();
+
+        try{
+            if(this.telemetryStore != null)
+                this.telemetryStore.close();
+        }catch (Exception e){
+            logger.error("Error closing the telemetry store ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    public TelemetryStore getTelemetryStore() {
+        return telemetryStore;
+    }
+}
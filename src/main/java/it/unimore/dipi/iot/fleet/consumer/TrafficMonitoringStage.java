@@ -0,0 +1,328 @@
+package it.unimore.dipi.iot.fleet.consumer;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.geo.GeoHash;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.index.GridTrafficEventIndex;
+import it.unimore.dipi.iot.fleet.index.TrafficEventIndex;
+import it.unimore.dipi.iot.fleet.message.ControlMessage;
+import it.unimore.dipi.iot.fleet.model.TrafficEventDescriptor;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import it.unimore.dipi.iot.fleet.state.VehicleStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Traffic Monitoring analytics: a control message with the list of the close traffic events is sent to the vehicles
+ * entering the area of active traffic events.
+ *
+ * With area control (areaControlPrecision > 0) the alerts are not sent to each vehicle: the stage publishes a retained
+ * control with the active events on the area topic (fleet/area/<geohash>/control) of each geohash cell intersecting
+ * the alert circle of an event, when the event is added or removed. Vehicles subscribed to the area topic of their
+ * current cell (see VehicleMqttSmartObject.setAreaControlPrecision()) receive the alert when it is published or when
+ * they enter the cell, so alerting a whole area costs a few publishes instead of one for each vehicle.
+ *
+ * The stage receives the GPS telemetry of the standard and of the geo-partitioned layout (see GeoPartitionTopics).
+ * With a list of owned partition cells it only subscribes to the geo-partitioned telemetry of those cells
+ * (fleet/geo/<geohash>/vehicle/+/telemetry/gps), so each instance of a regional deployment receives and decodes only
+ * the vehicles of its region.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public class TrafficMonitoringStage implements AnalyticsStage {
+
+    private final static Logger logger = LoggerFactory.getLogger(TrafficMonitoringStage.class);
+
+    private static final String STAGE_NAME = "traffic-monitoring";
+
+    private static final String CONTROL_TOPIC = "control";
+
+    //E.g. fleet/vehicle/e0c7433d-8457-4a6b-8084-595d500076cc/telemetry/gps
+    private static final String TARGET_TOPIC = "fleet/vehicle/+/telemetry/gps";
+
+    private static final String TARGET_RESOURCE = "gps";
+
+    private static final String VEHICLE_TOPIC = "fleet/vehicle";
+
+    //E.g. fleet/area/u0p2s4/control
+    private static final String AREA_TOPIC = "fleet/area";
+
+    private static final String ALARM_MESSAGE_CONTROL_TYPE = "traffic_alarm_message";
+
+    private static final String AREA_ALARM_MESSAGE_CONTROL_TYPE = "traffic_area_alarm_message";
+
+    //Geohash precision of the area topics (about 1.2 x 0.6 km)
+    public static final int DEFAULT_AREA_CONTROL_PRECISION = 6;
+
+    private static final int TRAFFIC_ALARM = 0;
+
+    //A vehicle is notified once while it stays close to traffic events
+    private static final long TRAFFIC_ALARM_COOLDOWN_MS = 0;
+
+    //Km threshold to notify a vehicle close to a traffic alert
+    private static double TRAFFIC_EVENT_DISTANCE_ALERT_THRESHOLD = 2;
+
+    //Active traffic events indexed by position
+    private final TrafficEventIndex trafficEventIndex;
+
+    //Per-vehicle traffic alarm state
+    private VehicleStateStore vehicleStateStore;
+
+    //Shared outbound publisher of the alarm controls
+    private ControlMessagePublisher controlMessagePublisher;
+
+    //Geohash precision of the area topics (0 = alerts sent to each vehicle)
+    private final int areaControlPrecision;
+
+    //Active events of each alerted cell (guarded by the map lock)
+    private final Map<String, List<TrafficEventDescriptor>> areaEventMap;
+
+    //Geo partition cells of the subscribed telemetry (null = the whole fleet, in both topic layouts)
+    private final List<String> partitionCellList;
+
+    public TrafficMonitoringStage() {
+        this(0);
+    }
+
+    /**
+     * @param areaControlPrecision geohash precision of the area topics (0 = alerts sent to each vehicle)
+     */
+    public TrafficMonitoringStage(int areaControlPrecision) {
+        this(areaControlPrecision, null);
+    }
+
+    /**
+     * @param areaControlPrecision geohash precision of the area topics (0 = alerts sent to each vehicle)
+     * @param partitionCellList geohashes of the owned geo partition cells (null = the whole fleet)
+     */
+    public TrafficMonitoringStage(int areaControlPrecision, List<String> partitionCellList) {
+
+        if(areaControlPrecision < 0 || areaControlPrecision > GeoHash.MAX_PRECISION)
+            throw new IllegalArgumentException(String.format("Area control precision must be in [0, %d] !", GeoHash.MAX_PRECISION));
+
+        if(partitionCellList != null && (partitionCellList.isEmpty() || partitionCellList.stream().anyMatch(cell -> cell == null || cell.isEmpty() || cell.contains("/"))))
+            throw new IllegalArgumentException("Partition cells must be a non empty list of geohashes !");
+
+        this.areaControlPrecision = areaControlPrecision;
+        this.partitionCellList = (partitionCellList != null ? new ArrayList<>(partitionCellList) : null);
+        this.areaEventMap = new HashMap<>();
+        this.trafficEventIndex = new GridTrafficEventIndex();
+        initDemoTrafficEvent();
+    }
+
+    @Override
+    public String getName() {
+        return STAGE_NAME;
+    }
+
+    @Override
+    public List<String> getTopicFilters() {
+
+        if(this.partitionCellList == null)
+            return Arrays.asList(TARGET_TOPIC, GeoPartitionTopics.getTelemetryTopicFilter("+", TARGET_RESOURCE));
+
+        List<String> topicFilterList = new ArrayList<>();
+        for(String cell : this.partitionCellList)
+            topicFilterList.add(GeoPartitionTopics.getTelemetryTopicFilter(cell, TARGET_RESOURCE));
+
+        return topicFilterList;
+    }
+
+    @Override
+    public void start(ConsumerRuntime consumerRuntime) {
+
+        this.vehicleStateStore = new VehicleStateStore(1);
+        this.controlMessagePublisher = consumerRuntime.getControlMessagePublisher();
+
+        //Alerts of the events added before the start
+        if(isAreaControlEnabled())
+            for(TrafficEventDescriptor trafficEventDescriptor : getAreaEventList())
+                publishAreaAlerts(trafficEventDescriptor);
+    }
+
+    /**
+     * Add an active traffic event, alerting its area when area control is enabled
+     */
+    public void addTrafficEvent(TrafficEventDescriptor trafficEventDescriptor){
+
+        this.trafficEventIndex.insert(trafficEventDescriptor);
+
+        if(isAreaControlEnabled()){
+            updateAreaEvents(trafficEventDescriptor, true);
+            publishAreaAlerts(trafficEventDescriptor);
+        }
+    }
+
+    /**
+     * Remove a traffic event, updating the alerts of its area when area control is enabled
+     */
+    public boolean removeTrafficEvent(TrafficEventDescriptor trafficEventDescriptor){
+
+        if(!this.trafficEventIndex.remove(trafficEventDescriptor))
+            return false;
+
+        if(isAreaControlEnabled()){
+            updateAreaEvents(trafficEventDescriptor, false);
+            publishAreaAlerts(trafficEventDescriptor);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void onSample(String topic, TelemetrySample telemetrySample) {
+
+        if(!telemetrySample.hasLocationValue() || !telemetrySample.isType(GpsGpxSensorResource.RESOURCE_TYPE))
+            return;
+
+        List<TrafficEventDescriptor> trafficEventDescriptorList = this.trafficEventIndex.query(
+                telemetrySample.getLatitude(),
+                telemetrySample.getLongitude(),
+                TRAFFIC_EVENT_DISTANCE_ALERT_THRESHOLD);
+
+        String vehicleId = ConsumerRuntime.getVehicleId(topic);
+        int vehicleIndex = this.vehicleStateStore.getVehicleIndex(vehicleId);
+
+        //The alarm is cleared when the vehicle leaves the area of the events
+        if(trafficEventDescriptorList.isEmpty())
+            this.vehicleStateStore.clearAlarm(vehicleIndex, TRAFFIC_ALARM);
+        //With area control the vehicle receives the retained alert of its cell
+        else if(this.vehicleStateStore.raiseAlarm(vehicleIndex, TRAFFIC_ALARM, System.currentTimeMillis(), TRAFFIC_ALARM_COOLDOWN_MS)
+                && !isAreaControlEnabled()){
+
+            String targetTopic = String.format("%s/%s/%s", VEHICLE_TOPIC, vehicleId, CONTROL_TOPIC);
+
+            logger.info("Relevant Traffic Event Detected ! Sending Control to: {}", targetTopic);
+
+            ControlMessage controlMessage = new ControlMessage();
+            controlMessage.setType(ALARM_MESSAGE_CONTROL_TYPE);
+            controlMessage.setTimestamp(System.currentTimeMillis());
+            controlMessage.setMetadata(new HashMap<>(){
+                {
+                    put("event_list", trafficEventDescriptorList);
+                }
+            });
+
+            this.controlMessagePublisher.publish(targetTopic, controlMessage);
+        }
+    }
+
+    private void initDemoTrafficEvent() {
+        addTrafficEvent(new TrafficEventDescriptor(TrafficEventDescriptor.JAM_TRAFFIC_EVENT,
+                44.79503800000001,
+                10.32686911666667,
+                System.currentTimeMillis()));
+    }
+
+    /**
+     * @return the cells intersecting the alert circle of the event
+     */
+    public List<String> getAreaCells(TrafficEventDescriptor trafficEventDescriptor){
+        return GeoHash.coverCircle(trafficEventDescriptor.getLatitude(),
+                trafficEventDescriptor.getLongitude(),
+                TRAFFIC_EVENT_DISTANCE_ALERT_THRESHOLD * 1000.0,
+                this.areaControlPrecision);
+    }
+
+    public static String getAreaControlTopic(String geohash){
+        return String.format("%s/%s/%s", AREA_TOPIC, geohash, CONTROL_TOPIC);
+    }
+
+    private void updateAreaEvents(TrafficEventDescriptor trafficEventDescriptor, boolean isActive){
+        synchronized (this.areaEventMap){
+            for(String cell : getAreaCells(trafficEventDescriptor)){
+                List<TrafficEventDescriptor> cellEventList = this.areaEventMap.computeIfAbsent(cell, key -> new ArrayList<>());
+                if(isActive)
+                    cellEventList.add(trafficEventDescriptor);
+                else
+                    cellEventList.remove(trafficEventDescriptor);
+            }
+        }
+    }
+
+    private List<TrafficEventDescriptor> getAreaEventList(){
+        List<TrafficEventDescriptor> areaEventList = new ArrayList<>();
+        synchronized (this.areaEventMap){
+            this.areaEventMap.values().forEach(cellEventList -> cellEventList.forEach(trafficEventDescriptor -> {
+                if(!areaEventList.contains(trafficEventDescriptor))
+                    areaEventList.add(trafficEventDescriptor);
+            }));
+        }
+        return areaEventList;
+    }
+
+    /**
+     * Publish the retained alert (active events) of the cells of the event, the retained alert of a cell without
+     * events is removed from the broker
+     */
+    private void publishAreaAlerts(TrafficEventDescriptor trafficEventDescriptor){
+
+        //Published at start for the events added before
+        if(this.controlMessagePublisher == null)
+            return;
+
+        List<String> cellList = getAreaCells(trafficEventDescriptor);
+
+        logger.info("Traffic Event Area Alert ! Event: {} Cells: {}", trafficEventDescriptor.getType(), cellList.size());
+
+        for(String cell : cellList){
+
+            List<TrafficEventDescriptor> cellEventList;
+
+            synchronized (this.areaEventMap){
+                cellEventList = new ArrayList<>(this.areaEventMap.getOrDefault(cell, Collections.emptyList()));
+                if(cellEventList.isEmpty())
+                    this.areaEventMap.remove(cell);
+            }
+
+            if(cellEventList.isEmpty()){
+                this.controlMessagePublisher.clearRetained(getAreaControlTopic(cell), AREA_ALARM_MESSAGE_CONTROL_TYPE);
+                continue;
+            }
+
+            ControlMessage controlMessage = new ControlMessage();
+            controlMessage.setType(AREA_ALARM_MESSAGE_CONTROL_TYPE);
+            controlMessage.setTimestamp(System.currentTimeMillis());
+            controlMessage.setMetadata(new HashMap<>(){
+                {
+                    put("area", cell);
+                    put("event_list", cellEventList);
+                }
+            });
+
+            this.controlMessagePublisher.publishRetained(getAreaControlTopic(cell), controlMessage);
+        }
+    }
+
+    public boolean isAreaControlEnabled() {
+        return this.areaControlPrecision > 0;
+    }
+
+    /**
+     * @return the owned geo partition cells (null = the whole fleet)
+     */
+    public List<String> getPartitionCellList() {
+        return partitionCellList;
+    }
+
+    public int getAreaControlPrecision() {
+        return areaControlPrecision;
+    }
+
+    public TrafficEventIndex getTrafficEventIndex() {
+        return trafficEventIndex;
+    }
+
+    public VehicleStateStore getVehicleStateStore() {
+        return vehicleStateStore;
+    }
+}
@@ -0,0 +1,315 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking VehicleMqttChannel built on top of an IMqttAsyncClient.
+ *
+ * At most maxInFlight messages are handed to the client at the same time (the window is released by
+ * the delivery callback, so QoS 1 acknowledgements are pipelined instead of waited one by one).
+ * Messages exceeding the window, or published while the client is disconnected, are kept in a bounded
+ * queue managed according to the selected BackpressurePolicy and drained as soon as the window has room
+ * or when the connection is restored (see onReconnected()). With the BLOCK policy the publishing thread waits at most
+ * MAX_BLOCK_MS for room in the queue, then the message is dropped: publishers are often shared scheduler workers, and a
+ * disconnected vehicle must not stall the other vehicles of the same worker. A new message that is neither sent nor
+ * enqueued (DROP_NEWEST or BLOCK timeout) makes publish() fail with REASON_CODE_MAX_INFLIGHT, so callers keeping the
+ * message (e.g. StoreAndForwardMqttChannel) know it has not been accepted.
+ *
+ * The MqttConnectOptions maxInflight of the client must be greater or equal than the sum of the windows
+ * of all the channels sharing it.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:45
+ */
+public class AsyncMqttClientChannel implements VehicleMqttChannel {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncMqttClientChannel.class);
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10;
+
+    public static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+
+    //Maximum wait of a blocked publisher (BLOCK policy) before dropping the message
+    public static final long MAX_BLOCK_MS = 1000;
+
+    private final IMqttAsyncClient mqttAsyncClient;
+
+    private final int maxInFlight;
+
+    private final int maxQueueSize;
+
+    private final BackpressurePolicy backpressurePolicy;
+
+    private final ArrayDeque<PendingMessage> pendingMessageQueue;
+
+    private final Map<String, IMqttMessageListener> subscriptionMap;
+
+    private final IMqttActionListener deliveryListener;
+
+    private final LongAdder sentMessageCounter;
+
+    private final LongAdder droppedMessageCounter;
+
+    private int inFlightCount;
+
+    public AsyncMqttClientChannel(IMqttAsyncClient mqttAsyncClient) {
+        this(mqttAsyncClient, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUE_SIZE, BackpressurePolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param mqttAsyncClient the (already connected or connecting) asynchronous client
+     * @param maxInFlight maximum number of messages handed to the client and not yet delivered
+     * @param maxQueueSize maximum number of messages waiting for the in flight window
+     * @param backpressurePolicy behaviour when the queue is full
+     */
+    public AsyncMqttClientChannel(IMqttAsyncClient mqttAsyncClient, int maxInFlight, int maxQueueSize, BackpressurePolicy backpressurePolicy) {
+
+        if(maxInFlight <= 0 || maxQueueSize <= 0)
+            throw new IllegalArgumentException("In flight window and queue size must be > 0 !");
+
+        this.mqttAsyncClient = mqttAsyncClient;
+        this.maxInFlight = maxInFlight;
+        this.maxQueueSize = maxQueueSize;
+        this.backpressurePolicy = backpressurePolicy;
+        this.pendingMessageQueue = new ArrayDeque<>();
+        this.subscriptionMap = new ConcurrentHashMap<>();
+        this.sentMessageCounter = new LongAdder();
+        this.droppedMessageCounter = new LongAdder();
+        this.inFlightCount = 0;
+
+        this.deliveryListener = new IMqttActionListener() {
+            @Override
+            public void onSuccess(IMqttToken asyncActionToken) {
+                sentMessageCounter.increment();
+                releaseWindow((PendingMessage) asyncActionToken.getUserContext(), true);
+            }
+
+            @Override
+            public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                logger.debug("Message delivery failed ! Msg: {}", (exception != null ? exception.getLocalizedMessage() : null));
+                releaseWindow((PendingMessage) asyncActionToken.getUserContext(), false);
+            }
+        };
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.mqttAsyncClient != null && this.mqttAsyncClient.isConnected();
+    }
+
+    @Override
+    public void publish(String topic, byte[] payload, int qos) throws MqttException {
+
+        PendingMessage pendingMessage = new PendingMessage(topic, payload, qos);
+
+        boolean isSendable;
+        boolean isEnqueued = false;
+
+        synchronized (this){
+
+            isSendable = (this.pendingMessageQueue.isEmpty() && this.inFlightCount < this.maxInFlight && isConnected());
+
+            if(isSendable)
+                this.inFlightCount++;
+            else
+                isEnqueued = enqueue(pendingMessage, false);
+        }
+
+        //Queued messages are sent as soon as the window has room, not only at the next release or reconnection
+        if(isSendable)
+            send(pendingMessage);
+        else
+            drain();
+
+        //Neither sent nor enqueued (full queue with DROP_NEWEST, or BLOCK after MAX_BLOCK_MS)
+        if(!isSendable && !isEnqueued)
+            throw new MqttException(MqttException.REASON_CODE_MAX_INFLIGHT);
+    }
+
+    @Override
+    public boolean isPayloadRetained() {
+        return true;
+    }
+
+    @Override
+    public void subscribe(String topicFilter, IMqttMessageListener messageListener) throws MqttException {
+        this.subscriptionMap.put(topicFilter, messageListener);
+        this.mqttAsyncClient.subscribe(topicFilter, 0, null, null, messageListener);
+    }
+
+    @Override
+    public void unsubscribe(String topicFilter) throws MqttException {
+        this.subscriptionMap.remove(topicFilter);
+        this.mqttAsyncClient.unsubscribe(topicFilter);
+    }
+
+    /**
+     * Restore the subscriptions (lost with a clean session) and drain the messages queued
+     * while the client was disconnected. It has to be called by the owner of the client when the
+     * connection is (re)established, e.g. from MqttCallbackExtended.connectComplete()
+     */
+    public void onReconnected(){
+        restoreSubscriptions();
+        drain();
+    }
+
+    protected void restoreSubscriptions(){
+        this.subscriptionMap.forEach((topicFilter, messageListener) -> {
+            try {
+                this.mqttAsyncClient.subscribe(topicFilter, 0, null, null, messageListener);
+            } catch (MqttException e) {
+                logger.error("Error restoring subscription to {} ! Msg: {}", topicFilter, e.getLocalizedMessage());
+            }
+        });
+    }
+
+    @Override
+    public long getQueuedMessageCount() {
+        synchronized (this){
+            return this.pendingMessageQueue.size();
+        }
+    }
+
+    public int getInFlightMessageCount() {
+        synchronized (this){
+            return this.inFlightCount;
+        }
+    }
+
+    @Override
+    public long getSentMessageCount() {
+        return this.sentMessageCounter.sum();
+    }
+
+    @Override
+    public long getDroppedMessageCount() {
+        return this.droppedMessageCounter.sum();
+    }
+
+    /**
+     * Must be called holding the channel lock
+     * @param pendingMessage the message to enqueue
+     * @param isRetry if true the message is put back at the head of the queue
+     * @return false if the message has been dropped (DROP_OLDEST always accepts it, dropping the oldest one)
+     */
+    private boolean enqueue(PendingMessage pendingMessage, boolean isRetry){
+
+        long blockDeadline = System.currentTimeMillis() + MAX_BLOCK_MS;
+
+        while(this.pendingMessageQueue.size() >= this.maxQueueSize){
+
+            if(this.backpressurePolicy == BackpressurePolicy.DROP_NEWEST || (isRetry && this.backpressurePolicy == BackpressurePolicy.BLOCK)){
+                this.droppedMessageCounter.increment();
+                return false;
+            }
+            else if(this.backpressurePolicy == BackpressurePolicy.DROP_OLDEST){
+                this.pendingMessageQueue.pollFirst();
+                this.droppedMessageCounter.increment();
+            }
+            else {
+
+                long remainingMs = blockDeadline - System.currentTimeMillis();
+
+                //Still full (e.g. disconnected client) after the maximum wait
+                if(remainingMs <= 0){
+                    this.droppedMessageCounter.increment();
+                    return false;
+                }
+
+                try {
+                    this.wait(remainingMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.droppedMessageCounter.increment();
+                    return false;
+                }
+            }
+        }
+
+        if(isRetry)
+            this.pendingMessageQueue.addFirst(pendingMessage);
+        else
+            this.pendingMessageQueue.addLast(pendingMessage);
+
+        return true;
+    }
+
+    private void send(PendingMessage pendingMessage){
+        try{
+            this.mqttAsyncClient.publish(pendingMessage.topic, pendingMessage.payload, pendingMessage.qos, false, pendingMessage, this.deliveryListener);
+        }catch (MqttException e){
+            logger.debug("Error publishing message to {} ! Msg: {}", pendingMessage.topic, e.getLocalizedMessage());
+            releaseWindow(pendingMessage, false);
+        }
+    }
+
+    private void releaseWindow(PendingMessage pendingMessage, boolean delivered){
+
+        synchronized (this){
+
+            this.inFlightCount--;
+
+            //A message lost because of a disconnection is retried, otherwise it is discarded
+            if(!delivered){
+                if(pendingMessage != null && !isConnected())
+                    enqueue(pendingMessage, true);
+                else
+                    this.droppedMessageCounter.increment();
+            }
+        }
+
+        drain();
+    }
+
+    private void drain(){
+
+        List<PendingMessage> sendList = null;
+
+        synchronized (this){
+
+            while(this.inFlightCount < this.maxInFlight && !this.pendingMessageQueue.isEmpty() && isConnected()){
+
+                if(sendList == null)
+                    sendList = new ArrayList<>();
+
+                sendList.add(this.pendingMessageQueue.pollFirst());
+                this.inFlightCount++;
+            }
+
+            if(sendList != null)
+                this.notifyAll();
+        }
+
+        if(sendList != null)
+            sendList.forEach(this::send);
+    }
+
+    private static class PendingMessage {
+
+        private final String topic;
+
+        private final byte[] payload;
+
+        private final int qos;
+
+        private PendingMessage(String topic, byte[] payload, int qos) {
+            this.topic = topic;
+            this.payload = payload;
+            this.qos = qos;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package it.unimore.dipi.iot.fleet.device;
+
+/**
+ * Behaviour of the AsyncMqttClientChannel when its pending message queue is full
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:45
+ */
+public enum BackpressurePolicy {
+
+    //The publishing thread (e.g. the sensor task) waits until the queue has room for the message
+    BLOCK,
+
+    //The oldest queued message is discarded to make room for the new one
+    DROP_OLDEST,
+
+    //The new message is discarded
+    DROP_NEWEST
+
+}
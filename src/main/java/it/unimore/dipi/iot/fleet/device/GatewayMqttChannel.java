@@ -0,0 +1,62 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-vehicle AsyncMqttClientChannel on top of a connection shared through the MqttGatewayConnectionPool.
+ * Publishing keeps the per-vehicle in flight window, queue and counters while subscriptions are
+ * registered on the shared connection, which demultiplexes the incoming messages to the right vehicle.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:46
+ */
+public class GatewayMqttChannel extends AsyncMqttClientChannel {
+
+    private final MqttGatewayConnectionPool.PooledConnection pooledConnection;
+
+    //Listeners of the vehicle, removed from the shared connection when unsubscribing
+    private final Map<String, IMqttMessageListener> listenerMap;
+
+    GatewayMqttChannel(MqttGatewayConnectionPool.PooledConnection pooledConnection, int maxInFlight, int maxQueueSize, BackpressurePolicy backpressurePolicy) {
+        super(pooledConnection.getMqttAsyncClient(), maxInFlight, maxQueueSize, backpressurePolicy);
+        this.pooledConnection = pooledConnection;
+        this.listenerMap = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void subscribe(String topicFilter, IMqttMessageListener messageListener) throws MqttException {
+
+        IMqttMessageListener previousMessageListener = this.listenerMap.put(topicFilter, messageListener);
+
+        if(previousMessageListener != null)
+            this.pooledConnection.unsubscribe(topicFilter, previousMessageListener);
+
+        this.pooledConnection.subscribe(topicFilter, messageListener);
+    }
+
+    @Override
+    public void unsubscribe(String topicFilter) throws MqttException {
+
+        IMqttMessageListener messageListener = this.listenerMap.remove(topicFilter);
+
+        if(messageListener != null)
+            this.pooledConnection.unsubscribe(topicFilter, messageListener);
+    }
+
+    @Override
+    protected void restoreSubscriptions() {
+        //Subscriptions are restored by the shared connection
+    }
+
+    /**
+     * @return the index of the pooled connection used by the channel
+     */
+    public int getConnectionIndex() {
+        return this.pooledConnection.getIndex();
+    }
+}
@@ -0,0 +1,18 @@
+package it.unimore.dipi.iot.fleet.device;
+
+/**
+ * Order used to drain the records of a TelemetryJournal when the connection is restored
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:39
+ */
+public enum JournalDrainOrder {
+
+    //Records are published in the order they were produced (consumers receive a consistent history)
+    OLDEST_FIRST,
+
+    //The most recent records are published first (consumers receive the current state as soon as possible)
+    NEWEST_FIRST
+
+}
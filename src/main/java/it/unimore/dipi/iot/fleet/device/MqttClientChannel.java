@@ -0,0 +1,120 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * VehicleMqttChannel publishing synchronously through a blocking IMqttClient.
+ * Messages published while the client is not connected are discarded (counted as dropped) and the publish fails with
+ * a REASON_CODE_CLIENT_NOT_CONNECTED MqttException, so callers keeping the message (e.g. StoreAndForwardMqttChannel)
+ * know it has not been sent.
+ * The subscriptions are kept and restored when the connection is re-established (see onReconnected()), since they
+ * are lost by the broker with a clean session.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:45
+ */
+public class MqttClientChannel implements VehicleMqttChannel {
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttClientChannel.class);
+
+    private IMqttClient mqttClient;
+
+    private LongAdder sentMessageCounter;
+
+    private LongAdder droppedMessageCounter;
+
+    private final Map<String, IMqttMessageListener> subscriptionMap;
+
+    public MqttClientChannel(IMqttClient mqttClient) {
+        this.mqttClient = mqttClient;
+        this.subscriptionMap = new LinkedHashMap<>();
+        this.sentMessageCounter = new LongAdder();
+        this.droppedMessageCounter = new LongAdder();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.mqttClient != null && this.mqttClient.isConnected();
+    }
+
+    @Override
+    public void publish(String topic, byte[] payload, int qos) throws MqttException {
+
+        if(isConnected()){
+
+            MqttMessage mqttMessage = new MqttMessage(payload);
+            mqttMessage.setQos(qos);
+
+            this.mqttClient.publish(topic, mqttMessage);
+            this.sentMessageCounter.increment();
+        }
+        else {
+            this.droppedMessageCounter.increment();
+            throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
+        }
+    }
+
+    @Override
+    public boolean isPayloadRetained() {
+        //The blocking client returns when the delivery is complete
+        return false;
+    }
+
+    @Override
+    public synchronized void subscribe(String topicFilter, IMqttMessageListener messageListener) throws MqttException {
+        this.mqttClient.subscribe(topicFilter, messageListener);
+        this.subscriptionMap.put(topicFilter, messageListener);
+    }
+
+    @Override
+    public synchronized void unsubscribe(String topicFilter) throws MqttException {
+        this.subscriptionMap.remove(topicFilter);
+        this.mqttClient.unsubscribe(topicFilter);
+    }
+
+    /**
+     * Restore the subscriptions lost with a clean session. It has to be called by the owner of the client when the
+     * connection is re-established, e.g. from MqttCallbackExtended.connectComplete(). The blocking subscribe must not
+     * run on the Paho callback thread, so the subscriptions are restored by a dedicated thread
+     */
+    public void onReconnected(){
+        Thread restoreThread = new Thread(this::restoreSubscriptions, "mqtt-channel-restore");
+        restoreThread.setDaemon(true);
+        restoreThread.start();
+    }
+
+    protected synchronized void restoreSubscriptions(){
+        this.subscriptionMap.forEach((topicFilter, messageListener) -> {
+            try {
+                this.mqttClient.subscribe(topicFilter, messageListener);
+            } catch (MqttException e) {
+                logger.error("Error restoring subscription to {} ! Msg: {}", topicFilter, e.getLocalizedMessage());
+            }
+        });
+    }
+
+    @Override
+    public long getQueuedMessageCount() {
+        return 0;
+    }
+
+    @Override
+    public long getSentMessageCount() {
+        return this.sentMessageCounter.sum();
+    }
+
+    @Override
+    public long getDroppedMessageCount() {
+        return this.droppedMessageCounter.sum();
+    }
+}
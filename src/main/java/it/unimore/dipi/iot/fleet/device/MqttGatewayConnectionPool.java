@@ -0,0 +1,353 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gateway mode: a pool of K MQTT connections shared by many emulated vehicles.
+ *
+ * Each vehicle is assigned to a connection through consistent hashing of its id (a ring with
+ * VIRTUAL_NODES points for each connection), so the assignment is stable and changing the pool size
+ * only moves about 1/K of the vehicles. Every vehicle gets its own GatewayMqttChannel (with its own
+ * in flight window, queue and counters) while control topic subscriptions of all the vehicles of a
+ * connection are demultiplexed by a single MqttCallback through a topic -> listeners map. Topics shared by the
+ * vehicles of a connection (e.g. area control topics) are subscribed once and unsubscribed with their last listener.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:46
+ */
+public class MqttGatewayConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttGatewayConnectionPool.class);
+
+    private static final int VIRTUAL_NODES = 128;
+
+    //MQTT packet identifiers are 16 bit values
+    private static final int MAX_CONNECTION_IN_FLIGHT = 65535;
+
+    private static final int RESUBSCRIBE_BATCH_SIZE = 100;
+
+    private final List<PooledConnection> connectionList;
+
+    private final long[] ringHashes;
+
+    private final int[] ringConnections;
+
+    private final int channelMaxInFlight;
+
+    private final int channelMaxQueueSize;
+
+    private final BackpressurePolicy backpressurePolicy;
+
+    /**
+     * Create the pool and connect all its clients to the broker
+     * @param brokerUrl e.g. tcp://127.0.0.1:1883
+     * @param connectionCount number of shared connections (K)
+     * @param channelMaxInFlight in flight window of each vehicle channel
+     * @param channelMaxQueueSize queue size of each vehicle channel
+     * @param backpressurePolicy backpressure policy of the vehicle channels
+     * @throws MqttException if a connection can not be established
+     */
+    public MqttGatewayConnectionPool(String brokerUrl, int connectionCount, int channelMaxInFlight, int channelMaxQueueSize, BackpressurePolicy backpressurePolicy) throws MqttException {
+
+        if(connectionCount <= 0)
+            throw new IllegalArgumentException("Connection count must be > 0 !");
+
+        this.channelMaxInFlight = channelMaxInFlight;
+        this.channelMaxQueueSize = channelMaxQueueSize;
+        this.backpressurePolicy = backpressurePolicy;
+        this.connectionList = new ArrayList<>();
+
+        String gatewayId = UUID.randomUUID().toString();
+
+        for(int i = 0; i < connectionCount; i++){
+            PooledConnection pooledConnection = new PooledConnection(i, new MqttAsyncClient(brokerUrl,
+                    String.format("gateway-%s-%d", gatewayId, i),
+                    new MemoryPersistence()));
+            pooledConnection.connect();
+            this.connectionList.add(pooledConnection);
+        }
+
+        //Build the consistent hashing ring
+        long[] hashes = new long[connectionCount * VIRTUAL_NODES];
+        Map<Long, Integer> ownerMap = new HashMap<>();
+
+        for(int i = 0; i < connectionCount; i++)
+            for(int v = 0; v < VIRTUAL_NODES; v++){
+                long hash = hash(String.format("connection-%d#%d", i, v));
+                hashes[i * VIRTUAL_NODES + v] = hash;
+                ownerMap.put(hash, i);
+            }
+
+        Arrays.sort(hashes);
+        this.ringHashes = hashes;
+        this.ringConnections = new int[hashes.length];
+        for(int i = 0; i < hashes.length; i++)
+            this.ringConnections[i] = ownerMap.get(hashes[i]);
+
+        logger.info("MQTT Gateway Connection Pool created ! Connections: {} Broker: {}", connectionCount, brokerUrl);
+    }
+
+    /**
+     * Create the channel of a vehicle on the connection selected through consistent hashing of its id
+     * @param vehicleId
+     * @return the vehicle channel
+     */
+    public GatewayMqttChannel createChannel(String vehicleId){
+
+        PooledConnection pooledConnection = this.connectionList.get(getConnectionIndex(vehicleId));
+
+        GatewayMqttChannel gatewayMqttChannel = new GatewayMqttChannel(pooledConnection,
+                this.channelMaxInFlight,
+                this.channelMaxQueueSize,
+                this.backpressurePolicy);
+
+        pooledConnection.channelQueue.add(gatewayMqttChannel);
+
+        return gatewayMqttChannel;
+    }
+
+    /**
+     * @param vehicleId
+     * @return the index of the connection assigned to the vehicle
+     */
+    public int getConnectionIndex(String vehicleId){
+
+        int position = Arrays.binarySearch(this.ringHashes, hash(vehicleId));
+
+        if(position < 0)
+            position = -position - 1;
+
+        if(position == this.ringHashes.length)
+            position = 0;
+
+        return this.ringConnections[position];
+    }
+
+    public int getConnectionCount(){
+        return this.connectionList.size();
+    }
+
+    /**
+     * @return a compact description of the load of each connection (vehicles, subscriptions, sent and received messages)
+     */
+    public String getConnectionStats(){
+
+        StringBuilder sb = new StringBuilder();
+
+        for(PooledConnection pooledConnection : this.connectionList){
+
+            long sentMessageCount = 0;
+            int vehicleCount = 0;
+
+            for(GatewayMqttChannel gatewayMqttChannel : pooledConnection.channelQueue){
+                sentMessageCount += gatewayMqttChannel.getSentMessageCount();
+                vehicleCount++;
+            }
+
+            sb.append(String.format("[#%d vehicles=%d subscriptions=%d sent=%d received=%d] ",
+                    pooledConnection.index,
+                    vehicleCount,
+                    pooledConnection.listenerMap.size(),
+                    sentMessageCount,
+                    pooledConnection.receivedMessageCounter.sum()));
+        }
+
+        return sb.toString().trim();
+    }
+
+    public void close(){
+        this.connectionList.forEach(pooledConnection -> {
+            try {
+                pooledConnection.mqttAsyncClient.disconnect();
+            } catch (MqttException e) {
+                logger.error("Error closing Gateway Connection #{} ! Msg: {}", pooledConnection.index, e.getLocalizedMessage());
+            }
+        });
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the UTF-8 bytes of the key followed by a final avalanche mix
+     */
+    private static long hash(String key){
+
+        long hash = 0xcbf29ce484222325L;
+
+        for(byte b : key.getBytes(StandardCharsets.UTF_8)){
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= (hash >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= (hash >>> 33);
+
+        return hash;
+    }
+
+    /**
+     * Shared connection of the pool demultiplexing incoming messages to the vehicle listeners
+     */
+    static class PooledConnection implements MqttCallbackExtended {
+
+        private final int index;
+
+        private final IMqttAsyncClient mqttAsyncClient;
+
+        private final Map<String, List<IMqttMessageListener>> listenerMap;
+
+        private final Queue<GatewayMqttChannel> channelQueue;
+
+        private final LongAdder receivedMessageCounter;
+
+        private PooledConnection(int index, IMqttAsyncClient mqttAsyncClient) {
+            this.index = index;
+            this.mqttAsyncClient = mqttAsyncClient;
+            this.listenerMap = new ConcurrentHashMap<>();
+            this.channelQueue = new ConcurrentLinkedQueue<>();
+            this.receivedMessageCounter = new LongAdder();
+        }
+
+        private void connect() throws MqttException {
+
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setAutomaticReconnect(true);
+            options.setCleanSession(true);
+            options.setConnectionTimeout(10);
+            options.setMaxInflight(MAX_CONNECTION_IN_FLIGHT);
+
+            this.mqttAsyncClient.setCallback(this);
+            this.mqttAsyncClient.connect(options).waitForCompletion();
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        IMqttAsyncClient getMqttAsyncClient() {
+            return mqttAsyncClient;
+        }
+
+        /**
+         * Register the listener and subscribe without a Paho listener, so that the message is
+         * delivered to messageArrived() and dispatched through the listener map
+         */
+        void subscribe(String topic, IMqttMessageListener messageListener) throws MqttException {
+
+            MqttException[] error = {null};
+
+            //The topic is subscribed by its first listener (the asynchronous subscribe does not block the map)
+            this.listenerMap.compute(topic, (key, messageListenerList) -> {
+
+                if(messageListenerList == null){
+                    try {
+                        this.mqttAsyncClient.subscribe(topic, 0);
+                    } catch (MqttException e) {
+                        error[0] = e;
+                        return null;
+                    }
+                    messageListenerList = new CopyOnWriteArrayList<>();
+                }
+
+                messageListenerList.add(messageListener);
+                return messageListenerList;
+            });
+
+            if(error[0] != null)
+                throw error[0];
+        }
+
+        void unsubscribe(String topic, IMqttMessageListener messageListener) throws MqttException {
+
+            MqttException[] error = {null};
+
+            //The topic is unsubscribed with its last listener
+            this.listenerMap.computeIfPresent(topic, (key, messageListenerList) -> {
+
+                messageListenerList.remove(messageListener);
+
+                if(!messageListenerList.isEmpty())
+                    return messageListenerList;
+
+                try {
+                    this.mqttAsyncClient.unsubscribe(topic);
+                } catch (MqttException e) {
+                    error[0] = e;
+                }
+
+                return null;
+            });
+
+            if(error[0] != null)
+                throw error[0];
+        }
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+
+            if(!reconnect)
+                return;
+
+            logger.info("Gateway Connection #{} restored ! Restoring {} subscriptions ...", this.index, this.listenerMap.size());
+
+            List<String> topicList = new ArrayList<>(this.listenerMap.keySet());
+
+            for(int i = 0; i < topicList.size(); i += RESUBSCRIBE_BATCH_SIZE){
+                String[] topicBatch = topicList.subList(i, Math.min(i + RESUBSCRIBE_BATCH_SIZE, topicList.size())).toArray(new String[0]);
+                try {
+                    this.mqttAsyncClient.subscribe(topicBatch, new int[topicBatch.length]);
+                } catch (MqttException e) {
+                    logger.error("Error restoring subscriptions on Gateway Connection #{} ! Msg: {}", this.index, e.getLocalizedMessage());
+                }
+            }
+
+            this.channelQueue.forEach(GatewayMqttChannel::onReconnected);
+        }
+
+        @Override
+        public void connectionLost(Throwable cause) {
+            logger.warn("Gateway Connection #{} lost ! Msg: {}", this.index, (cause != null ? cause.getLocalizedMessage() : null));
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) throws Exception {
+
+            this.receivedMessageCounter.increment();
+
+            List<IMqttMessageListener> messageListenerList = this.listenerMap.get(topic);
+
+            if(messageListenerList != null)
+                for(IMqttMessageListener messageListener : messageListenerList)
+                    messageListener.messageArrived(topic, message);
+            else
+                logger.debug("No vehicle listener registered for topic {} on Gateway Connection #{}", topic, this.index);
+        }
+
+        @Override
+        public void deliveryComplete(IMqttDeliveryToken token) {
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import it.unimore.dipi.iot.fleet.scheduler.ScheduledTask;
+import it.unimore.dipi.iot.fleet.scheduler.TaskScheduler;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * VehicleMqttChannel keeping the telemetry of an offline vehicle in a TelemetryJournal instead of discarding it.
+ *
+ * Messages are published through the wrapped channel while it is connected and the journal is empty. Messages
+ * published while the channel is disconnected (or while older messages are still in the journal, in order to keep
+ * the publishing order) are appended to the journal. A periodic task of the TaskScheduler drains the journal into
+ * the wrapped channel in batches of drainBatchSize messages once the connection is restored, oldest or newest first,
+ * without exceeding drainBatchSize messages queued by the wrapped channel (e.g. an AsyncMqttClientChannel).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:39
+ */
+public class StoreAndForwardMqttChannel implements VehicleMqttChannel {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoreAndForwardMqttChannel.class);
+
+    public static final int DEFAULT_DRAIN_BATCH_SIZE = 500;
+
+    public static final long DEFAULT_DRAIN_PERIOD_MS = 1000;
+
+    private final VehicleMqttChannel mqttChannel;
+
+    private final TelemetryJournal telemetryJournal;
+
+    private final JournalDrainOrder drainOrder;
+
+    private final int drainBatchSize;
+
+    private final ScheduledTask drainTask;
+
+    //Drain session in progress (guarded by the channel lock)
+    private long drainStartNanos;
+
+    private long drainSessionRecordCount;
+
+    private double lastDrainRate;
+
+    private long journaledMessageCount;
+
+    public StoreAndForwardMqttChannel(VehicleMqttChannel mqttChannel, TelemetryJournal telemetryJournal, TaskScheduler taskScheduler) {
+        this(mqttChannel, telemetryJournal, JournalDrainOrder.OLDEST_FIRST, DEFAULT_DRAIN_BATCH_SIZE, DEFAULT_DRAIN_PERIOD_MS, taskScheduler);
+    }
+
+    /**
+     * @param mqttChannel the wrapped channel
+     * @param telemetryJournal journal of the messages published while the channel is disconnected
+     * @param drainOrder order of the drained messages
+     * @param drainBatchSize maximum number of messages handed to the wrapped channel by a single drain batch
+     * @param drainPeriodMs period of the check of the connection and of the journal backlog
+     * @param taskScheduler scheduler running the drain task
+     */
+    public StoreAndForwardMqttChannel(VehicleMqttChannel mqttChannel, TelemetryJournal telemetryJournal, JournalDrainOrder drainOrder,
+                                      int drainBatchSize, long drainPeriodMs, TaskScheduler taskScheduler) {
+
+        if(drainBatchSize <= 0 || drainPeriodMs <= 0)
+            throw new IllegalArgumentException("Drain batch size and period must be > 0 !");
+
+        this.mqttChannel = mqttChannel;
+        this.telemetryJournal = telemetryJournal;
+        this.drainOrder = drainOrder;
+        this.drainBatchSize = drainBatchSize;
+        this.drainStartNanos = 0;
+        this.drainSessionRecordCount = 0;
+        this.lastDrainRate = 0.0;
+        this.journaledMessageCount = 0;
+
+        this.drainTask = taskScheduler.schedulePeriodic(this::drain, drainPeriodMs, drainPeriodMs);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return this.mqttChannel.isConnected();
+    }
+
+    @Override
+    public synchronized void publish(String topic, byte[] payload, int qos) throws MqttException {
+
+        if(this.telemetryJournal.isEmpty() && this.mqttChannel.isConnected()){
+            try{
+                this.mqttChannel.publish(topic, payload, qos);
+                return;
+            }catch (MqttException e){
+                logger.debug("Error publishing message to {}, message journaled ! Msg: {}", topic, e.getLocalizedMessage());
+            }
+        }
+
+        if(this.telemetryJournal.append(topic, payload, qos))
+            this.journaledMessageCount++;
+    }
+
+    @Override
+    public boolean isPayloadRetained() {
+        //The journal copies the payload, the wrapped channel may keep it
+        return this.mqttChannel.isPayloadRetained();
+    }
+
+    @Override
+    public void subscribe(String topicFilter, IMqttMessageListener messageListener) throws MqttException {
+        this.mqttChannel.subscribe(topicFilter, messageListener);
+    }
+
+    @Override
+    public void unsubscribe(String topicFilter) throws MqttException {
+        this.mqttChannel.unsubscribe(topicFilter);
+    }
+
+    /**
+     * Hand the journaled messages to the wrapped channel while it is connected and has room for a batch.
+     * It is periodically called by the drain task and can be called when the connection is restored
+     * @return the number of drained messages
+     */
+    public synchronized int drain(){
+
+        int drainedCount = 0;
+
+        try{
+
+            while(!this.telemetryJournal.isEmpty() && this.mqttChannel.isConnected()){
+
+                int batchSize = (int) (this.drainBatchSize - this.mqttChannel.getQueuedMessageCount());
+
+                if(batchSize <= 0)
+                    break;
+
+                if(this.drainSessionRecordCount == 0)
+                    this.drainStartNanos = System.nanoTime();
+
+                int batchCount = this.telemetryJournal.drain(batchSize, this.drainOrder, this::forward);
+
+                drainedCount += batchCount;
+                this.drainSessionRecordCount += batchCount;
+
+                if(batchCount < batchSize)
+                    break;
+            }
+
+            //The drain session ends when the backlog is empty
+            if(this.drainSessionRecordCount > 0 && this.telemetryJournal.isEmpty()){
+
+                long drainNanos = Math.max(1, System.nanoTime() - this.drainStartNanos);
+                this.lastDrainRate = this.drainSessionRecordCount * 1e9 / drainNanos;
+
+                logger.info("Telemetry Journal drained ! Messages: {} in {} ms ({} messages/s) {}",
+                        this.drainSessionRecordCount,
+                        drainNanos / 1000000,
+                        String.format("%.0f", this.lastDrainRate),
+                        this.telemetryJournal.getStats());
+
+                this.drainSessionRecordCount = 0;
+            }
+
+            if(drainedCount > 0)
+                this.telemetryJournal.force();
+
+        }catch (Exception e){
+            logger.error("Error draining the Telemetry Journal ! Msg: {}", e.getLocalizedMessage());
+        }
+
+        return drainedCount;
+    }
+
+    /**
+     * Publish a drained message, keeping it in the journal if the connection has been lost during the drain (the
+     * wrapped channel has to fail the publish of a message it is not able to send or enqueue)
+     */
+    private void forward(String topic, byte[] payload, int qos) throws MqttException {
+
+        if(!this.mqttChannel.isConnected())
+            throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
+
+        this.mqttChannel.publish(topic, payload, qos);
+    }
+
+    /**
+     * Stop the drain task and close the journal (the backlog is kept for the next start)
+     */
+    public void close(){
+        this.drainTask.cancel();
+        this.telemetryJournal.close();
+    }
+
+    /**
+     * @return the messages queued by the wrapped channel and the messages of the journal backlog
+     */
+    @Override
+    public long getQueuedMessageCount() {
+        return this.mqttChannel.getQueuedMessageCount() + this.telemetryJournal.getBacklogRecordCount();
+    }
+
+    @Override
+    public long getSentMessageCount() {
+        return this.mqttChannel.getSentMessageCount();
+    }
+
+    /**
+     * @return the messages discarded by the wrapped channel and the messages overwritten or rejected by the journal
+     */
+    @Override
+    public long getDroppedMessageCount() {
+        return this.mqttChannel.getDroppedMessageCount()
+                + this.telemetryJournal.getOverwrittenRecordCount()
+                + this.telemetryJournal.getRejectedRecordCount();
+    }
+
+    /**
+     * @return the number of messages appended to the journal by this channel
+     */
+    public synchronized long getJournaledMessageCount() {
+        return this.journaledMessageCount;
+    }
+
+    /**
+     * @return the drain rate (messages/s) of the last completed drain session
+     */
+    public synchronized double getLastDrainRate() {
+        return this.lastDrainRate;
+    }
+
+    public String getStats(){
+        final StringBuffer sb = new StringBuffer();
+        sb.append(this.telemetryJournal.getStats());
+        sb.append(", journaled=").append(getJournaledMessageCount());
+        sb.append(", lastDrainRate=").append(String.format("%.0f", getLastDrainRate()));
+        return sb.toString();
+    }
+
+    public TelemetryJournal getTelemetryJournal() {
+        return telemetryJournal;
+    }
+
+    public VehicleMqttChannel getMqttChannel() {
+        return mqttChannel;
+    }
+}
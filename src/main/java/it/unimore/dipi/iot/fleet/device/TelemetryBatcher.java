@@ -0,0 +1,186 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.scheduler.ScheduledTask;
+import it.unimore.dipi.iot.fleet.scheduler.TaskScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collect the telemetry samples of a vehicle (one pending batch for each telemetry topic) and
+ * flush them as a single TelemetryBatchMessage when the batch reaches maxBatchSize samples
+ * or when its oldest sample is older than maxBatchDelayMs.
+ * A topic is removed from the pending batches once its batch has been flushed, so the topics left behind
+ * (e.g. the previous geo partition cells) do not keep an entry.
+ *
+ * Completed batches are queued in the order they are taken (by the sensor threads or by the flush task) and
+ * published by one thread at a time, so two batches of the same topic are never published out of order.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:42
+ */
+public class TelemetryBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryBatcher.class);
+
+    /**
+     * Callback used to publish a completed batch on its telemetry topic
+     */
+    public interface BatchPublisher {
+        public void publishBatch(String topic, TelemetryBatchMessage<?> batchMessage);
+    }
+
+    private final int maxBatchSize;
+
+    private final long maxBatchDelayMs;
+
+    private final BatchPublisher batchPublisher;
+
+    private final Map<String, PendingBatch> pendingBatchMap;
+
+    //Completed batches waiting to be published, in flush order
+    private final Deque<PendingBatch> completedBatchQueue;
+
+    //Held while publishing the completed batches
+    private final Object publishLock;
+
+    private ScheduledTask flushTask;
+
+    /**
+     * @param maxBatchSize maximum number of samples of a batch
+     * @param maxBatchDelayMs maximum time a sample can wait in a batch before being published
+     * @param taskScheduler scheduler used to check the time window of the pending batches
+     * @param batchPublisher callback used to publish the completed batches
+     */
+    public TelemetryBatcher(int maxBatchSize, long maxBatchDelayMs, TaskScheduler taskScheduler, BatchPublisher batchPublisher) {
+
+        if(maxBatchSize <= 0 || maxBatchDelayMs <= 0)
+            throw new IllegalArgumentException("Batch size and delay must be > 0 !");
+
+        this.maxBatchSize = maxBatchSize;
+        this.maxBatchDelayMs = maxBatchDelayMs;
+        this.batchPublisher = batchPublisher;
+        this.pendingBatchMap = new HashMap<>();
+        this.completedBatchQueue = new ArrayDeque<>();
+        this.publishLock = new Object();
+
+        //Check the pending batches with a resolution of a fraction of the time window
+        long checkPeriodMs = Math.max(1, maxBatchDelayMs / 4);
+        this.flushTask = taskScheduler.schedulePeriodic(this::flushExpiredBatches, checkPeriodMs, checkPeriodMs);
+    }
+
+    public void add(String topic, TelemetryMessage<?> telemetryMessage){
+
+        boolean isCompleted = false;
+
+        synchronized (this){
+
+            PendingBatch pendingBatch = this.pendingBatchMap.get(topic);
+
+            if(pendingBatch == null){
+                pendingBatch = new PendingBatch(topic);
+                this.pendingBatchMap.put(topic, pendingBatch);
+            }
+
+            pendingBatch.messageList.add(telemetryMessage);
+
+            if(pendingBatch.messageList.size() >= this.maxBatchSize){
+                this.completedBatchQueue.add(pendingBatch);
+                this.pendingBatchMap.remove(topic);
+                isCompleted = true;
+            }
+        }
+
+        if(isCompleted)
+            publishCompletedBatches();
+    }
+
+    /**
+     * Publish all the pending samples and stop the periodic time window check
+     */
+    public void close(){
+
+        if(this.flushTask != null)
+            this.flushTask.cancel();
+
+        flushBatches(Long.MAX_VALUE);
+    }
+
+    private void flushExpiredBatches(){
+        flushBatches(System.currentTimeMillis() - this.maxBatchDelayMs);
+    }
+
+    private void flushBatches(long maxFirstSampleTimestamp){
+
+        synchronized (this){
+            Iterator<PendingBatch> iterator = this.pendingBatchMap.values().iterator();
+            while(iterator.hasNext()){
+                PendingBatch pendingBatch = iterator.next();
+                if(pendingBatch.firstSampleTimestamp <= maxFirstSampleTimestamp){
+                    this.completedBatchQueue.add(pendingBatch);
+                    iterator.remove();
+                }
+            }
+        }
+
+        publishCompletedBatches();
+    }
+
+    /**
+     * Publish the queued batches in order. A thread finding another one publishing waits for it and then publishes
+     * what is left, so each batch is published once and after all the batches taken before it
+     */
+    private void publishCompletedBatches(){
+
+        synchronized (this.publishLock){
+
+            PendingBatch completedBatch;
+
+            while(true){
+
+                synchronized (this){
+                    completedBatch = this.completedBatchQueue.poll();
+                }
+
+                if(completedBatch == null)
+                    return;
+
+                publish(completedBatch.topic, completedBatch.messageList);
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void publish(String topic, List<TelemetryMessage<?>> messageList){
+        try{
+            this.batchPublisher.publishBatch(topic, new TelemetryBatchMessage(messageList));
+        }catch (Exception e){
+            logger.error("Error publishing Telemetry Batch on topic {} ! Msg: {}", topic, e.getLocalizedMessage());
+        }
+    }
+
+    private static class PendingBatch {
+
+        private final String topic;
+
+        private final List<TelemetryMessage<?>> messageList;
+
+        private final long firstSampleTimestamp;
+
+        private PendingBatch(String topic) {
+            this.topic = topic;
+            this.messageList = new ArrayList<>();
+            this.firstSampleTimestamp = System.currentTimeMillis();
+        }
+    }
+}
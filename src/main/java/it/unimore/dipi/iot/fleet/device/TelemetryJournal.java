@@ -0,0 +1,530 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bounded, memory-mapped ring buffer of outgoing telemetry records, used by a vehicle to keep its telemetry while
+ * it is not connected to the broker (see StoreAndForwardMqttChannel).
+ *
+ * Appending a record copies its topic, QoS and payload into the mapped file (no system call and no allocation).
+ * When the journal is full the oldest records are overwritten (and counted). Records are drained in batches,
+ * oldest first or newest first, and removed only after they have been handed to the JournalRecordHandler.
+ *
+ * The state of the ring (head, tail, record count and counters) is kept in the header of the mapped file, so the
+ * journal survives a restart of the process. Records are written to the storage device by force() (called after
+ * each drain and on close); a crash of the process keeps the records in the page cache, a power loss may lose the
+ * records appended after the last force(). The file is locked while the journal is open, so a second journal (of
+ * this or another process) on the same file fails instead of corrupting the ring. At reopening the ring state and the
+ * record lengths are checked against the capacity, and an inconsistent journal (e.g. a torn header) is reset.
+ *
+ * Header layout: magic (int) | version (int) | data capacity (int) | head (int) | tail (int) | wrap offset (int) |
+ * record count (int) | used bytes (int) | appended (long) | overwritten (long) | drained (long).
+ * Record layout: record length (int) | qos (byte) | topic length (unsigned short) | topic (UTF-8 bytes) | payload |
+ * record length (int). The trailing length allows the records to be read backwards (newest first).
+ * A record never wraps around the end of the data area: when it does not fit, the end of the last record is saved
+ * as wrap offset and the record is written at the beginning of the data area.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:39
+ */
+public class TelemetryJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryJournal.class);
+
+    public static final int DEFAULT_CAPACITY = 4 * 1024 * 1024;
+
+    private static final int JOURNAL_MAGIC = 0x544A524E;
+
+    private static final int JOURNAL_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int HEAD_OFFSET = 12;
+    private static final int TAIL_OFFSET = 16;
+    private static final int WRAP_OFFSET = 20;
+    private static final int COUNT_OFFSET = 24;
+    private static final int USED_BYTES_OFFSET = 28;
+    private static final int APPENDED_OFFSET = 32;
+    private static final int OVERWRITTEN_OFFSET = 40;
+    private static final int DRAINED_OFFSET = 48;
+
+    //Record length, qos, topic length and trailing record length
+    private static final int RECORD_OVERHEAD = 4 + 1 + 2 + 4;
+
+    private static final int NO_WRAP = -1;
+
+    /**
+     * Destination of the drained records (e.g. VehicleMqttChannel::publish). A record is removed from the journal
+     * only if the handler returns without exceptions
+     */
+    public interface JournalRecordHandler {
+        public void handle(String topic, byte[] payload, int qos) throws Exception;
+    }
+
+    private final File journalFile;
+
+    //Kept open to hold the lock of the file
+    private final RandomAccessFile randomAccessFile;
+
+    private final FileLock fileLock;
+
+    private final MappedByteBuffer buffer;
+
+    private final int dataCapacity;
+
+    //Ring state, mirrored in the header (the buffer position and the ring state are guarded by the journal lock)
+    private int head;
+
+    private int tail;
+
+    private int wrapOffset;
+
+    private int recordCount;
+
+    private int usedBytes;
+
+    private long appendedRecordCount;
+
+    private long overwrittenRecordCount;
+
+    private long drainedRecordCount;
+
+    private long rejectedRecordCount;
+
+    private boolean isClosed;
+
+    public TelemetryJournal(File journalFile) throws IOException {
+        this(journalFile, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param journalFile mapped file of the journal (an existing journal is reopened with its original capacity)
+     * @param capacity size of the data area of a new journal in bytes
+     */
+    public TelemetryJournal(File journalFile, int capacity) throws IOException {
+
+        if(capacity <= RECORD_OVERHEAD)
+            throw new IllegalArgumentException(String.format("Journal capacity must be > %d bytes !", RECORD_OVERHEAD));
+
+        File parentDirectory = journalFile.getAbsoluteFile().getParentFile();
+        if(parentDirectory != null && !parentDirectory.isDirectory() && !parentDirectory.mkdirs())
+            throw new IOException("Unable to create the journal directory: " + parentDirectory + " !");
+
+        this.journalFile = journalFile;
+        this.randomAccessFile = new RandomAccessFile(journalFile, "rw");
+
+        try{
+
+            this.fileLock = lock(this.randomAccessFile.getChannel(), journalFile);
+
+            int existingCapacity = readExistingCapacity(this.randomAccessFile, journalFile);
+            this.dataCapacity = (existingCapacity > 0 ? existingCapacity : capacity);
+
+            this.buffer = this.randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) this.dataCapacity);
+
+            initRingState(existingCapacity > 0);
+
+        }catch (IOException | RuntimeException e){
+            //Releases the lock, if taken
+            this.randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read the ring state of an existing journal or initialize the header of a new one
+     */
+    private void initRingState(boolean isExistingJournal){
+
+        if(isExistingJournal){
+
+            this.head = this.buffer.getInt(HEAD_OFFSET);
+            this.tail = this.buffer.getInt(TAIL_OFFSET);
+            this.wrapOffset = this.buffer.getInt(WRAP_OFFSET);
+            this.recordCount = this.buffer.getInt(COUNT_OFFSET);
+            this.usedBytes = this.buffer.getInt(USED_BYTES_OFFSET);
+            this.appendedRecordCount = this.buffer.getLong(APPENDED_OFFSET);
+            this.overwrittenRecordCount = this.buffer.getLong(OVERWRITTEN_OFFSET);
+            this.drainedRecordCount = this.buffer.getLong(DRAINED_OFFSET);
+
+            if(!isRingStateValid()){
+                logger.warn("Inconsistent Telemetry Journal: {} ! {} records discarded", this.journalFile, this.recordCount);
+                reset();
+                writeRingState();
+            }
+
+            logger.info("Telemetry Journal Opened ! File: {} {}", this.journalFile, getStats());
+        }
+        else {
+            this.buffer.putInt(VERSION_OFFSET, JOURNAL_VERSION);
+            this.buffer.putInt(CAPACITY_OFFSET, this.dataCapacity);
+            reset();
+            writeCounters();
+            //The magic is written last, so an interrupted initialization is detected at the next opening
+            this.buffer.putInt(MAGIC_OFFSET, JOURNAL_MAGIC);
+        }
+    }
+
+    /**
+     * Append a record, overwriting the oldest records if the journal is full
+     * @return false if the record is larger than the journal (the record is discarded)
+     */
+    public synchronized boolean append(String topic, byte[] payload, int qos){
+
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        int recordLength = RECORD_OVERHEAD + topicBytes.length + payload.length;
+
+        if(this.isClosed || recordLength > this.dataCapacity || topicBytes.length > 0xFFFF){
+            this.rejectedRecordCount++;
+            return false;
+        }
+
+        int writeOffset = reserve(recordLength);
+        int position = HEADER_SIZE + writeOffset;
+
+        this.buffer.putInt(position, recordLength);
+        this.buffer.put(position + 4, (byte) qos);
+        this.buffer.putShort(position + 5, (short) topicBytes.length);
+        this.buffer.position(position + 7);
+        this.buffer.put(topicBytes);
+        this.buffer.put(payload);
+        this.buffer.putInt(position + recordLength - 4, recordLength);
+
+        this.tail = writeOffset + recordLength;
+        this.recordCount++;
+        this.usedBytes += recordLength;
+        this.appendedRecordCount++;
+
+        writeRingState();
+        this.buffer.putLong(APPENDED_OFFSET, this.appendedRecordCount);
+
+        return true;
+    }
+
+    /**
+     * Hand up to maxRecords records to the handler, removing each record once it has been handled.
+     * The drain stops at the first record refused by the handler (the record is kept)
+     * @return the number of drained records
+     */
+    public synchronized int drain(int maxRecords, JournalDrainOrder drainOrder, JournalRecordHandler recordHandler){
+
+        int drainedCount = 0;
+
+        while(drainedCount < maxRecords && this.recordCount > 0 && !this.isClosed){
+
+            int recordOffset = (drainOrder == JournalDrainOrder.OLDEST_FIRST ? getOldestRecordOffset() : getNewestRecordOffset());
+            int position = HEADER_SIZE + recordOffset;
+
+            int recordLength = this.buffer.getInt(position);
+            int qos = this.buffer.get(position + 4);
+            byte[] topicBytes = new byte[this.buffer.getShort(position + 5) & 0xFFFF];
+            byte[] payload = new byte[recordLength - RECORD_OVERHEAD - topicBytes.length];
+            this.buffer.position(position + 7);
+            this.buffer.get(topicBytes);
+            this.buffer.get(payload);
+
+            try{
+                recordHandler.handle(new String(topicBytes, StandardCharsets.UTF_8), payload, qos);
+            }catch (Exception e){
+                logger.debug("Journal drain interrupted ! Msg: {}", e.getLocalizedMessage());
+                break;
+            }
+
+            if(drainOrder == JournalDrainOrder.OLDEST_FIRST)
+                removeOldest(recordLength);
+            else
+                removeNewest(recordLength);
+
+            this.drainedRecordCount++;
+            drainedCount++;
+        }
+
+        if(drainedCount > 0){
+            writeRingState();
+            this.buffer.putLong(DRAINED_OFFSET, this.drainedRecordCount);
+        }
+
+        return drainedCount;
+    }
+
+    /**
+     * Write the journal to the storage device
+     */
+    public synchronized void force(){
+        if(!this.isClosed)
+            this.buffer.force();
+    }
+
+    @Override
+    public synchronized void close(){
+
+        if(this.isClosed)
+            return;
+
+        this.buffer.force();
+        this.isClosed = true;
+
+        try{
+            this.fileLock.release();
+            this.randomAccessFile.close();
+        }catch (IOException e){
+            logger.error("Error releasing the Telemetry Journal file {} ! Msg: {}", this.journalFile, e.getLocalizedMessage());
+        }
+
+        logger.info("Telemetry Journal Closed ! File: {} {}", this.journalFile, getStats());
+    }
+
+    public synchronized String getStats(){
+        final StringBuffer sb = new StringBuffer();
+        sb.append("backlog=").append(this.recordCount);
+        sb.append(", backlogBytes=").append(this.usedBytes);
+        sb.append(", capacity=").append(this.dataCapacity);
+        sb.append(", appended=").append(this.appendedRecordCount);
+        sb.append(", drained=").append(this.drainedRecordCount);
+        sb.append(", overwritten=").append(this.overwrittenRecordCount);
+        sb.append(", rejected=").append(this.rejectedRecordCount);
+        return sb.toString();
+    }
+
+    public synchronized boolean isEmpty() {
+        return this.recordCount == 0;
+    }
+
+    /**
+     * @return the number of records waiting to be drained
+     */
+    public synchronized int getBacklogRecordCount() {
+        return this.recordCount;
+    }
+
+    /**
+     * @return the bytes of the records waiting to be drained (record headers included)
+     */
+    public synchronized int getBacklogBytes() {
+        return this.usedBytes;
+    }
+
+    public int getCapacity() {
+        return this.dataCapacity;
+    }
+
+    public synchronized long getAppendedRecordCount() {
+        return this.appendedRecordCount;
+    }
+
+    public synchronized long getDrainedRecordCount() {
+        return this.drainedRecordCount;
+    }
+
+    /**
+     * @return the number of records lost because the journal was full
+     */
+    public synchronized long getOverwrittenRecordCount() {
+        return this.overwrittenRecordCount;
+    }
+
+    /**
+     * @return the number of records discarded because larger than the journal (not persisted across restarts)
+     */
+    public synchronized long getRejectedRecordCount() {
+        return this.rejectedRecordCount;
+    }
+
+    public File getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Find the offset of a new record, removing the oldest records until it fits
+     */
+    private int reserve(int recordLength){
+
+        while(true){
+
+            if(this.recordCount == 0)
+                reset();
+
+            if(this.wrapOffset == NO_WRAP){
+
+                //Live records in [head, tail): free space at the end and then at the beginning of the data area
+                if(this.tail + recordLength <= this.dataCapacity)
+                    return this.tail;
+
+                this.wrapOffset = this.tail;
+                this.tail = 0;
+            }
+            else if(this.tail + recordLength <= this.head)
+                //Live records in [head, wrapOffset) and [0, tail): free space in [tail, head)
+                return this.tail;
+
+            removeOldest(this.buffer.getInt(HEADER_SIZE + this.head));
+            this.overwrittenRecordCount++;
+            this.buffer.putLong(OVERWRITTEN_OFFSET, this.overwrittenRecordCount);
+        }
+    }
+
+    private int getOldestRecordOffset(){
+        return this.head;
+    }
+
+    private int getNewestRecordOffset(){
+        return this.tail - this.buffer.getInt(HEADER_SIZE + this.tail - 4);
+    }
+
+    private void removeOldest(int recordLength){
+
+        this.head += recordLength;
+        this.recordCount--;
+        this.usedBytes -= recordLength;
+
+        if(this.head == this.wrapOffset){
+            this.head = 0;
+            this.wrapOffset = NO_WRAP;
+        }
+
+        if(this.recordCount == 0)
+            reset();
+    }
+
+    private void removeNewest(int recordLength){
+
+        this.tail -= recordLength;
+        this.recordCount--;
+        this.usedBytes -= recordLength;
+
+        if(this.tail == 0 && this.wrapOffset != NO_WRAP){
+            this.tail = this.wrapOffset;
+            this.wrapOffset = NO_WRAP;
+        }
+
+        if(this.recordCount == 0)
+            reset();
+    }
+
+    private void reset(){
+        this.head = 0;
+        this.tail = 0;
+        this.wrapOffset = NO_WRAP;
+        this.recordCount = 0;
+        this.usedBytes = 0;
+    }
+
+    /**
+     * Check the ring state read from the header and walk the records from head to tail
+     * @return false if the ring state or a record length is not consistent with the data area
+     */
+    private boolean isRingStateValid(){
+
+        if(this.recordCount < 0 || this.usedBytes < 0 || this.usedBytes > this.dataCapacity
+                || this.head < 0 || this.head > this.dataCapacity || this.tail < 0 || this.tail > this.dataCapacity)
+            return false;
+
+        if(this.recordCount == 0)
+            return this.usedBytes == 0 && this.head == 0 && this.tail == 0 && this.wrapOffset == NO_WRAP;
+
+        boolean isWrapped = (this.wrapOffset != NO_WRAP);
+
+        //Live records in [head, tail), or in [head, wrapOffset) and [0, tail)
+        if(isWrapped ? (this.wrapOffset > this.dataCapacity || this.head >= this.wrapOffset || this.tail == 0 || this.tail > this.head) : this.head >= this.tail)
+            return false;
+
+        int offset = this.head;
+        int end = (isWrapped ? this.wrapOffset : this.tail);
+        long bytes = 0;
+
+        for(int i = 0; i < this.recordCount; i++){
+
+            if(offset == end && isWrapped){
+                offset = 0;
+                end = this.tail;
+                isWrapped = false;
+            }
+
+            if(end - offset < RECORD_OVERHEAD)
+                return false;
+
+            int position = HEADER_SIZE + offset;
+            int recordLength = this.buffer.getInt(position);
+
+            if(recordLength < RECORD_OVERHEAD || recordLength > end - offset
+                    || this.buffer.getInt(position + recordLength - 4) != recordLength
+                    || (this.buffer.getShort(position + 5) & 0xFFFF) > recordLength - RECORD_OVERHEAD)
+                return false;
+
+            offset += recordLength;
+            bytes += recordLength;
+        }
+
+        return !isWrapped && offset == end && bytes == this.usedBytes;
+    }
+
+    private void writeRingState(){
+        this.buffer.putInt(HEAD_OFFSET, this.head);
+        this.buffer.putInt(TAIL_OFFSET, this.tail);
+        this.buffer.putInt(WRAP_OFFSET, this.wrapOffset);
+        this.buffer.putInt(COUNT_OFFSET, this.recordCount);
+        this.buffer.putInt(USED_BYTES_OFFSET, this.usedBytes);
+    }
+
+    private void writeCounters(){
+        writeRingState();
+        this.buffer.putLong(APPENDED_OFFSET, this.appendedRecordCount);
+        this.buffer.putLong(OVERWRITTEN_OFFSET, this.overwrittenRecordCount);
+        this.buffer.putLong(DRAINED_OFFSET, this.drainedRecordCount);
+    }
+
+    /**
+     * Take the exclusive lock of the journal file
+     */
+    private static FileLock lock(FileChannel fileChannel, File journalFile) throws IOException {
+
+        FileLock fileLock;
+
+        try{
+            fileLock = fileChannel.tryLock();
+        }catch (OverlappingFileLockException e){
+            fileLock = null;
+        }
+
+        if(fileLock == null)
+            throw new IOException("Telemetry Journal " + journalFile + " already in use !");
+
+        return fileLock;
+    }
+
+    /**
+     * @return the data capacity of a valid existing journal, 0 otherwise
+     */
+    private static int readExistingCapacity(RandomAccessFile randomAccessFile, File journalFile) throws IOException {
+
+        long fileLength = randomAccessFile.length();
+
+        if(fileLength < HEADER_SIZE)
+            return 0;
+
+        randomAccessFile.seek(MAGIC_OFFSET);
+
+        if(randomAccessFile.readInt() != JOURNAL_MAGIC || randomAccessFile.readInt() != JOURNAL_VERSION){
+            logger.warn("Invalid Telemetry Journal: {} ! A new journal is created", journalFile);
+            return 0;
+        }
+
+        int capacity = randomAccessFile.readInt();
+        return (capacity > RECORD_OVERHEAD && fileLength >= HEADER_SIZE + (long) capacity ? capacity : 0);
+    }
+}
@@ -0,0 +1,52 @@
+package it.unimore.dipi.iot.fleet.device;
+
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttException;
+
+/**
+ * MQTT channel used by a VehicleMqttSmartObject to publish its telemetry and receive its controls.
+ * It hides the underlying Paho client (blocking or asynchronous) and keeps per-vehicle publishing counters.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:45
+ */
+public interface VehicleMqttChannel {
+
+    public boolean isConnected();
+
+    /**
+     * Publish (or enqueue for publishing) a message
+     * @param topic
+     * @param payload
+     * @param qos
+     * @throws MqttException if the message is neither sent nor enqueued (e.g. client not connected)
+     */
+    public void publish(String topic, byte[] payload, int qos) throws MqttException;
+
+    /**
+     * @return true if the payload array may still be referenced after publish() returns (e.g. queued or in flight),
+     * false if the caller can safely reuse it for the following message
+     */
+    public boolean isPayloadRetained();
+
+    public void subscribe(String topicFilter, IMqttMessageListener messageListener) throws MqttException;
+
+    public void unsubscribe(String topicFilter) throws MqttException;
+
+    /**
+     * @return the number of messages waiting to be handed to the MQTT client
+     */
+    public long getQueuedMessageCount();
+
+    /**
+     * @return the number of messages successfully published
+     */
+    public long getSentMessageCount();
+
+    /**
+     * @return the number of messages discarded (e.g. client not connected or full queue)
+     */
+    public long getDroppedMessageCount();
+
+}
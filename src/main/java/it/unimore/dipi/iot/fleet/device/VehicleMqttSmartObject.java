@@ -1,13 +1,23 @@
 package it.unimore.dipi.iot.fleet.device;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.BinaryTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.GpsDeltaTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetryFormat;
+import it.unimore.dipi.iot.fleet.geo.GeoHash;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
 import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.metrics.LatencyHistogram;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
 import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
 import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
 import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
 import it.unimore.dipi.iot.fleet.resource.ResourceDataListener;
 import it.unimore.dipi.iot.fleet.resource.SmartObjectResource;
+import it.unimore.dipi.iot.fleet.scheduler.TaskScheduler;
 import org.eclipse.paho.client.mqttv3.IMqttClient;
 import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
 import org.eclipse.paho.client.mqttv3.MqttException;
@@ -15,7 +25,12 @@ import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -36,16 +51,76 @@ public class VehicleMqttSmartObject {
 
     private static final String COMMAND_TOPIC = "command";
 
+    //E.g. fleet/area/u0p2s4/control
+    private static final String AREA_TOPIC = "fleet/area";
+
+    //No area control subscription
+    private static final long NO_AREA_CELL = -1;
+
+    //Codecs are thread safe and shared by all the vehicles of the process
+    private static final TelemetryCodec jsonTelemetryCodec = new JsonTelemetryCodec(new ObjectMapper());
+
+    private static final TelemetryCodec binaryTelemetryCodec = new BinaryTelemetryCodec();
+
+    //Telemetry path metrics of all the vehicles of the process
+    private static final LatencyHistogram serializeHistogram = MetricsRegistry.getDefault().histogram("vehicle.serialize");
+
+    private static final LatencyHistogram publishHistogram = MetricsRegistry.getDefault().histogram("vehicle.publish");
+
+    private static final LongAdder fleetSampleCounter = MetricsRegistry.getDefault().counter("vehicle.samples");
+
+    private static final LongAdder fleetMessageCounter = MetricsRegistry.getDefault().counter("vehicle.messages");
+
+    private static final LongAdder fleetPublishErrorCounter = MetricsRegistry.getDefault().counter("vehicle.publishErrors");
+
     private String vehicleId;
 
-    private ObjectMapper mapper;
+    private VehicleMqttChannel mqttChannel;
 
-    private IMqttClient mqttClient;
+    private int telemetryQos = 0;
 
     private Map<String, SmartObjectResource<?>> resourceMap;
 
+    private TelemetryFormat defaultTelemetryFormat = TelemetryFormat.JSON;
+
+    //Telemetry format selected for specific resources (by resource key)
+    private Map<String, TelemetryFormat> resourceTelemetryFormatMap;
+
+    //Optional batching of the telemetry samples (null if disabled)
+    private TelemetryBatcher telemetryBatcher;
+
+    private LongAdder telemetrySampleCounter;
+
+    private LongAdder publishedMessageCounter;
+
+    //Geohash precision of the area control cell (0 = area control disabled)
+    private int areaControlPrecision = 0;
+
+    //Cell of the current area control subscription (guarded by the vehicle lock)
+    private long areaControlCellBits = NO_AREA_CELL;
+
+    private String areaControlTopic;
+
+    private long areaControlUpdateCount;
+
+    //Geohash precision of the geo-partitioned telemetry topics (0 = fleet/vehicle/<vehicle_id>/telemetry/<resource>)
+    private int geoPartitionPrecision = 0;
+
+    //Cell of the current telemetry topics (guarded by the vehicle lock)
+    private long geoPartitionCellBits = NO_AREA_CELL;
+
+    private String geoPartitionCell;
+
+    private long geoPartitionUpdateCount;
+
+    //Current telemetry topic and codec of each resource key
+    private Map<String, TelemetryRoute> telemetryRouteMap;
+
     public VehicleMqttSmartObject() {
-        this.mapper = new ObjectMapper();
+        this.resourceTelemetryFormatMap = new HashMap<>();
+        this.telemetryRouteMap = new ConcurrentHashMap<>();
+        this.telemetrySampleCounter = new LongAdder();
+        this.publishedMessageCounter = new LongAdder();
     }
 
     /**
@@ -55,14 +130,85 @@ public class VehicleMqttSmartObject {
      * @param resourceMap
      */
     public void init(String vehicleId, IMqttClient mqttClient, Map<String, SmartObjectResource<?>> resourceMap){
+        init(vehicleId, new MqttClientChannel(mqttClient), resourceMap);
+    }
+
+    /**
+     * Init the vehicle smart object with its ID, the MQTT Channel (e.g. an AsyncMqttClientChannel) and the Map of managed resources
+     * @param vehicleId
+     * @param mqttChannel
+     * @param resourceMap
+     */
+    public void init(String vehicleId, VehicleMqttChannel mqttChannel, Map<String, SmartObjectResource<?>> resourceMap){
 
         this.vehicleId = vehicleId;
-        this.mqttClient = mqttClient;
+        this.mqttChannel = mqttChannel;
         this.resourceMap = resourceMap;
 
         logger.info("Vehicle Smart Object correctly created ! Resource Number: {}", resourceMap.keySet().size());
     }
 
+    /**
+     * Enable the batching of the telemetry samples. Samples of the same resource are collected and
+     * published through a single TelemetryBatchMessage when maxBatchSize samples are available or
+     * when the oldest pending sample has been waiting for maxBatchDelayMs. It has to be called before start()
+     * @param maxBatchSize
+     * @param maxBatchDelayMs
+     * @param taskScheduler scheduler used to check the batching time window
+     */
+    public void enableTelemetryBatching(int maxBatchSize, long maxBatchDelayMs, TaskScheduler taskScheduler){
+        this.telemetryBatcher = new TelemetryBatcher(maxBatchSize, maxBatchDelayMs, taskScheduler, this::publishTelemetryBatch);
+        logger.info("Telemetry Batching enabled ! Max Batch Size: {} Max Batch Delay: {} ms", maxBatchSize, maxBatchDelayMs);
+    }
+
+    /**
+     * Select the telemetry format of all the resources without a specific format (default JSON).
+     * It has to be called before start()
+     * @param telemetryFormat
+     */
+    public void setTelemetryFormat(TelemetryFormat telemetryFormat){
+        this.defaultTelemetryFormat = telemetryFormat;
+    }
+
+    /**
+     * Select the telemetry format of a single resource (and therefore of its telemetry topic).
+     * It has to be called before start()
+     * @param resourceKey the key of the resource in the resource map (e.g. gps). GPS_DELTA only supports GPS resources
+     * @param telemetryFormat
+     */
+    public void setTelemetryFormat(String resourceKey, TelemetryFormat telemetryFormat){
+        this.resourceTelemetryFormatMap.put(resourceKey, telemetryFormat);
+    }
+
+    /**
+     * Enable the subscription to the control topic of the geohash cell of the vehicle (fleet/area/<geohash>/control),
+     * used by the consumers to alert all the vehicles of an area with a few publishes. The subscription is moved
+     * when the GPS resource reports a position in another cell. It has to be called before start()
+     * @param areaControlPrecision geohash precision of the cells (e.g. 6 = about 1.2 x 0.6 km, 0 = disabled)
+     */
+    public void setAreaControlPrecision(int areaControlPrecision){
+
+        if(areaControlPrecision < 0 || areaControlPrecision > GeoHash.MAX_PRECISION)
+            throw new IllegalArgumentException(String.format("Area control precision must be in [0, %d] !", GeoHash.MAX_PRECISION));
+
+        this.areaControlPrecision = areaControlPrecision;
+    }
+
+    /**
+     * Enable the geo-partitioned telemetry topics (fleet/geo/<geohash>/vehicle/<vehicle_id>/telemetry/<resource>, see
+     * GeoPartitionTopics), so regional consumers can subscribe only to the cells they own. The topics of all the
+     * resources move to the cell of the last position reported by the GPS resource. Before the first position the
+     * telemetry is published on the standard topics. It has to be called before start()
+     * @param geoPartitionPrecision geohash precision of the cells (e.g. 4 = about 39 x 19 km, 0 = disabled)
+     */
+    public void setGeoPartitionPrecision(int geoPartitionPrecision){
+
+        if(geoPartitionPrecision < 0 || geoPartitionPrecision > GeoHash.MAX_PRECISION)
+            throw new IllegalArgumentException(String.format("Geo partition precision must be in [0, %d] !", GeoHash.MAX_PRECISION));
+
+        this.geoPartitionPrecision = geoPartitionPrecision;
+    }
+
     /**
      * Start vehicle behaviour
      */
@@ -70,7 +216,7 @@ public class VehicleMqttSmartObject {
 
         try{
 
-            if(this.mqttClient != null &&
+            if(this.mqttChannel != null &&
                 this.vehicleId != null  && this.vehicleId.length() > 0 &&
                 this.resourceMap != null && resourceMap.keySet().size() > 0){
 
@@ -97,7 +243,7 @@ public class VehicleMqttSmartObject {
 
             logger.info("Registering to Control Topic ({}) ... ", deviceControlTopic);
 
-            this.mqttClient.subscribe(deviceControlTopic, new IMqttMessageListener() {
+            this.mqttChannel.subscribe(deviceControlTopic, new IMqttMessageListener() {
                 @Override
                 public void messageArrived(String topic, MqttMessage message) throws Exception {
 
@@ -125,38 +271,35 @@ public class VehicleMqttSmartObject {
                             smartObjectResource.getType(),
                             smartObjectResource.getId());
 
+                    //Telemetry topic precomputed for each resource (replaced when the geo partition cell changes)
+                    String resourceKey = resourceEntry.getKey();
+                    String resourceType = smartObjectResource.getType();
+                    TelemetryFormat telemetryFormat = this.resourceTelemetryFormatMap.getOrDefault(resourceKey, this.defaultTelemetryFormat);
+                    setTelemetryRoute(resourceKey, new TelemetryRoute(String.format("%s/%s/%s/%s", BASIC_TOPIC, vehicleId, TELEMETRY_TOPIC, resourceKey),
+                            telemetryFormat, getTelemetryCodec(telemetryFormat), new AtomicLong()));
+
                     //Register to GpsGpxSensorResource Notification
-                    if(smartObjectResource.getType().equals(GpsGpxSensorResource.RESOURCE_TYPE)){
+                    if(resourceType.equals(GpsGpxSensorResource.RESOURCE_TYPE)){
 
                         GpsGpxSensorResource gpsGpxSensorResource = (GpsGpxSensorResource)smartObjectResource;
                         gpsGpxSensorResource.addDataListener(new ResourceDataListener<GpsLocationDescriptor>() {
                             @Override
                             public void onDataChanged(SmartObjectResource<GpsLocationDescriptor> resource, GpsLocationDescriptor updatedValue) {
-                                try {
-                                    publishTelemetryData(
-                                            String.format("%s/%s/%s/%s", BASIC_TOPIC, vehicleId, TELEMETRY_TOPIC, resourceEntry.getKey()),
-                                            new TelemetryMessage<>(smartObjectResource.getType(), updatedValue));
-                                } catch (MqttException | JsonProcessingException e) {
-                                    e.printStackTrace();
-                                }
+                                updateAreaControlSubscription(updatedValue);
+                                updateGeoPartition(updatedValue);
+                                publishTelemetryData(telemetryRouteMap.get(resourceKey), resourceType, updatedValue);
                             }
                         });
                     }
 
                     //Register to BatterySensorResource Notification
-                    if(smartObjectResource.getType().equals(BatterySensorResource.RESOURCE_TYPE)){
+                    if(resourceType.equals(BatterySensorResource.RESOURCE_TYPE)){
 
                         BatterySensorResource batterySensorResource = (BatterySensorResource)smartObjectResource;
                         batterySensorResource.addDataListener(new ResourceDataListener<Double>() {
                             @Override
                             public void onDataChanged(SmartObjectResource<Double> resource, Double updatedValue) {
-                                try {
-                                    publishTelemetryData(
-                                            String.format("%s/%s/%s/%s", BASIC_TOPIC, vehicleId, TELEMETRY_TOPIC, resourceEntry.getKey()),
-                                            new TelemetryMessage<>(smartObjectResource.getType(), updatedValue));
-                                } catch (MqttException | JsonProcessingException e) {
-                                    e.printStackTrace();
-                                }
+                                publishTelemetryData(telemetryRouteMap.get(resourceKey), resourceType, updatedValue);
                             }
                         });
                     }
@@ -170,29 +313,312 @@ public class VehicleMqttSmartObject {
     }
 
     /**
-     * Stop the emulated vehicle
+     * Stop the emulated vehicle and its resources. The MQTT Client is not disconnected since
+     * it is created and owned by the caller
      */
     public void stop(){
-        //TODO Implement a proper closing method
+
+        try{
+
+            if(this.resourceMap != null)
+                this.resourceMap.values().forEach(smartObjectResource -> {
+                    if(smartObjectResource != null)
+                        smartObjectResource.stop();
+                });
+
+            if(this.telemetryBatcher != null)
+                this.telemetryBatcher.close();
+
+            if(this.mqttChannel != null && this.mqttChannel.isConnected()){
+
+                this.mqttChannel.unsubscribe(String.format("%s/%s/%s", BASIC_TOPIC, vehicleId, CONTROL_TOPIC));
+
+                synchronized (this){
+                    if(this.areaControlTopic != null)
+                        this.mqttChannel.unsubscribe(this.areaControlTopic);
+                }
+            }
+
+            logger.info("Vehicle Smart Object {} stopped !", vehicleId);
+
+        }catch (Exception e){
+            logger.error("Error Stopping the Vehicle Emulator ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Set the MQTT QoS used to publish telemetry data (default 0)
+     * @param telemetryQos
+     */
+    public void setTelemetryQos(int telemetryQos) {
+        this.telemetryQos = telemetryQos;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    public VehicleMqttChannel getMqttChannel() {
+        return mqttChannel;
+    }
+
+    /**
+     * @return the number of telemetry samples generated by the vehicle resources
+     */
+    public long getTelemetrySampleCount() {
+        return this.telemetrySampleCounter.sum();
+    }
+
+    /**
+     * @return the number of samples suppressed by the reporting policies of the vehicle resources
+     */
+    public long getSuppressedSampleCount() {
+
+        long suppressedSampleCount = 0;
+
+        if(this.resourceMap != null)
+            for(SmartObjectResource<?> smartObjectResource : this.resourceMap.values())
+                if(smartObjectResource != null)
+                    suppressedSampleCount += smartObjectResource.getSuppressedSampleCount();
+
+        return suppressedSampleCount;
+    }
+
+    /**
+     * @return the number of MQTT messages handed to the MQTT channel (lower than the number of samples when batching is enabled)
+     */
+    public long getPublishedMessageCount() {
+        return this.publishedMessageCounter.sum();
+    }
+
+    /**
+     * @return the control topic of the current cell of the vehicle (null if area control is disabled or no position is available)
+     */
+    public synchronized String getAreaControlTopic() {
+        return this.areaControlTopic;
+    }
+
+    /**
+     * @return the number of changes of the area control subscription
+     */
+    public synchronized long getAreaControlUpdateCount() {
+        return this.areaControlUpdateCount;
+    }
+
+    /**
+     * Move the area control subscription to the cell of the position, if changed. The new cell is subscribed before
+     * unsubscribing the previous one, so no area control is missed while crossing the cells
+     */
+    private synchronized void updateAreaControlSubscription(GpsLocationDescriptor gpsLocationDescriptor){
+
+        if(this.areaControlPrecision == 0 || gpsLocationDescriptor == null)
+            return;
+
+        long cellBits = GeoHash.encodeBits(gpsLocationDescriptor.getLatitude(), gpsLocationDescriptor.getLongitude(), this.areaControlPrecision);
+
+        //While offline the subscription is moved by the first position after the reconnection
+        if(cellBits == this.areaControlCellBits || !this.mqttChannel.isConnected())
+            return;
+
+        String newAreaControlTopic = String.format("%s/%s/%s", AREA_TOPIC, GeoHash.toBase32(cellBits, this.areaControlPrecision), CONTROL_TOPIC);
+
+        try{
+
+            this.mqttChannel.subscribe(newAreaControlTopic, new IMqttMessageListener() {
+                @Override
+                public void messageArrived(String topic, MqttMessage message) throws Exception {
+                    //A zero-length payload clears the retained control of an area without events
+                    if(message != null && message.getPayload().length > 0)
+                        logger.info("[AREA CONTROL CHANNEL] -> Control Message Received on {} -> {}", topic, new String(message.getPayload()));
+                }
+            });
+
+            if(this.areaControlTopic != null)
+                this.mqttChannel.unsubscribe(this.areaControlTopic);
+
+            if(logger.isDebugEnabled())
+                logger.debug("Vehicle {} moved to Area Control Topic: {} (previous: {})", this.vehicleId, newAreaControlTopic, this.areaControlTopic);
+
+            this.areaControlCellBits = cellBits;
+            this.areaControlTopic = newAreaControlTopic;
+            this.areaControlUpdateCount++;
+
+        }catch (Exception e){
+            //Retried with the next position
+            logger.error("Error updating Area Control subscription to {} ! Msg: {}", newAreaControlTopic, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @return the geohash of the current geo partition cell (null if geo partitioning is disabled or no position is available)
+     */
+    public synchronized String getGeoPartitionCell() {
+        return this.geoPartitionCell;
+    }
+
+    /**
+     * @return the number of changes of the geo partition cell of the telemetry topics
+     */
+    public synchronized long getGeoPartitionUpdateCount() {
+        return this.geoPartitionUpdateCount;
+    }
+
+    /**
+     * Move the telemetry topics of all the resources to the geo partition cell of the position, if changed.
+     * Stateful codecs are replaced, so the first sample on a new topic is self-contained (e.g. a GPS_DELTA keyframe)
+     */
+    private synchronized void updateGeoPartition(GpsLocationDescriptor gpsLocationDescriptor){
+
+        if(this.geoPartitionPrecision == 0 || gpsLocationDescriptor == null)
+            return;
+
+        long cellBits = GeoHash.encodeBits(gpsLocationDescriptor.getLatitude(), gpsLocationDescriptor.getLongitude(), this.geoPartitionPrecision);
+
+        if(cellBits == this.geoPartitionCellBits)
+            return;
+
+        String cell = GeoHash.toBase32(cellBits, this.geoPartitionPrecision);
+
+        this.telemetryRouteMap.forEach((resourceKey, telemetryRoute) ->
+                setTelemetryRoute(resourceKey, new TelemetryRoute(GeoPartitionTopics.getTelemetryTopic(cell, this.vehicleId, resourceKey),
+                        telemetryRoute.telemetryFormat, getTelemetryCodec(telemetryRoute.telemetryFormat), telemetryRoute.sequenceGenerator)));
+
+        if(logger.isDebugEnabled())
+            logger.debug("Vehicle {} moved to Geo Partition Cell: {} (previous: {})", this.vehicleId, cell, this.geoPartitionCell);
+
+        this.geoPartitionCellBits = cellBits;
+        this.geoPartitionCell = cell;
+        this.geoPartitionUpdateCount++;
     }
 
-    private void publishTelemetryData(String topic, TelemetryMessage<?> telemetryMessage) throws MqttException, JsonProcessingException {
+    /**
+     * Register the current route of a resource. The routes of the previous topics are not kept: the batches still
+     * pending on them are self-contained and encoded by the codec of the current route (see publishTelemetryBatch)
+     */
+    private void setTelemetryRoute(String resourceKey, TelemetryRoute telemetryRoute){
+        this.telemetryRouteMap.put(resourceKey, telemetryRoute);
+    }
+
+    /**
+     * @param telemetryFormat
+     * @return the shared codec of stateless formats or a new codec (one for each topic) for stateful formats
+     */
+    private static TelemetryCodec getTelemetryCodec(TelemetryFormat telemetryFormat){
+        switch (telemetryFormat){
+            case BINARY:
+                return binaryTelemetryCodec;
+            case GPS_DELTA:
+                return new GpsDeltaTelemetryCodec();
+            default:
+                return jsonTelemetryCodec;
+        }
+    }
+
+    private void publishTelemetryData(TelemetryRoute telemetryRoute, String type, Object dataValue) {
+
+        this.telemetrySampleCounter.increment();
+        fleetSampleCounter.increment();
+
+        String topic = telemetryRoute.topic;
+        TelemetryCodec telemetryCodec = telemetryRoute.telemetryCodec;
+
+        //Each sample of the resource takes a number, so the consumers can detect the samples that never reach them
+        long sequenceNumber = telemetryRoute.sequenceGenerator.incrementAndGet();
+
+        if(this.telemetryBatcher != null && dataValue != null){
+            TelemetryMessage<Object> telemetryMessage = new TelemetryMessage<>(type, dataValue);
+            telemetryMessage.setSequenceNumber(sequenceNumber);
+            this.telemetryBatcher.add(topic, telemetryMessage);
+            return;
+        }
+
+        if(this.mqttChannel == null || dataValue == null){
+            logger.error("Error: Msg = Null or MQTT Channel not available !");
+            return;
+        }
+
+        try{
+
+            long startTime = System.nanoTime();
+
+            //The payload array is recycled by the codec only if the channel does not keep a reference to it
+            byte[] payload = telemetryCodec.encode(type, sequenceNumber, dataValue, !this.mqttChannel.isPayloadRetained());
+
+            long encodedTime = System.nanoTime();
+
+            this.mqttChannel.publish(topic, payload, this.telemetryQos);
+
+            publishHistogram.record(System.nanoTime() - encodedTime);
+            serializeHistogram.record(encodedTime - startTime);
 
-        logger.info("Sending to topic: {} -> Data: {}", topic, telemetryMessage);
+            this.publishedMessageCounter.increment();
+            fleetMessageCounter.increment();
 
-        if(this.mqttClient != null && this.mqttClient.isConnected() && telemetryMessage != null && topic != null){
+            if(logger.isDebugEnabled())
+                logger.debug("Data Correctly Published to topic: {} -> Data: {}", topic, dataValue);
+
+        }catch (MqttException | IOException e){
+            fleetPublishErrorCounter.increment();
+            logger.error("Error publishing Telemetry Data to {} ! Msg: {}", topic, e.getLocalizedMessage());
+        }
+    }
+
+    private void publishTelemetryBatch(String topic, TelemetryBatchMessage<?> batchMessage) {
+
+        try{
+
+            if(this.mqttChannel != null){
+
+                //The resource key is the last level of both the standard and the geo-partitioned topics
+                TelemetryRoute telemetryRoute = this.telemetryRouteMap.get(topic.substring(topic.lastIndexOf('/') + 1));
+                TelemetryCodec telemetryCodec = (telemetryRoute != null ? telemetryRoute.telemetryCodec : jsonTelemetryCodec);
+
+                long startTime = System.nanoTime();
+
+                byte[] payload = telemetryCodec.encodeBatch(batchMessage);
+
+                long encodedTime = System.nanoTime();
+
+                this.mqttChannel.publish(topic, payload, this.telemetryQos);
+
+                publishHistogram.record(System.nanoTime() - encodedTime);
+                serializeHistogram.record(encodedTime - startTime);
+
+                this.publishedMessageCounter.increment();
+                fleetMessageCounter.increment();
+
+                if(logger.isDebugEnabled())
+                    logger.debug("Batch Correctly Published to topic: {} -> Samples: {}", topic, batchMessage.getMessageList().size());
+            }
+            else
+                logger.error("Error: MQTT Channel not available ! Batch of {} samples discarded", batchMessage.getMessageList().size());
+
+        }catch (Exception e){
+            fleetPublishErrorCounter.increment();
+            logger.error("Error publishing Telemetry Batch ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Telemetry topic of a resource with its format and codec, replaced as a whole when the topic changes.
+     * The sequence numbers of the resource samples continue across the topics
+     */
+    private static class TelemetryRoute {
 
-            String messagePayload = mapper.writeValueAsString(telemetryMessage);
+        private final String topic;
 
-            MqttMessage mqttMessage = new MqttMessage(messagePayload.getBytes());
-            mqttMessage.setQos(0);
+        private final TelemetryFormat telemetryFormat;
 
-            mqttClient.publish(topic, mqttMessage);
+        private final TelemetryCodec telemetryCodec;
 
-            logger.info("Data Correctly Published to topic: {}", topic);
+        //Last sequence number of the resource samples (the first sample is 1)
+        private final AtomicLong sequenceGenerator;
 
+        private TelemetryRoute(String topic, TelemetryFormat telemetryFormat, TelemetryCodec telemetryCodec, AtomicLong sequenceGenerator) {
+            this.topic = topic;
+            this.telemetryFormat = telemetryFormat;
+            this.telemetryCodec = telemetryCodec;
+            this.sequenceGenerator = sequenceGenerator;
         }
-        else
-            logger.error("Error: Topic or Msg = Null or MQTT Client is not Connected !");
     }
 }
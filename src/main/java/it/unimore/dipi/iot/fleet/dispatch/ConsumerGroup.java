@@ -0,0 +1,156 @@
+package it.unimore.dipi.iot.fleet.dispatch;
+
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttException;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Membership of a consumer instance in a group of instances sharing the fleet telemetry (see ConsumerGroupMode), so
+ * that N consumer processes handle disjoint slices of the fleet and each alarm is notified once.
+ *
+ * In PARTITIONED mode the vehicle id of each topic is hashed to one of instanceCount partitions and the instance only
+ * processes its own partition (instanceIndex), so every vehicle is always handled by the same instance. The partition hash
+ * uses the high bits of a mixed vehicle hash, independent from the OrderedLaneDispatcher lanes (low bits) of the instance.
+ * MQTT shared subscriptions ($share) are not supported: brokers balance single messages, not vehicles, while the
+ * monitoring stages keep per-vehicle state (battery history, traffic event index).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:17
+ */
+public class ConsumerGroup {
+
+    private final ConsumerGroupMode mode;
+
+    private final String groupName;
+
+    private final int instanceIndex;
+
+    private final int instanceCount;
+
+    private final LongAdder skippedMessageCounter;
+
+    /**
+     * @param mode
+     * @param groupName name of the group (logged with the instance partition)
+     * @param instanceIndex partition of this instance in [0, instanceCount) (PARTITIONED mode)
+     * @param instanceCount number of instances of the group (PARTITIONED mode)
+     */
+    public ConsumerGroup(ConsumerGroupMode mode, String groupName, int instanceIndex, int instanceCount) {
+
+        if(mode == ConsumerGroupMode.PARTITIONED && (instanceCount <= 0 || instanceIndex < 0 || instanceIndex >= instanceCount))
+            throw new IllegalArgumentException(String.format("Invalid partition %d of %d instances !", instanceIndex, instanceCount));
+
+        this.mode = mode;
+        this.groupName = groupName;
+        this.instanceIndex = instanceIndex;
+        this.instanceCount = instanceCount;
+        this.skippedMessageCounter = new LongAdder();
+    }
+
+    /**
+     * Parse the group configuration from the arguments of a consumer process: [mode] [groupName] [instanceIndex] [instanceCount]
+     */
+    public static ConsumerGroup fromArgs(String[] args, String defaultGroupName){
+        return new ConsumerGroup(args.length > 0 ? ConsumerGroupMode.valueOf(args[0].toUpperCase()) : ConsumerGroupMode.NONE,
+                args.length > 1 ? args[1] : defaultGroupName,
+                args.length > 2 ? Integer.parseInt(args[2]) : 0,
+                args.length > 3 ? Integer.parseInt(args[3]) : 1);
+    }
+
+    /**
+     * Subscribe the instance to the topic filter according to the group mode
+     */
+    public void subscribe(IMqttClient mqttClient, String topicFilter, int qos, IMqttMessageListener messageListener) throws MqttException {
+        subscribe(mqttClient, new String[]{topicFilter}, qos, messageListener);
+    }
+
+    /**
+     * Subscribe the instance to a set of topic filters, all delivered to the same listener, according to the group mode
+     */
+    public void subscribe(IMqttClient mqttClient, String[] topicFilters, int qos, IMqttMessageListener messageListener) throws MqttException {
+
+        switch (this.mode){
+            case PARTITIONED:
+                IMqttMessageListener partitionListener = getPartitionListener(messageListener);
+                for(String topicFilter : topicFilters)
+                    mqttClient.subscribe(topicFilter, qos, partitionListener);
+                break;
+            default:
+                for(String topicFilter : topicFilters)
+                    mqttClient.subscribe(topicFilter, qos, messageListener);
+                break;
+        }
+    }
+
+    /**
+     * @return a listener forwarding only the messages of the vehicles of this instance partition
+     */
+    public IMqttMessageListener getPartitionListener(IMqttMessageListener messageListener){
+        return (topic, message) -> {
+            if(isOwnedTopic(topic))
+                messageListener.messageArrived(topic, message);
+            else
+                this.skippedMessageCounter.increment();
+        };
+    }
+
+    /**
+     * @return true if the vehicle of the topic is handled by this instance (always true if not PARTITIONED)
+     */
+    public boolean isOwnedTopic(String topic){
+        return this.mode != ConsumerGroupMode.PARTITIONED || getPartition(topic, this.instanceCount) == this.instanceIndex;
+    }
+
+    /**
+     * @return the partition in [0, partitionCount) of the topic vehicle
+     */
+    public static int getPartition(String topic, int partitionCount){
+
+        //Murmur3 finalizer, then multiply-high to select the partition from the high bits
+        int hash = OrderedLaneDispatcher.getVehicleHash(topic);
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+
+        return (int) (((hash & 0xFFFFFFFFL) * partitionCount) >>> 32);
+    }
+
+    /**
+     * @return the number of messages discarded because they belong to other partitions
+     */
+    public long getSkippedMessageCount() {
+        return this.skippedMessageCounter.sum();
+    }
+
+    public ConsumerGroupMode getMode() {
+        return mode;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public int getInstanceIndex() {
+        return instanceIndex;
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("ConsumerGroup{");
+        sb.append("mode=").append(mode);
+        sb.append(", groupName='").append(groupName).append('\'');
+        sb.append(", instanceIndex=").append(instanceIndex);
+        sb.append(", instanceCount=").append(instanceCount);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package it.unimore.dipi.iot.fleet.dispatch;
+
+/**
+ * How multiple instances of the same consumer share the fleet telemetry
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:17
+ */
+public enum ConsumerGroupMode {
+
+    //Every instance receives and processes all the messages
+    NONE,
+
+    //Every instance receives all the messages and only processes the vehicles of its own hash partition
+    PARTITIONED
+
+}
@@ -0,0 +1,439 @@
+package it.unimore.dipi.iot.fleet.dispatch;
+
+import it.unimore.dipi.iot.fleet.device.BackpressurePolicy;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.metrics.LatencyHistogram;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Dispatch stage moving the processing of the received messages out of the MQTT client callback thread.
+ *
+ * The dispatcher is the IMqttMessageListener of the subscription: each message is hashed on the vehicle id of its topic
+ * (e.g. fleet/vehicle/{vehicle_id}/telemetry/gps or fleet/geo/{geohash}/vehicle/{vehicle_id}/telemetry/gps, so a vehicle
+ * keeps its lane when it moves to another geo partition cell) to one of N lanes, each with a bounded ring buffer and a
+ * dedicated worker thread running the target listener. Messages of the same vehicle are therefore processed in order by
+ * a single thread while different vehicles are processed in parallel. When a lane is full the BackpressurePolicy is
+ * applied (BLOCK stalls the client receive loop, pushing back on the broker).
+ *
+ * Each lane counts processed and dropped messages, its queue depth (current and maximum) and its busy time
+ * (utilization). An optional LatencyHistogram records the queueing delay of each message (from the receive callback to
+ * the start of its processing).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:15
+ */
+public class OrderedLaneDispatcher implements IMqttMessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderedLaneDispatcher.class);
+
+    public static final int DEFAULT_LANE_CAPACITY = 1024;
+
+    private final IMqttMessageListener messageListener;
+
+    private final BackpressurePolicy backpressurePolicy;
+
+    //Queueing delay of the messages (null = not recorded)
+    private final LatencyHistogram queueDelayHistogram;
+
+    private final Lane[] lanes;
+
+    private final Thread[] laneThreads;
+
+    private volatile boolean isRunning;
+
+    public OrderedLaneDispatcher(String name, IMqttMessageListener messageListener) {
+        this(name, Runtime.getRuntime().availableProcessors(), DEFAULT_LANE_CAPACITY, BackpressurePolicy.BLOCK, messageListener);
+    }
+
+    /**
+     * @param name prefix of the lane thread names
+     * @param laneCount number of lanes (worker threads)
+     * @param laneCapacity maximum number of queued messages of each lane
+     * @param backpressurePolicy behaviour when a lane is full
+     * @param messageListener target listener, invoked by the lane threads
+     */
+    public OrderedLaneDispatcher(String name, int laneCount, int laneCapacity, BackpressurePolicy backpressurePolicy, IMqttMessageListener messageListener) {
+        this(name, laneCount, laneCapacity, backpressurePolicy, messageListener, null);
+    }
+
+    /**
+     * @param name prefix of the lane thread names
+     * @param laneCount number of lanes (worker threads)
+     * @param laneCapacity maximum number of queued messages of each lane
+     * @param backpressurePolicy behaviour when a lane is full
+     * @param messageListener target listener, invoked by the lane threads
+     * @param queueDelayHistogram histogram of the queueing delay of the messages (null = not recorded)
+     */
+    public OrderedLaneDispatcher(String name, int laneCount, int laneCapacity, BackpressurePolicy backpressurePolicy, IMqttMessageListener messageListener,
+                                 LatencyHistogram queueDelayHistogram) {
+
+        if(laneCount <= 0 || laneCapacity <= 0)
+            throw new IllegalArgumentException("Lane count and capacity must be > 0 !");
+
+        this.messageListener = messageListener;
+        this.backpressurePolicy = backpressurePolicy;
+        this.queueDelayHistogram = queueDelayHistogram;
+        this.lanes = new Lane[laneCount];
+        this.laneThreads = new Thread[laneCount];
+        this.isRunning = true;
+
+        for(int i = 0; i < laneCount; i++){
+            this.lanes[i] = new Lane(laneCapacity);
+            this.laneThreads[i] = new Thread(this.lanes[i]::run, String.format("%s-lane-%d", name, i));
+            this.laneThreads[i].setDaemon(true);
+            this.laneThreads[i].start();
+        }
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) throws Exception {
+
+        Lane lane = this.lanes[getLaneIndex(topic)];
+
+        if(!lane.offer(topic, message))
+            lane.droppedMessageCounter.increment();
+    }
+
+    /**
+     * Stop accepting messages and stop the lanes once the queued messages have been processed
+     */
+    public void shutdown(){
+
+        this.isRunning = false;
+
+        for(Lane lane : this.lanes)
+            lane.signalAll();
+    }
+
+    /**
+     * Wait for the lanes to process their queued messages and stop, after shutdown()
+     * @param timeoutMs maximum wait for all the lanes
+     * @return false if some lane is still running after the timeout
+     */
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+
+        for(Thread laneThread : this.laneThreads){
+
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+            if(remainingMs > 0)
+                laneThread.join(remainingMs);
+
+            if(laneThread.isAlive())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the lane of the topic vehicle
+     */
+    public int getLaneIndex(String topic){
+
+        int hash = getVehicleHash(topic);
+
+        //Spread the high bits (as HashMap) before the modulo
+        return Math.floorMod(hash ^ (hash >>> 16), this.lanes.length);
+    }
+
+    /**
+     * @param topic e.g. fleet/vehicle/{vehicle_id}/telemetry/gps or fleet/geo/{geohash}/vehicle/{vehicle_id}/telemetry/gps
+     * @return the hash of the vehicle id level of the topic (of the whole topic if it has no vehicle level)
+     */
+    public static int getVehicleHash(String topic){
+
+        int vehicleIdTopicLevel = GeoPartitionTopics.getVehicleIdTopicLevel(topic);
+        int hash = 0;
+        int level = 0;
+        boolean hasVehicleLevel = false;
+
+        for(int i = 0; i < topic.length(); i++){
+
+            char c = topic.charAt(i);
+
+            if(c == '/'){
+                if(++level > vehicleIdTopicLevel)
+                    break;
+            }
+            else if(level == vehicleIdTopicLevel){
+                hash = 31 * hash + c;
+                hasVehicleLevel = true;
+            }
+        }
+
+        return (hasVehicleLevel ? hash : topic.hashCode());
+    }
+
+    public int getLaneCount() {
+        return this.lanes.length;
+    }
+
+    public int getQueueDepth(int laneIndex){
+        return this.lanes[laneIndex].getSize();
+    }
+
+    public int getMaxQueueDepth(int laneIndex){
+        return this.lanes[laneIndex].maxSize;
+    }
+
+    public long getProcessedMessageCount(int laneIndex){
+        return this.lanes[laneIndex].processedMessageCounter.sum();
+    }
+
+    public long getDroppedMessageCount(int laneIndex){
+        return this.lanes[laneIndex].droppedMessageCounter.sum();
+    }
+
+    public long getQueueDepth(){
+        long queueDepth = 0;
+        for(Lane lane : this.lanes)
+            queueDepth += lane.getSize();
+        return queueDepth;
+    }
+
+    public long getProcessedMessageCount(){
+        long processedMessageCount = 0;
+        for(Lane lane : this.lanes)
+            processedMessageCount += lane.processedMessageCounter.sum();
+        return processedMessageCount;
+    }
+
+    public long getDroppedMessageCount(){
+        long droppedMessageCount = 0;
+        for(Lane lane : this.lanes)
+            droppedMessageCount += lane.droppedMessageCounter.sum();
+        return droppedMessageCount;
+    }
+
+    /**
+     * @return the fraction of time spent by the lane worker processing messages since the previous call (or since the start)
+     */
+    public double sampleUtilization(int laneIndex){
+        return this.lanes[laneIndex].sampleUtilization();
+    }
+
+    /**
+     * @return depth, maximum depth, processed and dropped messages and utilization (since the previous call) of each lane
+     */
+    public String getLaneStats(){
+
+        StringBuilder sb = new StringBuilder();
+
+        for(int i = 0; i < this.lanes.length; i++)
+            sb.append(String.format("[#%d depth=%d max=%d processed=%d dropped=%d utilization=%.1f%%] ",
+                    i,
+                    getQueueDepth(i),
+                    getMaxQueueDepth(i),
+                    getProcessedMessageCount(i),
+                    getDroppedMessageCount(i),
+                    sampleUtilization(i) * 100.0));
+
+        return sb.toString().trim();
+    }
+
+    /**
+     * Bounded ring buffer of (topic, message) entries drained by a dedicated worker
+     */
+    private class Lane {
+
+        private final String[] topics;
+
+        private final MqttMessage[] messages;
+
+        //Enqueue time (ns) of the messages, only if the queueing delay is recorded
+        private final long[] enqueueTimes;
+
+        private final ReentrantLock lock;
+
+        private final Condition notEmpty;
+
+        private final Condition notFull;
+
+        private final LongAdder processedMessageCounter;
+
+        private final LongAdder droppedMessageCounter;
+
+        private int head;
+
+        private int size;
+
+        private volatile int maxSize;
+
+        private volatile long busyNanos;
+
+        private long lastSampleBusyNanos;
+
+        private long lastSampleTimestamp;
+
+        private Lane(int capacity) {
+            this.topics = new String[capacity];
+            this.messages = new MqttMessage[capacity];
+            this.enqueueTimes = (queueDelayHistogram != null ? new long[capacity] : null);
+            this.lock = new ReentrantLock();
+            this.notEmpty = this.lock.newCondition();
+            this.notFull = this.lock.newCondition();
+            this.processedMessageCounter = new LongAdder();
+            this.droppedMessageCounter = new LongAdder();
+            this.lastSampleTimestamp = System.nanoTime();
+        }
+
+        /**
+         * @return false if a message has been dropped (the new one or the oldest queued one)
+         */
+        private boolean offer(String topic, MqttMessage message) throws InterruptedException {
+
+            this.lock.lock();
+
+            try{
+
+                boolean isDropped = false;
+
+                while(this.size == this.topics.length){
+
+                    if(!isRunning || backpressurePolicy == BackpressurePolicy.DROP_NEWEST)
+                        return false;
+
+                    if(backpressurePolicy == BackpressurePolicy.DROP_OLDEST){
+                        this.head = (this.head + 1) % this.topics.length;
+                        this.size--;
+                        isDropped = true;
+                    }
+                    else
+                        this.notFull.await();
+                }
+
+                if(!isRunning)
+                    return false;
+
+                int tail = (this.head + this.size) % this.topics.length;
+                this.topics[tail] = topic;
+                this.messages[tail] = message;
+                if(this.enqueueTimes != null)
+                    this.enqueueTimes[tail] = System.nanoTime();
+                this.size++;
+
+                if(this.size > this.maxSize)
+                    this.maxSize = this.size;
+
+                this.notEmpty.signal();
+
+                return !isDropped;
+
+            }finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void run(){
+
+            //Messages are moved out of the ring buffer in batches, processed without holding the lock
+            String[] topicBatch = new String[this.topics.length];
+            MqttMessage[] messageBatch = new MqttMessage[this.messages.length];
+            long[] enqueueTimeBatch = (this.enqueueTimes != null ? new long[this.enqueueTimes.length] : null);
+
+            while(true){
+
+                int batchSize;
+
+                this.lock.lock();
+
+                try{
+
+                    while(this.size == 0){
+
+                        if(!isRunning)
+                            return;
+
+                        this.notEmpty.await(1, TimeUnit.SECONDS);
+                    }
+
+                    batchSize = this.size;
+
+                    for(int i = 0; i < batchSize; i++){
+                        int index = (this.head + i) % this.topics.length;
+                        topicBatch[i] = this.topics[index];
+                        messageBatch[i] = this.messages[index];
+                        if(enqueueTimeBatch != null)
+                            enqueueTimeBatch[i] = this.enqueueTimes[index];
+                        this.topics[index] = null;
+                        this.messages[index] = null;
+                    }
+
+                    this.head = (this.head + batchSize) % this.topics.length;
+                    this.size = 0;
+                    this.notFull.signalAll();
+
+                }catch (InterruptedException e){
+                    Thread.currentThread().interrupt();
+                    return;
+                }finally {
+                    this.lock.unlock();
+                }
+
+                long startTime = System.nanoTime();
+
+                for(int i = 0; i < batchSize; i++){
+
+                    if(enqueueTimeBatch != null)
+                        queueDelayHistogram.record(System.nanoTime() - enqueueTimeBatch[i]);
+
+                    try{
+                        messageListener.messageArrived(topicBatch[i], messageBatch[i]);
+                    }catch (Exception e){
+                        logger.error("Error processing message on topic: {} ! Msg: {}", topicBatch[i], e.getLocalizedMessage());
+                    }
+
+                    topicBatch[i] = null;
+                    messageBatch[i] = null;
+                    this.processedMessageCounter.increment();
+                }
+
+                this.busyNanos += System.nanoTime() - startTime;
+            }
+        }
+
+        private int getSize(){
+            this.lock.lock();
+            try{
+                return this.size;
+            }finally {
+                this.lock.unlock();
+            }
+        }
+
+        private synchronized double sampleUtilization(){
+
+            long timestamp = System.nanoTime();
+            long busyNanos = this.busyNanos;
+            double utilization = (timestamp > this.lastSampleTimestamp) ?
+                    Math.min(1.0, (double) (busyNanos - this.lastSampleBusyNanos) / (timestamp - this.lastSampleTimestamp)) : 0.0;
+
+            this.lastSampleBusyNanos = busyNanos;
+            this.lastSampleTimestamp = timestamp;
+
+            return utilization;
+        }
+
+        private void signalAll(){
+            this.lock.lock();
+            try{
+                this.notEmpty.signalAll();
+                this.notFull.signalAll();
+            }finally {
+                this.lock.unlock();
+            }
+        }
+    }
+}
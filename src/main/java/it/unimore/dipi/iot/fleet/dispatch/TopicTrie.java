@@ -0,0 +1,195 @@
+package it.unimore.dipi.iot.fleet.dispatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trie of MQTT topic filters (one node for each topic level, with the single level wildcard + and the multi level
+ * wildcard # as special children) routing a topic to the values registered on all the matching filters.
+ *
+ * A match compares the topic levels in place (no split or substring of the topic, so it does not allocate) and only
+ * visits the branches that can match, so its cost depends on the topic length and not on the number of registered
+ * filters. As in MQTT, topics starting with $ are not matched by wildcards at the first level.
+ * Filters are registered at startup: the trie is not thread safe for writes, while concurrent matches are safe once
+ * the registration is complete.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public class TopicTrie<T> {
+
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+
+    private final Node<T> root;
+
+    private int filterCount;
+
+    public TopicTrie() {
+        this.root = new Node<>(null);
+        this.filterCount = 0;
+    }
+
+    /**
+     * @param topicFilter MQTT topic filter (e.g. fleet/vehicle/+/telemetry/gps or fleet/#)
+     * @param value value returned by the matches of the filter
+     */
+    public void add(String topicFilter, T value){
+
+        validateTopicFilter(topicFilter);
+
+        Node<T> node = this.root;
+
+        for(String level : topicFilter.split("/", -1)){
+            if(SINGLE_LEVEL_WILDCARD.equals(level))
+                node = (node.singleLevelChild != null ? node.singleLevelChild : (node.singleLevelChild = new Node<>(null)));
+            else if(MULTI_LEVEL_WILDCARD.equals(level))
+                node = (node.multiLevelChild != null ? node.multiLevelChild : (node.multiLevelChild = new Node<>(null)));
+            else
+                node = node.getOrAddChild(level);
+        }
+
+        if(!node.values.contains(value))
+            node.values.add(value);
+
+        this.filterCount++;
+    }
+
+    /**
+     * @param topic topic of a received message (without wildcards)
+     * @param resultList filled with the values of the matching filters, each value at most once
+     * @return the number of values added to resultList
+     */
+    public int match(String topic, List<T> resultList){
+        int size = resultList.size();
+        match(this.root, topic, 0, resultList);
+        return resultList.size() - size;
+    }
+
+    public List<T> match(String topic){
+        List<T> resultList = new ArrayList<>();
+        match(topic, resultList);
+        return resultList;
+    }
+
+    /**
+     * @return the number of registered filters
+     */
+    public int getFilterCount() {
+        return this.filterCount;
+    }
+
+    /**
+     * @param topicFilter
+     * @param otherTopicFilter
+     * @return true if every topic matching otherTopicFilter also matches topicFilter
+     */
+    public static boolean covers(String topicFilter, String otherTopicFilter){
+
+        String[] levels = topicFilter.split("/", -1);
+        String[] otherLevels = otherTopicFilter.split("/", -1);
+
+        for(int i = 0; i < levels.length; i++){
+
+            if(MULTI_LEVEL_WILDCARD.equals(levels[i]))
+                return true;
+
+            if(i >= otherLevels.length || MULTI_LEVEL_WILDCARD.equals(otherLevels[i]))
+                return false;
+
+            if(!SINGLE_LEVEL_WILDCARD.equals(levels[i]) && !levels[i].equals(otherLevels[i]))
+                return false;
+        }
+
+        return levels.length == otherLevels.length;
+    }
+
+    /**
+     * @param node node matching the levels before start
+     * @param start index of the first character of the current level in the topic (topic.length() + 1 once all the levels are matched)
+     */
+    private static <T> void match(Node<T> node, String topic, int start, List<T> resultList){
+
+        boolean isWildcardAllowed = (start > 0 || !topic.startsWith("$"));
+
+        //The multi level wildcard also matches the parent level (e.g. fleet/# matches fleet)
+        if(node.multiLevelChild != null && isWildcardAllowed)
+            addValues(node.multiLevelChild, resultList);
+
+        if(start > topic.length()){
+            addValues(node, resultList);
+            return;
+        }
+
+        int end = topic.indexOf('/', start);
+        if(end < 0)
+            end = topic.length();
+
+        if(node.singleLevelChild != null && isWildcardAllowed)
+            match(node.singleLevelChild, topic, end + 1, resultList);
+
+        //Nodes have a few literal children, scanned comparing the level on the topic
+        for(int i = 0; i < node.children.size(); i++){
+            Node<T> child = node.children.get(i);
+            if(child.level.length() == end - start && topic.regionMatches(start, child.level, 0, end - start)){
+                match(child, topic, end + 1, resultList);
+                break;
+            }
+        }
+    }
+
+    private static <T> void addValues(Node<T> node, List<T> resultList){
+        for(T value : node.values)
+            if(!resultList.contains(value))
+                resultList.add(value);
+    }
+
+    private static void validateTopicFilter(String topicFilter){
+
+        if(topicFilter == null || topicFilter.isEmpty())
+            throw new IllegalArgumentException("Empty topic filter !");
+
+        String[] levels = topicFilter.split("/", -1);
+
+        for(int i = 0; i < levels.length; i++){
+
+            boolean isWildcard = SINGLE_LEVEL_WILDCARD.equals(levels[i]) || MULTI_LEVEL_WILDCARD.equals(levels[i]);
+
+            if(!isWildcard && (levels[i].contains(SINGLE_LEVEL_WILDCARD) || levels[i].contains(MULTI_LEVEL_WILDCARD)))
+                throw new IllegalArgumentException("Invalid wildcard in topic filter: " + topicFilter + " !");
+
+            if(MULTI_LEVEL_WILDCARD.equals(levels[i]) && i != levels.length - 1)
+                throw new IllegalArgumentException("Multi level wildcard must be the last level of topic filter: " + topicFilter + " !");
+        }
+    }
+
+    private static class Node<T> {
+
+        private final String level;
+
+        private final List<Node<T>> children = new ArrayList<>(1);
+
+        private final List<T> values = new ArrayList<>(1);
+
+        private Node<T> singleLevelChild;
+
+        private Node<T> multiLevelChild;
+
+        private Node(String level) {
+            this.level = level;
+        }
+
+        private Node<T> getOrAddChild(String level){
+
+            for(Node<T> child : this.children)
+                if(child.level.equals(level))
+                    return child;
+
+            Node<T> child = new Node<>(level);
+            this.children.add(child);
+            return child;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package it.unimore.dipi.iot.fleet.geo;
+
+/**
+ * Distance units supported by the geodesy functions (all distances are computed in meters).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:11
+ */
+public enum DistanceUnit {
+
+    METERS(1.0),
+    KILOMETERS(1000.0),
+    MILES(1609.344),
+    NAUTICAL_MILES(1852.0);
+
+    private final double meters;
+
+    private DistanceUnit(double meters) {
+        this.meters = meters;
+    }
+
+    /**
+     * @return the length of one unit in meters
+     */
+    public double getMeters() {
+        return meters;
+    }
+
+    public double fromMeters(double distanceMeters){
+        return distanceMeters / this.meters;
+    }
+
+    public double toMeters(double distance){
+        return distance * this.meters;
+    }
+}
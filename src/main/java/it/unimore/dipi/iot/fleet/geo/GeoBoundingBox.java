@@ -0,0 +1,100 @@
+package it.unimore.dipi.iot.fleet.geo;
+
+/**
+ * Latitude/longitude box containing a circle on the earth surface, used as a cheap prefilter (two
+ * comparisons for each coordinate, no trigonometry) before computing exact distances.
+ * The longitude range can cross the antimeridian (minLongitude > maxLongitude) and covers all the
+ * longitudes when the circle contains a pole.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:11
+ */
+public class GeoBoundingBox {
+
+    private final double minLatitude;
+
+    private final double maxLatitude;
+
+    private final double minLongitude;
+
+    private final double maxLongitude;
+
+    private GeoBoundingBox(double minLatitude, double maxLatitude, double minLongitude, double maxLongitude) {
+        this.minLatitude = minLatitude;
+        this.maxLatitude = maxLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+    }
+
+    /**
+     * @param latitude center latitude (degrees)
+     * @param longitude center longitude (degrees)
+     * @param radiusMeters circle radius
+     * @return the smallest latitude/longitude box containing the circle
+     */
+    public static GeoBoundingBox around(double latitude, double longitude, double radiusMeters){
+
+        double angularRadius = radiusMeters / GeoDistance.EARTH_RADIUS_METERS;
+        double latitudeDelta = Math.toDegrees(angularRadius);
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+
+        //The circle contains a pole
+        if(minLatitude <= -90.0 || maxLatitude >= 90.0)
+            return new GeoBoundingBox(Math.max(-90.0, minLatitude), Math.min(90.0, maxLatitude), -180.0, 180.0);
+
+        //Widest longitude extent of the circle (tangent meridians)
+        double longitudeDelta = Math.toDegrees(Math.asin(Math.min(1.0, Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude)))));
+
+        if(longitudeDelta >= 180.0)
+            return new GeoBoundingBox(minLatitude, maxLatitude, -180.0, 180.0);
+
+        return new GeoBoundingBox(minLatitude, maxLatitude,
+                GeoDistance.normalizeLongitude(longitude - longitudeDelta),
+                GeoDistance.normalizeLongitude(longitude + longitudeDelta));
+    }
+
+    public boolean contains(double latitude, double longitude){
+
+        if(latitude < this.minLatitude || latitude > this.maxLatitude)
+            return false;
+
+        if(this.minLongitude <= this.maxLongitude)
+            return longitude >= this.minLongitude && longitude <= this.maxLongitude;
+
+        //Across the antimeridian
+        return longitude >= this.minLongitude || longitude <= this.maxLongitude;
+    }
+
+    public boolean isCrossingAntimeridian() {
+        return this.minLongitude > this.maxLongitude;
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("GeoBoundingBox{");
+        sb.append("minLatitude=").append(minLatitude);
+        sb.append(", maxLatitude=").append(maxLatitude);
+        sb.append(", minLongitude=").append(minLongitude);
+        sb.append(", maxLongitude=").append(maxLongitude);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,187 @@
+package it.unimore.dipi.iot.fleet.geo;
+
+/**
+ * Distance functions on a spherical earth (mean radius 6371 Km, the same model of GpsUtils).
+ *
+ * haversine() is the exact reference. equirectangular() projects the two points on a plane tangent at
+ * their mean latitude: it only needs one cosine (no trigonometry at all in the batch versions) and, within
+ * EQUIRECTANGULAR_MAX_DISTANCE_METERS and EQUIRECTANGULAR_MAX_LATITUDE, its relative error with respect
+ * to haversine is below EQUIRECTANGULAR_MAX_RELATIVE_ERROR (5 m at 50 Km; the measured maximum is 8.6e-5 at 50 Km,
+ * 3.6e-6 at 10 Km and 3.6e-8 at 1 Km, see GeoDistanceAccuracyCheck).
+ *
+ * Batch functions compare one point against arrays of candidate coordinates in plain indexed loops over
+ * primitive arrays (no objects, no calls), a shape the JIT can unroll and vectorize.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:11
+ */
+public final class GeoDistance {
+
+    public static final double EARTH_RADIUS_METERS = 6371000.0;
+
+    //Validity range of the equirectangular error bound
+    public static final double EQUIRECTANGULAR_MAX_DISTANCE_METERS = 50000.0;
+
+    public static final double EQUIRECTANGULAR_MAX_LATITUDE = 80.0;
+
+    public static final double EQUIRECTANGULAR_MAX_RELATIVE_ERROR = 1e-4;
+
+    private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+
+    private GeoDistance() {
+    }
+
+    /**
+     * @return the great circle distance in meters
+     */
+    public static double haversine(double latitude1, double longitude1, double latitude2, double longitude2){
+
+        double sinLatitude = Math.sin((latitude2 - latitude1) * DEGREES_TO_RADIANS * 0.5);
+        double sinLongitude = Math.sin((longitude2 - longitude1) * DEGREES_TO_RADIANS * 0.5);
+
+        double a = sinLatitude * sinLatitude +
+                Math.cos(latitude1 * DEGREES_TO_RADIANS) * Math.cos(latitude2 * DEGREES_TO_RADIANS) * sinLongitude * sinLongitude;
+
+        return 2.0 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.min(1.0, a)));
+    }
+
+    public static double haversine(double latitude1, double longitude1, double latitude2, double longitude2, DistanceUnit unit){
+        return unit.fromMeters(haversine(latitude1, longitude1, latitude2, longitude2));
+    }
+
+    /**
+     * Fast approximated distance in meters (see the class documentation for the error bound)
+     */
+    public static double equirectangular(double latitude1, double longitude1, double latitude2, double longitude2){
+
+        double x = getLongitudeDelta(longitude1, longitude2) * Math.cos((latitude1 + latitude2) * DEGREES_TO_RADIANS * 0.5);
+        double y = latitude2 - latitude1;
+
+        return Math.sqrt(x * x + y * y) * DEGREES_TO_RADIANS * EARTH_RADIUS_METERS;
+    }
+
+    public static double equirectangular(double latitude1, double longitude1, double latitude2, double longitude2, DistanceUnit unit){
+        return unit.fromMeters(equirectangular(latitude1, longitude1, latitude2, longitude2));
+    }
+
+    /**
+     * @return true if the equirectangular error bound holds for distances up to distanceMeters around the given latitude
+     */
+    public static boolean isEquirectangularAccurate(double latitude, double distanceMeters){
+        return distanceMeters <= EQUIRECTANGULAR_MAX_DISTANCE_METERS &&
+                Math.abs(latitude) + Math.toDegrees(distanceMeters / EARTH_RADIUS_METERS) <= EQUIRECTANGULAR_MAX_LATITUDE;
+    }
+
+    /**
+     * Haversine distance (meters) between a point and the first count candidates
+     */
+    public static void haversine(double latitude, double longitude, double[] latitudes, double[] longitudes, int count, double[] distances){
+
+        double cosLatitude = Math.cos(latitude * DEGREES_TO_RADIANS);
+
+        for(int i = 0; i < count; i++){
+
+            double sinLatitude = Math.sin((latitudes[i] - latitude) * DEGREES_TO_RADIANS * 0.5);
+            double sinLongitude = Math.sin((longitudes[i] - longitude) * DEGREES_TO_RADIANS * 0.5);
+            double a = sinLatitude * sinLatitude + cosLatitude * Math.cos(latitudes[i] * DEGREES_TO_RADIANS) * sinLongitude * sinLongitude;
+
+            distances[i] = 2.0 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.min(1.0, a)));
+        }
+    }
+
+    /**
+     * Equirectangular distance (meters) between a point and the first count candidates.
+     * The cosine of the mean latitude is expanded around the point latitude, so the loop has no trigonometry.
+     */
+    public static void equirectangular(double latitude, double longitude, double[] latitudes, double[] longitudes, int count, double[] distances){
+
+        double cosLatitude = Math.cos(latitude * DEGREES_TO_RADIANS);
+        double sinLatitude = Math.sin(latitude * DEGREES_TO_RADIANS);
+        double scale = DEGREES_TO_RADIANS * EARTH_RADIUS_METERS;
+
+        for(int i = 0; i < count; i++){
+
+            double y = latitudes[i] - latitude;
+            double x = getLongitudeDelta(longitude, longitudes[i]) * getMeanLatitudeCosine(cosLatitude, sinLatitude, y);
+
+            distances[i] = Math.sqrt(x * x + y * y) * scale;
+        }
+    }
+
+    /**
+     * Select the candidates within radiusMeters from the point: the equirectangular distance decides for the
+     * candidates clearly inside or outside the circle and haversine is only computed for the ones whose distance is
+     * within the error bound from the radius (or for all of them when the bound does not hold).
+     *
+     * @param indices output array (at least count elements) filled with the indices of the selected candidates
+     * @return the number of selected candidates
+     */
+    public static int withinRadius(double latitude, double longitude, double[] latitudes, double[] longitudes, int count,
+                                   double radiusMeters, int[] indices){
+
+        int selectedCount = 0;
+
+        if(!isEquirectangularAccurate(latitude, radiusMeters)){
+
+            for(int i = 0; i < count; i++)
+                if(haversine(latitude, longitude, latitudes[i], longitudes[i]) <= radiusMeters)
+                    indices[selectedCount++] = i;
+
+            return selectedCount;
+        }
+
+        double cosLatitude = Math.cos(latitude * DEGREES_TO_RADIANS);
+        double sinLatitude = Math.sin(latitude * DEGREES_TO_RADIANS);
+
+        //Squared radius bounds in degrees (no square root in the loop)
+        double radiusDegrees = radiusMeters / (DEGREES_TO_RADIANS * EARTH_RADIUS_METERS);
+        double innerRadius = radiusDegrees * (1.0 - EQUIRECTANGULAR_MAX_RELATIVE_ERROR);
+        double outerRadius = radiusDegrees * (1.0 + EQUIRECTANGULAR_MAX_RELATIVE_ERROR);
+        double innerRadiusSquared = innerRadius * innerRadius;
+        double outerRadiusSquared = outerRadius * outerRadius;
+
+        for(int i = 0; i < count; i++){
+
+            double y = latitudes[i] - latitude;
+            double x = getLongitudeDelta(longitude, longitudes[i]) * getMeanLatitudeCosine(cosLatitude, sinLatitude, y);
+            double distanceSquared = x * x + y * y;
+
+            if(distanceSquared <= innerRadiusSquared ||
+                    (distanceSquared <= outerRadiusSquared && haversine(latitude, longitude, latitudes[i], longitudes[i]) <= radiusMeters))
+                indices[selectedCount++] = i;
+        }
+
+        return selectedCount;
+    }
+
+    /**
+     * @return the longitude in [-180, 180)
+     */
+    public static double normalizeLongitude(double longitude){
+        return longitude - 360.0 * Math.floor((longitude + 180.0) / 360.0);
+    }
+
+    /**
+     * @return the signed difference otherLongitude - longitude in [-180, 180] (across the antimeridian)
+     */
+    private static double getLongitudeDelta(double longitude, double otherLongitude){
+
+        double delta = otherLongitude - longitude;
+
+        if(delta > 180.0)
+            delta -= 360.0;
+        else if(delta < -180.0)
+            delta += 360.0;
+
+        return delta;
+    }
+
+    /**
+     * Second order expansion of cos(latitude + latitudeDelta / 2)
+     */
+    private static double getMeanLatitudeCosine(double cosLatitude, double sinLatitude, double latitudeDelta){
+        double h = latitudeDelta * DEGREES_TO_RADIANS * 0.5;
+        return cosLatitude * (1.0 - 0.5 * h * h) - sinLatitude * h;
+    }
+}
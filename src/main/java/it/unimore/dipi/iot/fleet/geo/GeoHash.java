@@ -0,0 +1,157 @@
+package it.unimore.dipi.iot.fleet.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash cells (base32 strings of precision characters, 5 bits each) used to build area topics.
+ *
+ * Bits alternate longitude and latitude halvings starting from the longitude, so a cell of precision p spans
+ * 360 / 2^ceil(5p/2) degrees of longitude and 180 / 2^floor(5p/2) degrees of latitude (precision 5: about
+ * 4.9 x 4.9 km, precision 6: about 1.2 x 0.6 km). Cells are also handled as interleaved bits (encodeBits), so a
+ * position can be checked against the current cell without building a string.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:43
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+
+    //Maximum number of cells returned by a coverage (larger areas need a lower precision)
+    public static final int MAX_COVER_CELLS = 4096;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private GeoHash() {
+    }
+
+    /**
+     * @return the geohash of the cell containing the position
+     */
+    public static String encode(double latitude, double longitude, int precision){
+        return toBase32(encodeBits(latitude, longitude, precision), precision);
+    }
+
+    /**
+     * @return the 5 * precision interleaved bits of the cell containing the position
+     */
+    public static long encodeBits(double latitude, double longitude, int precision){
+
+        checkPrecision(precision);
+
+        double minLatitude = -90.0, maxLatitude = 90.0;
+        double minLongitude = -180.0, maxLongitude = 180.0;
+        long bits = 0;
+
+        for(int i = 0; i < precision * 5; i++){
+
+            bits <<= 1;
+
+            if((i & 1) == 0){
+                double middle = (minLongitude + maxLongitude) / 2;
+                if(longitude >= middle){
+                    bits |= 1;
+                    minLongitude = middle;
+                }
+                else
+                    maxLongitude = middle;
+            }
+            else {
+                double middle = (minLatitude + maxLatitude) / 2;
+                if(latitude >= middle){
+                    bits |= 1;
+                    minLatitude = middle;
+                }
+                else
+                    maxLatitude = middle;
+            }
+        }
+
+        return bits;
+    }
+
+    public static String toBase32(long bits, int precision){
+
+        checkPrecision(precision);
+
+        char[] geohash = new char[precision];
+
+        for(int i = precision - 1; i >= 0; i--){
+            geohash[i] = BASE32[(int) (bits & 0x1F)];
+            bits >>>= 5;
+        }
+
+        return new String(geohash);
+    }
+
+    /**
+     * @return the latitude span of a cell (degrees)
+     */
+    public static double getCellLatitudeSize(int precision){
+        checkPrecision(precision);
+        return 180.0 / (1L << (precision * 5 / 2));
+    }
+
+    /**
+     * @return the longitude span of a cell (degrees)
+     */
+    public static double getCellLongitudeSize(int precision){
+        checkPrecision(precision);
+        return 360.0 / (1L << ((precision * 5 + 1) / 2));
+    }
+
+    /**
+     * @return the geohashes of the cells intersecting the circle
+     * @throws IllegalArgumentException if the circle needs more than MAX_COVER_CELLS cells
+     */
+    public static List<String> coverCircle(double latitude, double longitude, double radiusMeters, int precision){
+
+        GeoBoundingBox boundingBox = GeoBoundingBox.around(latitude, longitude, radiusMeters);
+
+        double cellLatitudeSize = getCellLatitudeSize(precision);
+        double cellLongitudeSize = getCellLongitudeSize(precision);
+        int longitudeCells = (int) Math.round(360.0 / cellLongitudeSize);
+
+        int minRow = (int) Math.floor((boundingBox.getMinLatitude() + 90.0) / cellLatitudeSize);
+        int maxRow = Math.min((int) Math.floor((boundingBox.getMaxLatitude() + 90.0) / cellLatitudeSize), (int) Math.round(180.0 / cellLatitudeSize) - 1);
+        int minColumn = (int) Math.floor((boundingBox.getMinLongitude() + 180.0) / cellLongitudeSize);
+        int maxColumn = Math.min((int) Math.floor((boundingBox.getMaxLongitude() + 180.0) / cellLongitudeSize), longitudeCells - 1);
+
+        //Across the antimeridian the columns continue from the first one
+        if(boundingBox.isCrossingAntimeridian())
+            maxColumn += longitudeCells;
+
+        if((long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1) > MAX_COVER_CELLS)
+            throw new IllegalArgumentException(String.format("Radius %.0f m needs too many cells of precision %d !", radiusMeters, precision));
+
+        List<String> cellList = new ArrayList<>();
+
+        for(int row = minRow; row <= maxRow; row++){
+
+            double cellMinLatitude = -90.0 + row * cellLatitudeSize;
+            double nearestLatitude = Math.max(cellMinLatitude, Math.min(cellMinLatitude + cellLatitudeSize, latitude));
+
+            for(int column = minColumn; column <= maxColumn; column++){
+
+                double cellCenterLongitude = -180.0 + ((column % longitudeCells) + 0.5) * cellLongitudeSize;
+
+                //Nearest longitude of the cell to the center of the circle
+                double longitudeDelta = GeoDistance.normalizeLongitude(longitude - cellCenterLongitude);
+                double nearestLongitude = (Math.abs(longitudeDelta) <= cellLongitudeSize / 2 ? longitude :
+                        cellCenterLongitude + Math.copySign(cellLongitudeSize / 2, longitudeDelta));
+
+                if(GeoDistance.haversine(latitude, longitude, nearestLatitude, nearestLongitude) <= radiusMeters)
+                    cellList.add(encode(cellMinLatitude + cellLatitudeSize / 2, cellCenterLongitude, precision));
+            }
+        }
+
+        return cellList;
+    }
+
+    private static void checkPrecision(int precision){
+        if(precision <= 0 || precision > MAX_PRECISION)
+            throw new IllegalArgumentException(String.format("Geohash precision must be in [1, %d] !", MAX_PRECISION));
+    }
+}
@@ -0,0 +1,96 @@
+package it.unimore.dipi.iot.fleet.geo;
+
+/**
+ * Geo-partitioned telemetry topics: fleet/geo/<geohash>/vehicle/<vehicle_id>/telemetry/<resource>.
+ *
+ * The geohash of the current cell of the vehicle prefixes the standard layout (fleet/vehicle/<vehicle_id>/...), so a
+ * consumer can subscribe to the cells of its region (fleet/geo/<geohash>/vehicle/+/telemetry/gps) and receive only
+ * the telemetry of the vehicles driving there, while fleet/geo/+/vehicle/+/telemetry/gps still matches the whole fleet.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:48
+ */
+public final class GeoPartitionTopics {
+
+    public static final String GEO_TOPIC = "fleet/geo";
+
+    private static final String GEO_TOPIC_PREFIX = GEO_TOPIC + "/";
+
+    private static final String VEHICLE_TOPIC = "vehicle";
+
+    private static final String TELEMETRY_TOPIC = "telemetry";
+
+    //Topic level of the vehicle id (fleet/vehicle/<vehicle_id> and fleet/geo/<geohash>/vehicle/<vehicle_id>)
+    private static final int VEHICLE_ID_TOPIC_LEVEL = 2;
+
+    private static final int GEO_VEHICLE_ID_TOPIC_LEVEL = 4;
+
+    //Topic level of the geohash
+    private static final int GEOHASH_TOPIC_LEVEL = 2;
+
+    private GeoPartitionTopics() {
+    }
+
+    /**
+     * @return e.g. fleet/geo/u0p2/vehicle/fa18f676-8198-4e9f-90e0-c50a5e419b94/telemetry/gps
+     */
+    public static String getTelemetryTopic(String geohash, String vehicleId, String resourceKey){
+        return String.format("%s/%s/%s/%s/%s/%s", GEO_TOPIC, geohash, VEHICLE_TOPIC, vehicleId, TELEMETRY_TOPIC, resourceKey);
+    }
+
+    /**
+     * @param geohash the cell, or + for all the cells
+     * @return e.g. fleet/geo/u0p2/vehicle/+/telemetry/gps
+     */
+    public static String getTelemetryTopicFilter(String geohash, String resourceKey){
+        return String.format("%s/%s/%s/+/%s/%s", GEO_TOPIC, geohash, VEHICLE_TOPIC, TELEMETRY_TOPIC, resourceKey);
+    }
+
+    public static boolean isGeoTopic(String topic){
+        return topic.startsWith(GEO_TOPIC_PREFIX);
+    }
+
+    /**
+     * @return the topic level of the vehicle id in the standard or geo-partitioned layout
+     */
+    public static int getVehicleIdTopicLevel(String topic){
+        return (isGeoTopic(topic) ? GEO_VEHICLE_ID_TOPIC_LEVEL : VEHICLE_ID_TOPIC_LEVEL);
+    }
+    /**
+     * @return the topic without the geo partition levels (e.g. vehicle/<vehicle_id>/telemetry/gps), the same for every
+     * cell the vehicle drives through. The other topics are returned unchanged
+     */
+    public static String getVehicleTopic(String topic){
+
+        if(!isGeoTopic(topic))
+            return topic;
+
+        int start = topic.indexOf('/', GEO_TOPIC_PREFIX.length());
+        return (start < 0 ? topic : topic.substring(start + 1));
+    }
+
+    /**
+     * @return the geohash of a geo-partitioned topic (null for the other topics)
+     */
+    public static String getGeohash(String topic){
+        return (isGeoTopic(topic) ? getTopicLevel(topic, GEOHASH_TOPIC_LEVEL) : null);
+    }
+
+    /**
+     * @return the level (0 based) of the topic, or null if the topic has fewer levels
+     */
+    public static String getTopicLevel(String topic, int level){
+
+        int start = 0;
+
+        for(int i = 0; i < level; i++){
+            start = topic.indexOf('/', start) + 1;
+            if(start == 0)
+                return null;
+        }
+
+        int end = topic.indexOf('/', start);
+        return (end < 0 ? topic.substring(start) : topic.substring(start, end));
+    }
+}
@@ -0,0 +1,262 @@
+package it.unimore.dipi.iot.fleet.index;
+
+import it.unimore.dipi.iot.fleet.geo.GeoBoundingBox;
+import it.unimore.dipi.iot.fleet.geo.GeoDistance;
+import it.unimore.dipi.iot.fleet.model.TrafficEventDescriptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TrafficEventIndex based on a uniform latitude/longitude grid.
+ *
+ * Events are stored in the cell containing their position. A radius query only visits the cells
+ * overlapping the bounding box of the circle and selects their events through the GeoDistance batch kernel
+ * (exact with respect to haversine), so its cost depends on the local event density and not on the total number of events.
+ * Cells are small immutable snapshots (events and their coordinates in primitive arrays, scanned
+ * sequentially by queries) replaced atomically through ConcurrentHashMap.compute, so inserts, removals and
+ * queries can run concurrently and queries never block.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:08
+ */
+public class GridTrafficEventIndex implements TrafficEventIndex {
+
+    //About 5.5 Km of latitude
+    public static final double DEFAULT_CELL_SIZE_DEGREES = 0.05;
+
+    //Per-thread output buffer of the distance kernel
+    private static final ThreadLocal<int[]> indexBuffer = ThreadLocal.withInitial(() -> new int[64]);
+
+    private final double cellSizeDegrees;
+
+    private final int latitudeCellCount;
+
+    private final int longitudeCellCount;
+
+    private final Map<Long, Cell> cellMap;
+
+    //Cell of each event at insertion time (event coordinates are mutable)
+    private final Map<TrafficEventDescriptor, Long> eventCellMap;
+
+    public GridTrafficEventIndex() {
+        this(DEFAULT_CELL_SIZE_DEGREES);
+    }
+
+    /**
+     * @param cellSizeDegrees size of the grid cells, ideally close to the typical query radius
+     */
+    public GridTrafficEventIndex(double cellSizeDegrees) {
+
+        if(cellSizeDegrees <= 0.0 || cellSizeDegrees > 90.0)
+            throw new IllegalArgumentException("Cell size must be in (0, 90] degrees !");
+
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.latitudeCellCount = (int) Math.ceil(180.0 / cellSizeDegrees);
+        this.longitudeCellCount = (int) Math.ceil(360.0 / cellSizeDegrees);
+        this.cellMap = new ConcurrentHashMap<>();
+        this.eventCellMap = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public void insert(TrafficEventDescriptor trafficEventDescriptor) {
+
+        long cellKey = getCellKey(getLatitudeCell(trafficEventDescriptor.getLatitude()), getLongitudeCell(trafficEventDescriptor.getLongitude()));
+
+        //Cell updates of the same event are serialized by the compute on its entry.
+        //A re-inserted event is moved to its current cell (or updated in place if the cell is the same)
+        this.eventCellMap.compute(trafficEventDescriptor, (event, previousCellKey) -> {
+
+            if(previousCellKey != null && previousCellKey != cellKey)
+                removeFromCell(previousCellKey, event);
+
+            this.cellMap.compute(cellKey, (key, cell) -> (cell == null ? new Cell(event) : cell.put(event)));
+
+            return cellKey;
+        });
+    }
+
+    @Override
+    public boolean remove(TrafficEventDescriptor trafficEventDescriptor) {
+
+        boolean[] isRemoved = {false};
+
+        this.eventCellMap.computeIfPresent(trafficEventDescriptor, (event, cellKey) -> {
+            removeFromCell(cellKey, event);
+            isRemoved[0] = true;
+            return null;
+        });
+
+        return isRemoved[0];
+    }
+
+    @Override
+    public List<TrafficEventDescriptor> query(double latitude, double longitude, double radiusKm) {
+
+        List<TrafficEventDescriptor> resultList = new ArrayList<>();
+        double radiusMeters = radiusKm * 1000.0;
+
+        //Only the cells overlapping the bounding box of the circle are visited
+        GeoBoundingBox boundingBox = GeoBoundingBox.around(latitude, longitude, radiusMeters);
+
+        int minLatitudeCell = getLatitudeCell(boundingBox.getMinLatitude());
+        int maxLatitudeCell = getLatitudeCell(boundingBox.getMaxLatitude());
+
+        //Longitude cells wrap around the antimeridian
+        int firstLongitudeCell = getLongitudeCell(boundingBox.getMinLongitude());
+        int longitudeCellSpan = (boundingBox.getMinLongitude() == -180.0 && boundingBox.getMaxLongitude() == 180.0) ?
+                this.longitudeCellCount :
+                Math.floorMod(getLongitudeCell(boundingBox.getMaxLongitude()) - firstLongitudeCell, this.longitudeCellCount) + 1;
+
+        int[] indices = null;
+
+        for(int latitudeCell = minLatitudeCell; latitudeCell <= maxLatitudeCell; latitudeCell++)
+            for(int i = 0; i < longitudeCellSpan; i++){
+
+                Cell cell = this.cellMap.get(getCellKey(latitudeCell, (firstLongitudeCell + i) % this.longitudeCellCount));
+
+                if(cell == null)
+                    continue;
+
+                if(indices == null || indices.length < cell.events.length)
+                    indices = getIndexBuffer(cell.events.length);
+
+                int count = GeoDistance.withinRadius(latitude, longitude, cell.latitudes, cell.longitudes, cell.events.length, radiusMeters, indices);
+
+                for(int e = 0; e < count; e++)
+                    resultList.add(cell.events[indices[e]]);
+            }
+
+        return resultList;
+    }
+
+    @Override
+    public int size() {
+        return this.eventCellMap.size();
+    }
+
+    /**
+     * @return the number of non empty cells
+     */
+    public int getCellCount() {
+        return this.cellMap.size();
+    }
+
+    private void removeFromCell(long cellKey, TrafficEventDescriptor trafficEventDescriptor){
+        this.cellMap.computeIfPresent(cellKey, (key, cell) -> cell.remove(trafficEventDescriptor));
+    }
+
+    private static int[] getIndexBuffer(int size){
+
+        int[] indices = indexBuffer.get();
+
+        if(indices.length < size){
+            indices = new int[Math.max(size, indices.length * 2)];
+            indexBuffer.set(indices);
+        }
+
+        return indices;
+    }
+
+    private int getLatitudeCell(double latitude){
+        return Math.min(this.latitudeCellCount - 1, Math.max(0, (int) Math.floor((latitude + 90.0) / this.cellSizeDegrees)));
+    }
+
+    private int getLongitudeCell(double longitude){
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / this.cellSizeDegrees), this.longitudeCellCount);
+    }
+
+    private long getCellKey(int latitudeCell, int longitudeCell){
+        return (long) latitudeCell * this.longitudeCellCount + longitudeCell;
+    }
+
+    /**
+     * Immutable content of a grid cell. Coordinates are the ones of the events at insertion time
+     */
+    private static class Cell {
+
+        private final TrafficEventDescriptor[] events;
+
+        private final double[] latitudes;
+
+        private final double[] longitudes;
+
+        private Cell(TrafficEventDescriptor trafficEventDescriptor) {
+            this(new TrafficEventDescriptor[]{trafficEventDescriptor},
+                    new double[]{trafficEventDescriptor.getLatitude()},
+                    new double[]{trafficEventDescriptor.getLongitude()});
+        }
+
+        private Cell(TrafficEventDescriptor[] events, double[] latitudes, double[] longitudes) {
+            this.events = events;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+        }
+
+        /**
+         * @return the cell with the event added, or with its coordinates updated if the event is already in the cell
+         */
+        private Cell put(TrafficEventDescriptor trafficEventDescriptor){
+
+            int index = indexOf(trafficEventDescriptor);
+            int size = this.events.length;
+            Cell cell;
+
+            if(index >= 0)
+                cell = new Cell(this.events, Arrays.copyOf(this.latitudes, size), Arrays.copyOf(this.longitudes, size));
+            else {
+                cell = new Cell(Arrays.copyOf(this.events, size + 1), Arrays.copyOf(this.latitudes, size + 1), Arrays.copyOf(this.longitudes, size + 1));
+                index = size;
+                cell.events[index] = trafficEventDescriptor;
+            }
+
+            cell.latitudes[index] = trafficEventDescriptor.getLatitude();
+            cell.longitudes[index] = trafficEventDescriptor.getLongitude();
+
+            return cell;
+        }
+
+        private int indexOf(TrafficEventDescriptor trafficEventDescriptor){
+
+            for(int i = 0; i < this.events.length; i++)
+                if(this.events[i] == trafficEventDescriptor)
+                    return i;
+
+            return -1;
+        }
+
+        /**
+         * @return the cell without the event or null if the cell is empty
+         */
+        private Cell remove(TrafficEventDescriptor trafficEventDescriptor){
+
+            int index = indexOf(trafficEventDescriptor);
+
+            if(index < 0)
+                return this;
+
+            if(this.events.length == 1)
+                return null;
+
+            int size = this.events.length - 1;
+            Cell cell = new Cell(new TrafficEventDescriptor[size], new double[size], new double[size]);
+
+            //Move the last element in place of the removed one
+            System.arraycopy(this.events, 0, cell.events, 0, size);
+            System.arraycopy(this.latitudes, 0, cell.latitudes, 0, size);
+            System.arraycopy(this.longitudes, 0, cell.longitudes, 0, size);
+
+            if(index < size){
+                cell.events[index] = this.events[size];
+                cell.latitudes[index] = this.latitudes[size];
+                cell.longitudes[index] = this.longitudes[size];
+            }
+
+            return cell;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package it.unimore.dipi.iot.fleet.index;
+
+import it.unimore.dipi.iot.fleet.model.TrafficEventDescriptor;
+import it.unimore.dipi.iot.fleet.geo.GeoDistance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reference TrafficEventIndex checking the distance of every event (O(events) for each query)
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:08
+ */
+public class LinearTrafficEventIndex implements TrafficEventIndex {
+
+    private final Set<TrafficEventDescriptor> eventSet;
+
+    public LinearTrafficEventIndex() {
+        this.eventSet = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public void insert(TrafficEventDescriptor trafficEventDescriptor) {
+        this.eventSet.add(trafficEventDescriptor);
+    }
+
+    @Override
+    public boolean remove(TrafficEventDescriptor trafficEventDescriptor) {
+        return this.eventSet.remove(trafficEventDescriptor);
+    }
+
+    @Override
+    public List<TrafficEventDescriptor> query(double latitude, double longitude, double radiusKm) {
+
+        List<TrafficEventDescriptor> resultList = new ArrayList<>();
+        double radiusMeters = radiusKm * 1000.0;
+
+        for(TrafficEventDescriptor trafficEventDescriptor : this.eventSet)
+            if(GeoDistance.haversine(latitude, longitude, trafficEventDescriptor.getLatitude(), trafficEventDescriptor.getLongitude()) <= radiusMeters)
+                resultList.add(trafficEventDescriptor);
+
+        return resultList;
+    }
+
+    @Override
+    public int size() {
+        return this.eventSet.size();
+    }
+}
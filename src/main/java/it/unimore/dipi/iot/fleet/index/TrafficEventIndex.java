@@ -0,0 +1,35 @@
+package it.unimore.dipi.iot.fleet.index;
+
+import it.unimore.dipi.iot.fleet.model.TrafficEventDescriptor;
+
+import java.util.List;
+
+/**
+ * Geospatial index of the active traffic events. Implementations must support concurrent
+ * inserts, removals and queries.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:08
+ */
+public interface TrafficEventIndex {
+
+    public void insert(TrafficEventDescriptor trafficEventDescriptor);
+
+    /**
+     * @param trafficEventDescriptor the same instance previously inserted
+     * @return true if the event was in the index
+     */
+    public boolean remove(TrafficEventDescriptor trafficEventDescriptor);
+
+    /**
+     * @param latitude
+     * @param longitude
+     * @param radiusKm
+     * @return the events within radiusKm from the given position
+     */
+    public List<TrafficEventDescriptor> query(double latitude, double longitude, double radiusKm);
+
+    public int size();
+
+}
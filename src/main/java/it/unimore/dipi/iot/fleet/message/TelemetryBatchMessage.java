@@ -0,0 +1,72 @@
+package it.unimore.dipi.iot.fleet.message;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Envelope collecting multiple TelemetryMessage of the same vehicle resource
+ * in order to publish them through a single MQTT message
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:42
+ */
+public class TelemetryBatchMessage<T> {
+
+    public static final String BATCH_MESSAGE_TYPE = "telemetry_batch";
+
+    public static final String MESSAGES_FIELD = "messages";
+
+    @JsonProperty("timestamp")
+    private long timestamp;
+
+    @JsonProperty("type")
+    private String type;
+
+    @JsonProperty(MESSAGES_FIELD)
+    private List<TelemetryMessage<T>> messageList;
+
+    public TelemetryBatchMessage() {
+    }
+
+    public TelemetryBatchMessage(List<TelemetryMessage<T>> messageList) {
+        this.timestamp = System.currentTimeMillis();
+        this.type = BATCH_MESSAGE_TYPE;
+        this.messageList = messageList;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public List<TelemetryMessage<T>> getMessageList() {
+        return messageList;
+    }
+
+    public void setMessageList(List<TelemetryMessage<T>> messageList) {
+        this.messageList = messageList;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("TelemetryBatchMessage{");
+        sb.append("timestamp=").append(timestamp);
+        sb.append(", type='").append(type).append('\'');
+        sb.append(", messageList=").append(messageList);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -1,5 +1,6 @@
 package it.unimore.dipi.iot.fleet.message;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /**
@@ -9,9 +10,17 @@ import com.fasterxml.jackson.annotation.JsonProperty;
  */
 public class TelemetryMessage<T> {
 
+    //Messages without a sequence number (sequence numbers of a vehicle resource start from 1)
+    public static final long NO_SEQUENCE_NUMBER = 0;
+
     @JsonProperty("timestamp")
     private long timestamp;
 
+    //Per vehicle resource sequence number, omitted if not available
+    @JsonProperty("seq")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private long sequenceNumber;
+
     @JsonProperty("type")
     private String type;
 
@@ -41,6 +50,14 @@ public class TelemetryMessage<T> {
         this.timestamp = timestamp;
     }
 
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
+    public void setSequenceNumber(long sequenceNumber) {
+        this.sequenceNumber = sequenceNumber;
+    }
+
     public String getType() {
         return type;
     }
@@ -61,6 +78,7 @@ public class TelemetryMessage<T> {
     public String toString() {
         final StringBuffer sb = new StringBuffer("TelemetryMessage{");
         sb.append("timestamp=").append(timestamp);
+        sb.append(", sequenceNumber=").append(sequenceNumber);
         sb.append(", type='").append(type).append('\'');
         sb.append(", dataValue=").append(dataValue);
         sb.append('}');
@@ -0,0 +1,99 @@
+package it.unimore.dipi.iot.fleet.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * MetricsReporter appending a row for each metric to a CSV file at each report:
+ * timestamp,metric,type,count,rate,mean_us,p50_us,p90_us,p99_us,p999_us,max_us
+ *
+ * Counter rows report the total count and the rate of the interval, histogram rows the values recorded in the interval
+ * (count, mean, percentiles and max in microseconds). The header is written when the file is created, an existing
+ * file is appended.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public class CsvMetricsReporter extends MetricsReporter implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvMetricsReporter.class);
+
+    private static final String HEADER = "timestamp,metric,type,count,rate,mean_us,p50_us,p90_us,p99_us,p999_us,max_us";
+
+    private final BufferedWriter writer;
+
+    private long timestamp;
+
+    public CsvMetricsReporter(MetricsRegistry metricsRegistry, File csvFile) throws IOException {
+
+        super(metricsRegistry);
+
+        boolean isNewFile = !csvFile.exists() || csvFile.length() == 0;
+
+        this.writer = new BufferedWriter(new FileWriter(csvFile, true));
+
+        if(isNewFile){
+            this.writer.write(HEADER);
+            this.writer.newLine();
+            this.writer.flush();
+        }
+    }
+
+    @Override
+    protected void startReport(long timestamp, double intervalSeconds) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    protected void reportCounter(String name, long count, double rate) {
+        writeRow(String.format("%d,%s,counter,%d,%.2f,,,,,,", this.timestamp, name, count, rate));
+    }
+
+    @Override
+    protected void reportHistogram(String name, HistogramSnapshot intervalSnapshot, HistogramSnapshot totalSnapshot) {
+        writeRow(String.format("%d,%s,histogram,%d,,%s,%s,%s,%s,%s,%s",
+                this.timestamp,
+                name,
+                intervalSnapshot.getCount(),
+                toMicros(intervalSnapshot.getMean()),
+                toMicros(intervalSnapshot.getValueAtPercentile(50.0)),
+                toMicros(intervalSnapshot.getValueAtPercentile(90.0)),
+                toMicros(intervalSnapshot.getValueAtPercentile(99.0)),
+                toMicros(intervalSnapshot.getValueAtPercentile(99.9)),
+                toMicros(intervalSnapshot.getMax())));
+    }
+
+    @Override
+    protected void endReport() {
+        try{
+            this.writer.flush();
+        }catch (IOException e){
+            logger.error("Error writing the metrics CSV file ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private void writeRow(String row){
+        try{
+            this.writer.write(row);
+            this.writer.newLine();
+        }catch (IOException e){
+            logger.error("Error writing the metrics CSV file ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try{
+            this.writer.close();
+        }catch (IOException e){
+            logger.error("Error closing the metrics CSV file ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package it.unimore.dipi.iot.fleet.metrics;
+
+/**
+ * Immutable copy of the counts of a LatencyHistogram, used to compute percentiles. The difference of two snapshots
+ * of the same histogram (minus) describes the values recorded between them (e.g. a reporting interval).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public class HistogramSnapshot {
+
+    private final long[] counts;
+
+    private final long totalCount;
+
+    private final long totalValue;
+
+    private final long maxValue;
+
+    /**
+     * @param counts bucket counts (owned by the snapshot)
+     * @param totalValue sum of the recorded values
+     * @param maxValue maximum recorded value (capped to the highest value of the highest non empty bucket)
+     */
+    HistogramSnapshot(long[] counts, long totalValue, long maxValue) {
+
+        long totalCount = 0;
+        int highestIndex = -1;
+
+        for(int i = 0; i < counts.length; i++){
+            totalCount += counts[i];
+            if(counts[i] > 0)
+                highestIndex = i;
+        }
+
+        this.counts = counts;
+        this.totalCount = totalCount;
+        this.totalValue = totalValue;
+        this.maxValue = (highestIndex < 0 ? 0 : Math.min(maxValue, LatencyHistogram.getHighestValue(highestIndex)));
+    }
+
+    /**
+     * @return the values recorded after the previous snapshot of the same histogram
+     */
+    public HistogramSnapshot minus(HistogramSnapshot previousSnapshot){
+
+        long[] intervalCounts = new long[this.counts.length];
+
+        for(int i = 0; i < intervalCounts.length; i++)
+            intervalCounts[i] = this.counts[i] - (i < previousSnapshot.counts.length ? previousSnapshot.counts[i] : 0);
+
+        //The exact maximum of the interval is not known, the bucket one is used
+        return new HistogramSnapshot(intervalCounts, this.totalValue - previousSnapshot.totalValue, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param percentile in [0, 100]
+     * @return the highest value of the bucket containing the percentile (0 if empty)
+     */
+    public long getValueAtPercentile(double percentile){
+
+        if(this.totalCount == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * this.totalCount));
+        long count = 0;
+
+        for(int i = 0; i < this.counts.length; i++){
+            count += this.counts[i];
+            if(count >= rank)
+                return Math.min(LatencyHistogram.getHighestValue(i), this.maxValue);
+        }
+
+        return this.maxValue;
+    }
+
+    public double getMean() {
+        return (this.totalCount == 0 ? 0.0 : (double) this.totalValue / this.totalCount);
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMax() {
+        return maxValue;
+    }
+}
@@ -0,0 +1,166 @@
+package it.unimore.dipi.iot.fleet.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expose the metrics of a MetricsRegistry as the read-only attributes of a JMX MBean
+ * (it.unimore.dipi.iot.fleet:type=Metrics,name=<registry name>), e.g. for jconsole or a JMX exporter.
+ *
+ * Each counter is a long attribute with its name, each histogram provides the <name>.count, <name>.mean_us,
+ * <name>.p50_us, <name>.p90_us, <name>.p99_us, <name>.p999_us and <name>.max_us attributes computed on all the values
+ * recorded since the start. Attributes are read from the registry when requested, so metrics registered after the
+ * MBean are also available.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public class JmxMetricsReporter implements DynamicMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JmxMetricsReporter.class);
+
+    private static final String OBJECT_NAME = "it.unimore.dipi.iot.fleet:type=Metrics,name=%s";
+
+    private static final String[] HISTOGRAM_ATTRIBUTES = {"count", "mean_us", "p50_us", "p90_us", "p99_us", "p999_us", "max_us"};
+
+    private final MetricsRegistry metricsRegistry;
+
+    private final ObjectName objectName;
+
+    public JmxMetricsReporter(MetricsRegistry metricsRegistry) throws Exception {
+        this.metricsRegistry = metricsRegistry;
+        this.objectName = new ObjectName(String.format(OBJECT_NAME, ObjectName.quote(metricsRegistry.getName())));
+    }
+
+    /**
+     * Register the MBean of the registry in the platform MBean server (once for each registry name)
+     * @return false if the MBean was already registered
+     */
+    public static boolean register(MetricsRegistry metricsRegistry){
+
+        try{
+
+            JmxMetricsReporter jmxMetricsReporter = new JmxMetricsReporter(metricsRegistry);
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+            synchronized (JmxMetricsReporter.class){
+                if(mBeanServer.isRegistered(jmxMetricsReporter.objectName))
+                    return false;
+                mBeanServer.registerMBean(jmxMetricsReporter, jmxMetricsReporter.objectName);
+            }
+
+            logger.info("Metrics MBean registered: {}", jmxMetricsReporter.objectName);
+            return true;
+
+        }catch (Exception e){
+            logger.error("Error registering the Metrics MBean ! Msg: {}", e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+
+        LongAdder counter = this.metricsRegistry.getCounterMap().get(attribute);
+
+        if(counter != null)
+            return counter.sum();
+
+        int separatorIndex = attribute.lastIndexOf('.');
+        LatencyHistogram histogram = (separatorIndex > 0 ? this.metricsRegistry.getHistogramMap().get(attribute.substring(0, separatorIndex)) : null);
+
+        if(histogram == null)
+            throw new AttributeNotFoundException(attribute);
+
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        switch (attribute.substring(separatorIndex + 1)){
+            case "count":
+                return (double) snapshot.getCount();
+            case "mean_us":
+                return snapshot.getMean() / 1000.0;
+            case "p50_us":
+                return snapshot.getValueAtPercentile(50.0) / 1000.0;
+            case "p90_us":
+                return snapshot.getValueAtPercentile(90.0) / 1000.0;
+            case "p99_us":
+                return snapshot.getValueAtPercentile(99.0) / 1000.0;
+            case "p999_us":
+                return snapshot.getValueAtPercentile(99.9) / 1000.0;
+            case "max_us":
+                return snapshot.getMax() / 1000.0;
+            default:
+                throw new AttributeNotFoundException(attribute);
+        }
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+
+        AttributeList attributeList = new AttributeList();
+
+        for(String attribute : attributes){
+            try{
+                attributeList.add(new Attribute(attribute, getAttribute(attribute)));
+            }catch (AttributeNotFoundException e){
+                logger.debug("Metrics attribute not found: {}", attribute);
+            }
+        }
+
+        return attributeList;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException(String.format("Metrics attribute %s is read-only !", attribute.getName()));
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+
+        List<MBeanAttributeInfo> attributeInfoList = new ArrayList<>();
+
+        for(String counterName : this.metricsRegistry.getCounterMap().keySet())
+            attributeInfoList.add(new MBeanAttributeInfo(counterName, Long.class.getName(), "Counter", true, false, false));
+
+        for(String histogramName : this.metricsRegistry.getHistogramMap().keySet())
+            for(String histogramAttribute : HISTOGRAM_ATTRIBUTES)
+                attributeInfoList.add(new MBeanAttributeInfo(histogramName + "." + histogramAttribute, Double.class.getName(), "Latency histogram", true, false, false));
+
+        return new MBeanInfo(getClass().getName(),
+                String.format("Metrics of the %s registry", this.metricsRegistry.getName()),
+                attributeInfoList.toArray(new MBeanAttributeInfo[0]),
+                null,
+                null,
+                null);
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+}
@@ -0,0 +1,140 @@
+package it.unimore.dipi.iot.fleet.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent latency histogram with HDR-style log-linear buckets (values in nanoseconds).
+ *
+ * Values below 128 have their own bucket, then each power of two range is split in 64 sub-buckets, so the value of a
+ * bucket is within 1/64 (1.6%) of the recorded values for the whole range up to highestTrackableValue (larger values
+ * are counted in the last bucket). Recording increments a slot of a preallocated array and a few adders: it does not
+ * allocate and does not lock, so it can be used on the telemetry hot path by any number of threads. Percentiles are
+ * computed on a HistogramSnapshot.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public class LatencyHistogram {
+
+    //One hour
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = 3600L * 1000000000L;
+
+    static final int SUB_BUCKET_BITS = 7;
+
+    private static final long SUB_BUCKET_MASK = (1 << SUB_BUCKET_BITS) - 1;
+
+    static final int SUB_BUCKET_HALF_COUNT = 1 << (SUB_BUCKET_BITS - 1);
+
+    private final long highestTrackableValue;
+
+    private final AtomicLongArray counts;
+
+    private final LongAdder totalCount;
+
+    private final LongAdder totalValue;
+
+    private final LongAccumulator maxValue;
+
+    //Values larger than highestTrackableValue
+    private final LongAdder overflowCount;
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    /**
+     * @param highestTrackableValue largest value with the histogram precision (ns)
+     */
+    public LatencyHistogram(long highestTrackableValue) {
+
+        if(highestTrackableValue <= SUB_BUCKET_MASK)
+            throw new IllegalArgumentException(String.format("Highest trackable value must be > %d !", SUB_BUCKET_MASK));
+
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(getCountsIndex(highestTrackableValue) + 1);
+        this.totalCount = new LongAdder();
+        this.totalValue = new LongAdder();
+        this.maxValue = new LongAccumulator(Long::max, 0);
+        this.overflowCount = new LongAdder();
+    }
+
+    /**
+     * Record a value (negative values, e.g. from clock skew, are recorded as 0)
+     */
+    public void record(long value){
+
+        if(value < 0)
+            value = 0;
+        else if(value > this.highestTrackableValue){
+            this.overflowCount.increment();
+            value = this.highestTrackableValue;
+        }
+
+        this.counts.incrementAndGet(getCountsIndex(value));
+        this.totalCount.increment();
+        this.totalValue.add(value);
+        this.maxValue.accumulate(value);
+    }
+
+    /**
+     * @return a copy of the current counts (it allocates, to be used by the reporters)
+     */
+    public HistogramSnapshot snapshot(){
+
+        long[] countArray = new long[this.counts.length()];
+
+        for(int i = 0; i < countArray.length; i++)
+            countArray[i] = this.counts.get(i);
+
+        return new HistogramSnapshot(countArray, this.totalValue.sum(), this.maxValue.get());
+    }
+
+    public long getCount() {
+        return this.totalCount.sum();
+    }
+
+    public long getMax() {
+        return this.maxValue.get();
+    }
+
+    public long getOverflowCount() {
+        return this.overflowCount.sum();
+    }
+
+    public long getHighestTrackableValue() {
+        return highestTrackableValue;
+    }
+
+    static int getCountsIndex(long value){
+        int bucketIndex = 64 - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK) - SUB_BUCKET_BITS;
+        int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << (SUB_BUCKET_BITS - 1)) + (subBucketIndex - SUB_BUCKET_HALF_COUNT);
+    }
+
+    /**
+     * @return the lowest value of the bucket of the counts index
+     */
+    static long getLowestValue(int countsIndex){
+
+        int bucketIndex = (countsIndex >> (SUB_BUCKET_BITS - 1)) - 1;
+        int subBucketIndex = (countsIndex & (SUB_BUCKET_HALF_COUNT - 1)) + SUB_BUCKET_HALF_COUNT;
+
+        if(bucketIndex < 0){
+            subBucketIndex -= SUB_BUCKET_HALF_COUNT;
+            bucketIndex = 0;
+        }
+
+        return (long) subBucketIndex << bucketIndex;
+    }
+
+    /**
+     * @return the highest value of the bucket of the counts index
+     */
+    static long getHighestValue(int countsIndex){
+        int bucketIndex = Math.max(0, (countsIndex >> (SUB_BUCKET_BITS - 1)) - 1);
+        return getLowestValue(countsIndex) + (1L << bucketIndex) - 1;
+    }
+}
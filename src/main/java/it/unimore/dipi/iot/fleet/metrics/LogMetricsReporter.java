@@ -0,0 +1,65 @@
+package it.unimore.dipi.iot.fleet.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * MetricsReporter logging a compact line for each report: the total and rate of each counter, then the count,
+ * p50/p99/p99.9 and max (microseconds) of the values recorded by each histogram in the interval (histograms without
+ * new values are omitted).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public class LogMetricsReporter extends MetricsReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogMetricsReporter.class);
+
+    private StringBuffer counterBuffer;
+
+    private StringBuffer histogramBuffer;
+
+    public LogMetricsReporter(MetricsRegistry metricsRegistry) {
+        super(metricsRegistry);
+    }
+
+    @Override
+    protected void startReport(long timestamp, double intervalSeconds) {
+        this.counterBuffer = new StringBuffer();
+        this.histogramBuffer = new StringBuffer();
+    }
+
+    @Override
+    protected void reportCounter(String name, long count, double rate) {
+        if(this.counterBuffer.length() > 0)
+            this.counterBuffer.append(", ");
+        this.counterBuffer.append(name).append('=').append(count).append(" (").append(String.format("%.1f", rate)).append("/s)");
+    }
+
+    @Override
+    protected void reportHistogram(String name, HistogramSnapshot intervalSnapshot, HistogramSnapshot totalSnapshot) {
+
+        if(intervalSnapshot.getCount() == 0)
+            return;
+
+        if(this.histogramBuffer.length() > 0)
+            this.histogramBuffer.append(", ");
+
+        this.histogramBuffer.append(name).append("={n=").append(intervalSnapshot.getCount())
+                .append(", p50=").append(toMicros(intervalSnapshot.getValueAtPercentile(50.0)))
+                .append(", p99=").append(toMicros(intervalSnapshot.getValueAtPercentile(99.0)))
+                .append(", p99.9=").append(toMicros(intervalSnapshot.getValueAtPercentile(99.9)))
+                .append(", max=").append(toMicros(intervalSnapshot.getMax())).append('}');
+    }
+
+    @Override
+    protected void endReport() {
+
+        if(this.counterBuffer.length() > 0)
+            logger.info("[METRICS {}] {}", this.metricsRegistry.getName(), this.counterBuffer);
+
+        if(this.histogramBuffer.length() > 0)
+            logger.info("[LATENCY {} us] {}", this.metricsRegistry.getName(), this.histogramBuffer);
+    }
+}
@@ -0,0 +1,84 @@
+package it.unimore.dipi.iot.fleet.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named counters and latency histograms of a process, read by the reporters (LogMetricsReporter, CsvMetricsReporter,
+ * JmxMetricsReporter).
+ *
+ * Components look up (or register) their metrics once, when they are created, and then record directly on the
+ * LongAdder or LatencyHistogram instances, so the hot path never touches the registry. Metrics are named with dotted
+ * paths (e.g. vehicle.serialize, fleet-monitoring.e2e) and listed in name order.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public class MetricsRegistry {
+
+    public static final String DEFAULT_REGISTRY_NAME = "fleet";
+
+    //Registry shared by the components of the process
+    private static final MetricsRegistry defaultRegistry = new MetricsRegistry(DEFAULT_REGISTRY_NAME);
+
+    private final String name;
+
+    private final Map<String, LongAdder> counterMap;
+
+    private final Map<String, LatencyHistogram> histogramMap;
+
+    public MetricsRegistry(String name) {
+        this.name = name;
+        this.counterMap = new ConcurrentSkipListMap<>();
+        this.histogramMap = new ConcurrentSkipListMap<>();
+    }
+
+    public static MetricsRegistry getDefault(){
+        return defaultRegistry;
+    }
+
+    /**
+     * @return the counter with the name, created if missing (shared by all the callers)
+     */
+    public LongAdder counter(String name){
+        return this.counterMap.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * @return the histogram with the name, created if missing (shared by all the callers)
+     */
+    public LatencyHistogram histogram(String name){
+        return this.histogramMap.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Register a counter owned by a component, replacing the one with the same name (e.g. of a previous instance)
+     */
+    public LongAdder register(String name, LongAdder counter){
+        this.counterMap.put(name, counter);
+        return counter;
+    }
+
+    /**
+     * Register a histogram owned by a component, replacing the one with the same name (e.g. of a previous instance)
+     */
+    public LatencyHistogram register(String name, LatencyHistogram histogram){
+        this.histogramMap.put(name, histogram);
+        return histogram;
+    }
+
+    public Map<String, LongAdder> getCounterMap() {
+        return Collections.unmodifiableMap(this.counterMap);
+    }
+
+    public Map<String, LatencyHistogram> getHistogramMap() {
+        return Collections.unmodifiableMap(this.histogramMap);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
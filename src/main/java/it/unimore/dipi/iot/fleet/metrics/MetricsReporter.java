@@ -0,0 +1,87 @@
+package it.unimore.dipi.iot.fleet.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Periodic reporter of the metrics of a MetricsRegistry. Each report() call computes, for the interval since the
+ * previous call, the increment and rate of each counter and the snapshot of the values recorded by each histogram,
+ * then hands them to the concrete reporter. It is called by the statistics loop of the processes (or by a
+ * TaskScheduler task), never by the hot path.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public abstract class MetricsReporter {
+
+    protected final MetricsRegistry metricsRegistry;
+
+    private final Map<String, Long> previousCounterMap;
+
+    private final Map<String, HistogramSnapshot> previousSnapshotMap;
+
+    private long previousTimestampNanos;
+
+    public MetricsReporter(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        this.previousCounterMap = new HashMap<>();
+        this.previousSnapshotMap = new HashMap<>();
+        this.previousTimestampNanos = System.nanoTime();
+    }
+
+    /**
+     * Report the metrics recorded since the previous call (or since the creation of the reporter)
+     */
+    public synchronized void report(){
+
+        long timestampNanos = System.nanoTime();
+        double intervalSeconds = Math.max(1, timestampNanos - this.previousTimestampNanos) / 1e9;
+        this.previousTimestampNanos = timestampNanos;
+
+        startReport(System.currentTimeMillis(), intervalSeconds);
+
+        for(Map.Entry<String, LongAdder> counterEntry : this.metricsRegistry.getCounterMap().entrySet()){
+
+            long count = counterEntry.getValue().sum();
+            Long previousCount = this.previousCounterMap.put(counterEntry.getKey(), count);
+            long increment = count - (previousCount != null ? previousCount : 0);
+
+            reportCounter(counterEntry.getKey(), count, increment / intervalSeconds);
+        }
+
+        for(Map.Entry<String, LatencyHistogram> histogramEntry : this.metricsRegistry.getHistogramMap().entrySet()){
+
+            HistogramSnapshot snapshot = histogramEntry.getValue().snapshot();
+            HistogramSnapshot previousSnapshot = this.previousSnapshotMap.put(histogramEntry.getKey(), snapshot);
+
+            reportHistogram(histogramEntry.getKey(), previousSnapshot != null ? snapshot.minus(previousSnapshot) : snapshot, snapshot);
+        }
+
+        endReport();
+    }
+
+    protected abstract void startReport(long timestamp, double intervalSeconds);
+
+    /**
+     * @param count total count
+     * @param rate increments per second in the interval
+     */
+    protected abstract void reportCounter(String name, long count, double rate);
+
+    /**
+     * @param intervalSnapshot values recorded in the interval
+     * @param totalSnapshot values recorded since the start
+     */
+    protected abstract void reportHistogram(String name, HistogramSnapshot intervalSnapshot, HistogramSnapshot totalSnapshot);
+
+    protected abstract void endReport();
+
+    /**
+     * @return the value (ns) in microseconds, formatted with one decimal
+     */
+    protected static String toMicros(double nanos){
+        return String.format("%.1f", nanos / 1000.0);
+    }
+}
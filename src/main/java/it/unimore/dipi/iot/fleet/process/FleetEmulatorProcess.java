@@ -0,0 +1,354 @@
+package it.unimore.dipi.iot.fleet.process;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetryFormat;
+import it.unimore.dipi.iot.fleet.device.AsyncMqttClientChannel;
+import it.unimore.dipi.iot.fleet.device.BackpressurePolicy;
+import it.unimore.dipi.iot.fleet.device.MqttClientChannel;
+import it.unimore.dipi.iot.fleet.device.MqttGatewayConnectionPool;
+import it.unimore.dipi.iot.fleet.device.VehicleMqttChannel;
+import it.unimore.dipi.iot.fleet.device.VehicleMqttSmartObject;
+import it.unimore.dipi.iot.fleet.metrics.CsvMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.JmxMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.LogMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
+import it.unimore.dipi.iot.fleet.metrics.MetricsReporter;
+import it.unimore.dipi.iot.fleet.resource.BatteryReportingPolicy;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsReportingPolicy;
+import it.unimore.dipi.iot.fleet.resource.SmartObjectResource;
+import it.unimore.dipi.iot.fleet.scheduler.HashedWheelTaskScheduler;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fleet Emulator running a large number of VehicleMqttSmartObject in the same JVM.
+ * All the sensor ticks of all the vehicles are driven by a single shared HashedWheelTaskScheduler
+ * so that the number of sensor threads does not grow with the fleet size.
+ *
+ * Vehicles publish through a non-blocking AsyncMqttClientChannel (bounded in flight window and queue)
+ * unless ASYNC_PUBLISH_ENABLED is set to false.
+ *
+ * Telemetry batching can be optionally enabled in order to compare the number of generated samples
+ * with the number of published MQTT messages.
+ *
+ * In gateway mode (gatewayConnections > 0) all the vehicles share a MqttGatewayConnectionPool of K
+ * connections instead of opening one connection per vehicle.
+ *
+ * Usage: FleetEmulatorProcess [fleetSize] [workerThreads] [telemetryBatchSize] [telemetryBatchDelayMs] [gatewayConnections]
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public class FleetEmulatorProcess {
+
+    private static final Logger logger = LoggerFactory.getLogger(FleetEmulatorProcess.class);
+
+    private static String MQTT_BROKER_IP = "127.0.0.1";
+
+    private static int MQTT_BROKER_PORT = 1883;
+
+    private static final int DEFAULT_FLEET_SIZE = 1000;
+
+    private static final int DEFAULT_WORKER_THREADS = 4;
+
+    //0 = Telemetry batching disabled
+    private static final int DEFAULT_TELEMETRY_BATCH_SIZE = 0;
+
+    private static final long DEFAULT_TELEMETRY_BATCH_DELAY_MS = 10000;
+
+    //0 = Gateway mode disabled (one MQTT connection for each vehicle)
+    private static final int DEFAULT_GATEWAY_CONNECTIONS = 0;
+
+    //Asynchronous publishing through IMqttAsyncClient (false = blocking IMqttClient)
+    private static final boolean ASYNC_PUBLISH_ENABLED = true;
+
+    private static final int TELEMETRY_QOS = 0;
+
+    private static final int MAX_IN_FLIGHT_MESSAGES = 32;
+
+    private static final int MAX_QUEUED_MESSAGES = 1000;
+
+    private static final BackpressurePolicy BACKPRESSURE_POLICY = BackpressurePolicy.DROP_OLDEST;
+
+    //Wire format of the GPS and battery telemetry topics (consumers detect it automatically)
+    private static final TelemetryFormat GPS_TELEMETRY_FORMAT = TelemetryFormat.JSON;
+
+    private static final TelemetryFormat BATTERY_TELEMETRY_FORMAT = TelemetryFormat.JSON;
+
+    //Dead-band reporting (false = every sensor sample is published)
+    private static final boolean REPORTING_POLICY_ENABLED = true;
+
+    private static final double GPS_DEAD_BAND_METERS = 10.0;
+
+    private static final long GPS_MAX_REPORT_INTERVAL_MS = 30000;
+
+    //0 = speed adaptive dead-band disabled
+    private static final long GPS_SPEED_WINDOW_MS = 5000;
+
+    private static final double BATTERY_DEAD_BAND_PERCENT = 1.0;
+
+    private static final long BATTERY_MAX_REPORT_INTERVAL_MS = 60000;
+
+    //Geohash precision of the area control topics (same as the TrafficMonitoringStage, 0 = disabled)
+    private static final int AREA_CONTROL_PRECISION = 6;
+
+    //Geohash precision of the geo-partitioned telemetry topics (e.g. 4 for regional consumers, 0 = standard topics)
+    private static final int GEO_PARTITION_PRECISION = 0;
+
+    //Number of vehicles started before pausing for RAMP_UP_PAUSE_MS (avoids aligned sensor ticks)
+    private static final int RAMP_UP_BATCH_SIZE = 500;
+
+    private static final long RAMP_UP_PAUSE_MS = 100;
+
+    private static final long REPORT_PERIOD_MS = 10000;
+
+    //Telemetry path metrics appended at each report (null = log and JMX only)
+    private static final String METRICS_CSV_FILE = "fleet-emulator-metrics.csv";
+
+    public static void main(String[] args) {
+
+        int fleetSize = (args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FLEET_SIZE);
+        int workerThreads = (args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WORKER_THREADS);
+        int telemetryBatchSize = (args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_TELEMETRY_BATCH_SIZE);
+        long telemetryBatchDelayMs = (args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_TELEMETRY_BATCH_DELAY_MS);
+        int gatewayConnections = (args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_GATEWAY_CONNECTIONS);
+
+        HashedWheelTaskScheduler taskScheduler = new HashedWheelTaskScheduler(workerThreads);
+        List<VehicleMqttSmartObject> vehicleList = new ArrayList<>();
+
+        MqttGatewayConnectionPool gatewayConnectionPool = null;
+
+        if(gatewayConnections > 0){
+            try {
+                gatewayConnectionPool = new MqttGatewayConnectionPool(String.format("tcp://%s:%d", MQTT_BROKER_IP, MQTT_BROKER_PORT),
+                        gatewayConnections,
+                        MAX_IN_FLIGHT_MESSAGES,
+                        MAX_QUEUED_MESSAGES,
+                        BACKPRESSURE_POLICY);
+            } catch (MqttException e) {
+                logger.error("Error creating the Gateway Connection Pool ! Msg: {}", e.getLocalizedMessage());
+                taskScheduler.shutdown();
+                return;
+            }
+        }
+
+        MqttGatewayConnectionPool finalGatewayConnectionPool = gatewayConnectionPool;
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            logger.info("Stopping Fleet Emulator ...");
+            vehicleList.forEach(VehicleMqttSmartObject::stop);
+            taskScheduler.shutdown();
+            if(finalGatewayConnectionPool != null)
+                finalGatewayConnectionPool.close();
+        }));
+
+        logger.info("Starting Fleet Emulator with {} vehicles and {} scheduler workers ...", fleetSize, workerThreads);
+
+        for(int i = 0; i < fleetSize; i++){
+
+            try{
+
+                String vehicleId = UUID.randomUUID().toString();
+
+                VehicleMqttChannel mqttChannel = (gatewayConnectionPool != null ?
+                        gatewayConnectionPool.createChannel(vehicleId) :
+                        createMqttChannel(vehicleId));
+
+                Map<String, SmartObjectResource<?>> resourceMap = new HashMap<>();
+                GpsGpxSensorResource gpsGpxSensorResource = new GpsGpxSensorResource(taskScheduler);
+                BatterySensorResource batterySensorResource = new BatterySensorResource(taskScheduler);
+
+                if(REPORTING_POLICY_ENABLED){
+                    gpsGpxSensorResource.setReportingPolicy(new GpsReportingPolicy(GPS_DEAD_BAND_METERS, GPS_MAX_REPORT_INTERVAL_MS, GPS_SPEED_WINDOW_MS));
+                    batterySensorResource.setReportingPolicy(new BatteryReportingPolicy(BATTERY_DEAD_BAND_PERCENT, BATTERY_MAX_REPORT_INTERVAL_MS));
+                }
+
+                resourceMap.put("gps", gpsGpxSensorResource);
+                resourceMap.put("battery", batterySensorResource);
+
+                VehicleMqttSmartObject vehicleMqttSmartObject = new VehicleMqttSmartObject();
+                vehicleMqttSmartObject.init(vehicleId, mqttChannel, resourceMap);
+                vehicleMqttSmartObject.setTelemetryQos(TELEMETRY_QOS);
+                vehicleMqttSmartObject.setTelemetryFormat("gps", GPS_TELEMETRY_FORMAT);
+                vehicleMqttSmartObject.setTelemetryFormat("battery", BATTERY_TELEMETRY_FORMAT);
+                vehicleMqttSmartObject.setAreaControlPrecision(AREA_CONTROL_PRECISION);
+                vehicleMqttSmartObject.setGeoPartitionPrecision(GEO_PARTITION_PRECISION);
+
+                if(telemetryBatchSize > 0)
+                    vehicleMqttSmartObject.enableTelemetryBatching(telemetryBatchSize, telemetryBatchDelayMs, taskScheduler);
+
+                vehicleMqttSmartObject.start();
+
+                vehicleList.add(vehicleMqttSmartObject);
+
+                if((i + 1) % RAMP_UP_BATCH_SIZE == 0){
+                    logger.info("Started Vehicles: {}/{}", i + 1, fleetSize);
+                    Thread.sleep(RAMP_UP_PAUSE_MS);
+                }
+
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                break;
+            }catch (Exception e){
+                logger.error("Error starting emulated vehicle #{} ! Msg: {}", i, e.getLocalizedMessage());
+            }
+        }
+
+        reportStatistics(taskScheduler, vehicleList, gatewayConnectionPool);
+    }
+
+    private static VehicleMqttChannel createMqttChannel(String vehicleId) throws MqttException {
+
+        String brokerUrl = String.format("tcp://%s:%d", MQTT_BROKER_IP, MQTT_BROKER_PORT);
+
+        MqttConnectOptions options = new MqttConnectOptions();
+        options.setAutomaticReconnect(true);
+        options.setCleanSession(true);
+        options.setConnectionTimeout(10);
+
+        if(!ASYNC_PUBLISH_ENABLED){
+            IMqttClient mqttClient = new MqttClient(brokerUrl, vehicleId, new MemoryPersistence());
+            MqttClientChannel mqttClientChannel = new MqttClientChannel(mqttClient);
+            mqttClient.setCallback(createReconnectCallback(vehicleId, mqttClientChannel::onReconnected));
+            mqttClient.connect(options);
+            return mqttClientChannel;
+        }
+
+        options.setMaxInflight(MAX_IN_FLIGHT_MESSAGES);
+
+        MqttAsyncClient mqttAsyncClient = new MqttAsyncClient(brokerUrl, vehicleId, new MemoryPersistence());
+        AsyncMqttClientChannel asyncMqttClientChannel = new AsyncMqttClientChannel(mqttAsyncClient,
+                MAX_IN_FLIGHT_MESSAGES,
+                MAX_QUEUED_MESSAGES,
+                BACKPRESSURE_POLICY);
+
+        mqttAsyncClient.setCallback(createReconnectCallback(vehicleId, asyncMqttClientChannel::onReconnected));
+
+        mqttAsyncClient.connect(options).waitForCompletion();
+
+        return asyncMqttClientChannel;
+    }
+
+    /**
+     * @return the client callback notifying the channel of the vehicle when the connection is re-established
+     */
+    private static MqttCallbackExtended createReconnectCallback(String vehicleId, Runnable onReconnected){
+
+        return new MqttCallbackExtended() {
+            @Override
+            public void connectComplete(boolean reconnect, String serverURI) {
+                if(reconnect)
+                    onReconnected.run();
+            }
+
+            @Override
+            public void connectionLost(Throwable cause) {
+                logger.warn("Vehicle {} connection lost ! Msg: {}", vehicleId, (cause != null ? cause.getLocalizedMessage() : null));
+            }
+
+            @Override
+            public void messageArrived(String topic, MqttMessage message) {
+            }
+
+            @Override
+            public void deliveryComplete(IMqttDeliveryToken token) {
+            }
+        };
+    }
+
+    /**
+     * Periodically log the number of running vehicles, the sustained sensor ticks per second, the live thread count
+     * and the ratio between the generated telemetry samples and the published MQTT messages, then report the telemetry
+     * path metrics (notify, serialize and publish latency), also exposed through JMX
+     */
+    private static void reportStatistics(HashedWheelTaskScheduler taskScheduler, List<VehicleMqttSmartObject> vehicleList, MqttGatewayConnectionPool gatewayConnectionPool){
+
+        MetricsRegistry metricsRegistry = MetricsRegistry.getDefault();
+        JmxMetricsReporter.register(metricsRegistry);
+
+        List<MetricsReporter> metricsReporterList = new ArrayList<>();
+        metricsReporterList.add(new LogMetricsReporter(metricsRegistry));
+
+        if(METRICS_CSV_FILE != null){
+            try{
+                metricsReporterList.add(new CsvMetricsReporter(metricsRegistry, new File(METRICS_CSV_FILE)));
+            }catch (IOException e){
+                logger.error("Error opening the metrics CSV file {} ! Msg: {}", METRICS_CSV_FILE, e.getLocalizedMessage());
+            }
+        }
+
+        long lastTaskCount = taskScheduler.getExecutedTaskCount();
+        long lastTimestamp = System.currentTimeMillis();
+
+        while(!Thread.currentThread().isInterrupted()){
+
+            try {
+                Thread.sleep(REPORT_PERIOD_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            long taskCount = taskScheduler.getExecutedTaskCount();
+            long timestamp = System.currentTimeMillis();
+
+            long sampleCount = 0;
+            long suppressedSampleCount = 0;
+            long publishedMessageCount = 0;
+            long queuedMessageCount = 0;
+            long sentMessageCount = 0;
+            long droppedMessageCount = 0;
+
+            for(VehicleMqttSmartObject vehicleMqttSmartObject : vehicleList){
+                sampleCount += vehicleMqttSmartObject.getTelemetrySampleCount();
+                suppressedSampleCount += vehicleMqttSmartObject.getSuppressedSampleCount();
+                publishedMessageCount += vehicleMqttSmartObject.getPublishedMessageCount();
+                queuedMessageCount += vehicleMqttSmartObject.getMqttChannel().getQueuedMessageCount();
+                sentMessageCount += vehicleMqttSmartObject.getMqttChannel().getSentMessageCount();
+                droppedMessageCount += vehicleMqttSmartObject.getMqttChannel().getDroppedMessageCount();
+            }
+
+            logger.info("[FLEET STATS] Vehicles: {} Scheduled Tasks: {} Ticks/s: {} Threads: {} Samples: {} Suppressed: {} Published Messages: {} Queued: {} Sent: {} Dropped: {}",
+                    vehicleList.size(),
+                    taskScheduler.getActiveTaskCount(),
+                    String.format("%.1f", (taskCount - lastTaskCount) * 1000.0 / (timestamp - lastTimestamp)),
+                    ManagementFactory.getThreadMXBean().getThreadCount(),
+                    sampleCount,
+                    suppressedSampleCount,
+                    publishedMessageCount,
+                    queuedMessageCount,
+                    sentMessageCount,
+                    droppedMessageCount);
+
+            if(gatewayConnectionPool != null)
+                logger.info("[GATEWAY STATS] {}", gatewayConnectionPool.getConnectionStats());
+
+            for(MetricsReporter metricsReporter : metricsReporterList)
+                metricsReporter.report();
+
+            lastTaskCount = taskCount;
+            lastTimestamp = timestamp;
+        }
+    }
+
+}
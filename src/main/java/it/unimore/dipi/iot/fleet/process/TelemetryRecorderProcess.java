@@ -0,0 +1,77 @@
+package it.unimore.dipi.iot.fleet.process;
+
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.replay.TelemetryRecorder;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+
+/**
+ * Record the fleet traffic of the broker in a log file, replayed through the TelemetryReplayProcess.
+ * The recording stops after durationSeconds (0 = until the process is terminated).
+ *
+ * Usage: TelemetryRecorderProcess [logFile] [topicFilter] [durationSeconds]
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:35
+ */
+public class TelemetryRecorderProcess {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryRecorderProcess.class);
+
+    private static String MQTT_BROKER_IP = "127.0.0.1";
+
+    private static int MQTT_BROKER_PORT = 1883;
+
+    private static final String DEFAULT_LOG_FILE = "fleet-recording.trc";
+
+    private static final String DEFAULT_TOPIC_FILTER = "fleet/#";
+
+    private static final int SUBSCRIPTION_QOS = 1;
+
+    private static final long REPORT_PERIOD_MS = 10000;
+
+    public static void main(String[] args) {
+
+        File logFile = new File(args.length > 0 ? args[0] : DEFAULT_LOG_FILE);
+        String topicFilter = args.length > 1 ? args[1] : DEFAULT_TOPIC_FILTER;
+        long durationMs = (args.length > 2 ? Long.parseLong(args[2]) : 0) * 1000;
+
+        try{
+
+            TelemetryRecorder telemetryRecorder = new TelemetryRecorder(logFile);
+
+            //The log is completed also when the process is terminated
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try{
+                    telemetryRecorder.close();
+                }catch (Exception e){
+                    logger.error("Error closing the recording ! Msg: {}", e.getLocalizedMessage());
+                }
+            }));
+
+            IMqttClient mqttClient = ConsumerRuntime.connect(MQTT_BROKER_IP, MQTT_BROKER_PORT);
+            mqttClient.subscribe(topicFilter, SUBSCRIPTION_QOS, telemetryRecorder);
+
+            logger.info("Recording Topic: {} to: {} Duration: {}", topicFilter, logFile, durationMs > 0 ? durationMs + " ms" : "unlimited");
+
+            long startTime = System.currentTimeMillis();
+
+            while(durationMs <= 0 || System.currentTimeMillis() - startTime < durationMs){
+                Thread.sleep(durationMs > 0 ? Math.min(REPORT_PERIOD_MS, Math.max(1, durationMs - (System.currentTimeMillis() - startTime))) : REPORT_PERIOD_MS);
+                telemetryRecorder.flush();
+                logger.info("[RECORDER STATS] Records: {} Topics: {} File Bytes: {}", telemetryRecorder.getRecordCount(), telemetryRecorder.getTopicCount(), logFile.length());
+            }
+
+            mqttClient.disconnect();
+            mqttClient.close();
+            telemetryRecorder.close();
+
+        }catch (Exception e){
+            logger.error("Error recording the fleet traffic ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+}
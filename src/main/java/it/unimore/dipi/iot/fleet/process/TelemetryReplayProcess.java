@@ -0,0 +1,90 @@
+package it.unimore.dipi.iot.fleet.process;
+
+import it.unimore.dipi.iot.fleet.consumer.BatteryMonitoringStage;
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.consumer.TrafficMonitoringStage;
+import it.unimore.dipi.iot.fleet.replay.TelemetryReplayer;
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replay a recording of the TelemetryRecorderProcess at the recorded pace (1), N times faster (N) or as fast as
+ * possible (max) into:
+ * - runtime: an in-process ConsumerRuntime with the battery and traffic monitoring stages (controls are counted and
+ *   not published), reporting the runtime and control statistics at the end of the replay
+ * - broker: the local broker, so that the running consumers receive the recorded traffic
+ *
+ * Usage: TelemetryReplayProcess [logFile] [speed] [runtime|broker]
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:35
+ */
+public class TelemetryReplayProcess {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryReplayProcess.class);
+
+    private static String MQTT_BROKER_IP = "127.0.0.1";
+
+    private static int MQTT_BROKER_PORT = 1883;
+
+    private static final String DEFAULT_LOG_FILE = "fleet-recording.trc";
+
+    private static final String DEFAULT_SPEED = "1";
+
+    private static final String RUNTIME_TARGET = "runtime";
+
+    private static final String BROKER_TARGET = "broker";
+
+    public static void main(String[] args) {
+
+        File logFile = new File(args.length > 0 ? args[0] : DEFAULT_LOG_FILE);
+        String speedArgument = args.length > 1 ? args[1] : DEFAULT_SPEED;
+        String target = args.length > 2 ? args[2] : RUNTIME_TARGET;
+
+        try{
+
+            TelemetryReplayer telemetryReplayer = new TelemetryReplayer(logFile,
+                    "max".equalsIgnoreCase(speedArgument) ? TelemetryReplayer.MAX_SPEED : Double.parseDouble(speedArgument));
+
+            if(BROKER_TARGET.equalsIgnoreCase(target)){
+
+                IMqttClient mqttClient = ConsumerRuntime.connect(MQTT_BROKER_IP, MQTT_BROKER_PORT);
+                telemetryReplayer.replay(TelemetryReplayer.toMqttClient(mqttClient));
+
+                mqttClient.disconnect();
+                mqttClient.close();
+            }
+            else{
+
+                ConsumerRuntime consumerRuntime = new ConsumerRuntime("replay");
+                consumerRuntime.addStage(new BatteryMonitoringStage());
+                consumerRuntime.addStage(new TrafficMonitoringStage());
+
+                //Controls of the replayed traffic are not sent to the vehicles
+                LongAdder controlCounter = new LongAdder();
+                ControlMessagePublisher controlMessagePublisher = new ControlMessagePublisher((topic, payload) -> controlCounter.increment(),
+                        consumerRuntime.getMapper(),
+                        ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                        ControlMessagePublisher.DEFAULT_MAX_PENDING_CONTROLS,
+                        ControlMessagePublisher.DEFAULT_MIN_INTERVAL_MS);
+
+                consumerRuntime.start(controlMessagePublisher);
+                telemetryReplayer.replay((topic, payload, qos) -> consumerRuntime.process(topic, payload));
+
+                logger.info("[STAGE STATS] {}", consumerRuntime.getStats());
+                logger.info("[CONTROL STATS] {}", controlMessagePublisher.getStats());
+
+                consumerRuntime.shutdown();
+            }
+
+        }catch (Exception e){
+            logger.error("Error replaying the recording ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package it.unimore.dipi.iot.fleet.process;
 
+import it.unimore.dipi.iot.fleet.device.MqttClientChannel;
+import it.unimore.dipi.iot.fleet.device.StoreAndForwardMqttChannel;
+import it.unimore.dipi.iot.fleet.device.TelemetryJournal;
 import it.unimore.dipi.iot.fleet.device.VehicleMqttSmartObject;
+import it.unimore.dipi.iot.fleet.metrics.JmxMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.LogMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
 import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
 import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
 import it.unimore.dipi.iot.fleet.resource.SmartObjectResource;
+import it.unimore.dipi.iot.fleet.scheduler.TimerTaskScheduler;
 import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
+import org.eclipse.paho.client.mqttv3.MqttCallbackExtended;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.UUID;
 
@@ -28,12 +42,34 @@ public class VehicleSmartObjectProcess {
 
     private static int MQTT_BROKER_PORT = 1883;
 
+    //Telemetry published while the vehicle is offline is kept in the journal and sent when the connection is restored.
+    //The journal file is locked while in use: other vehicle processes started from the same directory need their own
+    //file, passed as first argument
+    private static final String DEFAULT_TELEMETRY_JOURNAL_FILE = "vehicle-telemetry.journal";
+
+    //The vehicle id is kept next to its journal, so a restarted vehicle keeps its identity and its backlog
+    private static final String VEHICLE_ID_FILE_SUFFIX = ".id";
+
+    private static final int TELEMETRY_JOURNAL_CAPACITY = TelemetryJournal.DEFAULT_CAPACITY;
+
+    //Geohash precision of the area control topics (same as the TrafficMonitoringStage, 0 = disabled)
+    private static final int AREA_CONTROL_PRECISION = 6;
+
+    //Geohash precision of the geo-partitioned telemetry topics (e.g. 4 for regional consumers, 0 = standard topics)
+    private static final int GEO_PARTITION_PRECISION = 0;
+
+    private static final long METRICS_REPORT_PERIOD_MS = 10000;
+
     public static void main(String[] args) {
 
         try{
 
-            //Generate Random Vehicle UUID
-            String vehicleId = UUID.randomUUID().toString();
+            File journalFile = new File(args.length > 0 ? args[0] : DEFAULT_TELEMETRY_JOURNAL_FILE);
+
+            //Opened first: a journal already in use by another vehicle process fails here
+            TelemetryJournal telemetryJournal = new TelemetryJournal(journalFile, TELEMETRY_JOURNAL_CAPACITY);
+
+            String vehicleId = loadVehicleId(new File(journalFile.getPath() + VEHICLE_ID_FILE_SUFFIX));
 
             //Create MQTT Client
             MqttClientPersistence persistence = new MemoryPersistence();
@@ -43,6 +79,30 @@ public class VehicleSmartObjectProcess {
                     vehicleId,
                     persistence);
 
+            //The subscriptions (control and area control topics) are lost with the clean session and restored at each reconnection
+            MqttClientChannel mqttClientChannel = new MqttClientChannel(mqttClient);
+
+            mqttClient.setCallback(new MqttCallbackExtended() {
+                @Override
+                public void connectComplete(boolean reconnect, String serverURI) {
+                    if(reconnect)
+                        mqttClientChannel.onReconnected();
+                }
+
+                @Override
+                public void connectionLost(Throwable cause) {
+                    logger.warn("Vehicle {} connection lost ! Msg: {}", vehicleId, (cause != null ? cause.getLocalizedMessage() : null));
+                }
+
+                @Override
+                public void messageArrived(String topic, MqttMessage message) {
+                }
+
+                @Override
+                public void deliveryComplete(IMqttDeliveryToken token) {
+                }
+            });
+
             MqttConnectOptions options = new MqttConnectOptions();
             options.setAutomaticReconnect(true);
             options.setCleanSession(true);
@@ -53,20 +113,51 @@ public class VehicleSmartObjectProcess {
 
             logger.info("MQTT Client Connected ! Client Id: {}", vehicleId);
 
+            //The journal backlog of a previous run is drained as soon as the channel is connected
+            TimerTaskScheduler taskScheduler = new TimerTaskScheduler();
+            StoreAndForwardMqttChannel mqttChannel = new StoreAndForwardMqttChannel(mqttClientChannel, telemetryJournal, taskScheduler);
+
+            Runtime.getRuntime().addShutdownHook(new Thread(mqttChannel::close));
+
             VehicleMqttSmartObject vehicleMqttSmartObject = new VehicleMqttSmartObject();
-            vehicleMqttSmartObject.init(vehicleId, mqttClient, new HashMap<>(){
+            vehicleMqttSmartObject.init(vehicleId, mqttChannel, new HashMap<>(){
                 {
                     put("gps", new GpsGpxSensorResource());
                     put("battery", new BatterySensorResource());
                 }
             });
 
+            vehicleMqttSmartObject.setAreaControlPrecision(AREA_CONTROL_PRECISION);
+            vehicleMqttSmartObject.setGeoPartitionPrecision(GEO_PARTITION_PRECISION);
+
             vehicleMqttSmartObject.start();
 
+            //Telemetry path metrics (JMX and periodic log)
+            JmxMetricsReporter.register(MetricsRegistry.getDefault());
+            LogMetricsReporter logMetricsReporter = new LogMetricsReporter(MetricsRegistry.getDefault());
+            taskScheduler.schedulePeriodic(logMetricsReporter::report, METRICS_REPORT_PERIOD_MS, METRICS_REPORT_PERIOD_MS);
+
         }catch (Exception e){
             e.printStackTrace();
         }
 
     }
 
+    /**
+     * @return the vehicle id saved in the id file, or a new random UUID saved for the next starts
+     */
+    private static String loadVehicleId(File vehicleIdFile) throws IOException {
+
+        if(vehicleIdFile.isFile()){
+            String vehicleId = new String(Files.readAllBytes(vehicleIdFile.toPath()), StandardCharsets.UTF_8).trim();
+            if(!vehicleId.isEmpty())
+                return vehicleId;
+        }
+
+        String vehicleId = UUID.randomUUID().toString();
+        Files.write(vehicleIdFile.toPath(), vehicleId.getBytes(StandardCharsets.UTF_8));
+
+        return vehicleId;
+    }
+
 }
@@ -0,0 +1,161 @@
+package it.unimore.dipi.iot.fleet.replay;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sequential reader of a log written by the TelemetryRecorder. A partial record at the end of the log (e.g. the
+ * recorder has been killed while writing it) is treated as the end of the log.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:35
+ */
+public class TelemetryRecordReader implements Closeable {
+
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream inputStream;
+
+    private final List<String> topicList;
+
+    private final long recordingStartMillis;
+
+    //Arrival time of the last record from the first record of the log
+    private long arrivalOffsetMicros;
+
+    private boolean isFirstRecord;
+
+    public TelemetryRecordReader(File logFile) throws IOException {
+
+        this.inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile), INPUT_BUFFER_SIZE));
+        this.topicList = new ArrayList<>();
+
+        try{
+            if(this.inputStream.readInt() != TelemetryRecorder.LOG_MAGIC)
+                throw new IOException("Not a telemetry recording: " + logFile + " !");
+
+            byte version = this.inputStream.readByte();
+            if(version != TelemetryRecorder.LOG_VERSION)
+                throw new IOException(String.format("Unsupported telemetry recording version: %d !", version));
+
+            this.recordingStartMillis = this.inputStream.readLong();
+
+        }catch (IOException e){
+            this.inputStream.close();
+            throw e;
+        }
+
+        this.arrivalOffsetMicros = 0;
+        this.isFirstRecord = true;
+    }
+
+    /**
+     * @param record reusable record filled with the next message
+     * @return false at the end of the log (or at a truncated last record)
+     */
+    public boolean next(Record record) throws IOException {
+        try{
+            return readRecord(record);
+        }catch (EOFException e){
+            return false;
+        }
+    }
+
+    private boolean readRecord(Record record) throws IOException {
+
+        long arrivalDeltaMicros = readVarLong();
+
+        //The first record starts the replay timeline
+        if(!this.isFirstRecord)
+            this.arrivalOffsetMicros += arrivalDeltaMicros;
+        this.isFirstRecord = false;
+
+        int topicCode = (int) readVarLong();
+
+        if(topicCode == TelemetryRecorder.NEW_TOPIC_CODE){
+            byte[] topicBytes = new byte[(int) readVarLong()];
+            this.inputStream.readFully(topicBytes);
+            this.topicList.add(new String(topicBytes, StandardCharsets.UTF_8));
+            topicCode = this.topicList.size();
+        }
+
+        if(topicCode > this.topicList.size())
+            throw new IOException(String.format("Invalid topic code %d in telemetry recording !", topicCode));
+
+        record.topic = this.topicList.get(topicCode - 1);
+        record.qos = this.inputStream.readByte();
+        record.payload = new byte[(int) readVarLong()];
+        this.inputStream.readFully(record.payload);
+        record.arrivalOffsetMicros = this.arrivalOffsetMicros;
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.inputStream.close();
+    }
+
+    public long getRecordingStartMillis() {
+        return recordingStartMillis;
+    }
+
+    private long readVarLong() throws IOException {
+
+        long value = 0;
+
+        for(int shift = 0; shift < 64; shift += 7){
+            int currentByte = this.inputStream.readUnsignedByte();
+            value |= (long) (currentByte & 0x7F) << shift;
+            if((currentByte & 0x80) == 0)
+                return value;
+        }
+
+        throw new IOException("Invalid variable length value in telemetry recording !");
+    }
+
+    /**
+     * A recorded message
+     */
+    public static class Record {
+
+        private String topic;
+
+        private byte[] payload;
+
+        private int qos;
+
+        private long arrivalOffsetMicros;
+
+        public String getTopic() {
+            return topic;
+        }
+
+        /**
+         * @return a new array for each record (it can be retained by the consumers)
+         */
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public int getQos() {
+            return qos;
+        }
+
+        /**
+         * @return arrival time of the message from the first record of the recording (microseconds)
+         */
+        public long getArrivalOffsetMicros() {
+            return arrivalOffsetMicros;
+        }
+    }
+}
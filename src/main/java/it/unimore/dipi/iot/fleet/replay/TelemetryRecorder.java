@@ -0,0 +1,157 @@
+package it.unimore.dipi.iot.fleet.replay;
+
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Record the received MQTT messages (topic, payload, QoS and arrival time) in a compact log file, replayed
+ * by the TelemetryReplayer. The recorder is the IMqttMessageListener of the recorded subscription.
+ *
+ * Log layout: magic (int) | version (byte) | recording start (epoch ms, long) | records.
+ * Record: arrival time delta from the previous record (varint, microseconds) | topic code (varint, 0 = new topic
+ * followed by its varint length and UTF-8 bytes, otherwise index + 1 of a previously written topic) | QoS (byte) |
+ * payload length (varint) | payload.
+ * Topics are written once, so a record of a known vehicle topic only adds a few bytes to its payload.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:35
+ */
+public class TelemetryRecorder implements IMqttMessageListener, Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryRecorder.class);
+
+    static final int LOG_MAGIC = 0x54524331;
+
+    static final byte LOG_VERSION = 1;
+
+    static final int NEW_TOPIC_CODE = 0;
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    private final File logFile;
+
+    private final DataOutputStream outputStream;
+
+    private final Map<String, Integer> topicCodeMap;
+
+    private long lastArrivalMicros;
+
+    private long recordCount;
+
+    private long payloadBytes;
+
+    private boolean isClosed;
+
+    public TelemetryRecorder(File logFile) throws IOException {
+
+        this.logFile = logFile;
+        this.outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile), OUTPUT_BUFFER_SIZE));
+        this.topicCodeMap = new HashMap<>();
+        this.lastArrivalMicros = System.nanoTime() / 1000;
+        this.recordCount = 0;
+        this.payloadBytes = 0;
+        this.isClosed = false;
+
+        this.outputStream.writeInt(LOG_MAGIC);
+        this.outputStream.writeByte(LOG_VERSION);
+        this.outputStream.writeLong(System.currentTimeMillis());
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) throws Exception {
+        record(topic, message.getPayload(), message.getQos());
+    }
+
+    /**
+     * Record a message arrived now
+     */
+    public void record(String topic, byte[] payload, int qos) throws IOException {
+        record(topic, payload, qos, System.nanoTime() / 1000);
+    }
+
+    /**
+     * @param arrivalMicros arrival time in microseconds (System.nanoTime() based, never decreasing)
+     */
+    public synchronized void record(String topic, byte[] payload, int qos, long arrivalMicros) throws IOException {
+
+        if(this.isClosed)
+            throw new IOException("Telemetry recorder closed !");
+
+        writeVarLong(this.outputStream, Math.max(0, arrivalMicros - this.lastArrivalMicros));
+        this.lastArrivalMicros = Math.max(this.lastArrivalMicros, arrivalMicros);
+
+        Integer topicCode = this.topicCodeMap.get(topic);
+
+        if(topicCode != null)
+            writeVarLong(this.outputStream, topicCode);
+        else{
+            byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(this.outputStream, NEW_TOPIC_CODE);
+            writeVarLong(this.outputStream, topicBytes.length);
+            this.outputStream.write(topicBytes);
+            this.topicCodeMap.put(topic, this.topicCodeMap.size() + 1);
+        }
+
+        this.outputStream.writeByte(qos);
+        writeVarLong(this.outputStream, payload.length);
+        this.outputStream.write(payload);
+
+        this.recordCount++;
+        this.payloadBytes += payload.length;
+    }
+
+    public synchronized void flush() throws IOException {
+        this.outputStream.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+
+        if(this.isClosed)
+            return;
+
+        this.isClosed = true;
+        this.outputStream.close();
+
+        logger.info("Telemetry Recording Closed ! File: {} Records: {} Topics: {} Payload Bytes: {} File Bytes: {}",
+                this.logFile, this.recordCount, this.topicCodeMap.size(), this.payloadBytes, this.logFile.length());
+    }
+
+    public synchronized long getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized int getTopicCount() {
+        return this.topicCodeMap.size();
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Unsigned LEB128 encoding (7 bits for each byte)
+     */
+    private static void writeVarLong(DataOutputStream outputStream, long value) throws IOException {
+
+        while((value & ~0x7FL) != 0){
+            outputStream.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        outputStream.writeByte((int) value);
+    }
+}
@@ -0,0 +1,166 @@
+package it.unimore.dipi.iot.fleet.replay;
+
+import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replay a log written by the TelemetryRecorder into a ReplayTarget (e.g. an in-process ConsumerRuntime or a broker)
+ * at the recorded pace (speed 1), N times faster (speed N) or as fast as possible (MAX_SPEED).
+ *
+ * Records are delivered by a single thread in the recorded order, so the order of the messages of each vehicle
+ * (and of each topic) is preserved. When the target is slower than the requested pace, records are delivered as
+ * soon as possible and the maximum lag from the scheduled time is reported.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:35
+ */
+public class TelemetryReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryReplayer.class);
+
+    public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+    private final File logFile;
+
+    private final double speed;
+
+    private long replayedRecordCount;
+
+    private long failedRecordCount;
+
+    private long recordedDurationMicros;
+
+    private long elapsedNanos;
+
+    private long maxLagNanos;
+
+    /**
+     * Destination of the replayed messages
+     */
+    public interface ReplayTarget {
+        public void deliver(String topic, byte[] payload, int qos) throws Exception;
+    }
+
+    /**
+     * @param logFile recording of the TelemetryRecorder
+     * @param speed replay speed with respect to the recorded pace (MAX_SPEED = no pause between the records)
+     */
+    public TelemetryReplayer(File logFile, double speed) {
+
+        if(!(speed > 0.0))
+            throw new IllegalArgumentException("Replay speed must be > 0 !");
+
+        this.logFile = logFile;
+        this.speed = speed;
+    }
+
+    /**
+     * @return a target publishing each record to a broker through the client, with the recorded QoS
+     */
+    public static ReplayTarget toMqttClient(IMqttClient mqttClient){
+        return (topic, payload, qos) -> {
+            MqttMessage mqttMessage = new MqttMessage(payload);
+            mqttMessage.setQos(qos);
+            mqttClient.publish(topic, mqttMessage);
+        };
+    }
+
+    /**
+     * Replay the whole recording, blocking the caller
+     * @return the number of replayed records
+     */
+    public long replay(ReplayTarget replayTarget) throws IOException {
+
+        this.replayedRecordCount = 0;
+        this.failedRecordCount = 0;
+        this.maxLagNanos = 0;
+
+        boolean isPaced = !Double.isInfinite(this.speed);
+        TelemetryRecordReader.Record record = new TelemetryRecordReader.Record();
+        long startTime = System.nanoTime();
+
+        try(TelemetryRecordReader telemetryRecordReader = new TelemetryRecordReader(this.logFile)){
+
+            logger.info("Replaying: {} Speed: {} Recording Start: {}", this.logFile, isPaced ? this.speed + "x" : "MAX", telemetryRecordReader.getRecordingStartMillis());
+
+            while(telemetryRecordReader.next(record)){
+
+                if(isPaced){
+
+                    long scheduledTime = startTime + (long) (record.getArrivalOffsetMicros() * 1000.0 / this.speed);
+                    long waitNanos;
+
+                    while((waitNanos = scheduledTime - System.nanoTime()) > 0)
+                        LockSupport.parkNanos(waitNanos);
+
+                    this.maxLagNanos = Math.max(this.maxLagNanos, -waitNanos);
+                }
+
+                try{
+                    replayTarget.deliver(record.getTopic(), record.getPayload(), record.getQos());
+                }catch (Exception e){
+                    this.failedRecordCount++;
+                    logger.error("Error replaying record of topic: {} ! Msg: {}", record.getTopic(), e.getLocalizedMessage());
+                }
+
+                this.replayedRecordCount++;
+                this.recordedDurationMicros = record.getArrivalOffsetMicros();
+            }
+        }
+
+        this.elapsedNanos = System.nanoTime() - startTime;
+
+        logger.info("Replay Completed ! {}", getStats());
+
+        return this.replayedRecordCount;
+    }
+
+    public String getStats(){
+        final StringBuffer sb = new StringBuffer();
+        sb.append("records=").append(this.replayedRecordCount);
+        sb.append(", failed=").append(this.failedRecordCount);
+        sb.append(", recordedDurationMs=").append(this.recordedDurationMicros / 1000);
+        sb.append(", elapsedMs=").append(this.elapsedNanos / 1000000);
+        sb.append(", recordsPerSecond=").append(String.format("%.0f", getRecordsPerSecond()));
+        sb.append(", maxLagMs=").append(String.format("%.3f", this.maxLagNanos / 1e6));
+        return sb.toString();
+    }
+
+    public long getReplayedRecordCount() {
+        return replayedRecordCount;
+    }
+
+    public long getFailedRecordCount() {
+        return failedRecordCount;
+    }
+
+    public long getRecordedDurationMicros() {
+        return recordedDurationMicros;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return the maximum delay of a record from its scheduled replay time (paced replay only)
+     */
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    public double getRecordsPerSecond() {
+        return (this.elapsedNanos > 0 ? this.replayedRecordCount * 1e9 / this.elapsedNanos : 0.0);
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+}
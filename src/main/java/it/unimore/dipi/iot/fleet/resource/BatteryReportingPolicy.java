@@ -0,0 +1,32 @@
+package it.unimore.dipi.iot.fleet.resource;
+
+/**
+ * Dead-band reporting policy of the battery level (dead-band in percentage points)
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:58
+ */
+public class BatteryReportingPolicy extends DeadBandReportingPolicy<Double> {
+
+    private final double deadBandPercent;
+
+    /**
+     * @param deadBandPercent minimum battery level change (percentage points) to report a new sample
+     * @param maxIntervalMs maximum time between two reports (heartbeat)
+     */
+    public BatteryReportingPolicy(double deadBandPercent, long maxIntervalMs) {
+        super(maxIntervalMs);
+        this.deadBandPercent = deadBandPercent;
+    }
+
+    @Override
+    protected double getChange(Double lastReportedValue, Double value) {
+        return Math.abs(value - lastReportedValue);
+    }
+
+    @Override
+    protected double getDeadBand(Double value, long timestamp) {
+        return this.deadBandPercent;
+    }
+}
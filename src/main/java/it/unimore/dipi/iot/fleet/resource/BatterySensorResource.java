@@ -1,11 +1,12 @@
 package it.unimore.dipi.iot.fleet.resource;
 
+import it.unimore.dipi.iot.fleet.scheduler.ScheduledTask;
+import it.unimore.dipi.iot.fleet.scheduler.TaskScheduler;
+import it.unimore.dipi.iot.fleet.scheduler.TimerTaskScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
 
 /**
@@ -35,25 +36,42 @@ public class BatterySensorResource extends SmartObjectResource<Double> {
 
     private Random random = null;
 
-    private Timer updateTimer = null;
+    private TaskScheduler taskScheduler = null;
+
+    private boolean isTaskSchedulerOwner = false;
+
+    private ScheduledTask updateTask = null;
 
     public BatterySensorResource() {
         super(UUID.randomUUID().toString(), BatterySensorResource.RESOURCE_TYPE);
-        init();
+        init(null);
     }
 
     public BatterySensorResource(String id, String type) {
         super(id, type);
-        init();
+        init(null);
+    }
+
+    /**
+     * Create the resource using a shared TaskScheduler for the periodic update task
+     * @param taskScheduler
+     */
+    public BatterySensorResource(TaskScheduler taskScheduler) {
+        super(UUID.randomUUID().toString(), BatterySensorResource.RESOURCE_TYPE);
+        init(taskScheduler);
     }
 
     /**
      * Init internal random battery level in th range [MIN_BATTERY_LEVEL, MAX_BATTERY_LEVEL]
+     * If no TaskScheduler is provided a dedicated one is created for the resource
      */
-    private void init(){
+    private void init(TaskScheduler taskScheduler){
 
         try{
 
+            this.isTaskSchedulerOwner = (taskScheduler == null);
+            this.taskScheduler = (taskScheduler != null ? taskScheduler : new TimerTaskScheduler());
+
             this.random = new Random(System.currentTimeMillis());
             this.updatedBatteryLevel = MIN_BATTERY_LEVEL + this.random.nextDouble()*(MAX_BATTERY_LEVEL - MIN_BATTERY_LEVEL);
 
@@ -71,17 +89,13 @@ public class BatterySensorResource extends SmartObjectResource<Double> {
 
             logger.info("Starting periodic Update Task with Period: {} ms", UPDATE_PERIOD);
 
-            this.updateTimer = new Timer();
-            this.updateTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    updatedBatteryLevel = updatedBatteryLevel - (MIN_BATTERY_LEVEL_CONSUMPTION + MAX_BATTERY_LEVEL_CONSUMPTION * random.nextDouble());
-                    //logger.info("Updated Battery Level: {}", updatedBatteryLevel);
-                    //TODO Check if battery level <= 0.0 !
+            this.updateTask = this.taskScheduler.schedulePeriodic(() -> {
+                updatedBatteryLevel = updatedBatteryLevel - (MIN_BATTERY_LEVEL_CONSUMPTION + MAX_BATTERY_LEVEL_CONSUMPTION * random.nextDouble());
+                //logger.info("Updated Battery Level: {}", updatedBatteryLevel);
+                //TODO Check if battery level <= 0.0 !
 
-                    notifyUpdate(updatedBatteryLevel);
+                notifyUpdate(updatedBatteryLevel);
 
-                }
             }, TASK_DELAY_TIME, UPDATE_PERIOD);
 
         }catch (Exception e){
@@ -94,6 +108,16 @@ public class BatterySensorResource extends SmartObjectResource<Double> {
         return this.updatedBatteryLevel;
     }
 
+    @Override
+    public void stop() {
+
+        if(this.updateTask != null)
+            this.updateTask.cancel();
+
+        if(this.isTaskSchedulerOwner && this.taskScheduler != null)
+            this.taskScheduler.shutdown();
+    }
+
     public static void main(String[] args) {
 
         BatterySensorResource batterySensorResource = new BatterySensorResource();
@@ -0,0 +1,66 @@
+package it.unimore.dipi.iot.fleet.resource;
+
+/**
+ * Report a sample only when it differs from the last reported one by more than a dead-band,
+ * or when maxIntervalMs has elapsed since the last report (heartbeat). The first sample is always reported.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:58
+ */
+public abstract class DeadBandReportingPolicy<T> implements ReportingPolicy<T> {
+
+    private final long maxIntervalMs;
+
+    private T lastReportedValue;
+
+    private long lastReportedTimestamp;
+
+    /**
+     * @param maxIntervalMs maximum time between two reports (heartbeat)
+     */
+    protected DeadBandReportingPolicy(long maxIntervalMs) {
+
+        if(maxIntervalMs <= 0)
+            throw new IllegalArgumentException("Max interval must be > 0 !");
+
+        this.maxIntervalMs = maxIntervalMs;
+    }
+
+    @Override
+    public boolean shouldReport(T value, long timestamp) {
+
+        onSample(value, timestamp);
+
+        boolean report = this.lastReportedValue == null ||
+                timestamp - this.lastReportedTimestamp >= this.maxIntervalMs ||
+                getChange(this.lastReportedValue, value) > getDeadBand(value, timestamp);
+
+        if(report){
+            this.lastReportedValue = value;
+            this.lastReportedTimestamp = timestamp;
+        }
+
+        return report;
+    }
+
+    /**
+     * @return the change between the last reported value and the new one (e.g. meters, percent)
+     */
+    protected abstract double getChange(T lastReportedValue, T value);
+
+    /**
+     * @return the dead-band applied to the new sample (same unit of getChange())
+     */
+    protected abstract double getDeadBand(T value, long timestamp);
+
+    /**
+     * Invoked for every sample (reported or not) before the reporting decision
+     */
+    protected void onSample(T value, long timestamp){
+    }
+
+    public long getMaxIntervalMs() {
+        return maxIntervalMs;
+    }
+}
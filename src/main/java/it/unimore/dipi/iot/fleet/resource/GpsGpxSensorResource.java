@@ -1,15 +1,16 @@
 package it.unimore.dipi.iot.fleet.resource;
 
-import io.jenetics.jpx.GPX;
-import io.jenetics.jpx.Track;
-import io.jenetics.jpx.TrackSegment;
-import io.jenetics.jpx.WayPoint;
 import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.scheduler.ScheduledTask;
+import it.unimore.dipi.iot.fleet.scheduler.TaskScheduler;
+import it.unimore.dipi.iot.fleet.scheduler.TimerTaskScheduler;
+import it.unimore.dipi.iot.fleet.track.GpsTrack;
+import it.unimore.dipi.iot.fleet.track.GpsTrackCursor;
+import it.unimore.dipi.iot.fleet.track.GpsTrackStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -28,42 +29,55 @@ public class GpsGpxSensorResource extends SmartObjectResource<GpsLocationDescrip
 
     private static final long TASK_DELAY_TIME = 5000; //Seconds before starting the periodic update task
 
-    private Timer updateTimer = null;
+    private TaskScheduler taskScheduler = null;
 
-    private GpsLocationDescriptor updatedGpsLocationDescriptor = null;
+    private boolean isTaskSchedulerOwner = false;
+
+    private ScheduledTask updateTask = null;
 
-    private List<WayPoint> wayPointList = null;
+    private GpsLocationDescriptor updatedGpsLocationDescriptor = null;
 
-    private ListIterator<WayPoint> wayPointListIterator;
+    //Shared and immutable track, the vehicle only keeps its own cursor on it
+    private GpsTrackCursor trackCursor = null;
 
     public GpsGpxSensorResource() {
         super(UUID.randomUUID().toString(), GpsGpxSensorResource.RESOURCE_TYPE);
-        init();
+        init(null);
     }
 
     public GpsGpxSensorResource(String id, String type) {
         super(id, type);
-        init();
+        init(null);
     }
 
     /**
-     * - Load Gpx waypoint
+     * Create the resource using a shared TaskScheduler for the periodic update task
+     * @param taskScheduler
+     */
+    public GpsGpxSensorResource(TaskScheduler taskScheduler) {
+        super(UUID.randomUUID().toString(), GpsGpxSensorResource.RESOURCE_TYPE);
+        init(taskScheduler);
+    }
+
+    /**
+     * - Load Gpx waypoint (from the shared GpsTrackStore)
      * - Start Periodic Location update from available GPX points
+     * If no TaskScheduler is provided a dedicated one is created for the resource
      */
-    private void init(){
+    private void init(TaskScheduler taskScheduler){
 
         try{
 
+            this.isTaskSchedulerOwner = (taskScheduler == null);
+            this.taskScheduler = (taskScheduler != null ? taskScheduler : new TimerTaskScheduler());
+
             this.updatedGpsLocationDescriptor = new GpsLocationDescriptor();
 
-            this.wayPointList = GPX.read(GPX_FILE_NAME).tracks()
-                    .flatMap(Track::segments)
-                    .flatMap(TrackSegment::points)
-                    .collect(Collectors.toList());
+            GpsTrack gpsTrack = GpsTrackStore.getTrack(GPX_FILE_NAME);
 
-            logger.info("GPX File WayPoint correctly loaded ! Size: {}", this.wayPointList.size());
+            logger.debug("GPX File WayPoint correctly loaded ! Size: {}", gpsTrack.size());
 
-            this.wayPointListIterator = this.wayPointList.listIterator();
+            this.trackCursor = new GpsTrackCursor(gpsTrack);
 
             startPeriodicEventValueUpdateTask();
 
@@ -79,39 +93,33 @@ public class GpsGpxSensorResource extends SmartObjectResource<GpsLocationDescrip
 
             logger.info("Starting periodic Update Task with Period: {} ms", UPDATE_PERIOD);
 
-            this.updateTimer = new Timer();
-            this.updateTimer.schedule(new TimerTask() {
-                @Override
-                public void run() {
+            this.updateTask = this.taskScheduler.schedulePeriodic(() -> {
 
-                    if(wayPointListIterator.hasNext()){
+                int pointIndex = trackCursor.next();
 
-                        WayPoint currentWayPoint = wayPointListIterator.next();
+                if(pointIndex != GpsTrackCursor.DIRECTION_CHANGED){
 
-                        //logger.info("{} -> Lat:{}, Lng:{}",
-                        //        RESOURCE_TYPE,
-                        //        currentWayPoint.getLatitude(),
-                        //        currentWayPoint.getLongitude());
+                    GpsTrack gpsTrack = trackCursor.getTrack();
 
-                        updatedGpsLocationDescriptor = new GpsLocationDescriptor(
-                                currentWayPoint.getLatitude().doubleValue(),
-                                currentWayPoint.getLongitude().doubleValue(),
-                                (currentWayPoint.getElevation().isPresent() ? currentWayPoint.getElevation().get().doubleValue() : 0.0),
-                                GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
+                    //logger.info("{} -> Lat:{}, Lng:{}",
+                    //        RESOURCE_TYPE,
+                    //        gpsTrack.getLatitude(pointIndex),
+                    //        gpsTrack.getLongitude(pointIndex));
 
-                        notifyUpdate(updatedGpsLocationDescriptor);
-
-                    }
-                    //At the end of the WayPoint List
-                    else{
-                        logger.info("Reversing WayPoint List ...");
-                        Collections.reverse(wayPointList);
-                        wayPointListIterator = wayPointList.listIterator();
-                        logger.info("Iterating backward on the GPS Waypoint List ...");
-                    }
+                    updatedGpsLocationDescriptor = new GpsLocationDescriptor(
+                            gpsTrack.getLatitude(pointIndex),
+                            gpsTrack.getLongitude(pointIndex),
+                            gpsTrack.getElevation(pointIndex),
+                            GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
 
+                    notifyUpdate(updatedGpsLocationDescriptor);
 
                 }
+                //At the end of the WayPoint List
+                else{
+                    logger.info("Iterating {} on the GPS Waypoint List ...", (trackCursor.isForward() ? "forward" : "backward"));
+                }
+
             }, TASK_DELAY_TIME, UPDATE_PERIOD);
 
         }catch (Exception e){
@@ -124,6 +132,16 @@ public class GpsGpxSensorResource extends SmartObjectResource<GpsLocationDescrip
         return this.updatedGpsLocationDescriptor;
     }
 
+    @Override
+    public void stop() {
+
+        if(this.updateTask != null)
+            this.updateTask.cancel();
+
+        if(this.isTaskSchedulerOwner && this.taskScheduler != null)
+            this.taskScheduler.shutdown();
+    }
+
     public static void main(String[] args) {
         GpsGpxSensorResource gpsGpxSensorResource = new GpsGpxSensorResource();
 
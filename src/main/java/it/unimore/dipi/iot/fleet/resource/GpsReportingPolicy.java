@@ -0,0 +1,86 @@
+package it.unimore.dipi.iot.fleet.resource;
+
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.geo.GeoDistance;
+
+/**
+ * Dead-band reporting policy of the vehicle location (dead-band in meters).
+ *
+ * With a speed adaptive window the dead-band grows with the vehicle speed (estimated from
+ * consecutive samples) to speed * speedWindowMs, so slow vehicles report every deadBandMeters while
+ * fast vehicles report at most every speedWindowMs instead of on every sample.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:58
+ */
+public class GpsReportingPolicy extends DeadBandReportingPolicy<GpsLocationDescriptor> {
+
+    private final double deadBandMeters;
+
+    private final long speedWindowMs;
+
+    private GpsLocationDescriptor lastLocation;
+
+    private long lastTimestamp;
+
+    //Meters per millisecond
+    private double speed;
+
+    /**
+     * @param deadBandMeters minimum distance from the last reported location to report a new sample
+     * @param maxIntervalMs maximum time between two reports (heartbeat)
+     */
+    public GpsReportingPolicy(double deadBandMeters, long maxIntervalMs) {
+        this(deadBandMeters, maxIntervalMs, 0);
+    }
+
+    /**
+     * @param deadBandMeters minimum distance from the last reported location to report a new sample
+     * @param maxIntervalMs maximum time between two reports (heartbeat)
+     * @param speedWindowMs speed adaptive window (0 = disabled)
+     */
+    public GpsReportingPolicy(double deadBandMeters, long maxIntervalMs, long speedWindowMs) {
+        super(maxIntervalMs);
+        this.deadBandMeters = deadBandMeters;
+        this.speedWindowMs = speedWindowMs;
+        this.speed = 0.0;
+    }
+
+    @Override
+    protected double getChange(GpsLocationDescriptor lastReportedValue, GpsLocationDescriptor value) {
+        return getDistance(lastReportedValue, value);
+    }
+
+    @Override
+    protected double getDeadBand(GpsLocationDescriptor value, long timestamp) {
+
+        if(this.speedWindowMs <= 0)
+            return this.deadBandMeters;
+
+        return Math.max(this.deadBandMeters, this.speed * this.speedWindowMs);
+    }
+
+    @Override
+    protected void onSample(GpsLocationDescriptor value, long timestamp) {
+
+        if(this.speedWindowMs > 0 && this.lastLocation != null && timestamp > this.lastTimestamp)
+            this.speed = getDistance(this.lastLocation, value) / (timestamp - this.lastTimestamp);
+
+        this.lastLocation = value;
+        this.lastTimestamp = timestamp;
+    }
+
+    /**
+     * @return the estimated speed of the vehicle (m/s)
+     */
+    public double getSpeed() {
+        return this.speed * 1000.0;
+    }
+
+    private static double getDistance(GpsLocationDescriptor location, GpsLocationDescriptor otherLocation){
+        //Consecutive samples are close, the equirectangular approximation is enough for a dead-band
+        return GeoDistance.equirectangular(location.getLatitude(), location.getLongitude(),
+                otherLocation.getLatitude(), otherLocation.getLongitude());
+    }
+}
@@ -0,0 +1,20 @@
+package it.unimore.dipi.iot.fleet.resource;
+
+/**
+ * Decides which samples of a SmartObjectResource are notified to its listeners (and therefore published).
+ * A policy instance keeps the reporting state of a single resource and it is invoked by its update task.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:58
+ */
+public interface ReportingPolicy<T> {
+
+    /**
+     * @param value the new sample of the resource
+     * @param timestamp sample timestamp (ms)
+     * @return true if the sample has to be reported, false if it can be suppressed
+     */
+    public boolean shouldReport(T value, long timestamp);
+
+}
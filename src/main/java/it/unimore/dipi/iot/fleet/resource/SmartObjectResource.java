@@ -1,10 +1,13 @@
 package it.unimore.dipi.iot.fleet.resource;
 
+import it.unimore.dipi.iot.fleet.metrics.LatencyHistogram;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
@@ -15,12 +18,22 @@ public abstract class SmartObjectResource<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(SmartObjectResource.class);
 
+    //Time from the notification of a sample to the return of its listeners (serialization and publish included)
+    private static final LatencyHistogram notifyHistogram = MetricsRegistry.getDefault().histogram("vehicle.notify");
+
     protected List<ResourceDataListener<T>> resourceListenerList;
 
     private String id;
 
     private String type;
 
+    //Optional filter of the notified samples (null = every sample is notified)
+    private ReportingPolicy<T> reportingPolicy;
+
+    private final LongAdder reportedSampleCounter = new LongAdder();
+
+    private final LongAdder suppressedSampleCounter = new LongAdder();
+
     public SmartObjectResource() {
         this.resourceListenerList = new ArrayList<>();
     }
@@ -33,6 +46,12 @@ public abstract class SmartObjectResource<T> {
 
     public abstract T loadUpdatedValue();
 
+    /**
+     * Stop the resource internal behaviour (e.g. the periodic update task)
+     */
+    public void stop(){
+    }
+
     public void addDataListener(ResourceDataListener<T> resourceDataListener){
         if(this.resourceListenerList != null)
             this.resourceListenerList.add(resourceDataListener);
@@ -44,15 +63,56 @@ public abstract class SmartObjectResource<T> {
     }
 
     protected void notifyUpdate(T updatedValue){
-        if(this.resourceListenerList != null && this.resourceListenerList.size() > 0)
-            this.resourceListenerList.forEach(resourceDataListener -> {
+
+        if(this.reportingPolicy != null && !this.reportingPolicy.shouldReport(updatedValue, System.currentTimeMillis())){
+            this.suppressedSampleCounter.increment();
+            return;
+        }
+
+        this.reportedSampleCounter.increment();
+
+        if(this.resourceListenerList != null && this.resourceListenerList.size() > 0){
+
+            long startTime = System.nanoTime();
+
+            for(int i = 0; i < this.resourceListenerList.size(); i++){
+                ResourceDataListener<T> resourceDataListener = this.resourceListenerList.get(i);
                 if(resourceDataListener != null)
                     resourceDataListener.onDataChanged(this, updatedValue);
-            });
+            }
+
+            notifyHistogram.record(System.nanoTime() - startTime);
+        }
         else
             logger.error("Empty or Null Resource Data Listener ! Nothing to notify ...");
     }
 
+    /**
+     * Set the policy used to decide which samples are notified to the listeners (null = all the samples)
+     * @param reportingPolicy a dedicated policy instance for this resource
+     */
+    public void setReportingPolicy(ReportingPolicy<T> reportingPolicy) {
+        this.reportingPolicy = reportingPolicy;
+    }
+
+    public ReportingPolicy<T> getReportingPolicy() {
+        return reportingPolicy;
+    }
+
+    /**
+     * @return the number of samples notified to the listeners
+     */
+    public long getReportedSampleCount() {
+        return this.reportedSampleCounter.sum();
+    }
+
+    /**
+     * @return the number of samples suppressed by the reporting policy
+     */
+    public long getSuppressedSampleCount() {
+        return this.suppressedSampleCounter.sum();
+    }
+
     public String getId() {
         return id;
     }
@@ -0,0 +1,268 @@
+package it.unimore.dipi.iot.fleet.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hashed Timing Wheel scheduler shared by a large number of emulated resources.
+ *
+ * A single tick thread advances the wheel every tickDurationMs and hands the expired tasks
+ * to a small fixed pool of worker threads. Scheduling and cancelling a task are O(1) and the
+ * number of threads does not depend on the number of scheduled tasks, so the same instance
+ * can drive the sensors of thousands of vehicles.
+ *
+ * Buckets are only accessed by the tick thread. New (and rescheduled) tasks are handed over
+ * through a concurrent queue and moved into their bucket at the beginning of each tick.
+ * Cancelled tasks are lazily removed when their bucket is processed.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public class HashedWheelTaskScheduler implements TaskScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedWheelTaskScheduler.class);
+
+    public static final long DEFAULT_TICK_DURATION_MS = 10;
+
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickDurationNanos;
+
+    private final int wheelMask;
+
+    private final Queue<WheelTask>[] wheel;
+
+    private final Queue<WheelTask> pendingTaskQueue;
+
+    private final ExecutorService workerExecutor;
+
+    private final Thread tickThread;
+
+    private final LongAdder executedTaskCounter;
+
+    private final AtomicInteger activeTaskCounter;
+
+    private final long startTimeNanos;
+
+    private volatile boolean running;
+
+    public HashedWheelTaskScheduler(int workerCount) {
+        this(workerCount, DEFAULT_TICK_DURATION_MS, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Create and start the scheduler
+     * @param workerCount number of threads executing the expired tasks
+     * @param tickDurationMs resolution of the wheel in milliseconds
+     * @param wheelSize number of buckets of the wheel (rounded up to the next power of two)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashedWheelTaskScheduler(int workerCount, long tickDurationMs, int wheelSize) {
+
+        if(workerCount <= 0 || tickDurationMs <= 0 || wheelSize <= 0)
+            throw new IllegalArgumentException("Worker count, tick duration and wheel size must be > 0 !");
+
+        int normalizedWheelSize = Integer.highestOneBit(wheelSize);
+        if(normalizedWheelSize < wheelSize)
+            normalizedWheelSize = normalizedWheelSize << 1;
+
+        this.tickDurationNanos = TimeUnit.MILLISECONDS.toNanos(tickDurationMs);
+        this.wheelMask = normalizedWheelSize - 1;
+        this.wheel = new Queue[normalizedWheelSize];
+        for(int i = 0; i < normalizedWheelSize; i++)
+            this.wheel[i] = new ArrayDeque<>();
+
+        this.pendingTaskQueue = new ConcurrentLinkedQueue<>();
+        this.executedTaskCounter = new LongAdder();
+        this.activeTaskCounter = new AtomicInteger(0);
+
+        AtomicInteger workerIndex = new AtomicInteger(0);
+        this.workerExecutor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, String.format("wheel-worker-%d", workerIndex.getAndIncrement()));
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.running = true;
+        this.startTimeNanos = System.nanoTime();
+
+        this.tickThread = new Thread(this::runWheel, "wheel-tick");
+        this.tickThread.setDaemon(true);
+        this.tickThread.start();
+
+        logger.info("Hashed Wheel Scheduler started ! Workers: {} Tick: {} ms Wheel Size: {}",
+                workerCount, tickDurationMs, normalizedWheelSize);
+    }
+
+    @Override
+    public ScheduledTask schedulePeriodic(Runnable task, long initialDelayMs, long periodMs) {
+
+        if(task == null || periodMs <= 0)
+            throw new IllegalArgumentException("Task must be not null and period must be > 0 !");
+
+        if(!this.running)
+            throw new IllegalStateException("Scheduler already shut down !");
+
+        WheelTask wheelTask = new WheelTask(task,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, initialDelayMs)),
+                TimeUnit.MILLISECONDS.toNanos(periodMs));
+
+        this.activeTaskCounter.incrementAndGet();
+        this.pendingTaskQueue.add(wheelTask);
+
+        return wheelTask;
+    }
+
+    @Override
+    public void shutdown() {
+        this.running = false;
+        this.tickThread.interrupt();
+        this.workerExecutor.shutdownNow();
+        logger.info("Hashed Wheel Scheduler stopped ! Executed Tasks: {}", getExecutedTaskCount());
+    }
+
+    /**
+     * @return the total number of task executions since the scheduler started
+     */
+    public long getExecutedTaskCount() {
+        return this.executedTaskCounter.sum();
+    }
+
+    /**
+     * @return the number of scheduled and not cancelled tasks
+     */
+    public int getActiveTaskCount() {
+        return this.activeTaskCounter.get();
+    }
+
+    private void runWheel(){
+
+        long tick = 0;
+
+        while(this.running){
+
+            long tickDeadline = this.startTimeNanos + (tick + 1) * this.tickDurationNanos;
+            long sleepNanos = tickDeadline - System.nanoTime();
+
+            if(sleepNanos > 0){
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if(!this.running)
+                        break;
+                }
+            }
+
+            transferPendingTasks(tick);
+            expireBucket(this.wheel[(int)(tick & this.wheelMask)]);
+
+            tick++;
+        }
+    }
+
+    private void transferPendingTasks(long currentTick){
+
+        WheelTask wheelTask;
+
+        while((wheelTask = this.pendingTaskQueue.poll()) != null){
+
+            if(wheelTask.cancelled)
+                continue;
+
+            long deadlineTick = (wheelTask.deadlineNanos - this.startTimeNanos) / this.tickDurationNanos;
+            long targetTick = Math.max(deadlineTick, currentTick);
+
+            wheelTask.remainingRounds = (targetTick - currentTick) / this.wheel.length;
+            this.wheel[(int)(targetTick & this.wheelMask)].add(wheelTask);
+        }
+    }
+
+    private void expireBucket(Queue<WheelTask> bucket){
+
+        int bucketSize = bucket.size();
+
+        for(int i = 0; i < bucketSize; i++){
+
+            WheelTask wheelTask = bucket.poll();
+
+            if(wheelTask.cancelled)
+                continue;
+
+            if(wheelTask.remainingRounds > 0){
+                wheelTask.remainingRounds--;
+                bucket.add(wheelTask);
+            }
+            else {
+                try{
+                    this.workerExecutor.execute(wheelTask);
+                }catch (Exception e){
+                    if(this.running)
+                        logger.error("Error submitting expired task ! Msg: {}", e.getLocalizedMessage());
+                }
+            }
+        }
+    }
+
+    private class WheelTask implements ScheduledTask, Runnable {
+
+        private final Runnable task;
+
+        private final long periodNanos;
+
+        private long deadlineNanos;
+
+        private long remainingRounds;
+
+        private volatile boolean cancelled = false;
+
+        private WheelTask(Runnable task, long deadlineNanos, long periodNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.periodNanos = periodNanos;
+        }
+
+        @Override
+        public void run() {
+
+            if(this.cancelled)
+                return;
+
+            try{
+                this.task.run();
+            }catch (Throwable t){
+                logger.error("Error executing scheduled task ! Msg: {}", t.getLocalizedMessage());
+            }
+
+            executedTaskCounter.increment();
+
+            //Fixed rate rescheduling, without trying to recover the executions lost by a late task
+            this.deadlineNanos = Math.max(this.deadlineNanos + this.periodNanos, System.nanoTime());
+
+            if(!this.cancelled && running)
+                pendingTaskQueue.add(this);
+        }
+
+        @Override
+        public synchronized void cancel() {
+            if(!this.cancelled){
+                this.cancelled = true;
+                activeTaskCounter.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package it.unimore.dipi.iot.fleet.scheduler;
+
+/**
+ * Handle of a task scheduled through a TaskScheduler
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public interface ScheduledTask {
+
+    public void cancel();
+
+    public boolean isCancelled();
+
+}
@@ -0,0 +1,28 @@
+package it.unimore.dipi.iot.fleet.scheduler;
+
+/**
+ * Scheduler used by Smart Object Resources to run their periodic value update task.
+ * The same instance can be shared across multiple resources (and vehicles) in order to
+ * keep the number of threads independent from the number of emulated devices.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public interface TaskScheduler {
+
+    /**
+     * Schedule a periodic task
+     * @param task the task to execute
+     * @param initialDelayMs delay before the first execution in milliseconds
+     * @param periodMs period between two consecutive executions in milliseconds
+     * @return the handle of the scheduled task that can be used to cancel it
+     */
+    public ScheduledTask schedulePeriodic(Runnable task, long initialDelayMs, long periodMs);
+
+    /**
+     * Stop the scheduler and cancel all the pending tasks
+     */
+    public void shutdown();
+
+}
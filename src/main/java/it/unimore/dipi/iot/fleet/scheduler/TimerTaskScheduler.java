@@ -0,0 +1,55 @@
+package it.unimore.dipi.iot.fleet.scheduler;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * TaskScheduler backed by a dedicated java.util.Timer (one thread per scheduler instance).
+ * It is the default scheduler used by a resource when no shared scheduler is provided.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public class TimerTaskScheduler implements TaskScheduler {
+
+    private Timer timer;
+
+    public TimerTaskScheduler() {
+        this.timer = new Timer();
+    }
+
+    @Override
+    public ScheduledTask schedulePeriodic(Runnable task, long initialDelayMs, long periodMs) {
+
+        TimerTask timerTask = new TimerTask() {
+            @Override
+            public void run() {
+                task.run();
+            }
+        };
+
+        this.timer.schedule(timerTask, initialDelayMs, periodMs);
+
+        return new ScheduledTask() {
+
+            private volatile boolean cancelled = false;
+
+            @Override
+            public void cancel() {
+                this.cancelled = true;
+                timerTask.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return this.cancelled;
+            }
+        };
+    }
+
+    @Override
+    public void shutdown() {
+        this.timer.cancel();
+    }
+}
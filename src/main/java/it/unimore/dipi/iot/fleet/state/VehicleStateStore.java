@@ -0,0 +1,270 @@
+package it.unimore.dipi.iot.fleet.state;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compact per-vehicle monitoring state of a consumer: last level (e.g. the battery reference level), alarm flags and
+ * the timestamp of the last notification of each alarm type.
+ *
+ * Vehicle ids are interned once into a dense int index and the state lives in chunks of primitive arrays
+ * (CHUNK_SIZE vehicles each, allocated on demand), so the state of a vehicle takes exactly
+ * getBytesPerVehicle() bytes (12 + 8 bytes for each alarm type) with no object for each vehicle apart from the
+ * id map entry. Updates of a vehicle are atomic (striped locks on its index) so the store can be updated
+ * concurrently by multiple dispatch threads. Vehicles are never evicted.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:13
+ */
+public class VehicleStateStore {
+
+    public static final int CHUNK_SIZE = 4096;
+
+    public static final int MAX_ALARM_TYPES = 32;
+
+    private static final int CHUNK_SHIFT = Integer.numberOfTrailingZeros(CHUNK_SIZE);
+
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int LOCK_STRIPES = 1024;
+
+    private final int alarmTypeCount;
+
+    private final Map<String, Integer> vehicleIndexMap;
+
+    private final AtomicInteger vehicleCount;
+
+    private final Object[] locks;
+
+    private volatile Chunk[] chunks;
+
+    /**
+     * @param alarmTypeCount number of independent alarms of each vehicle (at most MAX_ALARM_TYPES)
+     */
+    public VehicleStateStore(int alarmTypeCount) {
+
+        if(alarmTypeCount < 1 || alarmTypeCount > MAX_ALARM_TYPES)
+            throw new IllegalArgumentException(String.format("Alarm type count must be in [1, %d] !", MAX_ALARM_TYPES));
+
+        this.alarmTypeCount = alarmTypeCount;
+        this.vehicleIndexMap = new ConcurrentHashMap<>();
+        this.vehicleCount = new AtomicInteger(0);
+        this.chunks = new Chunk[0];
+        this.locks = new Object[LOCK_STRIPES];
+
+        for(int i = 0; i < LOCK_STRIPES; i++)
+            this.locks[i] = new Object();
+    }
+
+    /**
+     * @param vehicleId
+     * @return the index of the vehicle, registering it (with no level and no alarm) if it is new
+     */
+    public int getVehicleIndex(String vehicleId){
+
+        Integer vehicleIndex = this.vehicleIndexMap.get(vehicleId);
+
+        if(vehicleIndex != null)
+            return vehicleIndex;
+
+        return this.vehicleIndexMap.computeIfAbsent(vehicleId, id -> allocateVehicleIndex());
+    }
+
+    /**
+     * @return the index of the vehicle or -1 if it is not registered
+     */
+    public int findVehicleIndex(String vehicleId){
+        Integer vehicleIndex = this.vehicleIndexMap.get(vehicleId);
+        return (vehicleIndex != null ? vehicleIndex : -1);
+    }
+
+    /**
+     * @return the last level of the vehicle or NaN if no level has been saved
+     */
+    public double getLevel(int vehicleIndex){
+        synchronized (getLock(vehicleIndex)){
+            return getChunk(vehicleIndex).levels[vehicleIndex & CHUNK_MASK];
+        }
+    }
+
+    public void setLevel(int vehicleIndex, double level){
+        synchronized (getLock(vehicleIndex)){
+            getChunk(vehicleIndex).levels[vehicleIndex & CHUNK_MASK] = level;
+        }
+    }
+
+    /**
+     * Process a new level sample: a level above the saved one (or the first one) is saved and clears the alarm, while a level
+     * dropped by at least alarmDrop from the saved one raises the alarm (see raiseAlarm)
+     *
+     * @return true if the alarm has been raised by this sample and has to be notified
+     */
+    public boolean updateLevel(int vehicleIndex, double level, double alarmDrop, int alarmType, long timestamp, long cooldownMs){
+
+        checkAlarmType(alarmType);
+
+        synchronized (getLock(vehicleIndex)){
+
+            Chunk chunk = getChunk(vehicleIndex);
+            int offset = vehicleIndex & CHUNK_MASK;
+            double savedLevel = chunk.levels[offset];
+
+            if(Double.isNaN(savedLevel) || level > savedLevel){
+                chunk.levels[offset] = level;
+                chunk.alarmFlags[offset] &= ~(1 << alarmType);
+                return false;
+            }
+
+            return (savedLevel - level >= alarmDrop) && raiseAlarm(chunk, offset, alarmType, timestamp, cooldownMs);
+        }
+    }
+
+    /**
+     * Raise an alarm if it is not raised yet or if it has been notified at least cooldownMs ago (0 = notify once until cleared)
+     *
+     * @return true if the alarm has to be notified
+     */
+    public boolean raiseAlarm(int vehicleIndex, int alarmType, long timestamp, long cooldownMs){
+
+        checkAlarmType(alarmType);
+
+        synchronized (getLock(vehicleIndex)){
+            return raiseAlarm(getChunk(vehicleIndex), vehicleIndex & CHUNK_MASK, alarmType, timestamp, cooldownMs);
+        }
+    }
+
+    /**
+     * @return true if the alarm was raised
+     */
+    public boolean clearAlarm(int vehicleIndex, int alarmType){
+
+        checkAlarmType(alarmType);
+
+        synchronized (getLock(vehicleIndex)){
+
+            Chunk chunk = getChunk(vehicleIndex);
+            int offset = vehicleIndex & CHUNK_MASK;
+            boolean isRaised = (chunk.alarmFlags[offset] & (1 << alarmType)) != 0;
+
+            chunk.alarmFlags[offset] &= ~(1 << alarmType);
+
+            return isRaised;
+        }
+    }
+
+    public boolean isAlarmRaised(int vehicleIndex, int alarmType){
+
+        checkAlarmType(alarmType);
+
+        synchronized (getLock(vehicleIndex)){
+            return (getChunk(vehicleIndex).alarmFlags[vehicleIndex & CHUNK_MASK] & (1 << alarmType)) != 0;
+        }
+    }
+
+    /**
+     * @return the timestamp of the last notification of the alarm (0 if never notified)
+     */
+    public long getAlarmTimestamp(int vehicleIndex, int alarmType){
+
+        checkAlarmType(alarmType);
+
+        synchronized (getLock(vehicleIndex)){
+            return getChunk(vehicleIndex).alarmTimestamps[(vehicleIndex & CHUNK_MASK) * this.alarmTypeCount + alarmType];
+        }
+    }
+
+    public int getVehicleCount() {
+        return this.vehicleCount.get();
+    }
+
+    public int getAlarmTypeCount() {
+        return alarmTypeCount;
+    }
+
+    /**
+     * @return the state bytes of each vehicle (level, alarm flags and alarm timestamps), excluding the id map entry
+     */
+    public int getBytesPerVehicle(){
+        return Double.BYTES + Integer.BYTES + Long.BYTES * this.alarmTypeCount;
+    }
+
+    /**
+     * @return the bytes of the allocated state chunks
+     */
+    public long getAllocatedBytes(){
+        return (long) this.chunks.length * CHUNK_SIZE * getBytesPerVehicle();
+    }
+
+    private boolean raiseAlarm(Chunk chunk, int offset, int alarmType, long timestamp, long cooldownMs){
+
+        int timestampOffset = offset * this.alarmTypeCount + alarmType;
+        boolean isRaised = (chunk.alarmFlags[offset] & (1 << alarmType)) != 0;
+
+        if(isRaised && (cooldownMs <= 0 || timestamp - chunk.alarmTimestamps[timestampOffset] < cooldownMs))
+            return false;
+
+        chunk.alarmFlags[offset] |= (1 << alarmType);
+        chunk.alarmTimestamps[timestampOffset] = timestamp;
+
+        return true;
+    }
+
+    private int allocateVehicleIndex(){
+
+        int vehicleIndex = this.vehicleCount.getAndIncrement();
+        int chunkIndex = vehicleIndex >>> CHUNK_SHIFT;
+
+        //The chunk is published before the index is returned
+        if(chunkIndex >= this.chunks.length){
+            synchronized (this){
+                if(chunkIndex >= this.chunks.length){
+                    Chunk[] newChunks = Arrays.copyOf(this.chunks, Math.max(chunkIndex + 1, this.chunks.length * 2));
+                    for(int i = this.chunks.length; i < newChunks.length; i++)
+                        newChunks[i] = new Chunk(this.alarmTypeCount);
+                    this.chunks = newChunks;
+                }
+            }
+        }
+
+        return vehicleIndex;
+    }
+
+    private Chunk getChunk(int vehicleIndex){
+
+        if(vehicleIndex < 0 || vehicleIndex >= this.vehicleCount.get())
+            throw new IllegalArgumentException(String.format("Unknown vehicle index: %d !", vehicleIndex));
+
+        return this.chunks[vehicleIndex >>> CHUNK_SHIFT];
+    }
+
+    private Object getLock(int vehicleIndex){
+        return this.locks[vehicleIndex & (LOCK_STRIPES - 1)];
+    }
+
+    private void checkAlarmType(int alarmType){
+        if(alarmType < 0 || alarmType >= this.alarmTypeCount)
+            throw new IllegalArgumentException(String.format("Unknown alarm type: %d !", alarmType));
+    }
+
+    /**
+     * State of CHUNK_SIZE consecutive vehicle indexes
+     */
+    private static class Chunk {
+
+        private final double[] levels;
+
+        private final int[] alarmFlags;
+
+        private final long[] alarmTimestamps;
+
+        private Chunk(int alarmTypeCount) {
+            this.levels = new double[CHUNK_SIZE];
+            this.alarmFlags = new int[CHUNK_SIZE];
+            this.alarmTimestamps = new long[CHUNK_SIZE * alarmTypeCount];
+            Arrays.fill(this.levels, Double.NaN);
+        }
+    }
+}
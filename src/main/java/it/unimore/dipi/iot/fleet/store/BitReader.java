@@ -0,0 +1,61 @@
+package it.unimore.dipi.iot.fleet.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bit stream reader (most significant bit first) on a region of a ByteBuffer. Only absolute reads are used,
+ * so the same buffer (e.g. a memory-mapped segment) can be read by multiple readers at the same time.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:32
+ */
+public class BitReader {
+
+    private final ByteBuffer buffer;
+
+    private final int offset;
+
+    private long bitPosition;
+
+    /**
+     * @param buffer
+     * @param offset index of the first byte of the stream in the buffer
+     */
+    public BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.bitPosition = 0;
+    }
+
+    public boolean readBit(){
+        return readBits(1) != 0;
+    }
+
+    /**
+     * @param bitCount number of bits in [0, 64]
+     * @return the bits in the lowest bitCount bits
+     */
+    public long readBits(int bitCount){
+
+        long value = 0;
+
+        while(bitCount > 0){
+
+            int availableBits = 8 - (int) (this.bitPosition & 7);
+            int readBits = Math.min(availableBits, bitCount);
+            int currentByte = this.buffer.get(this.offset + (int) (this.bitPosition >>> 3)) & 0xFF;
+
+            value = (value << readBits) | ((currentByte >>> (availableBits - readBits)) & ((1 << readBits) - 1));
+
+            bitCount -= readBits;
+            this.bitPosition += readBits;
+        }
+
+        return value;
+    }
+
+    public long getBitPosition() {
+        return bitPosition;
+    }
+}
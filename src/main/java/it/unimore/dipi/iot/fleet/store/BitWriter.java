@@ -0,0 +1,79 @@
+package it.unimore.dipi.iot.fleet.store;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Append only bit stream (most significant bit first) on a growable byte array
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:32
+ */
+public class BitWriter {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private byte[] buffer;
+
+    private long bitCount;
+
+    public BitWriter() {
+        this.buffer = new byte[INITIAL_CAPACITY];
+        this.bitCount = 0;
+    }
+
+    public void writeBit(boolean bit){
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * @param value the bits to write in the lowest bitCount bits
+     * @param bitCount number of bits in [0, 64]
+     */
+    public void writeBits(long value, int bitCount){
+
+        while(bitCount > 0){
+
+            int byteIndex = (int) (this.bitCount >>> 3);
+            if(byteIndex >= this.buffer.length)
+                this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+
+            int freeBits = 8 - (int) (this.bitCount & 7);
+            int writtenBits = Math.min(freeBits, bitCount);
+            int bits = (int) ((value >>> (bitCount - writtenBits)) & ((1 << writtenBits) - 1));
+
+            this.buffer[byteIndex] |= (byte) (bits << (freeBits - writtenBits));
+
+            bitCount -= writtenBits;
+            this.bitCount += writtenBits;
+        }
+    }
+
+    /**
+     * Copy the written bytes (last byte padded with zeros) in the target buffer
+     */
+    public void writeTo(ByteBuffer byteBuffer){
+        byteBuffer.put(this.buffer, 0, getByteCount());
+    }
+
+    public void reset(){
+        Arrays.fill(this.buffer, 0, getByteCount(), (byte) 0);
+        this.bitCount = 0;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getByteCount() {
+        return (int) ((this.bitCount + 7) >>> 3);
+    }
+
+    /**
+     * @return the bytes written so far (only the first getByteCount() bytes are valid)
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+}
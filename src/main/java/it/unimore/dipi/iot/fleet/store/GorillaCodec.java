@@ -0,0 +1,204 @@
+package it.unimore.dipi.iot.fleet.store;
+
+/**
+ * Gorilla time-series compression (Pelkonen et al., VLDB 2015) of a column of timestamps and of a column of double values.
+ *
+ * Timestamps: the first timestamp is written on 64 bits, then the delta-of-delta of each timestamp (zigzag encoded)
+ * with a prefix selecting its size: '0' (same interval), '10' + 7 bits, '110' + 9 bits, '1110' + 12 bits, '1111' + 64 bits.
+ *
+ * Values: the first value is written on 64 bits, then the XOR with the previous value: '0' (same value), '10' + the
+ * meaningful bits if they fit in the previous leading/trailing zeros window, otherwise '11' + 5 bits of leading zeros +
+ * 6 bits of meaningful bit count + the meaningful bits.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:32
+ */
+public final class GorillaCodec {
+
+    private static final int[] DELTA_OF_DELTA_BITS = {7, 9, 12};
+
+    private static final int MAX_LEADING_ZEROS = 31;
+
+    private GorillaCodec() {
+    }
+
+    public static class TimestampEncoder {
+
+        private long previousTimestamp;
+
+        private long previousDelta;
+
+        private int count;
+
+        public void write(BitWriter bitWriter, long timestamp){
+
+            if(this.count == 0)
+                bitWriter.writeBits(timestamp, 64);
+            else{
+
+                long delta = timestamp - this.previousTimestamp;
+                long deltaOfDelta = delta - this.previousDelta;
+                long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 63);
+
+                if(zigzag == 0)
+                    bitWriter.writeBit(false);
+                else{
+
+                    int prefixIndex = 0;
+                    while(prefixIndex < DELTA_OF_DELTA_BITS.length && (zigzag >>> DELTA_OF_DELTA_BITS[prefixIndex]) != 0)
+                        prefixIndex++;
+
+                    //prefixIndex + 1 ones, followed by a zero except for the largest size
+                    bitWriter.writeBits((1L << (prefixIndex + 1)) - 1, prefixIndex + 1);
+
+                    if(prefixIndex < DELTA_OF_DELTA_BITS.length){
+                        bitWriter.writeBit(false);
+                        bitWriter.writeBits(zigzag, DELTA_OF_DELTA_BITS[prefixIndex]);
+                    }
+                    else
+                        bitWriter.writeBits(zigzag, 64);
+                }
+
+                this.previousDelta = delta;
+            }
+
+            this.previousTimestamp = timestamp;
+            this.count++;
+        }
+
+        public void reset(){
+            this.previousTimestamp = 0;
+            this.previousDelta = 0;
+            this.count = 0;
+        }
+    }
+
+    public static class TimestampDecoder {
+
+        private long previousTimestamp;
+
+        private long previousDelta;
+
+        private int count;
+
+        public long read(BitReader bitReader){
+
+            if(this.count == 0)
+                this.previousTimestamp = bitReader.readBits(64);
+            else{
+
+                int prefixIndex = 0;
+                while(prefixIndex <= DELTA_OF_DELTA_BITS.length && bitReader.readBit())
+                    prefixIndex++;
+
+                long deltaOfDelta = 0;
+
+                if(prefixIndex > 0){
+                    long zigzag = bitReader.readBits(prefixIndex <= DELTA_OF_DELTA_BITS.length ? DELTA_OF_DELTA_BITS[prefixIndex - 1] : 64);
+                    deltaOfDelta = (zigzag >>> 1) ^ -(zigzag & 1);
+                }
+
+                this.previousDelta += deltaOfDelta;
+                this.previousTimestamp += this.previousDelta;
+            }
+
+            this.count++;
+            return this.previousTimestamp;
+        }
+    }
+
+    public static class ValueEncoder {
+
+        private long previousBits;
+
+        private int previousLeadingZeros;
+
+        private int previousTrailingZeros;
+
+        private int count;
+
+        public ValueEncoder() {
+            reset();
+        }
+
+        public void write(BitWriter bitWriter, double value){
+
+            long bits = Double.doubleToRawLongBits(value);
+
+            if(this.count == 0)
+                bitWriter.writeBits(bits, 64);
+            else{
+
+                long xor = bits ^ this.previousBits;
+
+                if(xor == 0)
+                    bitWriter.writeBit(false);
+                else{
+
+                    int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+                    int trailingZeros = Long.numberOfTrailingZeros(xor);
+
+                    bitWriter.writeBit(true);
+
+                    if(this.previousLeadingZeros >= 0 && leadingZeros >= this.previousLeadingZeros && trailingZeros >= this.previousTrailingZeros){
+                        //Meaningful bits within the previous window
+                        bitWriter.writeBit(false);
+                        bitWriter.writeBits(xor >>> this.previousTrailingZeros, 64 - this.previousLeadingZeros - this.previousTrailingZeros);
+                    }
+                    else{
+                        int meaningfulBits = 64 - leadingZeros - trailingZeros;
+                        bitWriter.writeBit(true);
+                        bitWriter.writeBits(leadingZeros, 5);
+                        bitWriter.writeBits(meaningfulBits - 1, 6);
+                        bitWriter.writeBits(xor >>> trailingZeros, meaningfulBits);
+
+                        this.previousLeadingZeros = leadingZeros;
+                        this.previousTrailingZeros = trailingZeros;
+                    }
+                }
+            }
+
+            this.previousBits = bits;
+            this.count++;
+        }
+
+        public void reset(){
+            this.previousBits = 0;
+            this.previousLeadingZeros = -1;
+            this.previousTrailingZeros = 0;
+            this.count = 0;
+        }
+    }
+
+    public static class ValueDecoder {
+
+        private long previousBits;
+
+        private int previousLeadingZeros;
+
+        private int previousTrailingZeros;
+
+        private int count;
+
+        public double read(BitReader bitReader){
+
+            if(this.count == 0)
+                this.previousBits = bitReader.readBits(64);
+            else if(bitReader.readBit()){
+
+                if(bitReader.readBit()){
+                    this.previousLeadingZeros = (int) bitReader.readBits(5);
+                    int meaningfulBits = (int) bitReader.readBits(6) + 1;
+                    this.previousTrailingZeros = 64 - this.previousLeadingZeros - meaningfulBits;
+                }
+
+                int meaningfulBits = 64 - this.previousLeadingZeros - this.previousTrailingZeros;
+                this.previousBits ^= (bitReader.readBits(meaningfulBits) << this.previousTrailingZeros);
+            }
+
+            this.count++;
+            return Double.longBitsToDouble(this.previousBits);
+        }
+    }
+}
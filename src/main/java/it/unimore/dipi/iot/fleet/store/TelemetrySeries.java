@@ -0,0 +1,40 @@
+package it.unimore.dipi.iot.fleet.store;
+
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+
+/**
+ * Time series kept for each vehicle by the TelemetryStore, each one with a timestamp column and its value columns
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:32
+ */
+public enum TelemetrySeries {
+
+    //Latitude, longitude and elevation columns
+    LOCATION(GpsGpxSensorResource.RESOURCE_TYPE, 3),
+
+    //Battery level column
+    BATTERY(BatterySensorResource.RESOURCE_TYPE, 1);
+
+    private final String type;
+
+    private final int valueColumnCount;
+
+    TelemetrySeries(String type, int valueColumnCount) {
+        this.type = type;
+        this.valueColumnCount = valueColumnCount;
+    }
+
+    /**
+     * @return the telemetry message type of the series samples
+     */
+    public String getType() {
+        return type;
+    }
+
+    public int getValueColumnCount() {
+        return valueColumnCount;
+    }
+}
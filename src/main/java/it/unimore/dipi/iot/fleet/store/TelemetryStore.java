@@ -0,0 +1,622 @@
+package it.unimore.dipi.iot.fleet.store;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySampleListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only, memory-mapped columnar store of the fleet telemetry history.
+ *
+ * Each vehicle has a LOCATION (timestamp, latitude, longitude, elevation) and a BATTERY (timestamp, level) series.
+ * Samples are appended to the open block of their series, where each column is compressed with the GorillaCodec
+ * (delta-of-delta timestamps and XOR values). Once a block reaches blockSampleCount samples it is sealed and appended
+ * to the current memory-mapped segment file of the store directory (a new segment is created when the current one
+ * is full). Sealed blocks are indexed in memory by vehicle, series and time range, so a time-range query only reads
+ * the overlapping blocks (and the open block). The index is rebuilt from the block headers when an existing store
+ * is opened.
+ *
+ * Block layout: magic (int) | block length (int) | series (byte) | vehicle id (unsigned short length, UTF-8 bytes) |
+ * sample count (int) | min timestamp (long) | max timestamp (long) | bit count of each column (int) | column bytes.
+ * The magic is written last, so a block interrupted by a crash is ignored at the next opening. Samples of the open
+ * blocks are written when the store is flushed or closed, or when their block gets older than a maximum age
+ * (sealAgedBlocks, periodically called by the owner of the store), bounding the samples lost by a crash. Appends after
+ * the store is closed fail.
+ *
+ * Samples of the same vehicle are expected from a single thread at a time (e.g. a ConsumerRuntime lane), while
+ * different vehicles and queries can be handled concurrently.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:32
+ */
+public class TelemetryStore implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryStore.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    public static final int DEFAULT_BLOCK_SAMPLE_COUNT = 256;
+
+    private static final int BLOCK_MAGIC = 0x54534231;
+
+    private static final String SEGMENT_FILE_FORMAT = "telemetry-%05d.seg";
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final int blockSampleCount;
+
+    private final List<MappedByteBuffer> segmentList;
+
+    private final Map<String, VehicleSeries[]> vehicleSeriesMap;
+
+    private final AtomicLong appendedSampleCounter;
+
+    private final AtomicLong sealedSampleCounter;
+
+    private final AtomicLong sealedBlockCounter;
+
+    private final AtomicLong sealedByteCounter;
+
+    //Write position in the last segment (guarded by the store lock)
+    private int writeOffset;
+
+    private final AtomicBoolean isClosed;
+
+    public TelemetryStore(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_BLOCK_SAMPLE_COUNT);
+    }
+
+    /**
+     * @param directory directory of the segment files (created if missing, existing segments are opened)
+     * @param segmentSize size of each memory-mapped segment file
+     * @param blockSampleCount number of samples of a sealed block
+     */
+    public TelemetryStore(File directory, int segmentSize, int blockSampleCount) throws IOException {
+
+        if(segmentSize <= 0 || blockSampleCount <= 0)
+            throw new IllegalArgumentException("Segment size and block sample count must be > 0 !");
+
+        if(!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Unable to create the telemetry store directory: " + directory + " !");
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.blockSampleCount = blockSampleCount;
+        this.segmentList = new CopyOnWriteArrayList<>();
+        this.vehicleSeriesMap = new ConcurrentHashMap<>();
+        this.appendedSampleCounter = new AtomicLong(0);
+        this.sealedSampleCounter = new AtomicLong(0);
+        this.sealedBlockCounter = new AtomicLong(0);
+        this.sealedByteCounter = new AtomicLong(0);
+        this.writeOffset = 0;
+        this.isClosed = new AtomicBoolean(false);
+
+        openSegments();
+    }
+
+    /**
+     * Seal the open blocks whose first sample was appended more than maxBlockAgeMs ago and write the segments to the
+     * storage device
+     * @return the number of sealed blocks
+     */
+    public int sealAgedBlocks(long maxBlockAgeMs) throws IOException {
+
+        long minOpenTime = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(maxBlockAgeMs);
+        int sealedBlockCount = 0;
+
+        for(VehicleSeries[] vehicleSeries : this.vehicleSeriesMap.values())
+            for(VehicleSeries series : vehicleSeries)
+                if(series.sealIfOpenedBefore(minOpenTime))
+                    sealedBlockCount++;
+
+        if(sealedBlockCount > 0)
+            for(MappedByteBuffer segment : this.segmentList)
+                segment.force();
+
+        return sealedBlockCount;
+    }
+
+    public void appendLocation(String vehicleId, long timestamp, double latitude, double longitude, double elevation) throws IOException {
+        getVehicleSeries(vehicleId, TelemetrySeries.LOCATION).append(timestamp, latitude, longitude, elevation);
+    }
+
+    public void appendBatteryLevel(String vehicleId, long timestamp, double batteryLevel) throws IOException {
+        getVehicleSeries(vehicleId, TelemetrySeries.BATTERY).append(timestamp, batteryLevel, 0.0, 0.0);
+    }
+
+    /**
+     * Read the samples of a vehicle series in [fromTimestamp, toTimestamp], in insertion order
+     *
+     * @param telemetrySample reusable holder filled with each sample
+     * @param telemetrySampleListener invoked for each sample
+     * @return the number of samples
+     */
+    public int query(String vehicleId, TelemetrySeries telemetrySeries, long fromTimestamp, long toTimestamp,
+                     TelemetrySample telemetrySample, TelemetrySampleListener telemetrySampleListener) throws IOException {
+
+        VehicleSeries[] vehicleSeries = this.vehicleSeriesMap.get(vehicleId);
+
+        if(vehicleSeries == null)
+            return 0;
+
+        return vehicleSeries[telemetrySeries.ordinal()].query(fromTimestamp, toTimestamp, telemetrySample, telemetrySampleListener);
+    }
+
+    /**
+     * Seal the open blocks and write the segments to the storage device
+     */
+    public void flush() throws IOException {
+
+        for(VehicleSeries[] vehicleSeries : this.vehicleSeriesMap.values())
+            for(VehicleSeries series : vehicleSeries)
+                series.seal();
+
+        for(MappedByteBuffer segment : this.segmentList)
+            segment.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+
+        //Not synchronized on the store: sealing locks a series and then the store
+        if(!this.isClosed.compareAndSet(false, true))
+            return;
+
+        flush();
+
+        logger.info("Telemetry Store Closed ! {}", getStats());
+    }
+
+    public String getStats(){
+        final StringBuffer sb = new StringBuffer();
+        sb.append("vehicles=").append(this.vehicleSeriesMap.size());
+        sb.append(", samples=").append(getSampleCount());
+        sb.append(", blocks=").append(getBlockCount());
+        sb.append(", segments=").append(this.segmentList.size());
+        sb.append(", bytesPerSample=").append(String.format("%.2f", getBytesPerSample()));
+        return sb.toString();
+    }
+
+    /**
+     * @return the number of samples of the store (sealed and open blocks)
+     */
+    public long getSampleCount() {
+        return this.appendedSampleCounter.get();
+    }
+
+    public long getBlockCount() {
+        return this.sealedBlockCounter.get();
+    }
+
+    /**
+     * @return the bytes of the sealed blocks
+     */
+    public long getStoredBytes() {
+        return this.sealedByteCounter.get();
+    }
+
+    /**
+     * @return the average size of a sample in the sealed blocks (headers included)
+     */
+    public double getBytesPerSample() {
+        long sealedSampleCount = this.sealedSampleCounter.get();
+        return (sealedSampleCount > 0 ? (double) this.sealedByteCounter.get() / sealedSampleCount : 0.0);
+    }
+
+    public int getVehicleCount() {
+        return this.vehicleSeriesMap.size();
+    }
+
+    private VehicleSeries getVehicleSeries(String vehicleId, TelemetrySeries telemetrySeries){
+        return this.vehicleSeriesMap.computeIfAbsent(vehicleId, this::createVehicleSeries)[telemetrySeries.ordinal()];
+    }
+
+    private VehicleSeries[] createVehicleSeries(String vehicleId){
+
+        VehicleSeries[] vehicleSeries = new VehicleSeries[TelemetrySeries.values().length];
+
+        for(TelemetrySeries telemetrySeries : TelemetrySeries.values())
+            vehicleSeries[telemetrySeries.ordinal()] = new VehicleSeries(vehicleId, telemetrySeries);
+
+        return vehicleSeries;
+    }
+
+    /**
+     * Map the existing segments and index their blocks
+     */
+    private void openSegments() throws IOException {
+
+        for(int segmentIndex = 0; ; segmentIndex++){
+
+            File segmentFile = new File(this.directory, String.format(SEGMENT_FILE_FORMAT, segmentIndex));
+
+            if(!segmentFile.exists())
+                break;
+
+            MappedByteBuffer segment = mapSegment(segmentFile, (int) Math.max(segmentFile.length(), this.segmentSize));
+            this.segmentList.add(segment);
+
+            int offset = 0;
+
+            while(offset + 8 <= segment.capacity() && segment.getInt(offset) == BLOCK_MAGIC){
+
+                int blockLength = segment.getInt(offset + 4);
+                BlockHeader blockHeader = BlockHeader.read(segment, offset);
+
+                VehicleSeries vehicleSeries = getVehicleSeries(blockHeader.vehicleId, blockHeader.telemetrySeries);
+                vehicleSeries.addBlock(new BlockRef(segmentIndex, blockHeader));
+
+                this.appendedSampleCounter.addAndGet(blockHeader.sampleCount);
+                this.sealedSampleCounter.addAndGet(blockHeader.sampleCount);
+                this.sealedBlockCounter.incrementAndGet();
+                this.sealedByteCounter.addAndGet(blockLength);
+
+                offset += blockLength;
+            }
+
+            this.writeOffset = offset;
+        }
+
+        if(!this.segmentList.isEmpty())
+            logger.info("Telemetry Store Opened ! Directory: {} {}", this.directory, getStats());
+    }
+
+    private static MappedByteBuffer mapSegment(File segmentFile, int size) throws IOException {
+        try(RandomAccessFile randomAccessFile = new RandomAccessFile(segmentFile, "rw")){
+            //The mapping stays valid after the channel is closed
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Append a sealed block to the last segment (a new segment if it does not fit)
+     * @return the reference of the written block
+     */
+    private synchronized BlockRef writeBlock(VehicleSeries vehicleSeries, byte[] vehicleIdBytes) throws IOException {
+
+        int headerLength = 4 + 4 + 1 + 2 + vehicleIdBytes.length + 4 + 8 + 8 + 4 * vehicleSeries.columnWriters.length;
+        int blockLength = headerLength;
+        for(BitWriter columnWriter : vehicleSeries.columnWriters)
+            blockLength += columnWriter.getByteCount();
+
+        if(blockLength > this.segmentSize)
+            throw new IOException(String.format("Block of %d bytes larger than the segment size !", blockLength));
+
+        if(this.segmentList.isEmpty() || this.writeOffset + blockLength > this.segmentList.get(this.segmentList.size() - 1).capacity()){
+            File segmentFile = new File(this.directory, String.format(SEGMENT_FILE_FORMAT, this.segmentList.size()));
+            this.segmentList.add(mapSegment(segmentFile, this.segmentSize));
+            this.writeOffset = 0;
+        }
+
+        int segmentIndex = this.segmentList.size() - 1;
+        int offset = this.writeOffset;
+        ByteBuffer block = this.segmentList.get(segmentIndex).duplicate();
+        block.position(offset + 4);
+
+        block.putInt(blockLength);
+        block.put((byte) vehicleSeries.telemetrySeries.ordinal());
+        block.putShort((short) vehicleIdBytes.length);
+        block.put(vehicleIdBytes);
+        block.putInt(vehicleSeries.sampleCount);
+        block.putLong(vehicleSeries.minTimestamp);
+        block.putLong(vehicleSeries.maxTimestamp);
+
+        for(BitWriter columnWriter : vehicleSeries.columnWriters)
+            block.putInt((int) columnWriter.getBitCount());
+
+        for(BitWriter columnWriter : vehicleSeries.columnWriters)
+            columnWriter.writeTo(block);
+
+        //Written last: the block is visible to the next opening only once complete
+        block.putInt(offset, BLOCK_MAGIC);
+
+        this.writeOffset += blockLength;
+        this.sealedSampleCounter.addAndGet(vehicleSeries.sampleCount);
+        this.sealedBlockCounter.incrementAndGet();
+        this.sealedByteCounter.addAndGet(blockLength);
+
+        return new BlockRef(segmentIndex, BlockHeader.read(this.segmentList.get(segmentIndex), offset));
+    }
+
+    /**
+     * Sealed blocks and open block of a series of a vehicle
+     */
+    private class VehicleSeries {
+
+        private final String vehicleId;
+
+        private final TelemetrySeries telemetrySeries;
+
+        private final List<BlockRef> blockList;
+
+        //Column 0 timestamps, then the value columns
+        private final BitWriter[] columnWriters;
+
+        private final GorillaCodec.TimestampEncoder timestampEncoder;
+
+        private final GorillaCodec.ValueEncoder[] valueEncoders;
+
+        private int sampleCount;
+
+        private long minTimestamp;
+
+        private long maxTimestamp;
+
+        //Append time (ns) of the first sample of the open block
+        private long openTime;
+
+        private VehicleSeries(String vehicleId, TelemetrySeries telemetrySeries) {
+
+            this.vehicleId = vehicleId;
+            this.telemetrySeries = telemetrySeries;
+            this.blockList = new ArrayList<>();
+            this.columnWriters = new BitWriter[1 + telemetrySeries.getValueColumnCount()];
+            this.timestampEncoder = new GorillaCodec.TimestampEncoder();
+            this.valueEncoders = new GorillaCodec.ValueEncoder[telemetrySeries.getValueColumnCount()];
+
+            for(int i = 0; i < this.columnWriters.length; i++)
+                this.columnWriters[i] = new BitWriter();
+
+            for(int i = 0; i < this.valueEncoders.length; i++)
+                this.valueEncoders[i] = new GorillaCodec.ValueEncoder();
+
+            resetOpenBlock();
+        }
+
+        private synchronized void append(long timestamp, double firstValue, double secondValue, double thirdValue) throws IOException {
+
+            //Checked under the series lock: a sample appended before the close is sealed by the flush of the close
+            if(isClosed.get())
+                throw new IOException("Telemetry Store is closed !");
+
+            if(this.sampleCount == 0)
+                this.openTime = System.nanoTime();
+
+            this.timestampEncoder.write(this.columnWriters[0], timestamp);
+            this.valueEncoders[0].write(this.columnWriters[1], firstValue);
+
+            if(this.valueEncoders.length > 1){
+                this.valueEncoders[1].write(this.columnWriters[2], secondValue);
+                this.valueEncoders[2].write(this.columnWriters[3], thirdValue);
+            }
+
+            this.sampleCount++;
+            this.minTimestamp = Math.min(this.minTimestamp, timestamp);
+            this.maxTimestamp = Math.max(this.maxTimestamp, timestamp);
+
+            appendedSampleCounter.incrementAndGet();
+
+            if(this.sampleCount >= blockSampleCount)
+                seal();
+        }
+
+        private synchronized void addBlock(BlockRef blockRef){
+            this.blockList.add(blockRef);
+        }
+
+        /**
+         * Write the open block (if not empty) to the store
+         */
+        private synchronized void seal() throws IOException {
+
+            if(this.sampleCount == 0)
+                return;
+
+            this.blockList.add(writeBlock(this, this.vehicleId.getBytes(StandardCharsets.UTF_8)));
+            resetOpenBlock();
+        }
+
+        /**
+         * Seal the open block if its first sample was appended before minOpenTime (ns)
+         * @return true if the block has been sealed
+         */
+        private synchronized boolean sealIfOpenedBefore(long minOpenTime) throws IOException {
+
+            if(this.sampleCount == 0 || this.openTime - minOpenTime > 0)
+                return false;
+
+            seal();
+            return true;
+        }
+
+        private synchronized int query(long fromTimestamp, long toTimestamp, TelemetrySample telemetrySample, TelemetrySampleListener telemetrySampleListener) throws IOException {
+
+            int resultCount = 0;
+
+            for(BlockRef blockRef : this.blockList)
+                if(blockRef.maxTimestamp >= fromTimestamp && blockRef.minTimestamp <= toTimestamp){
+
+                    resultCount += readBlock(segmentList.get(blockRef.segmentIndex), blockRef.dataOffset, blockRef.columnBitCounts, blockRef.sampleCount,
+                            fromTimestamp, toTimestamp, telemetrySample, telemetrySampleListener);
+                }
+
+            if(this.sampleCount > 0 && this.maxTimestamp >= fromTimestamp && this.minTimestamp <= toTimestamp){
+
+                //Columns of the open block are read from the writers, one after the other as in a sealed block
+                int dataLength = 0;
+                long[] columnBitCounts = new long[this.columnWriters.length];
+
+                for(int i = 0; i < this.columnWriters.length; i++){
+                    columnBitCounts[i] = this.columnWriters[i].getBitCount();
+                    dataLength += this.columnWriters[i].getByteCount();
+                }
+
+                ByteBuffer openBlock = ByteBuffer.allocate(dataLength);
+                for(BitWriter columnWriter : this.columnWriters)
+                    columnWriter.writeTo(openBlock);
+
+                resultCount += readBlock(openBlock, 0, columnBitCounts, this.sampleCount,
+                        fromTimestamp, toTimestamp, telemetrySample, telemetrySampleListener);
+            }
+
+            return resultCount;
+        }
+
+        private int readBlock(ByteBuffer buffer, int dataOffset, long[] columnBitCounts, int blockSampleCount, long fromTimestamp, long toTimestamp,
+                              TelemetrySample telemetrySample, TelemetrySampleListener telemetrySampleListener) throws IOException {
+
+            BitReader[] columnReaders = new BitReader[columnBitCounts.length];
+            int columnOffset = dataOffset;
+
+            for(int i = 0; i < columnReaders.length; i++){
+                columnReaders[i] = new BitReader(buffer, columnOffset);
+                columnOffset += (int) ((columnBitCounts[i] + 7) >>> 3);
+            }
+
+            GorillaCodec.TimestampDecoder timestampDecoder = new GorillaCodec.TimestampDecoder();
+            GorillaCodec.ValueDecoder[] valueDecoders = new GorillaCodec.ValueDecoder[columnReaders.length - 1];
+            for(int i = 0; i < valueDecoders.length; i++)
+                valueDecoders[i] = new GorillaCodec.ValueDecoder();
+
+            int resultCount = 0;
+
+            for(int s = 0; s < blockSampleCount; s++){
+
+                long timestamp = timestampDecoder.read(columnReaders[0]);
+                double firstValue = valueDecoders[0].read(columnReaders[1]);
+                double secondValue = (valueDecoders.length > 1 ? valueDecoders[1].read(columnReaders[2]) : 0.0);
+                double thirdValue = (valueDecoders.length > 1 ? valueDecoders[2].read(columnReaders[3]) : 0.0);
+
+                if(timestamp < fromTimestamp || timestamp > toTimestamp)
+                    continue;
+
+                telemetrySample.reset();
+                telemetrySample.setTimestamp(timestamp);
+                telemetrySample.setType(this.telemetrySeries.getType());
+
+                if(this.telemetrySeries == TelemetrySeries.LOCATION)
+                    telemetrySample.setLocationValue(firstValue, secondValue, thirdValue, null);
+                else
+                    telemetrySample.setNumberValue(firstValue);
+
+                try{
+                    telemetrySampleListener.onSample(telemetrySample);
+                }catch (IOException e){
+                    throw e;
+                }catch (Exception e){
+                    throw new IOException("Error processing telemetry sample !", e);
+                }
+
+                resultCount++;
+            }
+
+            return resultCount;
+        }
+
+        private void resetOpenBlock(){
+
+            for(BitWriter columnWriter : this.columnWriters)
+                columnWriter.reset();
+
+            this.timestampEncoder.reset();
+
+            for(GorillaCodec.ValueEncoder valueEncoder : this.valueEncoders)
+                valueEncoder.reset();
+
+            this.sampleCount = 0;
+            this.minTimestamp = Long.MAX_VALUE;
+            this.maxTimestamp = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Time range and column positions of a sealed block, so queries do not parse the block header
+     */
+    private static class BlockRef {
+
+        private final int segmentIndex;
+
+        private final int dataOffset;
+
+        private final int sampleCount;
+
+        private final long minTimestamp;
+
+        private final long maxTimestamp;
+
+        private final long[] columnBitCounts;
+
+        private BlockRef(int segmentIndex, BlockHeader blockHeader) {
+            this.segmentIndex = segmentIndex;
+            this.dataOffset = blockHeader.dataOffset;
+            this.sampleCount = blockHeader.sampleCount;
+            this.minTimestamp = blockHeader.minTimestamp;
+            this.maxTimestamp = blockHeader.maxTimestamp;
+            this.columnBitCounts = blockHeader.columnBitCounts;
+        }
+    }
+
+    private static class BlockHeader {
+
+        private String vehicleId;
+
+        private TelemetrySeries telemetrySeries;
+
+        private int sampleCount;
+
+        private long minTimestamp;
+
+        private long maxTimestamp;
+
+        private long[] columnBitCounts;
+
+        //Offset of the first column
+        private int dataOffset;
+
+        /**
+         * Parse the header of the block at offset (absolute reads only)
+         */
+        private static BlockHeader read(ByteBuffer segment, int offset){
+
+            BlockHeader blockHeader = new BlockHeader();
+            int position = offset + 8;
+
+            blockHeader.telemetrySeries = TelemetrySeries.values()[segment.get(position)];
+            position += 1;
+
+            int vehicleIdLength = segment.getShort(position) & 0xFFFF;
+            position += 2;
+
+            byte[] vehicleIdBytes = new byte[vehicleIdLength];
+            for(int i = 0; i < vehicleIdLength; i++)
+                vehicleIdBytes[i] = segment.get(position + i);
+            blockHeader.vehicleId = new String(vehicleIdBytes, StandardCharsets.UTF_8);
+            position += vehicleIdLength;
+
+            blockHeader.sampleCount = segment.getInt(position);
+            blockHeader.minTimestamp = segment.getLong(position + 4);
+            blockHeader.maxTimestamp = segment.getLong(position + 12);
+            position += 20;
+
+            blockHeader.columnBitCounts = new long[1 + blockHeader.telemetrySeries.getValueColumnCount()];
+            for(int i = 0; i < blockHeader.columnBitCounts.length; i++){
+                blockHeader.columnBitCounts[i] = segment.getInt(position) & 0xFFFFFFFFL;
+                position += 4;
+            }
+
+            blockHeader.dataOffset = position;
+
+            return blockHeader;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.consumer.TrafficMonitoringStage;
+import it.unimore.dipi.iot.fleet.geo.GeoHash;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compare the alert of a jammed area sent to each vehicle (one control for each vehicle close to the event) with the
+ * retained alerts of the geohash cells of the area (TrafficMonitoringStage area control), for thousands of vehicles
+ * around the demo traffic event. It reports the number of published controls, their bytes and the time needed to
+ * publish them, then the cost of the cell check of a vehicle and the number of area subscription changes of vehicles
+ * driving at 50 km/h.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:43
+ */
+public class AreaControlBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(AreaControlBenchmark.class);
+
+    private static final int[] VEHICLE_COUNTS = {1000, 5000, 20000};
+
+    //Demo traffic event of the TrafficMonitoringStage
+    private static final double EVENT_LATITUDE = 44.79503800000001;
+
+    private static final double EVENT_LONGITUDE = 10.32686911666667;
+
+    private static final double VEHICLE_MAX_DISTANCE_METERS = 1900.0;
+
+    private static final int PRECISION = TrafficMonitoringStage.DEFAULT_AREA_CONTROL_PRECISION;
+
+    //Coarser cells: fewer alerts, but received also by the vehicles farther from the event
+    private static final int COARSE_PRECISION = PRECISION - 1;
+
+    private static final int ENCODE_ITERATIONS = 5000000;
+
+    private static final double SPEED_METERS_PER_SECOND = 50.0 / 3.6;
+
+    private static final int DRIVE_SECONDS = 3600;
+
+    private static final int DRIVING_VEHICLES = 1000;
+
+    public static void main(String[] args) {
+
+        try{
+
+            ObjectMapper mapper = new ObjectMapper();
+
+            for(int vehicleCount : VEHICLE_COUNTS){
+                runFanOut(mapper, vehicleCount, 0);
+                runFanOut(mapper, vehicleCount, PRECISION);
+                runFanOut(mapper, vehicleCount, COARSE_PRECISION);
+            }
+
+            measureCellCheck();
+            measureSubscriptionChanges();
+
+        }catch (Exception e){
+            logger.error("Error running Area Control Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static void runFanOut(ObjectMapper mapper, int vehicleCount, int precision) throws Exception {
+
+        Random random = new Random(42);
+        byte[][] payloads = new byte[vehicleCount][];
+
+        for(int v = 0; v < vehicleCount; v++){
+            double[] position = move(EVENT_LATITUDE, EVENT_LONGITUDE, random.nextDouble() * 2 * Math.PI, Math.sqrt(random.nextDouble()) * VEHICLE_MAX_DISTANCE_METERS);
+            payloads[v] = mapper.writeValueAsBytes(new TelemetryMessage<>(GpsGpxSensorResource.RESOURCE_TYPE,
+                    new GpsLocationDescriptor(position[0], position[1], 40.0, GpsLocationDescriptor.FILE_LOCATION_PROVIDER)));
+        }
+
+        LongAdder publishCounter = new LongAdder();
+        LongAdder byteCounter = new LongAdder();
+
+        ConsumerRuntime consumerRuntime = new ConsumerRuntime("area-control");
+        TrafficMonitoringStage trafficMonitoringStage = new TrafficMonitoringStage(precision);
+        consumerRuntime.addStage(trafficMonitoringStage);
+
+        ControlMessagePublisher controlMessagePublisher = new ControlMessagePublisher((topic, payload) -> {
+                    publishCounter.increment();
+                    byteCounter.add(topic.length() + payload.length);
+                }, mapper,
+                ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                Math.max(ControlMessagePublisher.DEFAULT_MAX_PENDING_CONTROLS, vehicleCount),
+                0);
+
+        long startTime = System.nanoTime();
+
+        //Area alerts are published at start, then each vehicle reports its position
+        consumerRuntime.start(controlMessagePublisher);
+
+        for(int v = 0; v < vehicleCount; v++)
+            consumerRuntime.process(String.format("fleet/vehicle/vehicle-%05d/telemetry/gps", v), payloads[v]);
+
+        while(controlMessagePublisher.getPendingControlCount() > 0 || publishCounter.sum() < controlMessagePublisher.getSubmittedControlCount() - controlMessagePublisher.getCoalescedControlCount())
+            Thread.sleep(1);
+
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        logger.info("[{}] Vehicles: {} - Controls: {} - Bytes: {} - Time: {} ms (samples and controls) - {}",
+                precision > 0 ? "AREA " + precision : "PER VEHICLE",
+                vehicleCount,
+                publishCounter.sum(),
+                byteCounter.sum(),
+                String.format("%.1f", elapsedNanos / 1e6),
+                precision > 0 ? "Cells: " + trafficMonitoringStage.getAreaCells(trafficMonitoringStage.getTrafficEventIndex().query(EVENT_LATITUDE, EVENT_LONGITUDE, 0.1).get(0)).size() : "one control for each vehicle");
+
+        consumerRuntime.shutdown();
+    }
+
+    private static void measureCellCheck(){
+
+        Random random = new Random(7);
+        double[] latitudes = new double[1024];
+        double[] longitudes = new double[1024];
+
+        for(int i = 0; i < latitudes.length; i++){
+            latitudes[i] = EVENT_LATITUDE + (random.nextDouble() - 0.5) * 0.1;
+            longitudes[i] = EVENT_LONGITUDE + (random.nextDouble() - 0.5) * 0.1;
+        }
+
+        long checksum = 0;
+
+        for(int round = 0; round < 2; round++){
+
+            long startTime = System.nanoTime();
+            for(int i = 0; i < ENCODE_ITERATIONS; i++)
+                checksum += GeoHash.encodeBits(latitudes[i & 1023], longitudes[i & 1023], PRECISION);
+            long elapsedNanos = System.nanoTime() - startTime;
+
+            if(round == 1)
+                logger.info("Cell check (GeoHash.encodeBits, precision {}): {} ns/position (checksum {})",
+                        PRECISION, String.format("%.1f", (double) elapsedNanos / ENCODE_ITERATIONS), checksum);
+        }
+    }
+
+    private static void measureSubscriptionChanges(){
+
+        Random random = new Random(11);
+        long changeCount = 0;
+        Set<Long> visitedCellSet = new HashSet<>();
+
+        for(int v = 0; v < DRIVING_VEHICLES; v++){
+
+            double latitude = EVENT_LATITUDE + (random.nextDouble() - 0.5) * 0.2;
+            double longitude = EVENT_LONGITUDE + (random.nextDouble() - 0.5) * 0.2;
+            double heading = random.nextDouble() * 2 * Math.PI;
+            long cellBits = GeoHash.encodeBits(latitude, longitude, PRECISION);
+
+            for(int second = 0; second < DRIVE_SECONDS; second++){
+
+                //Heading changes slowly along the road
+                heading += (random.nextDouble() - 0.5) * 0.1;
+                double[] position = move(latitude, longitude, heading, SPEED_METERS_PER_SECOND);
+                latitude = position[0];
+                longitude = position[1];
+
+                long newCellBits = GeoHash.encodeBits(latitude, longitude, PRECISION);
+                if(newCellBits != cellBits){
+                    changeCount++;
+                    cellBits = newCellBits;
+                }
+                visitedCellSet.add(cellBits);
+            }
+        }
+
+        logger.info("Area subscription changes at 50 km/h: {} per vehicle per hour ({} samples per change) - Visited cells: {}",
+                String.format("%.1f", (double) changeCount / DRIVING_VEHICLES),
+                String.format("%.0f", (double) DRIVE_SECONDS * DRIVING_VEHICLES / Math.max(1, changeCount)),
+                visitedCellSet.size());
+    }
+
+    /**
+     * @return the position at distanceMeters from the origin towards the heading (radians from north), flat earth approximation
+     */
+    private static double[] move(double latitude, double longitude, double heading, double distanceMeters){
+        double latitudeDelta = Math.toDegrees(distanceMeters * Math.cos(heading) / 6371000.0);
+        double longitudeDelta = Math.toDegrees(distanceMeters * Math.sin(heading) / (6371000.0 * Math.cos(Math.toRadians(latitude))));
+        return new double[]{latitude + latitudeDelta, longitude + longitudeDelta};
+    }
+}
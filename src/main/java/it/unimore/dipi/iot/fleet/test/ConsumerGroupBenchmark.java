@@ -0,0 +1,141 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.consumer.TelemetryPayloadDecoder;
+import it.unimore.dipi.iot.fleet.dispatch.ConsumerGroup;
+import it.unimore.dipi.iot.fleet.dispatch.ConsumerGroupMode;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.state.VehicleStateStore;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emulate 1, 2 and 4 instances of the battery monitoring consumer receiving the whole fleet telemetry stream (as with a
+ * non shared subscription), without and with the PARTITIONED consumer group mode. Each instance runs in its own thread
+ * with its own state store. Reports the aggregate throughput, the messages processed by each instance, the number of
+ * vehicles handled by more than one instance (must be 0 in partitioned mode) and the notified alarms (one for each
+ * vehicle is expected, without partitioning every instance notifies all of them).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:17
+ */
+public class ConsumerGroupBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerGroupBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 10000;
+
+    private static final int MESSAGES_PER_VEHICLE = 20;
+
+    private static final int[] INSTANCE_COUNTS = {1, 2, 4};
+
+    private static final double ALARM_BATTERY_LEVEL = 2.0;
+
+    public static void main(String[] args) throws Exception {
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonTelemetryCodec jsonTelemetryCodec = new JsonTelemetryCodec(mapper);
+
+        String[] topics = new String[VEHICLE_COUNT];
+        byte[][] payloads = new byte[MESSAGES_PER_VEHICLE][];
+
+        for(int v = 0; v < VEHICLE_COUNT; v++)
+            topics[v] = String.format("fleet/vehicle/vehicle-%d/telemetry/battery", v);
+
+        //Discharging battery, every vehicle raises one alarm
+        for(int m = 0; m < MESSAGES_PER_VEHICLE; m++)
+            payloads[m] = jsonTelemetryCodec.encode(BatterySensorResource.RESOURCE_TYPE, 100.0 - m, false);
+
+        //Warmup
+        run(ConsumerGroupMode.PARTITIONED, 2, topics, payloads, mapper);
+
+        for(ConsumerGroupMode mode : new ConsumerGroupMode[]{ConsumerGroupMode.NONE, ConsumerGroupMode.PARTITIONED})
+            for(int instanceCount : INSTANCE_COUNTS)
+                run(mode, instanceCount, topics, payloads, mapper);
+    }
+
+    private static void run(ConsumerGroupMode mode, int instanceCount, String[] topics, byte[][] payloads, ObjectMapper mapper) throws InterruptedException {
+
+        Thread[] threads = new Thread[instanceCount];
+        AtomicLong[] processedCounters = new AtomicLong[instanceCount];
+        VehicleStateStore[] vehicleStateStores = new VehicleStateStore[instanceCount];
+        AtomicLong alarmCount = new AtomicLong(0);
+
+        for(int i = 0; i < instanceCount; i++){
+
+            ConsumerGroup consumerGroup = new ConsumerGroup(mode, "benchmark", i, instanceCount);
+            TelemetryPayloadDecoder<Double> telemetryPayloadDecoder = new TelemetryPayloadDecoder<>(mapper, Double.class);
+            VehicleStateStore vehicleStateStore = new VehicleStateStore(1);
+            AtomicLong processedCounter = new AtomicLong(0);
+
+            IMqttMessageListener messageListener = consumerGroup.getPartitionListener((topic, msg) -> {
+                for(TelemetryMessage<Double> telemetryMessage : telemetryPayloadDecoder.decode(topic, msg.getPayload())){
+                    int vehicleIndex = vehicleStateStore.getVehicleIndex(topic);
+                    if(vehicleStateStore.updateLevel(vehicleIndex, telemetryMessage.getDataValue(), ALARM_BATTERY_LEVEL, 0, System.currentTimeMillis(), 0))
+                        alarmCount.incrementAndGet();
+                }
+                processedCounter.incrementAndGet();
+            });
+
+            //Each instance receives the whole stream
+            threads[i] = new Thread(() -> {
+                try{
+                    for(byte[] payload : payloads)
+                        for(String topic : topics)
+                            messageListener.messageArrived(topic, new MqttMessage(payload));
+                }catch (Exception e){
+                    logger.error("Error delivering messages ! Msg: {}", e.getLocalizedMessage());
+                }
+            });
+
+            processedCounters[i] = processedCounter;
+            vehicleStateStores[i] = vehicleStateStore;
+        }
+
+        long startTime = System.nanoTime();
+
+        for(Thread thread : threads)
+            thread.start();
+
+        for(Thread thread : threads)
+            thread.join();
+
+        long elapsedTime = System.nanoTime() - startTime;
+
+        //Vehicles with state in more than one instance
+        int sharedVehicleCount = 0;
+        for(String topic : topics){
+            int ownerCount = 0;
+            for(VehicleStateStore vehicleStateStore : vehicleStateStores)
+                if(vehicleStateStore.findVehicleIndex(topic) >= 0)
+                    ownerCount++;
+            if(ownerCount > 1)
+                sharedVehicleCount++;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        long processedCount = 0;
+        for(AtomicLong processedCounter : processedCounters){
+            sb.append(processedCounter.get()).append(' ');
+            processedCount += processedCounter.get();
+        }
+
+        logger.info("Mode: {} Instances: {} -> Processed: {} ({}) - Throughput: {} fleet messages/s - Vehicles in more than one instance: {} - Alarms: {} (vehicles: {})",
+                mode,
+                instanceCount,
+                processedCount,
+                sb.toString().trim(),
+                String.format("%.0f", (double) topics.length * payloads.length / (elapsedTime / 1e9)),
+                sharedVehicleCount,
+                alarmCount.get(),
+                topics.length);
+    }
+
+}
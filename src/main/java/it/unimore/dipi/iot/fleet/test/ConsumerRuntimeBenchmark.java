@@ -0,0 +1,206 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.consumer.AnalyticsStage;
+import it.unimore.dipi.iot.fleet.consumer.BatteryMonitoringStage;
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.consumer.TrafficMonitoringStage;
+import it.unimore.dipi.iot.fleet.dispatch.TopicTrie;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compare N analytics running as separate consumers (a runtime, and therefore a subscription and a decoding, for each
+ * analytics) with the same N analytics registered as stages of a single ConsumerRuntime (decode once, fan out),
+ * processing the same stream of JSON GPS and battery telemetry messages without a broker. The broker delivery of each
+ * separate consumer is emulated by submitting every message to all the runtimes (messages of other topics are discarded
+ * by the routing). Before the benchmark the TopicTrie matches are checked against the expected stages.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:28
+ */
+public class ConsumerRuntimeBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerRuntimeBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 10000;
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    private static final int MEASURED_ROUNDS = 50;
+
+    public static void main(String[] args) {
+
+        try{
+
+            checkTopicTrie();
+
+            ObjectMapper mapper = new ObjectMapper();
+            JsonTelemetryCodec jsonTelemetryCodec = new JsonTelemetryCodec(mapper);
+
+            //One GPS and one battery message for each vehicle, far from the demo traffic event and above the battery alarm
+            String[] topics = new String[VEHICLE_COUNT * 2];
+            byte[][] payloads = new byte[VEHICLE_COUNT * 2][];
+
+            for(int v = 0; v < VEHICLE_COUNT; v++){
+                String vehicleTopic = String.format("fleet/vehicle/vehicle-%05d/telemetry", v);
+                topics[2 * v] = vehicleTopic + "/gps";
+                payloads[2 * v] = jsonTelemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE,
+                        new GpsLocationDescriptor(44.6290619 + v * 1e-5, 10.9488089, 40.2, GpsLocationDescriptor.FILE_LOCATION_PROVIDER), false);
+                topics[2 * v + 1] = vehicleTopic + "/battery";
+                payloads[2 * v + 1] = jsonTelemetryCodec.encode(BatterySensorResource.RESOURCE_TYPE, 50.0 + v % 50, false);
+            }
+
+            List<Supplier<AnalyticsStage>> stageSupplierList = new ArrayList<>();
+            stageSupplierList.add(BatteryMonitoringStage::new);
+            stageSupplierList.add(TrafficMonitoringStage::new);
+            stageSupplierList.add(() -> new CountingStage("telemetry-counter", "fleet/vehicle/+/telemetry/#"));
+            stageSupplierList.add(() -> new CountingStage("gps-counter", "fleet/vehicle/+/telemetry/gps"));
+
+            logger.info("Consumer Runtime Benchmark - Messages: {} Rounds: {}", topics.length, MEASURED_ROUNDS);
+
+            for(int stageCount = 1; stageCount <= stageSupplierList.size(); stageCount++){
+
+                //A runtime for each analytics
+                List<ConsumerRuntime> separateRuntimeList = new ArrayList<>();
+                for(int s = 0; s < stageCount; s++){
+                    ConsumerRuntime consumerRuntime = new ConsumerRuntime("separate-" + s);
+                    consumerRuntime.addStage(stageSupplierList.get(s).get());
+                    consumerRuntime.start(createControlMessagePublisher(consumerRuntime));
+                    separateRuntimeList.add(consumerRuntime);
+                }
+
+                //A single runtime with all the analytics
+                ConsumerRuntime unifiedRuntime = new ConsumerRuntime("unified");
+                for(int s = 0; s < stageCount; s++)
+                    unifiedRuntime.addStage(stageSupplierList.get(s).get());
+                unifiedRuntime.start(createControlMessagePublisher(unifiedRuntime));
+
+                double separateTime = runBenchmark(separateRuntimeList, topics, payloads);
+                double unifiedTime = runBenchmark(Collections.singletonList(unifiedRuntime), topics, payloads);
+
+                long separateDecodedCount = separateRuntimeList.stream().mapToLong(ConsumerRuntime::getDecodedMessageCount).sum();
+                long messageCount = (long) topics.length * (WARMUP_ROUNDS + MEASURED_ROUNDS);
+
+                logger.info("Stages: {} -> Separate: {} ns/message ({} decodings/message) - Unified: {} ns/message ({} decodings/message)",
+                        stageCount,
+                        String.format("%.1f", separateTime),
+                        String.format("%.2f", (double) separateDecodedCount / messageCount),
+                        String.format("%.1f", unifiedTime),
+                        String.format("%.2f", (double) unifiedRuntime.getDecodedMessageCount() / messageCount));
+
+                separateRuntimeList.forEach(ConsumerRuntime::shutdown);
+                unifiedRuntime.shutdown();
+            }
+
+        }catch (Exception e){
+            logger.error("Error running Consumer Runtime Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * @return average ns for each message of the stream
+     */
+    private static double runBenchmark(List<ConsumerRuntime> consumerRuntimeList, String[] topics, byte[][] payloads){
+
+        for(int r = 0; r < WARMUP_ROUNDS; r++)
+            processRound(consumerRuntimeList, topics, payloads);
+
+        long startTime = System.nanoTime();
+
+        for(int r = 0; r < MEASURED_ROUNDS; r++)
+            processRound(consumerRuntimeList, topics, payloads);
+
+        return (double) (System.nanoTime() - startTime) / ((long) MEASURED_ROUNDS * topics.length);
+    }
+
+    private static void processRound(List<ConsumerRuntime> consumerRuntimeList, String[] topics, byte[][] payloads){
+        for(int i = 0; i < topics.length; i++)
+            for(ConsumerRuntime consumerRuntime : consumerRuntimeList)
+                consumerRuntime.process(topics[i], payloads[i]);
+    }
+
+    private static ControlMessagePublisher createControlMessagePublisher(ConsumerRuntime consumerRuntime){
+        return new ControlMessagePublisher((topic, payload) -> {}, consumerRuntime.getMapper(),
+                ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                ControlMessagePublisher.DEFAULT_MAX_PENDING_CONTROLS,
+                ControlMessagePublisher.DEFAULT_MIN_INTERVAL_MS);
+    }
+
+    private static void checkTopicTrie(){
+
+        TopicTrie<String> topicTrie = new TopicTrie<>();
+        topicTrie.add("fleet/vehicle/+/telemetry/gps", "gps");
+        topicTrie.add("fleet/vehicle/+/telemetry/battery", "battery");
+        topicTrie.add("fleet/vehicle/+/telemetry/#", "telemetry");
+        topicTrie.add("fleet/#", "fleet");
+        topicTrie.add("#", "all");
+        topicTrie.add("fleet/vehicle/v1/control", "control-v1");
+
+        checkMatch(topicTrie, "fleet/vehicle/v1/telemetry/gps", "gps", "telemetry", "fleet", "all");
+        checkMatch(topicTrie, "fleet/vehicle/v2/telemetry/battery", "battery", "telemetry", "fleet", "all");
+        checkMatch(topicTrie, "fleet/vehicle/v2/telemetry", "telemetry", "fleet", "all");
+        checkMatch(topicTrie, "fleet/vehicle/v1/control", "control-v1", "fleet", "all");
+        checkMatch(topicTrie, "fleet", "fleet", "all");
+        checkMatch(topicTrie, "other/topic", "all");
+        checkMatch(topicTrie, "$SYS/broker/uptime");
+
+        if(!TopicTrie.covers("fleet/#", "fleet/vehicle/+/telemetry/gps") || !TopicTrie.covers("fleet/vehicle/+/telemetry/gps", "fleet/vehicle/v1/telemetry/gps")
+                || TopicTrie.covers("fleet/vehicle/+/telemetry/gps", "fleet/vehicle/+/telemetry/#"))
+            throw new IllegalStateException("Unexpected topic filter coverage !");
+
+        logger.info("TopicTrie Check Completed ! Filters: {}", topicTrie.getFilterCount());
+    }
+
+    private static void checkMatch(TopicTrie<String> topicTrie, String topic, String ... expectedValues){
+
+        List<String> resultList = topicTrie.match(topic);
+
+        List<String> expectedList = new ArrayList<>(List.of(expectedValues));
+
+        if(resultList.size() != expectedList.size() || !resultList.containsAll(expectedList))
+            throw new IllegalStateException(String.format("Unexpected match of topic %s: %s (expected: %s)", topic, resultList, expectedList));
+    }
+
+    private static class CountingStage implements AnalyticsStage {
+
+        private final String name;
+
+        private final String topicFilter;
+
+        private double checksum;
+
+        private CountingStage(String name, String topicFilter) {
+            this.name = name;
+            this.topicFilter = topicFilter;
+            this.checksum = 0;
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public List<String> getTopicFilters() {
+            return Collections.singletonList(this.topicFilter);
+        }
+
+        @Override
+        public void onSample(String topic, TelemetrySample telemetrySample) {
+            this.checksum += (telemetrySample.hasLocationValue() ? telemetrySample.getLatitude() : telemetrySample.getValue());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.message.ControlMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Alarm storm: a traffic jam notified to thousands of vehicles at once, each alarm submitted several times (e.g. by
+ * consecutive GPS samples). Compares a new thread for each control message (previous consumers) with the pooled
+ * ControlMessagePublisher, reporting submission time, drain time, peak thread count, published messages (duplicates
+ * coalesced) and publish latency. Each publish is emulated by a short pause (network write).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:19
+ */
+public class ControlMessagePublisherBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(ControlMessagePublisherBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 5000;
+
+    //Submissions of the same alarm for each vehicle
+    private static final int REPEAT_COUNT = 3;
+
+    private static final long PUBLISH_TIME_NANOS = 50000;
+
+    public static void main(String[] args) throws Exception {
+
+        ObjectMapper mapper = new ObjectMapper();
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        LongAdder publishedCounter = new LongAdder();
+
+        ControlMessagePublisher.PayloadPublisher payloadPublisher = (topic, payload) -> {
+            LockSupport.parkNanos(PUBLISH_TIME_NANOS);
+            publishedCounter.increment();
+        };
+
+        //Thread for each message
+        threadMXBean.resetPeakThreadCount();
+        long startTime = System.nanoTime();
+
+        for(int r = 0; r < REPEAT_COUNT; r++)
+            for(int v = 0; v < VEHICLE_COUNT; v++){
+                String topic = getControlTopic(v);
+                ControlMessage controlMessage = createControlMessage();
+                new Thread(() -> {
+                    try{
+                        payloadPublisher.publish(topic, mapper.writeValueAsBytes(controlMessage));
+                    }catch (Exception e){
+                        logger.error("Error publishing control ! Msg: {}", e.getLocalizedMessage());
+                    }
+                }).start();
+            }
+
+        long submitTime = System.nanoTime() - startTime;
+
+        while(publishedCounter.sum() < (long) VEHICLE_COUNT * REPEAT_COUNT)
+            Thread.sleep(1);
+
+        logger.info("Thread per Message -> Submit: {} us/control - Drain: {} ms - Peak Threads: {} - Published: {}",
+                submitTime / 1000 / ((long) VEHICLE_COUNT * REPEAT_COUNT),
+                (System.nanoTime() - startTime) / 1000000,
+                threadMXBean.getPeakThreadCount(),
+                publishedCounter.sum());
+
+        //Pooled publisher
+        ControlMessagePublisher controlMessagePublisher = new ControlMessagePublisher(payloadPublisher, mapper,
+                ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                ControlMessagePublisher.DEFAULT_MAX_PENDING_CONTROLS,
+                ControlMessagePublisher.DEFAULT_MIN_INTERVAL_MS);
+
+        Thread.sleep(500);
+        publishedCounter.reset();
+        threadMXBean.resetPeakThreadCount();
+        startTime = System.nanoTime();
+
+        for(int r = 0; r < REPEAT_COUNT; r++)
+            for(int v = 0; v < VEHICLE_COUNT; v++)
+                controlMessagePublisher.publish(getControlTopic(v), createControlMessage());
+
+        submitTime = System.nanoTime() - startTime;
+
+        while(controlMessagePublisher.getPendingControlCount() > 0 || controlMessagePublisher.getPublishedControlCount() + controlMessagePublisher.getFailedControlCount() <
+                controlMessagePublisher.getSubmittedControlCount() - controlMessagePublisher.getCoalescedControlCount() - controlMessagePublisher.getDroppedControlCount())
+            Thread.sleep(1);
+
+        logger.info("Pooled Publisher -> Submit: {} us/control - Drain: {} ms - Peak Threads: {} - Published: {}",
+                submitTime / 1000 / ((long) VEHICLE_COUNT * REPEAT_COUNT),
+                (System.nanoTime() - startTime) / 1000000,
+                threadMXBean.getPeakThreadCount(),
+                publishedCounter.sum());
+
+        logger.info("Pooled Publisher Stats: {}", controlMessagePublisher.getStats());
+
+        //The publish slots of the topics are released once expired
+        Thread.sleep(ControlMessagePublisher.DEFAULT_MIN_INTERVAL_MS + 500);
+        logger.info("Reserved publish slots after {} ms: {}", ControlMessagePublisher.DEFAULT_MIN_INTERVAL_MS + 500, controlMessagePublisher.getReservedSlotCount());
+
+        controlMessagePublisher.shutdown();
+    }
+
+    private static String getControlTopic(int vehicle){
+        return String.format("fleet/vehicle/vehicle-%d/control", vehicle);
+    }
+
+    private static ControlMessage createControlMessage(){
+        return new ControlMessage("traffic_alarm_message", new HashMap<>(){
+            {
+                put("event_count", 1);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,181 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import it.unimore.dipi.iot.fleet.geo.GeoBoundingBox;
+import it.unimore.dipi.iot.fleet.geo.GeoDistance;
+import it.unimore.dipi.iot.fleet.utils.GpsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Check the geodesy functions against haversine on random point pairs (any latitude within the validity
+ * range, antimeridian included): maximum relative error of the equirectangular distance (scalar and batch)
+ * for increasing distances, exact selections of GeoDistance.withinRadius and no point within the radius
+ * outside its GeoBoundingBox (pole and antimeridian circles included). The process exits with status 1 if a check fails.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:11
+ */
+public class GeoDistanceAccuracyCheck {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoDistanceAccuracyCheck.class);
+
+    private static final double[] MAX_DISTANCES_METERS = {100.0, 1000.0, 10000.0, GeoDistance.EQUIRECTANGULAR_MAX_DISTANCE_METERS};
+
+    private static final int PAIR_COUNT = 1000000;
+
+    private static final int CANDIDATE_COUNT = 256;
+
+    private static final int QUERY_COUNT = 20000;
+
+    public static void main(String[] args) {
+
+        Random random = new Random(42);
+        boolean isValid = true;
+
+        for(double maxDistance : MAX_DISTANCES_METERS){
+
+            double[] latitudes = new double[CANDIDATE_COUNT];
+            double[] longitudes = new double[CANDIDATE_COUNT];
+            double[] batchDistances = new double[CANDIDATE_COUNT];
+            double maxScalarError = 0.0;
+            double maxBatchError = 0.0;
+            double maxGpsUtilsError = 0.0;
+
+            for(int i = 0; i < PAIR_COUNT / CANDIDATE_COUNT; i++){
+
+                double latitude = randomLatitude(random, maxDistance);
+                double longitude = -180.0 + random.nextDouble() * 360.0;
+
+                for(int j = 0; j < CANDIDATE_COUNT; j++){
+                    double[] destination = destination(latitude, longitude, random.nextDouble() * maxDistance, random.nextDouble() * 360.0);
+                    latitudes[j] = destination[0];
+                    longitudes[j] = destination[1];
+                }
+
+                GeoDistance.equirectangular(latitude, longitude, latitudes, longitudes, CANDIDATE_COUNT, batchDistances);
+
+                for(int j = 0; j < CANDIDATE_COUNT; j++){
+
+                    double haversine = GeoDistance.haversine(latitude, longitude, latitudes[j], longitudes[j]);
+
+                    //Relative errors are meaningless below the meter
+                    if(haversine < 1.0)
+                        continue;
+
+                    maxScalarError = Math.max(maxScalarError, Math.abs(GeoDistance.equirectangular(latitude, longitude, latitudes[j], longitudes[j]) - haversine) / haversine);
+                    maxBatchError = Math.max(maxBatchError, Math.abs(batchDistances[j] - haversine) / haversine);
+                    maxGpsUtilsError = Math.max(maxGpsUtilsError, Math.abs(GpsUtils.distance(latitude, latitudes[j], longitude, longitudes[j], 0.0, 0.0) - haversine) / haversine);
+                }
+            }
+
+            logger.info("Distance <= {} m -> Max Relative Error Equirectangular: {} - Equirectangular Batch: {} - GpsUtils.distance: {}",
+                    maxDistance,
+                    String.format("%.2e", maxScalarError),
+                    String.format("%.2e", maxBatchError),
+                    String.format("%.2e", maxGpsUtilsError));
+
+            if(maxScalarError > GeoDistance.EQUIRECTANGULAR_MAX_RELATIVE_ERROR || maxBatchError > GeoDistance.EQUIRECTANGULAR_MAX_RELATIVE_ERROR){
+                logger.error("Equirectangular error above the documented bound ({}) !", GeoDistance.EQUIRECTANGULAR_MAX_RELATIVE_ERROR);
+                isValid = false;
+            }
+        }
+
+        isValid &= checkSelections(random);
+
+        if(isValid)
+            logger.info("All checks passed.");
+        else {
+            //Non-zero exit status, so the check can gate a build or a script
+            logger.error("Geodesy checks FAILED !");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compare GeoDistance.withinRadius and GeoBoundingBox with the haversine selection, for radius values
+     * inside and outside the equirectangular validity range and for any latitude
+     */
+    private static boolean checkSelections(Random random){
+
+        double[] latitudes = new double[CANDIDATE_COUNT];
+        double[] longitudes = new double[CANDIDATE_COUNT];
+        int[] indices = new int[CANDIDATE_COUNT];
+        long mismatchCount = 0;
+        long boundingBoxMissCount = 0;
+        long selectedCount = 0;
+
+        for(int q = 0; q < QUERY_COUNT; q++){
+
+            double radius = Math.pow(10.0, 1.0 + random.nextDouble() * 5.0);
+            double latitude = -90.0 + random.nextDouble() * 180.0;
+            double longitude = (q % 10 == 0 ? 179.9 + random.nextDouble() * 0.1 : -180.0 + random.nextDouble() * 360.0);
+
+            for(int j = 0; j < CANDIDATE_COUNT; j++){
+                double[] destination = destination(latitude, longitude, random.nextDouble() * radius * 2.0, random.nextDouble() * 360.0);
+                latitudes[j] = destination[0];
+                longitudes[j] = destination[1];
+            }
+
+            GeoBoundingBox boundingBox = GeoBoundingBox.around(latitude, longitude, radius);
+            int count = GeoDistance.withinRadius(latitude, longitude, latitudes, longitudes, CANDIDATE_COUNT, radius, indices);
+            int next = 0;
+
+            for(int j = 0; j < CANDIDATE_COUNT; j++){
+
+                boolean isInside = GeoDistance.haversine(latitude, longitude, latitudes[j], longitudes[j]) <= radius;
+                boolean isSelected = (next < count && indices[next] == j);
+
+                if(isSelected)
+                    next++;
+
+                if(isInside != isSelected)
+                    mismatchCount++;
+
+                if(isInside && !boundingBox.contains(latitudes[j], longitudes[j]))
+                    boundingBoxMissCount++;
+
+                if(isInside)
+                    selectedCount++;
+            }
+        }
+
+        logger.info("Radius Queries: {} Selected: {} -> withinRadius Mismatches: {} - Bounding Box Misses: {}",
+                QUERY_COUNT, selectedCount, mismatchCount, boundingBoxMissCount);
+
+        if(mismatchCount > 0 || boundingBoxMissCount > 0){
+            logger.error("Radius selection differs from haversine !");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return a latitude for which the equirectangular error bound holds up to maxDistance
+     */
+    private static double randomLatitude(Random random, double maxDistance){
+        double maxLatitude = GeoDistance.EQUIRECTANGULAR_MAX_LATITUDE - Math.toDegrees(maxDistance / GeoDistance.EARTH_RADIUS_METERS);
+        return -maxLatitude + random.nextDouble() * 2.0 * maxLatitude;
+    }
+
+    /**
+     * @return latitude and longitude (normalized) of the point at the given distance and bearing (degrees)
+     */
+    private static double[] destination(double latitude, double longitude, double distanceMeters, double bearing){
+
+        double angularDistance = distanceMeters / GeoDistance.EARTH_RADIUS_METERS;
+        double latitudeRadians = Math.toRadians(latitude);
+        double bearingRadians = Math.toRadians(bearing);
+
+        double destinationLatitude = Math.asin(Math.sin(latitudeRadians) * Math.cos(angularDistance) +
+                Math.cos(latitudeRadians) * Math.sin(angularDistance) * Math.cos(bearingRadians));
+        double destinationLongitude = Math.toRadians(longitude) + Math.atan2(Math.sin(bearingRadians) * Math.sin(angularDistance) * Math.cos(latitudeRadians),
+                Math.cos(angularDistance) - Math.sin(latitudeRadians) * Math.sin(destinationLatitude));
+
+        return new double[]{Math.toDegrees(destinationLatitude), GeoDistance.normalizeLongitude(Math.toDegrees(destinationLongitude))};
+    }
+
+}
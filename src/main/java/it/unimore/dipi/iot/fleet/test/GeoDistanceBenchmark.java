@@ -0,0 +1,125 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import it.unimore.dipi.iot.fleet.geo.GeoDistance;
+import it.unimore.dipi.iot.fleet.utils.GpsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Measure the cost of one distance (ns) computed between a point and arrays of candidates close to it
+ * (within 20 Km, as for the traffic event queries): GpsUtils.distance, scalar and batch haversine, scalar and batch
+ * equirectangular and the GeoDistance.withinRadius selection. Each function is measured over several rounds after a warmup,
+ * the best round is reported.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:11
+ */
+public class GeoDistanceBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoDistanceBenchmark.class);
+
+    private static final int CANDIDATE_COUNT = 1024;
+
+    private static final int ITERATIONS = 2000;
+
+    private static final int ROUNDS = 5;
+
+    private static final double LATITUDE = 44.6;
+
+    private static final double LONGITUDE = 10.9;
+
+    private static final double RADIUS_METERS = 2000.0;
+
+    private static double[] latitudes;
+
+    private static double[] longitudes;
+
+    private static double[] distances;
+
+    private static int[] indices;
+
+    //Accumulated results (prevents dead code elimination)
+    private static double sink = 0.0;
+
+    public static void main(String[] args) {
+
+        Random random = new Random(42);
+
+        latitudes = new double[CANDIDATE_COUNT];
+        longitudes = new double[CANDIDATE_COUNT];
+        distances = new double[CANDIDATE_COUNT];
+        indices = new int[CANDIDATE_COUNT];
+
+        for(int i = 0; i < CANDIDATE_COUNT; i++){
+            latitudes[i] = LATITUDE + (random.nextDouble() - 0.5) * 0.36;
+            longitudes[i] = LONGITUDE + (random.nextDouble() - 0.5) * 0.5;
+        }
+
+        measure("GpsUtils.distance", GeoDistanceBenchmark::runGpsUtils);
+        measure("Haversine", GeoDistanceBenchmark::runHaversine);
+        measure("Haversine Batch", GeoDistanceBenchmark::runHaversineBatch);
+        measure("Equirectangular", GeoDistanceBenchmark::runEquirectangular);
+        measure("Equirectangular Batch", GeoDistanceBenchmark::runEquirectangularBatch);
+        measure("Within Radius", GeoDistanceBenchmark::runWithinRadius);
+
+        logger.debug("Sink: {}", sink);
+    }
+
+    private static void measure(String name, Runnable function){
+
+        //Warmup
+        for(int i = 0; i < ROUNDS; i++)
+            function.run();
+
+        long bestTime = Long.MAX_VALUE;
+
+        for(int i = 0; i < ROUNDS; i++){
+            long startTime = System.nanoTime();
+            function.run();
+            bestTime = Math.min(bestTime, System.nanoTime() - startTime);
+        }
+
+        logger.info("{} -> {} ns/distance", name, String.format("%.2f", (double) bestTime / ((long) ITERATIONS * CANDIDATE_COUNT)));
+    }
+
+    private static void runGpsUtils(){
+        for(int n = 0; n < ITERATIONS; n++)
+            for(int i = 0; i < CANDIDATE_COUNT; i++)
+                sink += GpsUtils.distance(LATITUDE, latitudes[i], LONGITUDE, longitudes[i], 0.0, 0.0);
+    }
+
+    private static void runHaversine(){
+        for(int n = 0; n < ITERATIONS; n++)
+            for(int i = 0; i < CANDIDATE_COUNT; i++)
+                sink += GeoDistance.haversine(LATITUDE, LONGITUDE, latitudes[i], longitudes[i]);
+    }
+
+    private static void runHaversineBatch(){
+        for(int n = 0; n < ITERATIONS; n++){
+            GeoDistance.haversine(LATITUDE, LONGITUDE, latitudes, longitudes, CANDIDATE_COUNT, distances);
+            sink += distances[n % CANDIDATE_COUNT];
+        }
+    }
+
+    private static void runEquirectangular(){
+        for(int n = 0; n < ITERATIONS; n++)
+            for(int i = 0; i < CANDIDATE_COUNT; i++)
+                sink += GeoDistance.equirectangular(LATITUDE, LONGITUDE, latitudes[i], longitudes[i]);
+    }
+
+    private static void runEquirectangularBatch(){
+        for(int n = 0; n < ITERATIONS; n++){
+            GeoDistance.equirectangular(LATITUDE, LONGITUDE, latitudes, longitudes, CANDIDATE_COUNT, distances);
+            sink += distances[n % CANDIDATE_COUNT];
+        }
+    }
+
+    private static void runWithinRadius(){
+        for(int n = 0; n < ITERATIONS; n++)
+            sink += GeoDistance.withinRadius(LATITUDE, LONGITUDE, latitudes, longitudes, CANDIDATE_COUNT, RADIUS_METERS, indices);
+    }
+
+}
@@ -0,0 +1,285 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.consumer.TrafficMonitoringStage;
+import it.unimore.dipi.iot.fleet.dispatch.ConsumerGroup;
+import it.unimore.dipi.iot.fleet.dispatch.TopicTrie;
+import it.unimore.dipi.iot.fleet.geo.GeoHash;
+import it.unimore.dipi.iot.fleet.geo.GeoPartitionTopics;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measure the ingress of regional traffic monitoring consumers subscribed to the geo-partitioned telemetry topics of
+ * the cells around a city (TrafficMonitoringStage partition cells), compared to a consumer of the whole fleet.
+ *
+ * Vehicles drive across northern Italy (a share of them around Parma, where the demo traffic event is) publishing
+ * their GPS telemetry on fleet/geo/<geohash>/vehicle/<vehicle_id>/telemetry/gps. The broker routing is emulated
+ * matching each topic against the subscriptions of each consumer: the benchmark reports the received messages and
+ * bytes and the time spent decoding and processing them, then checks that the regional consumer sends the same
+ * traffic controls as the global one and that vehicle ids and consumer group partitions do not depend on the cell.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:48
+ */
+public class GeoPartitionBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoPartitionBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 10000;
+
+    //Share of the vehicles driving around the city
+    private static final double CITY_VEHICLE_SHARE = 0.2;
+
+    private static final double CITY_VEHICLE_MAX_DISTANCE_METERS = 20000.0;
+
+    //Demo traffic event of the TrafficMonitoringStage (Parma)
+    private static final double CITY_LATITUDE = 44.79503800000001;
+
+    private static final double CITY_LONGITUDE = 10.32686911666667;
+
+    //Fleet area (northern Italy)
+    private static final double MIN_LATITUDE = 43.8;
+
+    private static final double MAX_LATITUDE = 46.2;
+
+    private static final double MIN_LONGITUDE = 7.5;
+
+    private static final double MAX_LONGITUDE = 13.5;
+
+    private static final int PARTITION_PRECISION = 4;
+
+    private static final double[] REGION_RADIUS_METERS = {30000.0, 80000.0};
+
+    private static final int SAMPLES_PER_VEHICLE = 30;
+
+    //A GPS sample every 10 s at 50 km/h
+    private static final double STEP_METERS = 50.0 / 3.6 * 10;
+
+    public static void main(String[] args) {
+
+        try{
+
+            ObjectMapper mapper = new ObjectMapper();
+
+            List<RegionConsumer> consumerList = new ArrayList<>();
+            consumerList.add(new RegionConsumer("GLOBAL", null, mapper));
+
+            for(double radiusMeters : REGION_RADIUS_METERS)
+                consumerList.add(new RegionConsumer(String.format("REGION %.0f km", radiusMeters / 1000),
+                        GeoHash.coverCircle(CITY_LATITUDE, CITY_LONGITUDE, radiusMeters, PARTITION_PRECISION), mapper));
+
+            //Warm up the decoding path, then reset the counters
+            drive(consumerList, mapper, 2000, 5, 1);
+            for(RegionConsumer regionConsumer : consumerList)
+                regionConsumer.reset();
+
+            long[] fleetCounters = drive(consumerList, mapper, VEHICLE_COUNT, SAMPLES_PER_VEHICLE, 42);
+
+            logger.info("Fleet: {} vehicles - Published: {} messages, {} bytes - Cell changes: {} ({} per vehicle per hour at 50 km/h) - Precision: {}",
+                    VEHICLE_COUNT,
+                    fleetCounters[0],
+                    fleetCounters[1],
+                    fleetCounters[2],
+                    String.format("%.1f", fleetCounters[2] * 3600.0 / (VEHICLE_COUNT * SAMPLES_PER_VEHICLE * 10.0)),
+                    PARTITION_PRECISION);
+
+            RegionConsumer globalConsumer = consumerList.get(0);
+
+            for(RegionConsumer regionConsumer : consumerList){
+
+                regionConsumer.waitControls();
+
+                logger.info("[{}] Cells: {} - Received: {} messages ({}%) - Bytes: {} - Processing: {} ms ({} ns/message) - Traffic controls: {} (same as global: {})",
+                        regionConsumer.name,
+                        regionConsumer.cellList != null ? regionConsumer.cellList.size() : "all",
+                        regionConsumer.receivedMessageCount,
+                        String.format("%.1f", 100.0 * regionConsumer.receivedMessageCount / fleetCounters[0]),
+                        regionConsumer.receivedByteCount,
+                        String.format("%.1f", regionConsumer.processingNanos / 1e6),
+                        String.format("%.0f", (double) regionConsumer.processingNanos / Math.max(1, regionConsumer.receivedMessageCount)),
+                        regionConsumer.controlCounter.sum(),
+                        regionConsumer.controlCounter.sum() == globalConsumer.controlCounter.sum());
+
+                regionConsumer.consumerRuntime.shutdown();
+            }
+
+            checkVehicleTopics();
+
+        }catch (Exception e){
+            logger.error("Error running Geo Partition Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Drive the vehicles publishing their GPS telemetry on the geo-partitioned topics, routed to the consumers
+     * @return the published messages, bytes and cell changes
+     */
+    private static long[] drive(List<RegionConsumer> consumerList, ObjectMapper mapper, int vehicleCount, int samplesPerVehicle, long seed) throws Exception {
+
+        Random random = new Random(seed);
+        double[][] positions = new double[vehicleCount][];
+        double[] headings = new double[vehicleCount];
+        String[] cells = new String[vehicleCount];
+        long[] counters = new long[3];
+
+        for(int v = 0; v < vehicleCount; v++){
+            positions[v] = (random.nextDouble() < CITY_VEHICLE_SHARE ?
+                    move(CITY_LATITUDE, CITY_LONGITUDE, random.nextDouble() * 2 * Math.PI, Math.sqrt(random.nextDouble()) * CITY_VEHICLE_MAX_DISTANCE_METERS) :
+                    new double[]{MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE), MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE)});
+            headings[v] = random.nextDouble() * 2 * Math.PI;
+        }
+
+        for(int sample = 0; sample < samplesPerVehicle; sample++){
+
+            for(int v = 0; v < vehicleCount; v++){
+
+                headings[v] += (random.nextDouble() - 0.5) * 0.2;
+                positions[v] = move(positions[v][0], positions[v][1], headings[v], STEP_METERS);
+
+                //Same cell and topic computation of the VehicleMqttSmartObject
+                String cell = GeoHash.encode(positions[v][0], positions[v][1], PARTITION_PRECISION);
+                if(cells[v] != null && !cells[v].equals(cell))
+                    counters[2]++;
+                cells[v] = cell;
+
+                String topic = GeoPartitionTopics.getTelemetryTopic(cell, getVehicleId(v), "gps");
+                byte[] payload = mapper.writeValueAsBytes(new TelemetryMessage<>(GpsGpxSensorResource.RESOURCE_TYPE,
+                        new GpsLocationDescriptor(positions[v][0], positions[v][1], 40.0, GpsLocationDescriptor.FILE_LOCATION_PROVIDER)));
+
+                counters[0]++;
+                counters[1] += topic.length() + payload.length;
+
+                for(RegionConsumer regionConsumer : consumerList)
+                    regionConsumer.deliver(topic, payload);
+            }
+        }
+
+        return counters;
+    }
+
+    /**
+     * Check that the vehicle id, the dispatcher lane and the consumer group partition of a vehicle are the same in the
+     * standard and in the geo-partitioned layout, whatever the cell
+     */
+    private static void checkVehicleTopics(){
+
+        int mismatchCount = 0;
+
+        for(int v = 0; v < VEHICLE_COUNT; v++){
+
+            String vehicleId = getVehicleId(v);
+            String standardTopic = String.format("fleet/vehicle/%s/telemetry/gps", vehicleId);
+            int standardPartition = ConsumerGroup.getPartition(standardTopic, 8);
+
+            for(String cell : new String[]{"u0p2", "spzz", "u21q"}){
+                String geoTopic = GeoPartitionTopics.getTelemetryTopic(cell, vehicleId, "gps");
+                if(!ConsumerRuntime.getVehicleId(geoTopic).equals(vehicleId)
+                        || ConsumerGroup.getPartition(geoTopic, 8) != standardPartition
+                        || !cell.equals(GeoPartitionTopics.getGeohash(geoTopic)))
+                    mismatchCount++;
+            }
+        }
+
+        logger.info("Vehicle id, geohash and partition of the geo-partitioned topics consistent: {} (mismatches: {})", mismatchCount == 0, mismatchCount);
+    }
+
+    private static String getVehicleId(int vehicleIndex){
+        return String.format("vehicle-%05d", vehicleIndex);
+    }
+
+    /**
+     * @return the position at distanceMeters from the origin towards the heading (radians from north), flat earth approximation
+     */
+    private static double[] move(double latitude, double longitude, double heading, double distanceMeters){
+        double latitudeDelta = Math.toDegrees(distanceMeters * Math.cos(heading) / 6371000.0);
+        double longitudeDelta = Math.toDegrees(distanceMeters * Math.sin(heading) / (6371000.0 * Math.cos(Math.toRadians(latitude))));
+        return new double[]{latitude + latitudeDelta, longitude + longitudeDelta};
+    }
+
+    /**
+     * Traffic monitoring consumer with the emulated broker subscriptions of its runtime
+     */
+    private static class RegionConsumer {
+
+        private final String name;
+
+        private final List<String> cellList;
+
+        private final ConsumerRuntime consumerRuntime;
+
+        private final ControlMessagePublisher controlMessagePublisher;
+
+        private final TopicTrie<String> subscriptionTrie;
+
+        private final LongAdder controlCounter;
+
+        private final List<String> matchList;
+
+        private long receivedMessageCount;
+
+        private long receivedByteCount;
+
+        private long processingNanos;
+
+        private RegionConsumer(String name, List<String> cellList, ObjectMapper mapper) throws Exception {
+
+            this.name = name;
+            this.cellList = cellList;
+            this.controlCounter = new LongAdder();
+            this.matchList = new ArrayList<>();
+
+            this.consumerRuntime = new ConsumerRuntime("geo-partition-" + name);
+            this.consumerRuntime.addStage(new TrafficMonitoringStage(0, cellList));
+
+            this.controlMessagePublisher = new ControlMessagePublisher((topic, payload) -> this.controlCounter.increment(),
+                    mapper,
+                    ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                    VEHICLE_COUNT,
+                    0);
+
+            this.consumerRuntime.start(this.controlMessagePublisher);
+
+            this.subscriptionTrie = new TopicTrie<>();
+            for(String topicFilter : this.consumerRuntime.getSubscriptionTopicFilters())
+                this.subscriptionTrie.add(topicFilter, topicFilter);
+        }
+
+        private void deliver(String topic, byte[] payload){
+
+            this.matchList.clear();
+            if(this.subscriptionTrie.match(topic, this.matchList) == 0)
+                return;
+
+            long startTime = System.nanoTime();
+            this.consumerRuntime.process(topic, payload);
+            this.processingNanos += System.nanoTime() - startTime;
+
+            this.receivedMessageCount++;
+            this.receivedByteCount += topic.length() + payload.length;
+        }
+
+        private void reset(){
+            this.receivedMessageCount = 0;
+            this.receivedByteCount = 0;
+            this.processingNanos = 0;
+        }
+
+        private void waitControls() throws InterruptedException {
+            while(this.controlMessagePublisher.getPendingControlCount() > 0
+                    || this.controlCounter.sum() < this.controlMessagePublisher.getSubmittedControlCount() - this.controlMessagePublisher.getCoalescedControlCount())
+                Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.BinaryTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.GpsDeltaTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetryCodec;
+import it.unimore.dipi.iot.fleet.consumer.TelemetryPayloadDecoder;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import it.unimore.dipi.iot.fleet.track.GpsTrack;
+import it.unimore.dipi.iot.fleet.track.GpsTrackStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replay the demo GPX track through the JSON, binary and GPS delta telemetry formats and report
+ * the average bytes for each sample, the maximum quantization error and, for the delta format,
+ * the samples recovered when a fraction of the messages is lost (QoS 0). The memory allocated by the GPS delta
+ * encoder for each sample is measured (com.sun.management.ThreadMXBean) with fresh and reusable payloads.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:56
+ */
+public class GpsDeltaCodecBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(GpsDeltaCodecBenchmark.class);
+
+    private static final String GPX_FILE_NAME = "tracks/demo.gpx";
+
+    private static final String TOPIC = "fleet/vehicle/benchmark/telemetry/gps";
+
+    //Fraction of messages dropped in the loss simulation
+    private static final double LOSS_RATE = 0.05;
+
+    //Replays of the track in the allocation measurement
+    private static final int ALLOCATION_ITERATIONS = 200;
+
+    private static final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    //Prevents the JIT from removing the encoding
+    private static long checksum = 0;
+
+    public static void main(String[] args) {
+
+        try{
+
+            GpsTrack gpsTrack = GpsTrackStore.getTrack(GPX_FILE_NAME);
+            ObjectMapper mapper = new ObjectMapper();
+
+            logger.info("Replaying {} samples of {}", gpsTrack.size(), GPX_FILE_NAME);
+
+            runBenchmark("JSON", new JsonTelemetryCodec(mapper), gpsTrack, mapper, 0.0);
+            runBenchmark("BINARY", new BinaryTelemetryCodec(), gpsTrack, mapper, 0.0);
+
+            for(int keyframeInterval : new int[]{1, 10, 20, 50})
+                runBenchmark(String.format("GPS_DELTA (keyframe every %d)", keyframeInterval), new GpsDeltaTelemetryCodec(keyframeInterval), gpsTrack, mapper, 0.0);
+
+            runBenchmark(String.format("GPS_DELTA (keyframe every %d, %.0f%% loss)", GpsDeltaTelemetryCodec.DEFAULT_KEYFRAME_INTERVAL, LOSS_RATE * 100),
+                    new GpsDeltaTelemetryCodec(), gpsTrack, mapper, LOSS_RATE);
+
+            logger.info("[GPS_DELTA encode] Allocated: {} bytes/sample (fresh payload) - {} bytes/sample (reusable payload)",
+                    String.format("%.1f", measureEncodeAllocation(gpsTrack, false)),
+                    String.format("%.1f", measureEncodeAllocation(gpsTrack, true)));
+
+        }catch (Exception e){
+            logger.error("Error running GPS Delta Codec Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static void runBenchmark(String name, TelemetryCodec telemetryCodec, GpsTrack gpsTrack, ObjectMapper mapper, double lossRate) throws Exception {
+
+        TelemetryPayloadDecoder<GpsLocationDescriptor> payloadDecoder = new TelemetryPayloadDecoder<>(mapper, GpsLocationDescriptor.class);
+        Random random = new Random(42);
+
+        long totalBytes = 0;
+        int sentCount = 0;
+        int decodedCount = 0;
+        double maxLatitudeError = 0.0;
+        double maxLongitudeError = 0.0;
+        double maxElevationError = 0.0;
+
+        for(int i = 0; i < gpsTrack.size(); i++){
+
+            GpsLocationDescriptor gpsLocationDescriptor = new GpsLocationDescriptor(
+                    gpsTrack.getLatitude(i),
+                    gpsTrack.getLongitude(i),
+                    gpsTrack.getElevation(i),
+                    GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
+
+            //The payload is decoded before the next encoding, so its array can be recycled
+            byte[] payload = telemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor, true);
+            totalBytes += payload.length;
+            sentCount++;
+
+            if(lossRate > 0 && random.nextDouble() < lossRate)
+                continue;
+
+            List<TelemetryMessage<GpsLocationDescriptor>> messageList = payloadDecoder.decode(TOPIC, payload);
+
+            for(TelemetryMessage<GpsLocationDescriptor> telemetryMessage : messageList){
+                GpsLocationDescriptor decodedLocation = telemetryMessage.getDataValue();
+                maxLatitudeError = Math.max(maxLatitudeError, Math.abs(decodedLocation.getLatitude() - gpsLocationDescriptor.getLatitude()));
+                maxLongitudeError = Math.max(maxLongitudeError, Math.abs(decodedLocation.getLongitude() - gpsLocationDescriptor.getLongitude()));
+                maxElevationError = Math.max(maxElevationError, Math.abs(decodedLocation.getElevation() - gpsLocationDescriptor.getElevation()));
+                decodedCount++;
+            }
+        }
+
+        logger.info("[{}] {} bytes/sample - decoded {}/{} - discarded delta frames: {} - max error lat: {} deg lng: {} deg ele: {} m",
+                name,
+                String.format("%.2f", (double) totalBytes / sentCount),
+                decodedCount,
+                sentCount,
+                payloadDecoder.getDiscardedFrameCount(),
+                String.format("%.2e", maxLatitudeError),
+                String.format("%.2e", maxLongitudeError),
+                String.format("%.3f", maxElevationError));
+    }
+
+    /**
+     * @return the bytes allocated by the GPS delta encoder for each sample of the track
+     */
+    private static double measureEncodeAllocation(GpsTrack gpsTrack, boolean reusablePayload) throws Exception {
+
+        GpsDeltaTelemetryCodec telemetryCodec = new GpsDeltaTelemetryCodec();
+        GpsLocationDescriptor[] gpsLocationDescriptors = new GpsLocationDescriptor[gpsTrack.size()];
+
+        for(int i = 0; i < gpsTrack.size(); i++)
+            gpsLocationDescriptors[i] = new GpsLocationDescriptor(gpsTrack.getLatitude(i), gpsTrack.getLongitude(i),
+                    gpsTrack.getElevation(i), GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
+
+        //Warmup
+        for(GpsLocationDescriptor gpsLocationDescriptor : gpsLocationDescriptors)
+            checksum += telemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor, reusablePayload).length;
+
+        long threadId = Thread.currentThread().getId();
+        long startAllocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        for(int r = 0; r < ALLOCATION_ITERATIONS; r++)
+            for(GpsLocationDescriptor gpsLocationDescriptor : gpsLocationDescriptors)
+                checksum += telemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor, reusablePayload).length;
+
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes;
+
+        return (double) allocatedBytes / ((long) ALLOCATION_ITERATIONS * gpsLocationDescriptors.length);
+    }
+
+}
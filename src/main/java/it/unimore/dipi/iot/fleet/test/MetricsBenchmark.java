@@ -0,0 +1,227 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.consumer.BatteryMonitoringStage;
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.consumer.TrafficMonitoringStage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.metrics.CsvMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.HistogramSnapshot;
+import it.unimore.dipi.iot.fleet.metrics.JmxMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.LatencyHistogram;
+import it.unimore.dipi.iot.fleet.metrics.LogMetricsReporter;
+import it.unimore.dipi.iot.fleet.metrics.MetricsRegistry;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Check the metrics instrumentation:
+ * - accuracy of the LatencyHistogram percentiles against the exact ones, on log-uniform values from 100 ns to 10 s
+ * - recording cost (single thread and concurrent) and allocated bytes for each record (expected 0)
+ * - a ConsumerRuntime processing synthetic telemetry (with sample timestamps 5 ms in the past) reported through the
+ *   log and CSV reporters and read back through the JMX attributes
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:54
+ */
+public class MetricsBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsBenchmark.class);
+
+    private static final int ACCURACY_VALUES = 1000000;
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private static final int RECORD_ITERATIONS = 20000000;
+
+    private static final int RECORDING_THREADS = 4;
+
+    private static final int VEHICLE_COUNT = 2000;
+
+    private static final int MESSAGE_COUNT = 200000;
+
+    private static final long SAMPLE_AGE_MS = 5;
+
+    public static void main(String[] args) {
+
+        File csvFile = null;
+
+        try{
+
+            checkAccuracy();
+            measureRecording();
+            measureConcurrentRecording();
+
+            csvFile = File.createTempFile("metrics-benchmark", ".csv");
+            csvFile.delete();
+
+            runConsumer(csvFile);
+
+        }catch (Exception e){
+            logger.error("Error running Metrics Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }finally {
+            if(csvFile != null)
+                csvFile.delete();
+        }
+    }
+
+    private static void checkAccuracy(){
+
+        Random random = new Random(42);
+        long[] values = new long[ACCURACY_VALUES];
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+        for(int i = 0; i < values.length; i++){
+            values[i] = (long) Math.pow(10, 2 + random.nextDouble() * 8);
+            latencyHistogram.record(values[i]);
+        }
+
+        Arrays.sort(values);
+        HistogramSnapshot snapshot = latencyHistogram.snapshot();
+        double maxError = 0.0;
+        StringBuilder sb = new StringBuilder();
+
+        for(double percentile : PERCENTILES){
+            long exactValue = values[(int) Math.ceil(percentile / 100.0 * values.length) - 1];
+            long histogramValue = snapshot.getValueAtPercentile(percentile);
+            double error = Math.abs(histogramValue - exactValue) / (double) exactValue;
+            maxError = Math.max(maxError, error);
+            sb.append(String.format("p%s=%d/%d ", percentile, histogramValue, exactValue));
+        }
+
+        logger.info("Accuracy (histogram/exact ns): {}- Max relative error: {}% - Max: {} (exact {})",
+                sb,
+                String.format("%.2f", maxError * 100),
+                snapshot.getMax(),
+                values[values.length - 1]);
+    }
+
+    private static void measureRecording(){
+
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for(int round = 0; round < 3; round++){
+
+            long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+
+            for(int i = 0; i < RECORD_ITERATIONS; i++)
+                latencyHistogram.record((i & 0xFFFF) * 37L);
+
+            long recordNanos = System.nanoTime() - startTime;
+            allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+            startTime = System.nanoTime();
+            long checksum = 0;
+            for(int i = 0; i < RECORD_ITERATIONS; i++)
+                checksum += System.nanoTime();
+            long clockNanos = System.nanoTime() - startTime;
+
+            if(round == 2)
+                logger.info("Record: {} ns/value - Allocated: {} bytes for {} records - System.nanoTime(): {} ns/call (checksum {})",
+                        String.format("%.1f", (double) recordNanos / RECORD_ITERATIONS),
+                        allocatedBytes,
+                        RECORD_ITERATIONS,
+                        String.format("%.1f", (double) clockNanos / RECORD_ITERATIONS),
+                        checksum & 0xFF);
+        }
+    }
+
+    private static void measureConcurrentRecording() throws InterruptedException {
+
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        Thread[] threads = new Thread[RECORDING_THREADS];
+        int iterations = RECORD_ITERATIONS / RECORDING_THREADS;
+
+        long startTime = System.nanoTime();
+
+        for(int t = 0; t < threads.length; t++){
+            threads[t] = new Thread(() -> {
+                for(int i = 0; i < iterations; i++)
+                    latencyHistogram.record((i & 0xFFFF) * 37L);
+            });
+            threads[t].start();
+        }
+
+        for(Thread thread : threads)
+            thread.join();
+
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        logger.info("Concurrent Record ({} threads): {} values/s - Count: {} (expected {})",
+                RECORDING_THREADS,
+                String.format("%.0f", (double) iterations * RECORDING_THREADS * 1e9 / elapsedNanos),
+                latencyHistogram.getCount(),
+                (long) iterations * RECORDING_THREADS);
+    }
+
+    private static void runConsumer(File csvFile) throws Exception {
+
+        ObjectMapper mapper = new ObjectMapper();
+        Random random = new Random(7);
+
+        ConsumerRuntime consumerRuntime = new ConsumerRuntime("metrics-benchmark");
+        consumerRuntime.addStage(new BatteryMonitoringStage());
+        consumerRuntime.addStage(new TrafficMonitoringStage());
+        consumerRuntime.start(new ControlMessagePublisher((topic, payload) -> {}, mapper,
+                ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                ControlMessagePublisher.DEFAULT_MAX_PENDING_CONTROLS,
+                0));
+
+        MetricsRegistry metricsRegistry = MetricsRegistry.getDefault();
+        LogMetricsReporter logMetricsReporter = new LogMetricsReporter(metricsRegistry);
+        CsvMetricsReporter csvMetricsReporter = new CsvMetricsReporter(metricsRegistry, csvFile);
+
+        long startTime = System.nanoTime();
+
+        for(int m = 0; m < MESSAGE_COUNT; m++){
+
+            int vehicleIndex = m % VEHICLE_COUNT;
+            boolean isGps = (m / VEHICLE_COUNT) % 2 == 0;
+
+            TelemetryMessage<?> telemetryMessage = (isGps ?
+                    new TelemetryMessage<>(GpsGpxSensorResource.RESOURCE_TYPE, new GpsLocationDescriptor(44.6 + random.nextDouble() * 0.4, 10.1 + random.nextDouble() * 0.4, 40.0, GpsLocationDescriptor.FILE_LOCATION_PROVIDER)) :
+                    new TelemetryMessage<>(BatterySensorResource.RESOURCE_TYPE, 100.0 - m * 0.0001));
+
+            telemetryMessage.setTimestamp(System.currentTimeMillis() - SAMPLE_AGE_MS);
+
+            consumerRuntime.process(String.format("fleet/vehicle/vehicle-%05d/telemetry/%s", vehicleIndex, isGps ? "gps" : "battery"),
+                    mapper.writeValueAsBytes(telemetryMessage));
+        }
+
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        logger.info("Consumer: {} messages in {} ms", MESSAGE_COUNT, String.format("%.1f", elapsedNanos / 1e6));
+
+        logMetricsReporter.report();
+        csvMetricsReporter.report();
+        csvMetricsReporter.close();
+
+        JmxMetricsReporter.register(metricsRegistry);
+        ObjectName objectName = new JmxMetricsReporter(metricsRegistry).getObjectName();
+
+        logger.info("JMX {}: received={} e2e.p50_us={} e2e.p99_us={} decode.p99_us={} - CSV rows: {}",
+                objectName,
+                ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, consumerRuntime.getMetricName("received")),
+                ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, consumerRuntime.getMetricName("e2e.p50_us")),
+                ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, consumerRuntime.getMetricName("e2e.p99_us")),
+                ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, consumerRuntime.getMetricName("decode.p99_us")),
+                Files.readAllLines(csvFile.toPath()).size() - 1);
+
+        consumerRuntime.shutdown();
+    }
+}
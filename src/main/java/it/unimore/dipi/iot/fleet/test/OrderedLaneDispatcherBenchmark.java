@@ -0,0 +1,150 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.consumer.TelemetryPayloadDecoder;
+import it.unimore.dipi.iot.fleet.device.BackpressurePolicy;
+import it.unimore.dipi.iot.fleet.dispatch.OrderedLaneDispatcher;
+import it.unimore.dipi.iot.fleet.index.GridTrafficEventIndex;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.model.TrafficEventDescriptor;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feed GPS telemetry messages of many vehicles from a single thread (as the MQTT client receive loop) to the traffic
+ * monitoring processing (JSON decoding and traffic event query), either inline or through an OrderedLaneDispatcher
+ * with an increasing number of lanes. Reports the time spent in the receive thread for each message, the end to end
+ * throughput, the lane statistics and the number of messages processed out of order for their vehicle (must be 0).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:15
+ */
+public class OrderedLaneDispatcherBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderedLaneDispatcherBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 2000;
+
+    private static final int MESSAGES_PER_VEHICLE = 100;
+
+    private static final int[] LANE_COUNTS = {1, 2, 4, 8};
+
+    private static final int TRAFFIC_EVENT_COUNT = 10000;
+
+    public static void main(String[] args) throws Exception {
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonTelemetryCodec jsonTelemetryCodec = new JsonTelemetryCodec(mapper);
+        Random random = new Random(42);
+
+        GridTrafficEventIndex trafficEventIndex = new GridTrafficEventIndex();
+        for(int i = 0; i < TRAFFIC_EVENT_COUNT; i++)
+            trafficEventIndex.insert(new TrafficEventDescriptor(TrafficEventDescriptor.JAM_TRAFFIC_EVENT,
+                    44.0 + random.nextDouble(), 10.0 + random.nextDouble(), System.currentTimeMillis()));
+
+        String[] topics = new String[VEHICLE_COUNT];
+        byte[][] payloads = new byte[MESSAGES_PER_VEHICLE][];
+
+        for(int v = 0; v < VEHICLE_COUNT; v++)
+            topics[v] = String.format("fleet/vehicle/vehicle-%d/telemetry/gps", v);
+
+        //The message sequence number is carried by the elevation
+        for(int m = 0; m < MESSAGES_PER_VEHICLE; m++)
+            payloads[m] = jsonTelemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE,
+                    new GpsLocationDescriptor(44.0 + random.nextDouble(), 10.0 + random.nextDouble(), m, GpsLocationDescriptor.FILE_LOCATION_PROVIDER),
+                    false);
+
+        TelemetryPayloadDecoder<GpsLocationDescriptor> telemetryPayloadDecoder = new TelemetryPayloadDecoder<>(mapper, GpsLocationDescriptor.class);
+        Map<String, AtomicLong> lastSequenceMap = new ConcurrentHashMap<>();
+        AtomicLong outOfOrderCount = new AtomicLong(0);
+        AtomicLong matchCount = new AtomicLong(0);
+
+        IMqttMessageListener messageListener = (topic, msg) -> {
+            for(TelemetryMessage<GpsLocationDescriptor> telemetryMessage : telemetryPayloadDecoder.decode(topic, msg.getPayload())){
+
+                GpsLocationDescriptor gpsLocationDescriptor = telemetryMessage.getDataValue();
+                matchCount.addAndGet(trafficEventIndex.query(gpsLocationDescriptor.getLatitude(), gpsLocationDescriptor.getLongitude(), 2.0).size());
+
+                long sequence = (long) gpsLocationDescriptor.getElevation();
+                AtomicLong lastSequence = lastSequenceMap.computeIfAbsent(topic, key -> new AtomicLong(-1));
+
+                if(lastSequence.getAndSet(sequence) >= sequence)
+                    outOfOrderCount.incrementAndGet();
+            }
+        };
+
+        //Warmup
+        runInline(messageListener, topics, payloads);
+        lastSequenceMap.clear();
+
+        long startTime = System.nanoTime();
+        runInline(messageListener, topics, payloads);
+        long inlineTime = System.nanoTime() - startTime;
+
+        logger.info("Inline -> Receive Thread: {} ns/message - Throughput: {} messages/s - Out of Order: {}",
+                inlineTime / getMessageCount(),
+                String.format("%.0f", getMessageCount() / (inlineTime / 1e9)),
+                outOfOrderCount.get());
+
+        for(int laneCount : LANE_COUNTS){
+
+            lastSequenceMap.clear();
+            outOfOrderCount.set(0);
+
+            OrderedLaneDispatcher orderedLaneDispatcher = new OrderedLaneDispatcher("benchmark", laneCount,
+                    OrderedLaneDispatcher.DEFAULT_LANE_CAPACITY, BackpressurePolicy.BLOCK, messageListener);
+
+            startTime = System.nanoTime();
+            long receiveTime = runInline(orderedLaneDispatcher, topics, payloads);
+
+            while(orderedLaneDispatcher.getProcessedMessageCount() < getMessageCount())
+                Thread.sleep(1);
+
+            long totalTime = System.nanoTime() - startTime;
+
+            logger.info("Lanes: {} -> Receive Thread: {} ns/message - Throughput: {} messages/s - Out of Order: {} - Dropped: {}",
+                    laneCount,
+                    receiveTime / getMessageCount(),
+                    String.format("%.0f", getMessageCount() / (totalTime / 1e9)),
+                    outOfOrderCount.get(),
+                    orderedLaneDispatcher.getDroppedMessageCount());
+
+            logger.info("Lane Stats: {}", orderedLaneDispatcher.getLaneStats());
+
+            orderedLaneDispatcher.shutdown();
+        }
+
+        logger.debug("Matches: {}", matchCount.get());
+    }
+
+    /**
+     * Deliver all the messages (round robin on the vehicles) from the calling thread
+     * @return the time spent delivering
+     */
+    private static long runInline(IMqttMessageListener messageListener, String[] topics, byte[][] payloads) throws Exception {
+
+        long startTime = System.nanoTime();
+
+        for(int m = 0; m < MESSAGES_PER_VEHICLE; m++)
+            for(String topic : topics)
+                messageListener.messageArrived(topic, new MqttMessage(payloads[m]));
+
+        return System.nanoTime() - startTime;
+    }
+
+    private static long getMessageCount(){
+        return (long) VEHICLE_COUNT * MESSAGES_PER_VEHICLE;
+    }
+
+}
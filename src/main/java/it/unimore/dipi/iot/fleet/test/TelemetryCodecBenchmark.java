@@ -0,0 +1,109 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.BinaryTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetryCodec;
+import it.unimore.dipi.iot.fleet.consumer.TelemetryPayloadDecoder;
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compare the JSON and the binary telemetry formats: bytes on the wire and encode/decode time
+ * for GPS and battery samples and for a batch of GPS samples. Decoding goes through the
+ * TelemetryPayloadDecoder used by the consumers (format detection included).
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:54
+ */
+public class TelemetryCodecBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryCodecBenchmark.class);
+
+    private static final int WARMUP_ITERATIONS = 200000;
+
+    private static final int MEASURED_ITERATIONS = 500000;
+
+    private static final int BATCH_SIZE = 10;
+
+    //Prevents the JIT from removing the encoding/decoding
+    private static long checksum = 0;
+
+    public static void main(String[] args) {
+
+        try{
+
+            ObjectMapper mapper = new ObjectMapper();
+            TelemetryPayloadDecoder<GpsLocationDescriptor> gpsPayloadDecoder = new TelemetryPayloadDecoder<>(mapper, GpsLocationDescriptor.class);
+            TelemetryPayloadDecoder<Double> batteryPayloadDecoder = new TelemetryPayloadDecoder<>(mapper, Double.class);
+
+            GpsLocationDescriptor gpsLocationDescriptor = new GpsLocationDescriptor(44.6290619, 10.9488089, 40.2, GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
+            Double batteryLevel = 87.36541234;
+
+            List<TelemetryMessage<GpsLocationDescriptor>> messageList = new ArrayList<>();
+            for(int i = 0; i < BATCH_SIZE; i++)
+                messageList.add(new TelemetryMessage<>(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor));
+            TelemetryBatchMessage<GpsLocationDescriptor> batchMessage = new TelemetryBatchMessage<>(messageList);
+
+            for(TelemetryCodec telemetryCodec : new TelemetryCodec[]{new JsonTelemetryCodec(mapper), new BinaryTelemetryCodec()}){
+
+                runBenchmark(telemetryCodec, "GPS", gpsPayloadDecoder,
+                        () -> telemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor, true));
+
+                runBenchmark(telemetryCodec, "Battery", batteryPayloadDecoder,
+                        () -> telemetryCodec.encode(BatterySensorResource.RESOURCE_TYPE, batteryLevel, true));
+
+                runBenchmark(telemetryCodec, String.format("GPS Batch (%d)", BATCH_SIZE), gpsPayloadDecoder,
+                        () -> telemetryCodec.encodeBatch(batchMessage));
+            }
+
+            logger.info("Checksum: {}", checksum);
+
+        }catch (Exception e){
+            logger.error("Error running Telemetry Codec Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private interface PayloadSupplier {
+        byte[] get() throws Exception;
+    }
+
+    private static void runBenchmark(TelemetryCodec telemetryCodec, String name, TelemetryPayloadDecoder<?> payloadDecoder, PayloadSupplier payloadSupplier) throws Exception {
+
+        for(int i = 0; i < WARMUP_ITERATIONS; i++)
+            checksum += payloadSupplier.get().length;
+
+        long startTime = System.nanoTime();
+        for(int i = 0; i < MEASURED_ITERATIONS; i++)
+            checksum += payloadSupplier.get().length;
+        long encodeTime = System.nanoTime() - startTime;
+
+        //The decoded payload is copied since encoded arrays may be recycled
+        byte[] payload = payloadSupplier.get().clone();
+
+        for(int i = 0; i < WARMUP_ITERATIONS; i++)
+            checksum += payloadDecoder.decode(payload).size();
+
+        startTime = System.nanoTime();
+        for(int i = 0; i < MEASURED_ITERATIONS; i++)
+            checksum += payloadDecoder.decode(payload).size();
+        long decodeTime = System.nanoTime() - startTime;
+
+        logger.info("[{} - {}] {} bytes - encode: {} ns/msg - decode: {} ns/msg",
+                telemetryCodec.getFormat(),
+                name,
+                payload.length,
+                String.format("%.1f", (double) encodeTime / MEASURED_ITERATIONS),
+                String.format("%.1f", (double) decodeTime / MEASURED_ITERATIONS));
+    }
+
+}
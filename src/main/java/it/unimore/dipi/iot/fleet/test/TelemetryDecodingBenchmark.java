@@ -0,0 +1,187 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import it.unimore.dipi.iot.fleet.codec.BinaryTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.StreamingJsonTelemetryDecoder;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySampleListener;
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compare the time spent and the bytes allocated for each decoded telemetry message by the previous consumer
+ * path (new String(payload) and readValue with a new TypeReference), the JsonTelemetryCodec (tree + convertValue),
+ * a prebuilt ObjectReader, the StreamingJsonTelemetryDecoder filling a reusable TelemetrySample and the binary codec
+ * decoding into the same holder. Single GPS, single battery and battery batch payloads are measured.
+ * Allocation is measured through com.sun.management.ThreadMXBean on the benchmark thread.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:23
+ */
+public class TelemetryDecodingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryDecodingBenchmark.class);
+
+    private static final int WARMUP_ITERATIONS = 100000;
+
+    private static final int MEASURED_ITERATIONS = 500000;
+
+    private static final int BATCH_SIZE = 10;
+
+    private static final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    //Prevents the JIT from removing the decoding
+    private static double checksum = 0;
+
+    private interface PayloadDecoder {
+        /**
+         * @return the number of decoded messages
+         */
+        int decode(byte[] payload) throws Exception;
+    }
+
+    public static void main(String[] args) {
+
+        try{
+
+            ObjectMapper mapper = new ObjectMapper();
+            JsonTelemetryCodec jsonTelemetryCodec = new JsonTelemetryCodec(mapper);
+            BinaryTelemetryCodec binaryTelemetryCodec = new BinaryTelemetryCodec();
+            StreamingJsonTelemetryDecoder streamingJsonTelemetryDecoder = new StreamingJsonTelemetryDecoder(mapper.getFactory());
+            TelemetrySample telemetrySample = new TelemetrySample();
+
+            GpsLocationDescriptor gpsLocationDescriptor = new GpsLocationDescriptor(44.6290619, 10.9488089, 40.2, GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
+
+            List<TelemetryMessage<Double>> batteryMessageList = new ArrayList<>();
+            for(int i = 0; i < BATCH_SIZE; i++)
+                batteryMessageList.add(new TelemetryMessage<>(BatterySensorResource.RESOURCE_TYPE, 100.0 - i * 0.1));
+
+            byte[] gpsJsonPayload = jsonTelemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor, false);
+            byte[] batteryJsonPayload = jsonTelemetryCodec.encode(BatterySensorResource.RESOURCE_TYPE, 87.5, false);
+            byte[] batteryBatchJsonPayload = jsonTelemetryCodec.encodeBatch(new TelemetryBatchMessage<>(batteryMessageList));
+            byte[] gpsBinaryPayload = binaryTelemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor, false);
+            byte[] batteryBinaryPayload = binaryTelemetryCodec.encode(BatterySensorResource.RESOURCE_TYPE, 87.5, false);
+            byte[] batteryBatchBinaryPayload = binaryTelemetryCodec.encodeBatch(new TelemetryBatchMessage<>(batteryMessageList));
+
+            ObjectReader gpsMessageReader = mapper.readerFor(new TypeReference<TelemetryMessage<GpsLocationDescriptor>>(){});
+            ObjectReader batteryMessageReader = mapper.readerFor(new TypeReference<TelemetryMessage<Double>>(){});
+            ObjectReader batteryBatchMessageReader = mapper.readerFor(new TypeReference<TelemetryBatchMessage<Double>>(){});
+
+            TelemetrySampleListener telemetrySampleListener = sample -> {
+                if(sample.hasLocationValue())
+                    checksum += sample.getLatitude() + sample.getLongitude();
+                else if(sample.hasNumberValue())
+                    checksum += sample.getValue();
+            };
+
+            PayloadDecoder streamingDecoder = payload -> streamingJsonTelemetryDecoder.decode(payload, telemetrySample, telemetrySampleListener);
+            PayloadDecoder binaryDecoder = payload -> binaryTelemetryCodec.decode(payload, telemetrySample, telemetrySampleListener);
+
+            logger.info("Telemetry Decoding Benchmark - Iterations: {} Batch Size: {}", MEASURED_ITERATIONS, BATCH_SIZE);
+
+            logger.info("GPS Payload - JSON: {} bytes Binary: {} bytes", gpsJsonPayload.length, gpsBinaryPayload.length);
+
+            runBenchmark("Legacy (new String + readValue)", payload -> {
+                TelemetryMessage<GpsLocationDescriptor> telemetryMessage = mapper.readValue(new String(payload), new TypeReference<TelemetryMessage<GpsLocationDescriptor>>(){});
+                checksum += telemetryMessage.getDataValue().getLatitude() + telemetryMessage.getDataValue().getLongitude();
+                return 1;
+            }, gpsJsonPayload);
+            runBenchmark("JsonTelemetryCodec (tree + convertValue)", payload -> {
+                List<TelemetryMessage<GpsLocationDescriptor>> telemetryMessageList = jsonTelemetryCodec.decode(payload, GpsLocationDescriptor.class);
+                checksum += telemetryMessageList.get(0).getDataValue().getLatitude() + telemetryMessageList.get(0).getDataValue().getLongitude();
+                return telemetryMessageList.size();
+            }, gpsJsonPayload);
+            runBenchmark("Prebuilt ObjectReader", payload -> {
+                TelemetryMessage<GpsLocationDescriptor> telemetryMessage = gpsMessageReader.readValue(payload);
+                checksum += telemetryMessage.getDataValue().getLatitude() + telemetryMessage.getDataValue().getLongitude();
+                return 1;
+            }, gpsJsonPayload);
+            runBenchmark("Streaming JSON (reusable sample)", streamingDecoder, gpsJsonPayload);
+            runBenchmark("Binary (reusable sample)", binaryDecoder, gpsBinaryPayload);
+
+            logger.info("Battery Payload - JSON: {} bytes Binary: {} bytes", batteryJsonPayload.length, batteryBinaryPayload.length);
+
+            runBenchmark("Legacy (new String + readValue)", payload -> {
+                TelemetryMessage<Double> telemetryMessage = mapper.readValue(new String(payload), new TypeReference<TelemetryMessage<Double>>(){});
+                checksum += telemetryMessage.getDataValue();
+                return 1;
+            }, batteryJsonPayload);
+            runBenchmark("JsonTelemetryCodec (tree + convertValue)", payload -> {
+                List<TelemetryMessage<Double>> telemetryMessageList = jsonTelemetryCodec.decode(payload, Double.class);
+                checksum += telemetryMessageList.get(0).getDataValue();
+                return telemetryMessageList.size();
+            }, batteryJsonPayload);
+            runBenchmark("Prebuilt ObjectReader", payload -> {
+                TelemetryMessage<Double> telemetryMessage = batteryMessageReader.readValue(payload);
+                checksum += telemetryMessage.getDataValue();
+                return 1;
+            }, batteryJsonPayload);
+            runBenchmark("Streaming JSON (reusable sample)", streamingDecoder, batteryJsonPayload);
+            runBenchmark("Binary (reusable sample)", binaryDecoder, batteryBinaryPayload);
+
+            logger.info("Battery Batch Payload - JSON: {} bytes Binary: {} bytes", batteryBatchJsonPayload.length, batteryBatchBinaryPayload.length);
+
+            runBenchmark("Legacy (new String + readValue)", payload -> {
+                TelemetryBatchMessage<Double> batchMessage = mapper.readValue(new String(payload), new TypeReference<TelemetryBatchMessage<Double>>(){});
+                for(TelemetryMessage<Double> telemetryMessage : batchMessage.getMessageList())
+                    checksum += telemetryMessage.getDataValue();
+                return batchMessage.getMessageList().size();
+            }, batteryBatchJsonPayload);
+            runBenchmark("JsonTelemetryCodec (tree + convertValue)", payload -> {
+                List<TelemetryMessage<Double>> telemetryMessageList = jsonTelemetryCodec.decode(payload, Double.class);
+                for(TelemetryMessage<Double> telemetryMessage : telemetryMessageList)
+                    checksum += telemetryMessage.getDataValue();
+                return telemetryMessageList.size();
+            }, batteryBatchJsonPayload);
+            runBenchmark("Prebuilt ObjectReader", payload -> {
+                TelemetryBatchMessage<Double> batchMessage = batteryBatchMessageReader.readValue(payload);
+                for(TelemetryMessage<Double> telemetryMessage : batchMessage.getMessageList())
+                    checksum += telemetryMessage.getDataValue();
+                return batchMessage.getMessageList().size();
+            }, batteryBatchJsonPayload);
+            runBenchmark("Streaming JSON (reusable sample)", streamingDecoder, batteryBatchJsonPayload);
+            runBenchmark("Binary (reusable sample)", binaryDecoder, batteryBatchBinaryPayload);
+
+            logger.info("Checksum: {}", checksum);
+
+        }catch (Exception e){
+            logger.error("Error running Telemetry Decoding Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static void runBenchmark(String name, PayloadDecoder payloadDecoder, byte[] payload) throws Exception {
+
+        for(int i = 0; i < WARMUP_ITERATIONS; i++)
+            payloadDecoder.decode(payload);
+
+        long threadId = Thread.currentThread().getId();
+        long messageCount = 0;
+        long startAllocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < MEASURED_ITERATIONS; i++)
+            messageCount += payloadDecoder.decode(payload);
+
+        long elapsedTime = System.nanoTime() - startTime;
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes;
+
+        logger.info("[{}] {} ns/message - {} bytes allocated/message",
+                name,
+                String.format("%.1f", (double) elapsedTime / messageCount),
+                String.format("%.1f", (double) allocatedBytes / messageCount));
+    }
+
+}
@@ -0,0 +1,98 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.TelemetryEncoder;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compare the bytes allocated and the time spent for each telemetry sample by the previous
+ * publishing path (topic formatting, per-sample log strings, writeValueAsString().getBytes())
+ * and by the TelemetryEncoder (precomputed topic, reusable generator and payload array).
+ * Allocation is measured through com.sun.management.ThreadMXBean on the benchmark thread.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:51
+ */
+public class TelemetryEncodingBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryEncodingBenchmark.class);
+
+    private static final int WARMUP_ITERATIONS = 200000;
+
+    private static final int MEASURED_ITERATIONS = 1000000;
+
+    private static final String VEHICLE_ID = "vehicle-benchmark";
+
+    private static final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    //Prevents the JIT from removing the encoding
+    private static long checksum = 0;
+
+    private interface SampleEncoder {
+        byte[] encode(Object value) throws Exception;
+    }
+
+    public static void main(String[] args) {
+
+        try{
+
+            ObjectMapper mapper = new ObjectMapper();
+            TelemetryEncoder telemetryEncoder = new TelemetryEncoder(mapper);
+            GpsLocationDescriptor gpsLocationDescriptor = new GpsLocationDescriptor(44.6290619, 10.9488089, 40.2, GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
+            String telemetryTopic = String.format("%s/%s/%s/%s", "fleet/vehicle", VEHICLE_ID, "telemetry", "gps");
+
+            SampleEncoder legacyEncoder = value -> {
+                String topic = String.format("%s/%s/%s/%s", "fleet/vehicle", VEHICLE_ID, "telemetry", "gps");
+                TelemetryMessage<Object> telemetryMessage = new TelemetryMessage<>(GpsGpxSensorResource.RESOURCE_TYPE, value);
+                //Per sample INFO log lines of the previous implementation
+                String logLine = "Sending to topic: " + topic + " -> Data: " + telemetryMessage;
+                checksum += logLine.length();
+                return mapper.writeValueAsString(telemetryMessage).getBytes();
+            };
+
+            SampleEncoder freshPayloadEncoder = value -> telemetryEncoder.encode(GpsGpxSensorResource.RESOURCE_TYPE, value, false);
+
+            SampleEncoder reusablePayloadEncoder = value -> telemetryEncoder.encode(GpsGpxSensorResource.RESOURCE_TYPE, value, true);
+
+            logger.info("Telemetry Encoding Benchmark - Topic: {} Iterations: {}", telemetryTopic, MEASURED_ITERATIONS);
+
+            runBenchmark("Legacy (format + writeValueAsString)", legacyEncoder, gpsLocationDescriptor);
+            runBenchmark("TelemetryEncoder (fresh payload)", freshPayloadEncoder, gpsLocationDescriptor);
+            runBenchmark("TelemetryEncoder (reusable payload)", reusablePayloadEncoder, gpsLocationDescriptor);
+
+            logger.info("Checksum: {}", checksum);
+
+        }catch (Exception e){
+            logger.error("Error running Telemetry Encoding Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static void runBenchmark(String name, SampleEncoder sampleEncoder, Object value) throws Exception {
+
+        for(int i = 0; i < WARMUP_ITERATIONS; i++)
+            checksum += sampleEncoder.encode(value).length;
+
+        long threadId = Thread.currentThread().getId();
+        long startAllocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < MEASURED_ITERATIONS; i++)
+            checksum += sampleEncoder.encode(value).length;
+
+        long elapsedTime = System.nanoTime() - startTime;
+        long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - startAllocatedBytes;
+
+        logger.info("[{}] {} ns/sample - {} bytes allocated/sample",
+                name,
+                String.format("%.1f", (double) elapsedTime / MEASURED_ITERATIONS),
+                String.format("%.1f", (double) allocatedBytes / MEASURED_ITERATIONS));
+    }
+
+}
@@ -0,0 +1,257 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import it.unimore.dipi.iot.fleet.device.JournalDrainOrder;
+import it.unimore.dipi.iot.fleet.device.StoreAndForwardMqttChannel;
+import it.unimore.dipi.iot.fleet.device.TelemetryJournal;
+import it.unimore.dipi.iot.fleet.device.VehicleMqttChannel;
+import it.unimore.dipi.iot.fleet.scheduler.TimerTaskScheduler;
+import org.eclipse.paho.client.mqttv3.IMqttMessageListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measure the append and drain cost of the TelemetryJournal and check its behaviour:
+ * - a journal filled with 3 times its capacity keeps the most recent records, in order (oldest and newest first)
+ * - the backlog survives the closing and the reopening of the journal
+ * - a StoreAndForwardMqttChannel wrapping an offline channel journals the messages and delivers all of them,
+ *   in the publishing order, once the channel is connected
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:39
+ */
+public class TelemetryJournalBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryJournalBenchmark.class);
+
+    private static final int JOURNAL_CAPACITY = 16 * 1024 * 1024;
+
+    private static final int PAYLOAD_SIZE = 120;
+
+    private static final String TOPIC = "fleet/vehicle/2b8a7f3e-6f0a-4d38-9b8e-0c4f1f5b2a11/telemetry/gps";
+
+    private static final int WARMUP_ROUNDS = 3;
+
+    public static void main(String[] args) {
+
+        File journalFile = null;
+
+        try{
+
+            journalFile = File.createTempFile("telemetry-journal-benchmark", ".journal");
+            journalFile.delete();
+
+            byte[] payload = new byte[PAYLOAD_SIZE];
+
+            //Append and drain cost
+            try(TelemetryJournal telemetryJournal = new TelemetryJournal(journalFile, JOURNAL_CAPACITY)){
+
+                int recordCount = JOURNAL_CAPACITY / (PAYLOAD_SIZE + TOPIC.length() + 11);
+
+                for(int round = 0; round <= WARMUP_ROUNDS; round++){
+
+                    long startTime = System.nanoTime();
+                    for(int i = 0; i < recordCount; i++){
+                        ByteBuffer.wrap(payload).putInt(0, i);
+                        telemetryJournal.append(TOPIC, payload, 0);
+                    }
+                    long appendNanos = System.nanoTime() - startTime;
+
+                    long[] checksum = {0};
+                    startTime = System.nanoTime();
+                    int drainedCount = 0;
+                    while(!telemetryJournal.isEmpty())
+                        drainedCount += telemetryJournal.drain(StoreAndForwardMqttChannel.DEFAULT_DRAIN_BATCH_SIZE, JournalDrainOrder.OLDEST_FIRST,
+                                (topic, recordPayload, qos) -> checksum[0] += ByteBuffer.wrap(recordPayload).getInt(0));
+                    long drainNanos = System.nanoTime() - startTime;
+
+                    if(round == WARMUP_ROUNDS)
+                        logger.info("Records: {} - Append: {} ns/record - Drain: {} ns/record ({} records/s) - Checksum ok: {}",
+                                recordCount,
+                                String.format("%.1f", (double) appendNanos / recordCount),
+                                String.format("%.1f", (double) drainNanos / drainedCount),
+                                String.format("%.0f", drainedCount * 1e9 / drainNanos),
+                                checksum[0] == (long) recordCount * (recordCount - 1) / 2);
+                }
+            }
+
+            journalFile.delete();
+
+            //Overwrite, drain order and reopening
+            int smallCapacity = 64 * 1024;
+            int appendedCount = 3 * smallCapacity / (PAYLOAD_SIZE + TOPIC.length() + 11);
+
+            try(TelemetryJournal telemetryJournal = new TelemetryJournal(journalFile, smallCapacity)){
+                for(int i = 0; i < appendedCount; i++){
+                    ByteBuffer.wrap(payload).putInt(0, i);
+                    telemetryJournal.append(TOPIC, payload, 0);
+                }
+            }
+
+            try(TelemetryJournal telemetryJournal = new TelemetryJournal(journalFile, JOURNAL_CAPACITY)){
+
+                int backlog = telemetryJournal.getBacklogRecordCount();
+                long overwritten = telemetryJournal.getOverwrittenRecordCount();
+
+                //The file is locked by the open journal
+                boolean isLocked = false;
+                try(TelemetryJournal lockedTelemetryJournal = new TelemetryJournal(journalFile, JOURNAL_CAPACITY)){
+                    logger.error("Telemetry Journal {} opened twice !", lockedTelemetryJournal.getJournalFile());
+                }catch (IOException e){
+                    isLocked = true;
+                }
+
+                List<Integer> newestList = new ArrayList<>();
+                telemetryJournal.drain(backlog / 2, JournalDrainOrder.NEWEST_FIRST, (topic, recordPayload, qos) -> newestList.add(ByteBuffer.wrap(recordPayload).getInt(0)));
+                List<Integer> oldestList = new ArrayList<>();
+                telemetryJournal.drain(Integer.MAX_VALUE, JournalDrainOrder.OLDEST_FIRST, (topic, recordPayload, qos) -> oldestList.add(ByteBuffer.wrap(recordPayload).getInt(0)));
+
+                boolean isNewestOrdered = true;
+                for(int i = 0; i < newestList.size(); i++)
+                    isNewestOrdered &= newestList.get(i) == appendedCount - 1 - i;
+
+                boolean isOldestOrdered = true;
+                for(int i = 0; i < oldestList.size(); i++)
+                    isOldestOrdered &= oldestList.get(i) == appendedCount - backlog + i;
+
+                logger.info("Appended: {} - Capacity: {} bytes - Reopened Backlog: {} - Overwritten: {} (consistent: {}) - Newest first ordered: {} - Oldest first ordered: {} - Drained: {} - Locked: {}",
+                        appendedCount,
+                        smallCapacity,
+                        backlog,
+                        overwritten,
+                        backlog + overwritten == appendedCount,
+                        isNewestOrdered,
+                        isOldestOrdered,
+                        newestList.size() + oldestList.size(),
+                        isLocked);
+            }
+
+            journalFile.delete();
+
+            //Torn header: a head beyond the data area (head at offset 12 of the header) resets the journal
+            try(TelemetryJournal telemetryJournal = new TelemetryJournal(journalFile, smallCapacity)){
+                for(int i = 0; i < 10; i++)
+                    telemetryJournal.append(TOPIC, payload, 0);
+            }
+
+            try(RandomAccessFile randomAccessFile = new RandomAccessFile(journalFile, "rw")){
+                randomAccessFile.seek(12);
+                randomAccessFile.writeInt(smallCapacity + 1);
+            }
+
+            try(TelemetryJournal telemetryJournal = new TelemetryJournal(journalFile, smallCapacity)){
+                int drainedCount = telemetryJournal.drain(Integer.MAX_VALUE, JournalDrainOrder.OLDEST_FIRST, (topic, recordPayload, qos) -> {});
+                logger.info("Torn header - Reopened Backlog: {} - Drained: {} (reset: {})", telemetryJournal.getBacklogRecordCount(), drainedCount,
+                        telemetryJournal.isEmpty() && drainedCount == 0);
+            }
+
+            journalFile.delete();
+
+            //Store and forward through an offline channel
+            TimerTaskScheduler taskScheduler = new TimerTaskScheduler();
+            CollectingChannel collectingChannel = new CollectingChannel();
+            StoreAndForwardMqttChannel storeAndForwardMqttChannel = new StoreAndForwardMqttChannel(collectingChannel,
+                    new TelemetryJournal(journalFile, JOURNAL_CAPACITY),
+                    JournalDrainOrder.OLDEST_FIRST,
+                    StoreAndForwardMqttChannel.DEFAULT_DRAIN_BATCH_SIZE,
+                    50,
+                    taskScheduler);
+
+            int offlineCount = 50000;
+            int onlineCount = 10000;
+
+            for(int i = 0; i < offlineCount; i++){
+                ByteBuffer.wrap(payload).putInt(0, i);
+                storeAndForwardMqttChannel.publish(TOPIC, payload, 0);
+            }
+
+            int journaledCount = storeAndForwardMqttChannel.getTelemetryJournal().getBacklogRecordCount();
+            collectingChannel.isConnected = true;
+
+            //Messages published during the drain are journaled after the backlog
+            for(int i = offlineCount; i < offlineCount + onlineCount; i++){
+                ByteBuffer.wrap(payload).putInt(0, i);
+                storeAndForwardMqttChannel.publish(TOPIC, payload, 0);
+            }
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while(storeAndForwardMqttChannel.getQueuedMessageCount() > 0 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+
+            boolean isOrdered = collectingChannel.deliveredList.size() == offlineCount + onlineCount;
+            for(int i = 0; isOrdered && i < collectingChannel.deliveredList.size(); i++)
+                isOrdered = collectingChannel.deliveredList.get(i) == i;
+
+            logger.info("Store and Forward - Journaled while offline: {} - Delivered: {} - In order: {} - Drain rate: {} messages/s - {}",
+                    journaledCount,
+                    collectingChannel.deliveredList.size(),
+                    isOrdered,
+                    String.format("%.0f", storeAndForwardMqttChannel.getLastDrainRate()),
+                    storeAndForwardMqttChannel.getStats());
+
+            storeAndForwardMqttChannel.close();
+            taskScheduler.shutdown();
+
+        }catch (Exception e){
+            logger.error("Error running Telemetry Journal Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }finally {
+            if(journalFile != null)
+                journalFile.delete();
+        }
+    }
+
+    /**
+     * Channel collecting the first int of each payload, offline until isConnected is set
+     */
+    private static class CollectingChannel implements VehicleMqttChannel {
+
+        private final List<Integer> deliveredList = new ArrayList<>();
+
+        private volatile boolean isConnected = false;
+
+        @Override
+        public boolean isConnected() {
+            return this.isConnected;
+        }
+
+        @Override
+        public void publish(String topic, byte[] payload, int qos) {
+            this.deliveredList.add(ByteBuffer.wrap(payload).getInt(0));
+        }
+
+        @Override
+        public boolean isPayloadRetained() {
+            return false;
+        }
+
+        @Override
+        public void subscribe(String topicFilter, IMqttMessageListener messageListener) {
+        }
+
+        @Override
+        public void unsubscribe(String topicFilter) {
+        }
+
+        @Override
+        public long getQueuedMessageCount() {
+            return 0;
+        }
+
+        @Override
+        public long getSentMessageCount() {
+            return this.deliveredList.size();
+        }
+
+        @Override
+        public long getDroppedMessageCount() {
+            return 0;
+        }
+    }
+}
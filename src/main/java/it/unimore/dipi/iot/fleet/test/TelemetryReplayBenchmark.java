@@ -0,0 +1,185 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.consumer.AnalyticsStage;
+import it.unimore.dipi.iot.fleet.consumer.BatteryMonitoringStage;
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.consumer.TrafficMonitoringStage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.replay.TelemetryRecordReader;
+import it.unimore.dipi.iot.fleet.replay.TelemetryRecorder;
+import it.unimore.dipi.iot.fleet.replay.TelemetryReplayer;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record a synthetic minute of fleet traffic (a GPS and a battery message for each vehicle about every second) through
+ * the TelemetryRecorder, then replay it into an in-process ConsumerRuntime (battery and traffic monitoring) as fast as
+ * possible and at 10x and 100x, reporting the recording size, the replay rate and the maximum lag from the recorded
+ * pace. An additional stage checks that the samples of each vehicle are received in order, and a log truncated in its
+ * last record is read up to the previous one.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:35
+ */
+public class TelemetryReplayBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryReplayBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 2000;
+
+    private static final int RECORDED_SECONDS = 60;
+
+    private static final double[] REPLAY_SPEEDS = {TelemetryReplayer.MAX_SPEED, 100.0, 10.0};
+
+    public static void main(String[] args) {
+
+        File logFile = null;
+
+        try{
+
+            logFile = File.createTempFile("telemetry-replay-benchmark", ".trc");
+
+            long payloadBytes = record(logFile);
+
+            logger.info("Recording: {} messages - Payload: {} bytes - File: {} bytes ({} bytes/message of overhead)",
+                    VEHICLE_COUNT * RECORDED_SECONDS * 2L,
+                    payloadBytes,
+                    logFile.length(),
+                    String.format("%.2f", (double) (logFile.length() - payloadBytes) / (VEHICLE_COUNT * RECORDED_SECONDS * 2L)));
+
+            for(double speed : REPLAY_SPEEDS){
+
+                ConsumerRuntime consumerRuntime = new ConsumerRuntime("replay");
+                OrderCheckStage orderCheckStage = new OrderCheckStage();
+                consumerRuntime.addStage(new BatteryMonitoringStage());
+                consumerRuntime.addStage(new TrafficMonitoringStage());
+                consumerRuntime.addStage(orderCheckStage);
+                consumerRuntime.start(new ControlMessagePublisher((topic, payload) -> {}, consumerRuntime.getMapper(),
+                        ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                        ControlMessagePublisher.DEFAULT_MAX_PENDING_CONTROLS,
+                        ControlMessagePublisher.DEFAULT_MIN_INTERVAL_MS));
+
+                TelemetryReplayer telemetryReplayer = new TelemetryReplayer(logFile, speed);
+                telemetryReplayer.replay((topic, payload, qos) -> consumerRuntime.process(topic, payload));
+
+                logger.info("[REPLAY {}] {} ms for {} s of traffic - {} messages/s - {} ns/message - Max Lag: {} ms - Out of order samples: {}",
+                        Double.isInfinite(speed) ? "MAX" : String.format("%.0fx", speed),
+                        telemetryReplayer.getElapsedNanos() / 1000000,
+                        RECORDED_SECONDS,
+                        String.format("%.0f", telemetryReplayer.getRecordsPerSecond()),
+                        String.format("%.1f", (double) telemetryReplayer.getElapsedNanos() / telemetryReplayer.getReplayedRecordCount()),
+                        String.format("%.3f", telemetryReplayer.getMaxLagNanos() / 1e6),
+                        orderCheckStage.outOfOrderCount);
+
+                consumerRuntime.shutdown();
+            }
+
+            //A recorder killed while writing leaves a partial last record, read as the end of the log
+            try(RandomAccessFile randomAccessFile = new RandomAccessFile(logFile, "rw")){
+                randomAccessFile.setLength(logFile.length() - 3);
+            }
+
+            long truncatedRecordCount = 0;
+
+            try(TelemetryRecordReader telemetryRecordReader = new TelemetryRecordReader(logFile)){
+                TelemetryRecordReader.Record record = new TelemetryRecordReader.Record();
+                while(telemetryRecordReader.next(record))
+                    truncatedRecordCount++;
+            }
+
+            logger.info("[TRUNCATED] Records: {} (expected {})", truncatedRecordCount, VEHICLE_COUNT * RECORDED_SECONDS * 2L - 1);
+
+        }catch (Exception e){
+            logger.error("Error running Telemetry Replay Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }finally {
+            if(logFile != null)
+                logFile.delete();
+        }
+    }
+
+    /**
+     * @return the total payload bytes of the recorded messages
+     */
+    private static long record(File logFile) throws Exception {
+
+        ObjectMapper mapper = new ObjectMapper();
+        Random random = new Random(42);
+        long startMicros = System.nanoTime() / 1000;
+        long payloadBytes = 0;
+
+        //Reporting phase of each vehicle within the second
+        long[] phaseMicros = new long[VEHICLE_COUNT];
+        for(int v = 0; v < VEHICLE_COUNT; v++)
+            phaseMicros[v] = random.nextInt(1000000);
+
+        Integer[] vehicleOrder = new Integer[VEHICLE_COUNT];
+        for(int v = 0; v < VEHICLE_COUNT; v++)
+            vehicleOrder[v] = v;
+        Arrays.sort(vehicleOrder, (first, second) -> Long.compare(phaseMicros[first], phaseMicros[second]));
+
+        try(TelemetryRecorder telemetryRecorder = new TelemetryRecorder(logFile)){
+
+            for(int s = 0; s < RECORDED_SECONDS; s++)
+                for(int v : vehicleOrder){
+
+                    long arrivalMicros = startMicros + s * 1000000L + phaseMicros[v];
+                    long timestamp = 1760000000000L + (arrivalMicros - startMicros) / 1000;
+                    String vehicleTopic = String.format("fleet/vehicle/vehicle-%05d/telemetry", v);
+
+                    byte[] gpsPayload = mapper.writeValueAsBytes(new TelemetryMessage<>(timestamp, GpsGpxSensorResource.RESOURCE_TYPE,
+                            new GpsLocationDescriptor(44.6 + v * 1e-4 + s * 1e-5, 10.9, 40.0, GpsLocationDescriptor.FILE_LOCATION_PROVIDER)));
+                    byte[] batteryPayload = mapper.writeValueAsBytes(new TelemetryMessage<>(timestamp, BatterySensorResource.RESOURCE_TYPE,
+                            100.0 - s * 0.02 - v % 10));
+
+                    telemetryRecorder.record(vehicleTopic + "/gps", gpsPayload, 0, arrivalMicros);
+                    telemetryRecorder.record(vehicleTopic + "/battery", batteryPayload, 0, arrivalMicros);
+
+                    payloadBytes += gpsPayload.length + batteryPayload.length;
+                }
+        }
+
+        return payloadBytes;
+    }
+
+    /**
+     * Count the samples older than the previous sample of the same topic
+     */
+    private static class OrderCheckStage implements AnalyticsStage {
+
+        private final Map<String, Long> lastTimestampMap = new ConcurrentHashMap<>();
+
+        private long outOfOrderCount = 0;
+
+        @Override
+        public String getName() {
+            return "order-check";
+        }
+
+        @Override
+        public List<String> getTopicFilters() {
+            return List.of("fleet/vehicle/+/telemetry/#");
+        }
+
+        @Override
+        public void onSample(String topic, TelemetrySample telemetrySample) {
+            Long lastTimestamp = this.lastTimestampMap.put(topic, telemetrySample.getTimestamp());
+            if(lastTimestamp != null && lastTimestamp > telemetrySample.getTimestamp())
+                this.outOfOrderCount++;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unimore.dipi.iot.fleet.codec.BinaryTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.GpsDeltaTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.JsonTelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetryCodec;
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.consumer.AnalyticsStage;
+import it.unimore.dipi.iot.fleet.consumer.ConsumerRuntime;
+import it.unimore.dipi.iot.fleet.consumer.ControlMessagePublisher;
+import it.unimore.dipi.iot.fleet.consumer.TelemetryPayloadDecoder;
+import it.unimore.dipi.iot.fleet.consumer.TelemetrySequenceTracker;
+import it.unimore.dipi.iot.fleet.message.TelemetryBatchMessage;
+import it.unimore.dipi.iot.fleet.message.TelemetryMessage;
+import it.unimore.dipi.iot.fleet.model.GpsLocationDescriptor;
+import it.unimore.dipi.iot.fleet.resource.BatterySensorResource;
+import it.unimore.dipi.iot.fleet.resource.GpsGpxSensorResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Check the telemetry sequence numbers:
+ * - round trip of the sequence numbers (single messages and batches) through the JSON, binary and GPS delta formats
+ *   and their payload overhead
+ * - loss, duplicate and reordering accounting of a ConsumerRuntime fed with impaired streams, against the ground truth
+ *   of the simulation, with and without the drop of the stale samples (a stage counts the samples going back in time)
+ * - detection of a vehicle restart
+ * - tracking cost and allocated bytes for each sample
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 03:02
+ */
+public class TelemetrySequenceBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetrySequenceBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 200;
+
+    private static final int SAMPLE_COUNT = 2500;
+
+    private static final double LOSS_RATE = 0.01;
+
+    private static final double DUPLICATE_RATE = 0.005;
+
+    private static final double REORDER_RATE = 0.01;
+
+    //Maximum displacement of a reordered sample
+    private static final int MAX_REORDER_DISTANCE = 16;
+
+    private static final int TRACKING_ITERATIONS = 10000000;
+
+    private static final String[] RESOURCE_KEYS = {"gps", "battery"};
+
+    public static void main(String[] args) {
+
+        try{
+
+            ObjectMapper mapper = new ObjectMapper();
+
+            checkCodec("JSON", new JsonTelemetryCodec(mapper), mapper);
+            checkCodec("BINARY", new BinaryTelemetryCodec(), mapper);
+            checkCodec("GPS_DELTA", new GpsDeltaTelemetryCodec(), mapper);
+
+            List<Arrival> arrivalList = createArrivals(new BinaryTelemetryCodec());
+
+            runConsumer("sequence-count", arrivalList, false);
+            runConsumer("sequence-drop", arrivalList, true);
+
+            measureTracking();
+
+        }catch (Exception e){
+            logger.error("Error running Telemetry Sequence Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }
+    }
+
+    private static void checkCodec(String name, TelemetryCodec telemetryCodec, ObjectMapper mapper) throws Exception {
+
+        String topic = String.format("fleet/vehicle/codec-%s/telemetry/gps", name);
+        TelemetryPayloadDecoder<Object> payloadDecoder = new TelemetryPayloadDecoder<>(mapper, Object.class);
+        List<Long> sequenceNumberList = new ArrayList<>();
+        List<TelemetryMessage<GpsLocationDescriptor>> batchList = new ArrayList<>();
+
+        //Same samples without sequence numbers on a separate codec, for the payload overhead
+        TelemetryCodec unsequencedCodec = (telemetryCodec instanceof GpsDeltaTelemetryCodec ? new GpsDeltaTelemetryCodec() : telemetryCodec);
+        long sequencedBytes = 0;
+        long unsequencedBytes = 0;
+
+        for(long sequenceNumber = 1; sequenceNumber <= 5; sequenceNumber++){
+
+            GpsLocationDescriptor gpsLocationDescriptor = createLocation(sequenceNumber);
+            byte[] payload = telemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, sequenceNumber, gpsLocationDescriptor, false);
+
+            sequencedBytes += payload.length;
+            unsequencedBytes += unsequencedCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, gpsLocationDescriptor, false).length;
+
+            payloadDecoder.decode(topic, payload, telemetrySample -> sequenceNumberList.add(telemetrySample.getSequenceNumber()));
+        }
+
+        for(long sequenceNumber = 6; sequenceNumber <= 9; sequenceNumber++){
+            TelemetryMessage<GpsLocationDescriptor> telemetryMessage = new TelemetryMessage<>(GpsGpxSensorResource.RESOURCE_TYPE, createLocation(sequenceNumber));
+            telemetryMessage.setSequenceNumber(sequenceNumber);
+            batchList.add(telemetryMessage);
+        }
+
+        byte[] batchPayload = telemetryCodec.encodeBatch(new TelemetryBatchMessage<>(batchList));
+        payloadDecoder.decode(topic, batchPayload, telemetrySample -> sequenceNumberList.add(telemetrySample.getSequenceNumber()));
+
+        //Object decoding path
+        List<TelemetryMessage<Object>> decodedBatchList = payloadDecoder.decode(String.format("%s-object", topic), batchPayload);
+
+        logger.info("{}: decoded sequence numbers {} (batch object path: {} - {}) - {} bytes/sample ({} without sequence number)",
+                name,
+                sequenceNumberList,
+                decodedBatchList.get(0).getSequenceNumber(),
+                decodedBatchList.get(decodedBatchList.size() - 1).getSequenceNumber(),
+                String.format("%.1f", sequencedBytes / 5.0),
+                String.format("%.1f", unsequencedBytes / 5.0));
+    }
+
+    private static GpsLocationDescriptor createLocation(long index){
+        return new GpsLocationDescriptor(44.6 + index * 0.0001, 10.9 + index * 0.0001, 40.0, GpsLocationDescriptor.FILE_LOCATION_PROVIDER);
+    }
+
+    /**
+     * Encode the samples of each vehicle resource in sequence order (so late samples keep their original timestamp),
+     * then build their arrival order with losses, duplicates and reordering, recording the ground truth
+     */
+    private static List<Arrival> createArrivals(TelemetryCodec telemetryCodec) throws Exception {
+
+        Random random = new Random(42);
+        List<List<Arrival>> streamList = new ArrayList<>();
+        long expectedLost = 0;
+        long expectedDuplicates = 0;
+        long expectedReordered = 0;
+
+        for(int v = 0; v < VEHICLE_COUNT; v++)
+            for(String resourceKey : RESOURCE_KEYS){
+
+                String topic = String.format("fleet/vehicle/vehicle-%05d/telemetry/%s", v, resourceKey);
+                List<Arrival> stream = new ArrayList<>();
+
+                for(long sequenceNumber = 1; sequenceNumber <= SAMPLE_COUNT; sequenceNumber++){
+
+                    byte[] payload = (resourceKey.equals("gps") ?
+                            telemetryCodec.encode(GpsGpxSensorResource.RESOURCE_TYPE, sequenceNumber, createLocation(sequenceNumber), false) :
+                            telemetryCodec.encode(BatterySensorResource.RESOURCE_TYPE, sequenceNumber, 100.0 - sequenceNumber * 0.01, false));
+
+                    //The first sample and the last window are never lost (losses are counted when they leave the window)
+                    boolean isLossAllowed = sequenceNumber > 1 && sequenceNumber <= SAMPLE_COUNT - TelemetrySequenceTracker.DEFAULT_WINDOW_SIZE;
+
+                    if(isLossAllowed && random.nextDouble() < LOSS_RATE)
+                        continue;
+
+                    stream.add(new Arrival(topic, sequenceNumber, payload));
+
+                    if(random.nextDouble() < DUPLICATE_RATE)
+                        stream.add(new Arrival(topic, sequenceNumber, payload));
+                }
+
+                for(int i = 0; i < stream.size() - MAX_REORDER_DISTANCE; i++)
+                    if(random.nextDouble() < REORDER_RATE)
+                        Collections.swap(stream, i, i + 1 + random.nextInt(MAX_REORDER_DISTANCE));
+
+                //Ground truth of the arrival order
+                Set<Long> receivedSet = new HashSet<>();
+                long highestSequenceNumber = 0;
+
+                for(Arrival arrival : stream){
+                    if(!receivedSet.add(arrival.sequenceNumber))
+                        expectedDuplicates++;
+                    else if(arrival.sequenceNumber < highestSequenceNumber)
+                        expectedReordered++;
+                    highestSequenceNumber = Math.max(highestSequenceNumber, arrival.sequenceNumber);
+                }
+
+                expectedLost += SAMPLE_COUNT - receivedSet.size();
+                streamList.add(stream);
+            }
+
+        //Streams of the vehicles are interleaved
+        List<Arrival> arrivalList = new ArrayList<>();
+        for(int i = 0; i < SAMPLE_COUNT * 2; i++)
+            for(List<Arrival> stream : streamList)
+                if(i < stream.size())
+                    arrivalList.add(stream.get(i));
+
+        //Restart of the first vehicle: a new battery stream from 1 with newer timestamps
+        Thread.sleep(2);
+        for(long sequenceNumber = 1; sequenceNumber <= 10; sequenceNumber++)
+            arrivalList.add(new Arrival("fleet/vehicle/vehicle-00000/telemetry/battery", sequenceNumber,
+                    telemetryCodec.encode(BatterySensorResource.RESOURCE_TYPE, sequenceNumber, 100.0, false)));
+
+        logger.info("Arrivals: {} messages of {} streams - Expected: lost={} duplicates={} reordered={} restarts=1",
+                arrivalList.size(), streamList.size(), expectedLost, expectedDuplicates, expectedReordered);
+
+        return arrivalList;
+    }
+
+    private static void runConsumer(String name, List<Arrival> arrivalList, boolean dropStaleSamples) throws Exception {
+
+        ObjectMapper mapper = new ObjectMapper();
+        RegressionCountingStage regressionCountingStage = new RegressionCountingStage();
+
+        ConsumerRuntime consumerRuntime = new ConsumerRuntime(name);
+        consumerRuntime.addStage(regressionCountingStage);
+        consumerRuntime.setDropStaleSamples(dropStaleSamples);
+        consumerRuntime.start(new ControlMessagePublisher((topic, payload) -> {}, mapper,
+                ControlMessagePublisher.DEFAULT_WORKER_THREADS,
+                ControlMessagePublisher.DEFAULT_MAX_PENDING_CONTROLS,
+                0));
+
+        long startTime = System.nanoTime();
+
+        for(Arrival arrival : arrivalList)
+            consumerRuntime.process(arrival.topic, arrival.payload);
+
+        long elapsedNanos = System.nanoTime() - startTime;
+
+        logger.info("Consumer (drop stale: {}): {} messages in {} ms - Sequence: {} - Delivered: {} Backwards deliveries: {}",
+                dropStaleSamples,
+                arrivalList.size(),
+                String.format("%.1f", elapsedNanos / 1e6),
+                consumerRuntime.getSequenceTracker().getStats(),
+                regressionCountingStage.deliveredCount,
+                regressionCountingStage.regressionCount);
+
+        consumerRuntime.shutdown();
+    }
+
+    private static void measureTracking(){
+
+        TelemetrySequenceTracker sequenceTracker = new TelemetrySequenceTracker("sequence-benchmark");
+        TelemetrySequenceTracker.VehicleSequenceState[] vehicleStates = new TelemetrySequenceTracker.VehicleSequenceState[VEHICLE_COUNT];
+        TelemetrySample telemetrySample = new TelemetrySample();
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for(int v = 0; v < vehicleStates.length; v++)
+            vehicleStates[v] = sequenceTracker.getVehicleState(String.format("vehicle-%05d", v));
+
+        for(int round = 0; round < 3; round++){
+
+            long allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId);
+            long startTime = System.nanoTime();
+
+            for(int i = 0; i < TRACKING_ITERATIONS; i++){
+
+                int stream = i % (VEHICLE_COUNT * 2);
+
+                telemetrySample.reset();
+                telemetrySample.setType(stream % 2 == 0 ? GpsGpxSensorResource.RESOURCE_TYPE : BatterySensorResource.RESOURCE_TYPE);
+                //A gap every 1000 samples of each stream
+                long sampleIndex = (long) round * (TRACKING_ITERATIONS / (VEHICLE_COUNT * 2)) + i / (VEHICLE_COUNT * 2);
+                telemetrySample.setSequenceNumber(sampleIndex + sampleIndex / 1000 + 1);
+
+                sequenceTracker.track(vehicleStates[stream / 2], telemetrySample);
+            }
+
+            long elapsedNanos = System.nanoTime() - startTime;
+            allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBytes;
+
+            if(round == 2)
+                logger.info("Tracking: {} ns/sample - Allocated: {} bytes for {} samples - {}",
+                        String.format("%.1f", (double) elapsedNanos / TRACKING_ITERATIONS),
+                        allocatedBytes,
+                        TRACKING_ITERATIONS,
+                        sequenceTracker.getStats());
+        }
+    }
+
+    private static class Arrival {
+
+        private final String topic;
+
+        private final long sequenceNumber;
+
+        private final byte[] payload;
+
+        private Arrival(String topic, long sequenceNumber, byte[] payload) {
+            this.topic = topic;
+            this.sequenceNumber = sequenceNumber;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Count the samples delivered with a sequence number not above the last delivered one of the same topic
+     */
+    private static class RegressionCountingStage implements AnalyticsStage {
+
+        private final Map<String, Long> lastSequenceNumberMap = new HashMap<>();
+
+        private long deliveredCount = 0;
+
+        private long regressionCount = 0;
+
+        @Override
+        public String getName() {
+            return "regression-counting";
+        }
+
+        @Override
+        public List<String> getTopicFilters() {
+            return Collections.singletonList("fleet/vehicle/+/telemetry/+");
+        }
+
+        @Override
+        public void onSample(String topic, TelemetrySample telemetrySample) {
+
+            Long lastSequenceNumber = this.lastSequenceNumberMap.put(topic, telemetrySample.getSequenceNumber());
+
+            //A restarted stream is expected to go back
+            if(lastSequenceNumber != null && telemetrySample.getSequenceNumber() <= lastSequenceNumber && telemetrySample.getSequenceNumber() != 1)
+                this.regressionCount++;
+
+            this.deliveredCount++;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import it.unimore.dipi.iot.fleet.codec.TelemetrySample;
+import it.unimore.dipi.iot.fleet.store.TelemetrySeries;
+import it.unimore.dipi.iot.fleet.store.TelemetryStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Sustained ingest rate and bytes per sample of the TelemetryStore for a fleet reporting a location (random walk with
+ * GPX precision) and a battery level (random consumption as the BatterySensorResource) about every second, compared with
+ * the raw size of the samples (8 bytes for each column). Then the cost of a time-range query (10 minutes of a vehicle)
+ * is compared with a full history query, and the store is reopened checking that every sample is read back exactly.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:32
+ */
+public class TelemetryStoreBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryStoreBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 1000;
+
+    private static final int SAMPLES_PER_VEHICLE = 3600;
+
+    private static final long START_TIMESTAMP = 1760000000000L;
+
+    private static final long REPORT_INTERVAL_MS = 1000;
+
+    private static final long QUERY_WINDOW_MS = 10 * 60 * 1000;
+
+    private static final int QUERY_COUNT = 2000;
+
+    private static final int SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    public static void main(String[] args) {
+
+        File directory = null;
+
+        try{
+
+            directory = Files.createTempDirectory("telemetry-store-benchmark").toFile();
+
+            logger.info("Telemetry Store Benchmark - Vehicles: {} Samples for each vehicle and series: {}", VEHICLE_COUNT, SAMPLES_PER_VEHICLE);
+
+            TelemetryStore telemetryStore = new TelemetryStore(directory, SEGMENT_SIZE, TelemetryStore.DEFAULT_BLOCK_SAMPLE_COUNT);
+
+            long locationBytes = ingest(telemetryStore, TelemetrySeries.LOCATION, 0);
+            long batteryBytes = ingest(telemetryStore, TelemetrySeries.BATTERY, locationBytes);
+
+            //Time-range queries
+            TelemetrySample telemetrySample = new TelemetrySample();
+            double[] checksum = {0.0};
+            Random random = new Random(7);
+            long windowSampleCount = 0;
+            long startTime = System.nanoTime();
+
+            for(int q = 0; q < QUERY_COUNT; q++){
+                long fromTimestamp = START_TIMESTAMP + (long) (random.nextDouble() * (SAMPLES_PER_VEHICLE * REPORT_INTERVAL_MS - QUERY_WINDOW_MS));
+                windowSampleCount += telemetryStore.query(getVehicleId(random.nextInt(VEHICLE_COUNT)), TelemetrySeries.LOCATION,
+                        fromTimestamp, fromTimestamp + QUERY_WINDOW_MS, telemetrySample, sample -> checksum[0] += sample.getLatitude());
+            }
+
+            double windowQueryTime = (double) (System.nanoTime() - startTime) / QUERY_COUNT;
+
+            long historySampleCount = 0;
+            startTime = System.nanoTime();
+
+            for(int q = 0; q < QUERY_COUNT; q++)
+                historySampleCount += telemetryStore.query(getVehicleId(random.nextInt(VEHICLE_COUNT)), TelemetrySeries.LOCATION,
+                        Long.MIN_VALUE, Long.MAX_VALUE, telemetrySample, sample -> checksum[0] += sample.getLatitude());
+
+            double historyQueryTime = (double) (System.nanoTime() - startTime) / QUERY_COUNT;
+
+            logger.info("[QUERY] 10 minutes window: {} us/query ({} samples/query) - Full history: {} us/query ({} samples/query)",
+                    String.format("%.1f", windowQueryTime / 1000.0),
+                    windowSampleCount / QUERY_COUNT,
+                    String.format("%.1f", historyQueryTime / 1000.0),
+                    historySampleCount / QUERY_COUNT);
+
+            telemetryStore.close();
+
+            boolean isAppendRejected = false;
+            try{
+                telemetryStore.appendBatteryLevel(getVehicleId(0), START_TIMESTAMP, 50.0);
+            }catch (IOException e){
+                isAppendRejected = true;
+            }
+
+            //Reopen and check every sample against the generated data
+            TelemetryStore reopenedTelemetryStore = new TelemetryStore(directory, SEGMENT_SIZE, TelemetryStore.DEFAULT_BLOCK_SAMPLE_COUNT);
+            long mismatchCount = 0;
+
+            for(int v = 0; v < VEHICLE_COUNT; v++)
+                mismatchCount += verifyVehicle(reopenedTelemetryStore, v, telemetrySample);
+
+            logger.info("[REOPEN] {} - Mismatching samples: {} Checksum: {}", reopenedTelemetryStore.getStats(), mismatchCount, checksum[0]);
+
+            //A single sample in an open block is sealed once older than the maximum age
+            reopenedTelemetryStore.appendBatteryLevel(getVehicleId(0), START_TIMESTAMP + SAMPLES_PER_VEHICLE * REPORT_INTERVAL_MS, 50.0);
+            int agedBlockCount = reopenedTelemetryStore.sealAgedBlocks(0);
+
+            logger.info("[SEAL] Aged blocks sealed: {} (expected 1) - Append after close rejected: {}", agedBlockCount, isAppendRejected);
+
+            reopenedTelemetryStore.close();
+
+        }catch (Exception e){
+            logger.error("Error running Telemetry Store Benchmark ! Msg: {}", e.getLocalizedMessage());
+        }finally {
+            if(directory != null){
+                File[] segmentFiles = directory.listFiles();
+                if(segmentFiles != null)
+                    for(File segmentFile : segmentFiles)
+                        segmentFile.delete();
+                directory.delete();
+            }
+        }
+    }
+
+    /**
+     * Append the samples of a series for all the vehicles, in time order (interleaved vehicles as received by a consumer)
+     * @return the stored bytes of the store after the ingestion
+     */
+    private static long ingest(TelemetryStore telemetryStore, TelemetrySeries telemetrySeries, long initialStoredBytes) throws IOException {
+
+        VehicleGenerator[] vehicleGenerators = new VehicleGenerator[VEHICLE_COUNT];
+        for(int v = 0; v < VEHICLE_COUNT; v++)
+            vehicleGenerators[v] = new VehicleGenerator(v);
+
+        long startTime = System.nanoTime();
+
+        for(int s = 0; s < SAMPLES_PER_VEHICLE; s++)
+            for(int v = 0; v < VEHICLE_COUNT; v++){
+                VehicleGenerator vehicleGenerator = vehicleGenerators[v];
+                vehicleGenerator.next();
+                if(telemetrySeries == TelemetrySeries.LOCATION)
+                    telemetryStore.appendLocation(vehicleGenerator.vehicleId, vehicleGenerator.timestamp,
+                            vehicleGenerator.latitude, vehicleGenerator.longitude, vehicleGenerator.elevation);
+                else
+                    telemetryStore.appendBatteryLevel(vehicleGenerator.vehicleId, vehicleGenerator.timestamp, vehicleGenerator.batteryLevel);
+            }
+
+        double elapsedSeconds = (System.nanoTime() - startTime) / 1e9;
+        long sampleCount = (long) VEHICLE_COUNT * SAMPLES_PER_VEHICLE;
+
+        //Seal the last open blocks
+        telemetryStore.flush();
+
+        long storedBytes = telemetryStore.getStoredBytes() - initialStoredBytes;
+        int rawBytesPerSample = 8 * (1 + telemetrySeries.getValueColumnCount());
+
+        logger.info("[INGEST {}] {} samples/s - {} bytes/sample (raw: {} bytes/sample, ratio: {})",
+                telemetrySeries,
+                String.format("%.0f", sampleCount / elapsedSeconds),
+                String.format("%.2f", (double) storedBytes / sampleCount),
+                rawBytesPerSample,
+                String.format("%.2f", (double) rawBytesPerSample * sampleCount / storedBytes));
+
+        return telemetryStore.getStoredBytes();
+    }
+
+    private static long verifyVehicle(TelemetryStore telemetryStore, int vehicleIndex, TelemetrySample telemetrySample) throws IOException {
+
+        VehicleGenerator locationGenerator = new VehicleGenerator(vehicleIndex);
+        VehicleGenerator batteryGenerator = new VehicleGenerator(vehicleIndex);
+        long[] mismatchCount = {0};
+
+        int locationCount = telemetryStore.query(locationGenerator.vehicleId, TelemetrySeries.LOCATION, Long.MIN_VALUE, Long.MAX_VALUE, telemetrySample, sample -> {
+            locationGenerator.next();
+            if(sample.getTimestamp() != locationGenerator.timestamp || sample.getLatitude() != locationGenerator.latitude
+                    || sample.getLongitude() != locationGenerator.longitude || sample.getElevation() != locationGenerator.elevation)
+                mismatchCount[0]++;
+        });
+
+        int batteryCount = telemetryStore.query(batteryGenerator.vehicleId, TelemetrySeries.BATTERY, Long.MIN_VALUE, Long.MAX_VALUE, telemetrySample, sample -> {
+            batteryGenerator.next();
+            if(sample.getTimestamp() != batteryGenerator.timestamp || sample.getValue() != batteryGenerator.batteryLevel)
+                mismatchCount[0]++;
+        });
+
+        return mismatchCount[0] + Math.abs(SAMPLES_PER_VEHICLE - locationCount) + Math.abs(SAMPLES_PER_VEHICLE - batteryCount);
+    }
+
+    private static String getVehicleId(int vehicleIndex){
+        return String.format("vehicle-%05d", vehicleIndex);
+    }
+
+    /**
+     * Deterministic telemetry of a vehicle
+     */
+    private static class VehicleGenerator {
+
+        private final String vehicleId;
+
+        private final Random random;
+
+        private long timestamp;
+
+        private double latitude;
+
+        private double longitude;
+
+        private double elevation;
+
+        private double batteryLevel;
+
+        private VehicleGenerator(int vehicleIndex) {
+            this.vehicleId = getVehicleId(vehicleIndex);
+            this.random = new Random(vehicleIndex);
+            this.timestamp = START_TIMESTAMP;
+            this.latitude = 44.0 + this.random.nextDouble();
+            this.longitude = 10.0 + this.random.nextDouble();
+            this.elevation = 40.0;
+            this.batteryLevel = 50.0 + 50.0 * this.random.nextDouble();
+        }
+
+        private void next(){
+            //Reporting period with a few ms of jitter
+            this.timestamp += REPORT_INTERVAL_MS + this.random.nextInt(11) - 5;
+            //GPX coordinates have 7 decimals and elevation 1 decimal
+            this.latitude = Math.round((this.latitude + (this.random.nextDouble() - 0.5) * 2e-4) * 1e7) / 1e7;
+            this.longitude = Math.round((this.longitude + (this.random.nextDouble() - 0.5) * 2e-4) * 1e7) / 1e7;
+            this.elevation = Math.round((this.elevation + (this.random.nextDouble() - 0.5)) * 10.0) / 10.0;
+            this.batteryLevel = this.batteryLevel - (0.0001 + 0.001 * this.random.nextDouble());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import it.unimore.dipi.iot.fleet.index.GridTrafficEventIndex;
+import it.unimore.dipi.iot.fleet.index.LinearTrafficEventIndex;
+import it.unimore.dipi.iot.fleet.index.TrafficEventIndex;
+import it.unimore.dipi.iot.fleet.model.TrafficEventDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Random;
+
+/**
+ * Measure the cost of a traffic event radius query (one for each received GPS message) for an
+ * increasing number of events uniformly distributed over a region (roughly Northern Italy), comparing
+ * the linear scan with the grid index. Both indexes must return the same number of events, also after an event is
+ * re-inserted (in the same cell and in another one) and removed.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:08
+ */
+public class TrafficEventIndexBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficEventIndexBenchmark.class);
+
+    private static final double MIN_LATITUDE = 43.5;
+
+    private static final double MAX_LATITUDE = 46.5;
+
+    private static final double MIN_LONGITUDE = 7.0;
+
+    private static final double MAX_LONGITUDE = 13.5;
+
+    private static final double QUERY_RADIUS_KM = 2.0;
+
+    private static final int[] EVENT_COUNTS = {100, 1000, 10000, 100000};
+
+    private static final int GRID_QUERY_COUNT = 200000;
+
+    //Maximum number of distance checks of the linear scan for each event count
+    private static final long LINEAR_DISTANCE_CHECKS = 20000000L;
+
+    public static void main(String[] args) {
+
+        checkReinsert(new LinearTrafficEventIndex());
+        checkReinsert(new GridTrafficEventIndex());
+
+        for(int eventCount : EVENT_COUNTS){
+
+            TrafficEventIndex linearIndex = new LinearTrafficEventIndex();
+            GridTrafficEventIndex gridIndex = new GridTrafficEventIndex();
+            Random random = new Random(eventCount);
+
+            for(int i = 0; i < eventCount; i++){
+                TrafficEventDescriptor trafficEventDescriptor = new TrafficEventDescriptor(TrafficEventDescriptor.JAM_TRAFFIC_EVENT,
+                        randomLatitude(random),
+                        randomLongitude(random),
+                        System.currentTimeMillis());
+                linearIndex.insert(trafficEventDescriptor);
+                gridIndex.insert(trafficEventDescriptor);
+            }
+
+            int linearQueryCount = (int) Math.max(100, Math.min(GRID_QUERY_COUNT, LINEAR_DISTANCE_CHECKS / eventCount));
+
+            double[] linearResult = runQueries(linearIndex, linearQueryCount);
+            double[] gridResult = runQueries(gridIndex, GRID_QUERY_COUNT);
+            double[] gridCheckResult = runQueries(gridIndex, linearQueryCount);
+
+            logger.info("Events: {} Grid Cells: {} -> Linear: {} ns/query - Grid: {} ns/query - Matches (linear/grid): {}/{}",
+                    eventCount,
+                    gridIndex.getCellCount(),
+                    String.format("%.1f", linearResult[0]),
+                    String.format("%.1f", gridResult[0]),
+                    (long) linearResult[1],
+                    (long) gridCheckResult[1]);
+        }
+    }
+
+    /**
+     * Re-insert an event in the same cell and after moving it to another cell, then remove it twice
+     */
+    private static void checkReinsert(TrafficEventIndex trafficEventIndex){
+
+        TrafficEventDescriptor trafficEventDescriptor = new TrafficEventDescriptor(TrafficEventDescriptor.JAM_TRAFFIC_EVENT, 44.60, 10.90, System.currentTimeMillis());
+
+        trafficEventIndex.insert(trafficEventDescriptor);
+        trafficEventIndex.insert(trafficEventDescriptor);
+        int sameCellSize = trafficEventIndex.size();
+        int sameCellMatches = trafficEventIndex.query(44.60, 10.90, QUERY_RADIUS_KM).size();
+
+        trafficEventDescriptor.setLatitude(45.60);
+        trafficEventIndex.insert(trafficEventDescriptor);
+        int oldPositionMatches = trafficEventIndex.query(44.60, 10.90, QUERY_RADIUS_KM).size();
+        int newPositionMatches = trafficEventIndex.query(45.60, 10.90, QUERY_RADIUS_KM).size();
+
+        boolean isRemoved = trafficEventIndex.remove(trafficEventDescriptor);
+        boolean isRemovedAgain = trafficEventIndex.remove(trafficEventDescriptor);
+        int removedMatches = trafficEventIndex.query(45.60, 10.90, QUERY_RADIUS_KM).size();
+
+        boolean isValid = sameCellSize == 1 && sameCellMatches == 1 && oldPositionMatches == 0 && newPositionMatches == 1 &&
+                isRemoved && !isRemovedAgain && removedMatches == 0 && trafficEventIndex.size() == 0;
+
+        if(isValid)
+            logger.info("{} re-insert check passed", trafficEventIndex.getClass().getSimpleName());
+        else
+            logger.error("{} re-insert check FAILED ! Same cell size/matches: {}/{} Moved old/new matches: {}/{} Removed: {}/{} Matches after removal: {}",
+                    trafficEventIndex.getClass().getSimpleName(), sameCellSize, sameCellMatches, oldPositionMatches, newPositionMatches,
+                    isRemoved, isRemovedAgain, removedMatches);
+    }
+
+    /**
+     * @return average ns for each query and total number of matched events
+     */
+    private static double[] runQueries(TrafficEventIndex trafficEventIndex, int queryCount){
+
+        //Same query positions for every index
+        Random random = new Random(42);
+        long matchCount = 0;
+
+        //Warmup
+        for(int i = 0; i < Math.min(queryCount, 10000); i++)
+            trafficEventIndex.query(randomLatitude(random), randomLongitude(random), QUERY_RADIUS_KM);
+
+        random = new Random(42);
+        long startTime = System.nanoTime();
+
+        for(int i = 0; i < queryCount; i++)
+            matchCount += trafficEventIndex.query(randomLatitude(random), randomLongitude(random), QUERY_RADIUS_KM).size();
+
+        return new double[]{(double) (System.nanoTime() - startTime) / queryCount, matchCount};
+    }
+
+    private static double randomLatitude(Random random){
+        return MIN_LATITUDE + random.nextDouble() * (MAX_LATITUDE - MIN_LATITUDE);
+    }
+
+    private static double randomLongitude(Random random){
+        return MIN_LONGITUDE + random.nextDouble() * (MAX_LONGITUDE - MIN_LONGITUDE);
+    }
+
+}
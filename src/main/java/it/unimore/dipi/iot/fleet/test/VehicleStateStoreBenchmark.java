@@ -0,0 +1,118 @@
+package it.unimore.dipi.iot.fleet.test;
+
+import it.unimore.dipi.iot.fleet.state.VehicleStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Register one million vehicles (UUID ids, as the emulated vehicles) in a VehicleStateStore and report the heap used
+ * for each vehicle (state arrays and id map), then apply battery level samples from several threads to the same
+ * vehicles and report the update throughput. Every vehicle discharges past the alarm threshold, so exactly one
+ * alarm for each vehicle must be raised whatever the interleaving of the threads.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 02:13
+ */
+public class VehicleStateStoreBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(VehicleStateStoreBenchmark.class);
+
+    private static final int VEHICLE_COUNT = 1000000;
+
+    private static final int THREAD_COUNT = 4;
+
+    //Samples of each thread for each vehicle (levels from 100 down to 100 - SAMPLE_COUNT)
+    private static final int SAMPLE_COUNT = 5;
+
+    private static final double ALARM_DROP = 2.0;
+
+    private static final int BATTERY_ALARM = 0;
+
+    public static void main(String[] args) throws InterruptedException {
+
+        String[] vehicleIds = new String[VEHICLE_COUNT];
+
+        for(int i = 0; i < VEHICLE_COUNT; i++)
+            vehicleIds[i] = UUID.randomUUID().toString();
+
+        long usedMemory = getUsedMemory();
+        VehicleStateStore vehicleStateStore = new VehicleStateStore(1);
+
+        long startTime = System.nanoTime();
+
+        for(String vehicleId : vehicleIds)
+            vehicleStateStore.getVehicleIndex(vehicleId);
+
+        long registrationTime = System.nanoTime() - startTime;
+        long storeMemory = getUsedMemory() - usedMemory;
+
+        logger.info("Vehicles: {} Registration: {} ns/vehicle -> State: {} bytes/vehicle ({} MB allocated) - Total Heap: {} bytes/vehicle",
+                vehicleStateStore.getVehicleCount(),
+                registrationTime / VEHICLE_COUNT,
+                vehicleStateStore.getBytesPerVehicle(),
+                vehicleStateStore.getAllocatedBytes() / (1024 * 1024),
+                storeMemory / VEHICLE_COUNT);
+
+        AtomicLong alarmCount = new AtomicLong(0);
+        Thread[] threads = new Thread[THREAD_COUNT];
+
+        for(int t = 0; t < THREAD_COUNT; t++){
+
+            final int threadIndex = t;
+
+            threads[t] = new Thread(() -> {
+
+                long threadAlarmCount = 0;
+
+                for(int s = 0; s < SAMPLE_COUNT; s++)
+                    for(int i = 0; i < VEHICLE_COUNT; i++){
+
+                        //Threads scan the vehicles from different offsets
+                        int vehicle = (i + threadIndex * (VEHICLE_COUNT / THREAD_COUNT)) % VEHICLE_COUNT;
+                        int vehicleIndex = vehicleStateStore.getVehicleIndex(vehicleIds[vehicle]);
+
+                        if(vehicleStateStore.updateLevel(vehicleIndex, 100.0 - s, ALARM_DROP, BATTERY_ALARM, System.currentTimeMillis(), 0))
+                            threadAlarmCount++;
+                    }
+
+                alarmCount.addAndGet(threadAlarmCount);
+            });
+        }
+
+        startTime = System.nanoTime();
+
+        for(Thread thread : threads)
+            thread.start();
+
+        for(Thread thread : threads)
+            thread.join();
+
+        long updateTime = System.nanoTime() - startTime;
+        long updateCount = (long) THREAD_COUNT * SAMPLE_COUNT * VEHICLE_COUNT;
+
+        logger.info("Threads: {} Updates: {} -> {} updates/s - Alarms: {} (expected {})",
+                THREAD_COUNT,
+                updateCount,
+                String.format("%.0f", updateCount / (updateTime / 1e9)),
+                alarmCount.get(),
+                VEHICLE_COUNT);
+
+        if(alarmCount.get() != VEHICLE_COUNT)
+            logger.error("Unexpected number of alarms !");
+    }
+
+    private static long getUsedMemory() throws InterruptedException {
+
+        for(int i = 0; i < 3; i++){
+            System.gc();
+            Thread.sleep(100);
+        }
+
+        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+    }
+
+}
@@ -0,0 +1,68 @@
+package it.unimore.dipi.iot.fleet.track;
+
+/**
+ * Immutable GPS Track stored in flat primitive arrays (one entry for each track point).
+ * A single instance is shared by all the resources emulating a vehicle on the same track.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public final class GpsTrack {
+
+    private final String name;
+
+    private final double[] latitudes;
+
+    private final double[] longitudes;
+
+    private final double[] elevations;
+
+    //Epoch milliseconds of each point (0 if the point has no time information)
+    private final long[] timestamps;
+
+    public GpsTrack(String name, double[] latitudes, double[] longitudes, double[] elevations, long[] timestamps) {
+
+        if(latitudes.length != longitudes.length || latitudes.length != elevations.length || latitudes.length != timestamps.length)
+            throw new IllegalArgumentException("Track columns must have the same length !");
+
+        this.name = name;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.elevations = elevations;
+        this.timestamps = timestamps;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return latitudes.length;
+    }
+
+    public double getLatitude(int index) {
+        return latitudes[index];
+    }
+
+    public double getLongitude(int index) {
+        return longitudes[index];
+    }
+
+    public double getElevation(int index) {
+        return elevations[index];
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuffer sb = new StringBuffer("GpsTrack{");
+        sb.append("name='").append(name).append('\'');
+        sb.append(", size=").append(latitudes.length);
+        sb.append('}');
+        return sb.toString();
+    }
+}
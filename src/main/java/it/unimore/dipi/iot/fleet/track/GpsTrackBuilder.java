@@ -0,0 +1,68 @@
+package it.unimore.dipi.iot.fleet.track;
+
+import java.util.Arrays;
+
+/**
+ * Collect streamed track points into growable primitive columns and build the immutable GpsTrack
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:41
+ */
+public class GpsTrackBuilder implements GpxTrackPointListener {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private double[] latitudes;
+
+    private double[] longitudes;
+
+    private double[] elevations;
+
+    private long[] timestamps;
+
+    private int size;
+
+    public GpsTrackBuilder() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public GpsTrackBuilder(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.latitudes = new double[capacity];
+        this.longitudes = new double[capacity];
+        this.elevations = new double[capacity];
+        this.timestamps = new long[capacity];
+        this.size = 0;
+    }
+
+    @Override
+    public void onTrackPoint(double latitude, double longitude, double elevation, long timestamp) {
+
+        if(this.size == this.latitudes.length){
+            int capacity = this.latitudes.length * 2;
+            this.latitudes = Arrays.copyOf(this.latitudes, capacity);
+            this.longitudes = Arrays.copyOf(this.longitudes, capacity);
+            this.elevations = Arrays.copyOf(this.elevations, capacity);
+            this.timestamps = Arrays.copyOf(this.timestamps, capacity);
+        }
+
+        this.latitudes[this.size] = latitude;
+        this.longitudes[this.size] = longitude;
+        this.elevations[this.size] = elevation;
+        this.timestamps[this.size] = timestamp;
+        this.size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public GpsTrack build(String name){
+        return new GpsTrack(name,
+                Arrays.copyOf(this.latitudes, this.size),
+                Arrays.copyOf(this.longitudes, this.size),
+                Arrays.copyOf(this.elevations, this.size),
+                Arrays.copyOf(this.timestamps, this.size));
+    }
+}
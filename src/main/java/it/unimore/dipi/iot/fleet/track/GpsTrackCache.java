@@ -0,0 +1,166 @@
+package it.unimore.dipi.iot.fleet.track;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Binary sidecar cache (.trk) of a parsed GPX track.
+ *
+ * The file stores the source GPX size and last modification time in its header, so a cache
+ * entry is automatically considered stale (and rebuilt) when the source file changes.
+ *
+ * Layout (big endian):
+ * - magic (int) | version (int) | source size (long) | source last modified (long) | point count (int) | padding (int)
+ * - latitude column (double * count)
+ * - longitude column (double * count)
+ * - elevation column (double * count)
+ * - timestamp column (long * count)
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:41
+ */
+public class GpsTrackCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GpsTrackCache.class);
+
+    public static final String CACHE_FILE_EXTENSION = ".trk";
+
+    private static final int MAGIC = 0x54524B31; //"TRK1"
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    private static final int POINT_SIZE = 4 * Long.BYTES;
+
+    private GpsTrackCache() {
+    }
+
+    /**
+     * @param gpxFilePath
+     * @return the path of the .trk sidecar associated to the GPX file (e.g. tracks/demo.gpx -> tracks/demo.trk)
+     */
+    public static Path getCacheFilePath(Path gpxFilePath){
+
+        String fileName = gpxFilePath.getFileName().toString();
+        int extensionIndex = fileName.lastIndexOf('.');
+        String baseName = (extensionIndex > 0 ? fileName.substring(0, extensionIndex) : fileName);
+
+        return gpxFilePath.resolveSibling(baseName + CACHE_FILE_EXTENSION);
+    }
+
+    /**
+     * Memory map the cache file associated to the GPX file if it exists and it is still valid
+     * @param gpxFilePath
+     * @param trackName
+     * @return the cached track or an empty Optional if the cache is missing or stale
+     */
+    public static Optional<GpsTrack> read(Path gpxFilePath, String trackName){
+
+        Path cacheFilePath = getCacheFilePath(gpxFilePath);
+
+        if(!Files.isRegularFile(cacheFilePath))
+            return Optional.empty();
+
+        try(FileChannel fileChannel = FileChannel.open(cacheFilePath, StandardOpenOption.READ)){
+
+            if(fileChannel.size() < HEADER_SIZE)
+                return Optional.empty();
+
+            MappedByteBuffer mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+
+            if(mappedBuffer.getInt() != MAGIC || mappedBuffer.getInt() != VERSION)
+                return Optional.empty();
+
+            long sourceSize = mappedBuffer.getLong();
+            long sourceLastModified = mappedBuffer.getLong();
+
+            if(sourceSize != Files.size(gpxFilePath) || sourceLastModified != Files.getLastModifiedTime(gpxFilePath).toMillis()){
+                logger.info("Track Cache {} is stale ! Source file changed.", cacheFilePath);
+                return Optional.empty();
+            }
+
+            int pointCount = mappedBuffer.getInt();
+
+            if(pointCount < 0 || fileChannel.size() != HEADER_SIZE + (long)pointCount * POINT_SIZE)
+                return Optional.empty();
+
+            double[] latitudes = new double[pointCount];
+            double[] longitudes = new double[pointCount];
+            double[] elevations = new double[pointCount];
+            long[] timestamps = new long[pointCount];
+
+            mappedBuffer.position(HEADER_SIZE);
+            mappedBuffer.asDoubleBuffer().get(latitudes);
+            mappedBuffer.position(mappedBuffer.position() + pointCount * Double.BYTES);
+            mappedBuffer.asDoubleBuffer().get(longitudes);
+            mappedBuffer.position(mappedBuffer.position() + pointCount * Double.BYTES);
+            mappedBuffer.asDoubleBuffer().get(elevations);
+            mappedBuffer.position(mappedBuffer.position() + pointCount * Double.BYTES);
+            mappedBuffer.asLongBuffer().get(timestamps);
+
+            return Optional.of(new GpsTrack(trackName, latitudes, longitudes, elevations, timestamps));
+
+        }catch (Exception e){
+            logger.warn("Error reading Track Cache {} ! Msg: {}", cacheFilePath, e.getLocalizedMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Write (atomically replacing any previous version) the cache file associated to the GPX file
+     * @param gpxFilePath
+     * @param gpsTrack
+     * @throws IOException
+     */
+    public static void write(Path gpxFilePath, GpsTrack gpsTrack) throws IOException {
+
+        Path cacheFilePath = getCacheFilePath(gpxFilePath);
+        Path tmpFilePath = cacheFilePath.resolveSibling(cacheFilePath.getFileName() + ".tmp");
+
+        int pointCount = gpsTrack.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + pointCount * POINT_SIZE);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(Files.size(gpxFilePath));
+        buffer.putLong(Files.getLastModifiedTime(gpxFilePath).toMillis());
+        buffer.putInt(pointCount);
+        buffer.putInt(0);
+
+        for(int i = 0; i < pointCount; i++)
+            buffer.putDouble(gpsTrack.getLatitude(i));
+        for(int i = 0; i < pointCount; i++)
+            buffer.putDouble(gpsTrack.getLongitude(i));
+        for(int i = 0; i < pointCount; i++)
+            buffer.putDouble(gpsTrack.getElevation(i));
+        for(int i = 0; i < pointCount; i++)
+            buffer.putLong(gpsTrack.getTimestamp(i));
+
+        buffer.flip();
+
+        try(FileChannel fileChannel = FileChannel.open(tmpFilePath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            while(buffer.hasRemaining())
+                fileChannel.write(buffer);
+        }
+
+        try{
+            Files.move(tmpFilePath, cacheFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (AtomicMoveNotSupportedException e){
+            Files.move(tmpFilePath, cacheFilePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package it.unimore.dipi.iot.fleet.track;
+
+/**
+ * Per-vehicle position on a shared GpsTrack. The cursor moves forward until the end of the track
+ * and then moves backward on the same path (and vice versa) without copying or reversing the track.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public class GpsTrackCursor {
+
+    public static final int DIRECTION_CHANGED = -1;
+
+    private final GpsTrack track;
+
+    private int position;
+
+    private boolean forward;
+
+    public GpsTrackCursor(GpsTrack track) {
+        this.track = track;
+        this.position = 0;
+        this.forward = true;
+    }
+
+    /**
+     * Move the cursor to the next point of the track
+     * @return the index of the next point or DIRECTION_CHANGED when the end of the track has been
+     * reached and the cursor started moving in the opposite direction
+     */
+    public int next(){
+
+        if(this.forward){
+            if(this.position < this.track.size())
+                return this.position++;
+
+            this.forward = false;
+            this.position = this.track.size() - 1;
+        }
+        else {
+            if(this.position >= 0)
+                return this.position--;
+
+            this.forward = true;
+            this.position = 0;
+        }
+
+        return DIRECTION_CHANGED;
+    }
+
+    public GpsTrack getTrack() {
+        return track;
+    }
+
+    public boolean isForward() {
+        return forward;
+    }
+}
@@ -0,0 +1,80 @@
+package it.unimore.dipi.iot.fleet.track;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide store of the available GPS Tracks. Each GPX file is parsed only once and
+ * the resulting immutable GpsTrack is shared by all the resources using it.
+ *
+ * Tracks are loaded from the binary .trk sidecar (see GpsTrackCache) when it is still valid,
+ * otherwise the GPX file is parsed with the GpxStreamReader and the sidecar is (re)generated.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:39
+ */
+public class GpsTrackStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(GpsTrackStore.class);
+
+    private static final Map<String, GpsTrack> trackMap = new ConcurrentHashMap<>();
+
+    private GpsTrackStore() {
+    }
+
+    /**
+     * Return the track associated to the target GPX file loading it on the first request
+     * @param gpxFileName
+     * @return the shared GpsTrack instance
+     * @throws IOException if the GPX file can not be read
+     */
+    public static GpsTrack getTrack(String gpxFileName) throws IOException {
+        try{
+            return trackMap.computeIfAbsent(gpxFileName, fileName -> {
+                try {
+                    return loadTrack(fileName);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }catch (UncheckedIOException e){
+            throw e.getCause();
+        }
+    }
+
+    private static GpsTrack loadTrack(String gpxFileName) throws IOException {
+
+        long startTime = System.currentTimeMillis();
+        Path gpxFilePath = Paths.get(gpxFileName);
+
+        Optional<GpsTrack> cachedTrack = GpsTrackCache.read(gpxFilePath, gpxFileName);
+
+        if(cachedTrack.isPresent()){
+            logger.info("GPX Track {} loaded from cache in {} ms ! Size: {}", gpxFileName, System.currentTimeMillis() - startTime, cachedTrack.get().size());
+            return cachedTrack.get();
+        }
+
+        GpsTrackBuilder gpsTrackBuilder = new GpsTrackBuilder();
+        GpxStreamReader.read(gpxFilePath, gpsTrackBuilder);
+        GpsTrack gpsTrack = gpsTrackBuilder.build(gpxFileName);
+
+        logger.info("GPX Track {} correctly parsed in {} ms ! Size: {}", gpxFileName, System.currentTimeMillis() - startTime, gpsTrack.size());
+
+        try{
+            GpsTrackCache.write(gpxFilePath, gpsTrack);
+        }catch (IOException e){
+            logger.warn("Error writing Track Cache for {} ! Msg: {}", gpxFileName, e.getLocalizedMessage());
+        }
+
+        return gpsTrack;
+    }
+}
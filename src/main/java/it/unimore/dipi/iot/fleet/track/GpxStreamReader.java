@@ -0,0 +1,151 @@
+package it.unimore.dipi.iot.fleet.track;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming (StAX) GPX reader. Track points (trk/trkseg/trkpt) are notified to the listener as soon as
+ * they are parsed, without building an in-memory model of the whole document.
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:41
+ */
+public class GpxStreamReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(GpxStreamReader.class);
+
+    private static final String TRACK_POINT_ELEMENT = "trkpt";
+
+    private static final String ELEVATION_ELEMENT = "ele";
+
+    private static final String TIME_ELEMENT = "time";
+
+    private static final String LATITUDE_ATTRIBUTE = "lat";
+
+    private static final String LONGITUDE_ATTRIBUTE = "lon";
+
+    private static final XMLInputFactory xmlInputFactory = createXmlInputFactory();
+
+    private GpxStreamReader() {
+    }
+
+    /**
+     * Parse the target GPX file notifying each track point to the listener
+     * @param gpxFilePath
+     * @param listener
+     * @return the number of notified track points
+     * @throws IOException if the file can not be read or is not a valid GPX document
+     */
+    public static int read(Path gpxFilePath, GpxTrackPointListener listener) throws IOException {
+        try(InputStream inputStream = new BufferedInputStream(Files.newInputStream(gpxFilePath))){
+            return read(inputStream, listener);
+        }
+    }
+
+    public static int read(InputStream inputStream, GpxTrackPointListener listener) throws IOException {
+
+        XMLStreamReader xmlReader = null;
+
+        try{
+
+            xmlReader = xmlInputFactory.createXMLStreamReader(inputStream);
+
+            int pointCount = 0;
+            int depth = 0;
+            int trackPointDepth = -1;
+
+            double latitude = 0.0;
+            double longitude = 0.0;
+            double elevation = 0.0;
+            long timestamp = 0L;
+
+            while(xmlReader.hasNext()){
+
+                int event = xmlReader.next();
+
+                if(event == XMLStreamConstants.START_ELEMENT){
+
+                    depth++;
+                    String elementName = xmlReader.getLocalName();
+
+                    if(trackPointDepth < 0 && TRACK_POINT_ELEMENT.equals(elementName)){
+                        trackPointDepth = depth;
+                        latitude = Double.parseDouble(xmlReader.getAttributeValue(null, LATITUDE_ATTRIBUTE));
+                        longitude = Double.parseDouble(xmlReader.getAttributeValue(null, LONGITUDE_ATTRIBUTE));
+                        elevation = 0.0;
+                        timestamp = 0L;
+                    }
+                    //Only direct children of the track point (e.g. extensions may contain other elements)
+                    else if(trackPointDepth > 0 && depth == trackPointDepth + 1){
+                        if(ELEVATION_ELEMENT.equals(elementName)){
+                            elevation = Double.parseDouble(xmlReader.getElementText().trim());
+                            depth--;
+                        }
+                        else if(TIME_ELEMENT.equals(elementName)){
+                            timestamp = parseTimestamp(xmlReader.getElementText().trim());
+                            depth--;
+                        }
+                    }
+                }
+                else if(event == XMLStreamConstants.END_ELEMENT){
+
+                    if(depth == trackPointDepth){
+                        listener.onTrackPoint(latitude, longitude, elevation, timestamp);
+                        pointCount++;
+                        trackPointDepth = -1;
+                    }
+
+                    depth--;
+                }
+            }
+
+            return pointCount;
+
+        }catch (XMLStreamException | NumberFormatException | NullPointerException e){
+            throw new IOException(String.format("Error parsing GPX document ! Msg: %s", e.getLocalizedMessage()), e);
+        }finally {
+            if(xmlReader != null){
+                try {
+                    xmlReader.close();
+                } catch (XMLStreamException e) {
+                    logger.warn("Error closing GPX reader ! Msg: {}", e.getLocalizedMessage());
+                }
+            }
+        }
+    }
+
+    private static long parseTimestamp(String timeValue){
+        try{
+            return OffsetDateTime.parse(timeValue).toInstant().toEpochMilli();
+        }catch (DateTimeParseException e){
+            //GPX time without zone designator, UTC is assumed
+            try{
+                return LocalDateTime.parse(timeValue).toInstant(ZoneOffset.UTC).toEpochMilli();
+            }catch (DateTimeParseException ex){
+                return 0L;
+            }
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory(){
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
@@ -0,0 +1,20 @@
+package it.unimore.dipi.iot.fleet.track;
+
+/**
+ * Listener notified by the GpxStreamReader for each parsed track point
+ *
+ * @author Marco Picone, Ph.D. - picone.m@gmail.com
+ * @project mqtt-demo-fleet-monitoring
+ * @created 17/10/2026 - 01:41
+ */
+public interface GpxTrackPointListener {
+
+    /**
+     * @param latitude point latitude
+     * @param longitude point longitude
+     * @param elevation point elevation (0.0 if not available)
+     * @param timestamp point epoch milliseconds (0 if not available)
+     */
+    public void onTrackPoint(double latitude, double longitude, double elevation, long timestamp);
+
+}
@@ -1,5 +1,8 @@
 package it.unimore.dipi.iot.fleet.utils;
 
+import it.unimore.dipi.iot.fleet.geo.DistanceUnit;
+import it.unimore.dipi.iot.fleet.geo.GeoDistance;
+
 /**
  * @author Marco Picone, Ph.D. - picone.m@gmail.com
  * @project mqtt-demo-fleet-monitoring
@@ -38,26 +41,26 @@ public class GpsUtils {
         return Math.sqrt(distance);
     }
 
+    /**
+     * @returns Haversine distance in the given unit
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2, DistanceUnit unit) {
+        return GeoDistance.haversine(lat1, lon1, lat2, lon2, unit);
+    }
+
+    /**
+     * @param unit "K" kilometers, "N" nautical miles, anything else statute miles
+     * @deprecated use {@link #distance(double, double, double, double, DistanceUnit)}
+     */
+    @Deprecated
     public static double distance(double lat1, double lon1, double lat2, double lon2, String unit) {
-        if ((lat1 == lat2) && (lon1 == lon2)) {
-            return 0;
-        }
-        else {
-            double theta = lon1 - lon2;
-            double dist = Math.sin(Math.toRadians(lat1)) * Math.sin(Math.toRadians(lat2)) + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.cos(Math.toRadians(theta));
-            dist = Math.acos(dist);
-            dist = Math.toDegrees(dist);
-            dist = dist * 60 * 1.1515;
-            if (unit.equals("K")) {
-                dist = dist * 1.609344;
-            } else if (unit.equals("N")) {
-                dist = dist * 0.8684;
-            }
-
-            System.out.println("Distance: " + dist);
-
-            return (dist);
-        }
+
+        if ("K".equals(unit))
+            return distance(lat1, lon1, lat2, lon2, DistanceUnit.KILOMETERS);
+        else if ("N".equals(unit))
+            return distance(lat1, lon1, lat2, lon2, DistanceUnit.NAUTICAL_MILES);
+        else
+            return distance(lat1, lon1, lat2, lon2, DistanceUnit.MILES);
     }
 
 }